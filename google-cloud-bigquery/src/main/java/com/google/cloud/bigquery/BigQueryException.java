@@ -19,6 +19,7 @@ package com.google.cloud.bigquery;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -102,9 +103,12 @@ public final class BigQueryException extends BaseServiceException {
    *
    * @throws BigQueryException when {@code ex} was caused by a {@code BigQueryException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws BigQueryException caused by {@code ex} when {@code ex} is a {@code ThrottledException}
+   * that was not caused by a {@code BigQueryException}
    */
   static BaseServiceException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new BigQueryException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new BigQueryException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
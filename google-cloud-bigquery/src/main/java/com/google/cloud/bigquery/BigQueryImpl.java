@@ -166,7 +166,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Dataset call() {
               return bigQueryRpc.create(datasetPb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -184,7 +185,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Table call() {
               return bigQueryRpc.create(tablePb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -202,7 +204,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Job call() {
               return bigQueryRpc.create(jobPb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -225,7 +228,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
               return bigQueryRpc.getDataset(
                   completeDatasetId.project(), completeDatasetId.dataset(), optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Dataset.fromPb(this, answer);
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
@@ -253,7 +257,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
                     Iterable<com.google.api.services.bigquery.model.Dataset>> call() {
                   return serviceOptions.rpc().listDatasets(projectId, optionsMap);
                 }
-              }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+              }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+              serviceOptions.retryThrottler());
       String cursor = result.x();
       return new PageImpl<>(new DatasetPageFetcher(projectId, serviceOptions, cursor, optionsMap),
           cursor, Iterables.transform(result.y(),
@@ -284,7 +289,7 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
           return bigQueryRpc.deleteDataset(
               completeDatasetId.project(), completeDatasetId.dataset(), optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -305,7 +310,7 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
           return bigQueryRpc.deleteTable(
               completeTableId.project(), completeTableId.dataset(), completeTableId.table());
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -323,7 +328,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Dataset call() {
               return bigQueryRpc.patch(datasetPb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -341,7 +347,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Table call() {
               return bigQueryRpc.patch(tablePb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -364,7 +371,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
               return bigQueryRpc.getTable(completeTableId.project(), completeTableId.dataset(),
                   completeTableId.table(), optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Table.fromPb(this, answer);
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
@@ -395,7 +403,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
                   return serviceOptions.rpc().listTables(
                       datasetId.project(), datasetId.dataset(), optionsMap);
                 }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.x();
       Iterable<Table> tables = Iterables.transform(result.y(),
           new Function<com.google.api.services.bigquery.model.Table, Table>() {
@@ -452,7 +461,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
                   .listTableData(completeTableId.project(), completeTableId.dataset(),
                       completeTableId.table(), optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.x();
       return new PageImpl<>(new TableDataPageFetcher(tableId, serviceOptions, cursor, optionsMap),
           cursor, transformTableData(result.y()));
@@ -488,7 +498,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.Job call() {
               return bigQueryRpc.getJob(completeJobId.project(), completeJobId.job(), optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Job.fromPb(this, answer);
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
@@ -510,7 +521,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
               call() {
             return serviceOptions.rpc().listJobs(serviceOptions.projectId(), optionsMap);
           }
-        }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+        }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+        serviceOptions.retryThrottler());
     String cursor = result.x();
     Iterable<Job> jobs = Iterables.transform(result.y(),
         new Function<com.google.api.services.bigquery.model.Job, Job>() {
@@ -536,7 +548,7 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
         public Boolean call() {
           return bigQueryRpc.cancel(completeJobId.project(), completeJobId.job());
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -551,7 +563,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
             public com.google.api.services.bigquery.model.QueryResponse call() {
               return bigQueryRpc.query(request.setProjectId(options().projectId()).toPb());
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       QueryResponse.Builder builder = QueryResponse.builder();
       JobId completeJobId = JobId.fromPb(results.getJobReference());
       builder.jobId(completeJobId);
@@ -598,7 +611,8 @@ final class BigQueryImpl extends BaseService<BigQueryOptions> implements BigQuer
               return serviceOptions.rpc().getQueryResults(
                   completeJobId.project(), completeJobId.job(), optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       QueryResponse.Builder builder = QueryResponse.builder();
       builder.jobId(JobId.fromPb(results.getJobReference()));
       builder.etag(results.getEtag());
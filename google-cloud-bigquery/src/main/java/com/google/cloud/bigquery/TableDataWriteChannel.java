@@ -24,6 +24,7 @@ import com.google.cloud.RestorableState;
 import com.google.cloud.RetryHelper;
 import com.google.cloud.WriteChannel;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.Callable;
 
 /**
@@ -49,7 +50,23 @@ class TableDataWriteChannel extends BaseWriteChannel<BigQueryOptions, WriteChann
         public void run() {
           options().rpc().write(uploadId(), buffer(), 0, position(), length, last);
         }
-      }), options().retryParams(), BigQueryImpl.EXCEPTION_HANDLER, options().clock());
+      }), options().retryParams(), BigQueryImpl.EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler());
+    } catch (RetryHelper.RetryHelperException e) {
+      throw BigQueryException.translateAndThrow(e);
+    }
+  }
+
+  @Override
+  protected void flushBuffer(final ByteBuffer content, final boolean last) {
+    try {
+      runWithRetries(callable(new Runnable() {
+        @Override
+        public void run() {
+          options().rpc().write(uploadId(), content, position(), last);
+        }
+      }), options().retryParams(), BigQueryImpl.EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
@@ -68,7 +85,8 @@ class TableDataWriteChannel extends BaseWriteChannel<BigQueryOptions, WriteChann
         public String call() {
           return options.rpc().open(writeChannelConfiguration.toPb());
         }
-      }, options.retryParams(), BigQueryImpl.EXCEPTION_HANDLER, options.clock());
+      }, options.retryParams(), BigQueryImpl.EXCEPTION_HANDLER, options.clock(),
+      options.retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw BigQueryException.translateAndThrow(e);
     }
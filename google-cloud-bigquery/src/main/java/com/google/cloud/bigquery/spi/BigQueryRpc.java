@@ -28,6 +28,7 @@ import com.google.api.services.bigquery.model.TableDataInsertAllResponse;
 import com.google.api.services.bigquery.model.TableRow;
 import com.google.cloud.bigquery.BigQueryException;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public interface BigQueryRpc {
@@ -254,4 +255,17 @@ public interface BigQueryRpc {
    */
   void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last);
+
+  /**
+   * Uploads the remaining bytes of the provided buffer to the resumable upload session at the
+   * specified position. The position of {@code toWrite} is not modified. Direct buffers are
+   * uploaded without being copied onto the heap.
+   *
+   * @param uploadId the resumable upload session URI
+   * @param toWrite a buffer of data to upload
+   * @param destOffset offset in the destination where to upload data to
+   * @param last {@code true} indicates that the last chunk is being uploaded
+   * @throws BigQueryException upon failure
+   */
+  void write(String uploadId, ByteBuffer toWrite, long destOffset, boolean last);
 }
@@ -31,6 +31,7 @@ import static java.net.HttpURLConnection.HTTP_OK;
 
 import com.google.api.client.http.ByteArrayContent;
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpRequestInitializer;
@@ -58,6 +59,7 @@ import com.google.api.services.bigquery.model.TableDataList;
 import com.google.api.services.bigquery.model.TableList;
 import com.google.api.services.bigquery.model.TableReference;
 import com.google.api.services.bigquery.model.TableRow;
+import com.google.cloud.ByteBufferContent;
 import com.google.cloud.bigquery.BigQueryException;
 import com.google.cloud.bigquery.BigQueryOptions;
 import com.google.common.base.Function;
@@ -66,6 +68,7 @@ import com.google.common.collect.Iterables;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -434,10 +437,20 @@ public class DefaultBigQueryRpc implements BigQueryRpc {
   @Override
   public void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last) {
+    write(uploadId, new ByteArrayContent(null, toWrite, toWriteOffset, length), destOffset, length,
+        last);
+  }
+
+  @Override
+  public void write(String uploadId, ByteBuffer toWrite, long destOffset, boolean last) {
+    write(uploadId, new ByteBufferContent(null, toWrite), destOffset, toWrite.remaining(), last);
+  }
+
+  private void write(String uploadId, HttpContent content, long destOffset, int length,
+      boolean last) {
     try {
       GenericUrl url = new GenericUrl(uploadId);
-      HttpRequest httpRequest = bigquery.getRequestFactory().buildPutRequest(url,
-          new ByteArrayContent(null, toWrite, toWriteOffset, length));
+      HttpRequest httpRequest = bigquery.getRequestFactory().buildPutRequest(url, content);
       long limit = destOffset + length;
       StringBuilder range = new StringBuilder("bytes ");
       range.append(destOffset).append('-').append(limit - 1).append('/');
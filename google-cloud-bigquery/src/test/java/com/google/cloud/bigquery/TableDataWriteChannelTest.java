@@ -128,15 +128,14 @@ public class TableDataWriteChannelTest {
   @Test
   public void testWriteWithFlush() throws IOException {
     expect(bigqueryRpcMock.open(LOAD_CONFIGURATION.toPb())).andReturn(UPLOAD_ID);
-    Capture<byte[]> capturedBuffer = Capture.newInstance();
-    bigqueryRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L),
-        eq(CUSTOM_CHUNK_SIZE), eq(false));
+    Capture<ByteBuffer> capturedBuffer = Capture.newInstance();
+    bigqueryRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0L), eq(false));
     replay(bigqueryRpcMock);
     writer = new TableDataWriteChannel(options, LOAD_CONFIGURATION);
     writer.chunkSize(CUSTOM_CHUNK_SIZE);
     ByteBuffer buffer = randomBuffer(CUSTOM_CHUNK_SIZE);
     assertEquals(CUSTOM_CHUNK_SIZE, writer.write(buffer));
-    assertArrayEquals(buffer.array(), capturedBuffer.getValue());
+    assertEquals(ByteBuffer.wrap(buffer.array()), capturedBuffer.getValue());
   }
 
   @Test
@@ -209,22 +208,22 @@ public class TableDataWriteChannelTest {
   @Test
   public void testSaveAndRestore() throws IOException {
     expect(bigqueryRpcMock.open(LOAD_CONFIGURATION.toPb())).andReturn(UPLOAD_ID);
-    Capture<byte[]> capturedBuffer = Capture.newInstance(CaptureType.ALL);
+    Capture<ByteBuffer> capturedBuffer = Capture.newInstance(CaptureType.ALL);
     Capture<Long> capturedPosition = Capture.newInstance(CaptureType.ALL);
-    bigqueryRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0),
-        captureLong(capturedPosition), eq(DEFAULT_CHUNK_SIZE), eq(false));
+    bigqueryRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), captureLong(capturedPosition),
+        eq(false));
     expectLastCall().times(2);
     replay(bigqueryRpcMock);
     ByteBuffer buffer1 = randomBuffer(DEFAULT_CHUNK_SIZE);
     ByteBuffer buffer2 = randomBuffer(DEFAULT_CHUNK_SIZE);
     writer = new TableDataWriteChannel(options, LOAD_CONFIGURATION);
     assertEquals(DEFAULT_CHUNK_SIZE, writer.write(buffer1));
-    assertArrayEquals(buffer1.array(), capturedBuffer.getValues().get(0));
+    assertEquals(ByteBuffer.wrap(buffer1.array()), capturedBuffer.getValues().get(0));
     assertEquals(new Long(0L), capturedPosition.getValues().get(0));
     RestorableState<WriteChannel> writerState = writer.capture();
     WriteChannel restoredWriter = writerState.restore();
     assertEquals(DEFAULT_CHUNK_SIZE, restoredWriter.write(buffer2));
-    assertArrayEquals(buffer2.array(), capturedBuffer.getValues().get(1));
+    assertEquals(ByteBuffer.wrap(buffer2.array()), capturedBuffer.getValues().get(1));
     assertEquals(new Long(DEFAULT_CHUNK_SIZE), capturedPosition.getValues().get(1));
   }
 
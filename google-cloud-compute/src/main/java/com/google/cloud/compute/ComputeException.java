@@ -19,6 +19,7 @@ package com.google.cloud.compute;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -55,9 +56,12 @@ public class ComputeException extends BaseServiceException {
    *
    * @throws ComputeException when {@code ex} was caused by a {@code ComputeException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws ComputeException caused by {@code ex} when {@code ex} is a {@code ThrottledException}
+   * that was not caused by a {@code ComputeException}
    */
   static BaseServiceException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new ComputeException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new ComputeException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
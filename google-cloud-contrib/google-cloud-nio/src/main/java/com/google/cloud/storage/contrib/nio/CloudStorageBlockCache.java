@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage.contrib.nio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.cloud.storage.BlobId;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Cache of blob content blocks, shared by the read channels of a {@link CloudStorageFileSystem}.
+ * Blocks are keyed by blob (including its generation) and block index. Least recently used blocks
+ * are evicted once the cache holds more than the configured number of bytes.
+ */
+@ThreadSafe
+final class CloudStorageBlockCache {
+
+  private final int blockSize;
+  private final Cache<BlockKey, byte[]> blocks;
+
+  CloudStorageBlockCache(int blockSize, long maxBytes) {
+    checkArgument(blockSize > 0, "blockSize must be positive: %s", blockSize);
+    checkArgument(maxBytes > 0, "maxBytes must be positive: %s", maxBytes);
+    this.blockSize = blockSize;
+    this.blocks = CacheBuilder.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher(new Weigher<BlockKey, byte[]>() {
+          @Override
+          public int weigh(BlockKey key, byte[] block) {
+            return block.length;
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns the size in bytes of the cached blocks. Only the last block of a blob can be shorter.
+   */
+  int blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Returns block number {@code index} of {@code blob}, calling {@code loader} if the block is not
+   * cached. Concurrent requests for the same missing block wait for a single load.
+   */
+  byte[] get(BlobId blob, long index, Callable<byte[]> loader) throws IOException {
+    try {
+      return blocks.get(BlockKey.create(blob, index), loader);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    } catch (UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @AutoValue
+  abstract static class BlockKey {
+
+    abstract BlobId blob();
+
+    abstract long index();
+
+    static BlockKey create(BlobId blob, long index) {
+      return new AutoValue_CloudStorageBlockCache_BlockKey(blob, index);
+    }
+  }
+}
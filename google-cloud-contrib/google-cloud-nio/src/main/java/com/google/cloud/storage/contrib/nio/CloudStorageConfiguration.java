@@ -59,6 +59,26 @@ public abstract class CloudStorageConfiguration {
    */
   public abstract int blockSize();
 
+  /**
+   * Returns the maximum number of bytes held by the file system's block cache, or {@code 0} if the
+   * cache is disabled. When enabled, read channels fetch blob content in blocks of
+   * {@link #blockSize()} bytes that are shared by all channels opened on the file system.
+   */
+  public abstract long blockCacheSize();
+
+  /**
+   * Returns the maximum number of blob metadata entries held by the file system's metadata cache,
+   * or {@code 0} if the cache is disabled. When enabled, attributes read through the file system
+   * and the metadata listed by directory streams are reused for
+   * {@link #metadataCacheExpirationMillis()}.
+   */
+  public abstract int metadataCacheSize();
+
+  /**
+   * Returns the number of milliseconds after which an entry of the metadata cache expires.
+   */
+  public abstract long metadataCacheExpirationMillis();
+
   /**
    * Creates a new builder, initialized with the following settings:
    *
@@ -66,6 +86,8 @@ public abstract class CloudStorageConfiguration {
    * <li>Performing I/O on paths with extra slashes, e.g. {@code a//b} will throw an error.
    * <li>The prefix slash on absolute paths will be removed when converting to an object name.
    * <li>Pseudo-directories are enabled, so any path with a trailing slash is a fake directory.
+   * <li>The block cache is disabled.
+   * <li>The metadata cache is disabled.
    * </ul>
    */
   public static Builder builder() {
@@ -82,6 +104,9 @@ public abstract class CloudStorageConfiguration {
     private boolean stripPrefixSlash = true;
     private boolean usePseudoDirectories = true;
     private int blockSize = CloudStorageFileSystem.BLOCK_SIZE_DEFAULT;
+    private long blockCacheSize;
+    private int metadataCacheSize;
+    private long metadataCacheExpirationMillis = 10_000;
 
     /**
      * Changes current working directory for new filesystem. This defaults to the root directory.
@@ -134,6 +159,46 @@ public abstract class CloudStorageConfiguration {
       return this;
     }
 
+    /**
+     * Sets the maximum number of bytes held by the block cache. Random-access reads, e.g. reading
+     * a file's footer after seeking back and forth, are then served from memory when the same
+     * blocks are read again, by any channel of the file system. Least recently used blocks are
+     * evicted first.
+     *
+     * <p>The default is {@code 0}, which disables the cache.
+     */
+    public Builder blockCacheSize(long value) {
+      checkArgument(value >= 0, "blockCacheSize must be non-negative: %s", value);
+      blockCacheSize = value;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of blob metadata entries held by the metadata cache. Reading
+     * attributes, checking for existence or copying attributes then doesn't issue a request for
+     * blobs whose metadata was recently read or listed by a directory stream. Entries are removed
+     * when the file system deletes, moves or writes the blob, but changes made by other clients go
+     * unnoticed until the entry expires.
+     *
+     * <p>The default is {@code 0}, which disables the cache.
+     */
+    public Builder metadataCacheSize(int value) {
+      checkArgument(value >= 0, "metadataCacheSize must be non-negative: %s", value);
+      metadataCacheSize = value;
+      return this;
+    }
+
+    /**
+     * Sets the number of milliseconds after which an entry of the metadata cache expires.
+     *
+     * <p>The default is {@code 10000}.
+     */
+    public Builder metadataCacheExpirationMillis(long value) {
+      checkArgument(value > 0, "metadataCacheExpirationMillis must be positive: %s", value);
+      metadataCacheExpirationMillis = value;
+      return this;
+    }
+
     /**
      * Creates new instance without destroying builder.
      */
@@ -143,7 +208,10 @@ public abstract class CloudStorageConfiguration {
           permitEmptyPathComponents,
           stripPrefixSlash,
           usePseudoDirectories,
-          blockSize);
+          blockSize,
+          blockCacheSize,
+          metadataCacheSize,
+          metadataCacheExpirationMillis);
     }
 
     Builder() {}
@@ -168,6 +236,15 @@ public abstract class CloudStorageConfiguration {
         case "blockSize":
           builder.blockSize((Integer) entry.getValue());
           break;
+        case "blockCacheSize":
+          builder.blockCacheSize(((Number) entry.getValue()).longValue());
+          break;
+        case "metadataCacheSize":
+          builder.metadataCacheSize((Integer) entry.getValue());
+          break;
+        case "metadataCacheExpirationMillis":
+          builder.metadataCacheExpirationMillis(((Number) entry.getValue()).longValue());
+          break;
         default:
           throw new IllegalArgumentException(entry.getKey());
       }
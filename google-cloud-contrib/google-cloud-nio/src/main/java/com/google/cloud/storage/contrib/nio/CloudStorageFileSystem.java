@@ -60,6 +60,8 @@ public final class CloudStorageFileSystem extends FileSystem {
   private final CloudStorageFileSystemProvider provider;
   private final String bucket;
   private final CloudStorageConfiguration config;
+  @Nullable private final CloudStorageBlockCache blockCache;
+  @Nullable private final CloudStorageMetadataCache metadataCache;
 
   /**
    * Returns Google Cloud Storage {@link FileSystem} object for {@code bucket}.
@@ -124,6 +126,12 @@ public final class CloudStorageFileSystem extends FileSystem {
     this.provider = provider;
     this.bucket = bucket;
     this.config = config;
+    this.blockCache = config.blockCacheSize() > 0
+        ? new CloudStorageBlockCache(config.blockSize(), config.blockCacheSize()) : null;
+    this.metadataCache = config.metadataCacheSize() > 0
+        ? new CloudStorageMetadataCache(
+            config.metadataCacheSize(), config.metadataCacheExpirationMillis())
+        : null;
   }
 
   @Override
@@ -145,6 +153,23 @@ public final class CloudStorageFileSystem extends FileSystem {
     return config;
   }
 
+  /**
+   * Returns the block cache shared by the read channels of this file system, or {@code null} if
+   * the cache is disabled.
+   */
+  @Nullable
+  CloudStorageBlockCache blockCache() {
+    return blockCache;
+  }
+
+  /**
+   * Returns the blob metadata cache of this file system, or {@code null} if the cache is disabled.
+   */
+  @Nullable
+  CloudStorageMetadataCache metadataCache() {
+    return metadataCache;
+  }
+
   /**
    * Converts Cloud Storage object name to a {@link Path} object.
    */
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 
 import com.google.auto.service.AutoService;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.storage.Acl;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
@@ -38,6 +39,7 @@ import com.google.common.primitives.Ints;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AccessMode;
@@ -67,6 +69,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -85,6 +92,8 @@ import javax.inject.Singleton;
 @AutoService(FileSystemProvider.class)
 public final class CloudStorageFileSystemProvider extends FileSystemProvider {
 
+  private static final long MEGABYTE = 1024 * 1024;
+
   private Storage storage;
   private StorageOptions storageOptions;
 
@@ -95,18 +104,24 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     private final Iterator<Blob> blobIterator;
     private final Filter<? super Path> filter;
     private final CloudStorageFileSystem fileSystem;
+    @Nullable private final CloudStorageMetadataCache metadataCache;
 
     LazyPathIterator(CloudStorageFileSystem fileSystem, Iterator<Blob> blobIterator,
                      Filter<? super Path> filter) {
       this.blobIterator = blobIterator;
       this.filter = filter;
       this.fileSystem = fileSystem;
+      this.metadataCache = fileSystem.metadataCache();
     }
 
     @Override
     protected Path computeNext() {
       while (blobIterator.hasNext()) {
-        Path path = fileSystem.getPath(blobIterator.next().name());
+        Blob blob = blobIterator.next();
+        if (metadataCache != null && !blob.isDirectory()) {
+          metadataCache.put(blob);
+        }
+        Path path = fileSystem.getPath(blob.name());
         try {
           if (filter.accept(path)) {
             return path;
@@ -119,6 +134,28 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     }
   }
 
+  /**
+   * Receives the progress of the copies and moves performed by
+   * {@link #copy(Map, int, CopyListener, CopyOption...)} and
+   * {@link #move(Map, int, CopyListener, CopyOption...)}. Methods are called from the threads
+   * running the copies, therefore implementations must be thread-safe.
+   */
+  public interface CopyListener {
+
+    /**
+     * Called after each chunk of {@code source} has been copied to {@code target}.
+     *
+     * @param bytesCopied the number of bytes copied so far
+     * @param totalBytes the size of {@code source}
+     */
+    void progress(Path source, Path target, long bytesCopied, long totalBytes);
+
+    /**
+     * Called once {@code source} has been copied (or moved) to {@code target}.
+     */
+    void done(Path source, Path target);
+  }
+
   /**
    * Sets options that are only used by the constructor.
    */
@@ -255,7 +292,8 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       throw new CloudStoragePseudoDirectoryException(cloudPath);
     }
-    return CloudStorageReadChannel.create(storage, cloudPath.getBlobId(), 0);
+    return CloudStorageReadChannel.create(
+        storage, cloudPath.getBlobId(), 0, cloudPath.getFileSystem().blockCache());
   }
 
   private SeekableByteChannel newWriteChannel(Path path, Set<? extends OpenOption> options)
@@ -324,9 +362,14 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     }
 
     try {
+      CloudStorageMetadataCache metadataCache = cloudPath.getFileSystem().metadataCache();
+      if (metadataCache != null) {
+        metadataCache.invalidate(file);
+      }
       return new CloudStorageWriteChannel(
           storage.writer(infoBuilder.build(),
-              writeOptions.toArray(new Storage.BlobWriteOption[writeOptions.size()])));
+              writeOptions.toArray(new Storage.BlobWriteOption[writeOptions.size()])),
+          metadataCache, file);
     } catch (StorageException oops) {
       throw asIoException(oops);
     }
@@ -353,6 +396,10 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       throw new CloudStoragePseudoDirectoryException(cloudPath);
     }
+    CloudStorageMetadataCache metadataCache = cloudPath.getFileSystem().metadataCache();
+    if (metadataCache != null) {
+      metadataCache.invalidate(cloudPath.getBlobId());
+    }
     return storage.delete(cloudPath.getBlobId());
   }
 
@@ -380,8 +427,138 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     delete(source);
   }
 
+  /**
+   * Moves each source path (a key of {@code moves}) to its target path, running up to
+   * {@code parallelism} moves at the same time. Each move behaves like
+   * {@link #move(Path, Path, CopyOption...)}. All moves are attempted even if some of them fail.
+   * Moves run like the copies of {@link #copy(Map, int, CopyListener, CopyOption...)}.
+   *
+   * @param listener receives the progress of each move, may be {@code null}
+   * @throws IOException if any move fails, further failures are added as suppressed exceptions
+   */
+  public void move(Map<? extends Path, ? extends Path> moves, int parallelism,
+      @Nullable CopyListener listener, CopyOption... options) throws IOException {
+    checkNotNull(moves);
+    CloudStorageUtil.checkNotNullArray(options);
+    for (CopyOption option : options) {
+      if (option == StandardCopyOption.ATOMIC_MOVE) {
+        throw new AtomicMoveNotSupportedException(null, null,
+            "Google Cloud Storage does not support atomic move operations.");
+      }
+    }
+    copyAll(moves, parallelism, listener, true, options);
+  }
+
+  /**
+   * Copies each source path (a key of {@code copies}) to its target path, running up to
+   * {@code parallelism} copies at the same time. Each copy behaves like
+   * {@link #copy(Path, Path, CopyOption...)}: the service copies objects in chunks of the block
+   * size, which is also the granularity of the progress reported to {@code listener}. All copies
+   * are attempted even if some of them fail.
+   *
+   * <p>Copies run on the executor provided by {@link StorageOptions#executorFactory()}, so no more
+   * copies than the executor's threads run at the same time: the default executor is a pool of 8
+   * threads shared by all clients. If the calling thread is interrupted, copies that did not
+   * complete yet are cancelled and {@link InterruptedIOException} is thrown.
+   *
+   * @param listener receives the progress of each copy, may be {@code null}
+   * @throws IOException if any copy fails, further failures are added as suppressed exceptions
+   */
+  public void copy(Map<? extends Path, ? extends Path> copies, int parallelism,
+      @Nullable CopyListener listener, CopyOption... options) throws IOException {
+    copyAll(copies, parallelism, listener, false, options);
+  }
+
+  private void copyAll(Map<? extends Path, ? extends Path> copies, int parallelism,
+      @Nullable final CopyListener listener, final boolean move, final CopyOption... options)
+      throws IOException {
+    checkNotNull(copies);
+    CloudStorageUtil.checkNotNullArray(options);
+    checkArgument(parallelism > 0, "parallelism must be positive");
+    initStorage();
+    ExecutorFactory<ScheduledExecutorService> executorFactory =
+        storage.options().executorFactory();
+    ScheduledExecutorService executor = executorFactory.get();
+    final Semaphore permits = new Semaphore(parallelism);
+    List<Map.Entry<? extends Path, ? extends Path>> entries = new ArrayList<>(copies.size());
+    List<Future<Void>> results = new ArrayList<>(copies.size());
+    IOException failure = null;
+    try {
+      for (Map.Entry<? extends Path, ? extends Path> entry : copies.entrySet()) {
+        final Path source = entry.getKey();
+        final Path target = entry.getValue();
+        permits.acquire();
+        entries.add(entry);
+        results.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            try {
+              copyPath(source, target, listener, options);
+              if (move) {
+                delete(source);
+              }
+              if (listener != null) {
+                listener.done(source, target);
+              }
+              return null;
+            } finally {
+              permits.release();
+            }
+          }
+        }));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          results.get(i).get();
+        } catch (ExecutionException e) {
+          IOException exception = copyException(entries.get(i), move, e.getCause());
+          if (failure == null) {
+            failure = exception;
+          } else {
+            failure.addSuppressed(exception);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      // copies that did not complete yet are cancelled
+      for (Future<Void> result : results) {
+        result.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      InterruptedIOException exception =
+          new InterruptedIOException((move ? "Move" : "Copy") + " was interrupted");
+      exception.initCause(e);
+      throw exception;
+    } finally {
+      executorFactory.release(executor);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Returns the exception to report for a failed copy or move. Exceptions other than
+   * {@link IOException} (e.g. {@link StorageException}) are wrapped in an {@code IOException} whose
+   * message has the source and target paths.
+   */
+  private static IOException copyException(Map.Entry<? extends Path, ? extends Path> entry,
+      boolean move, Throwable cause) {
+    Throwables.propagateIfInstanceOf(cause, Error.class);
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    return new IOException(String.format("Failed to %s %s to %s: %s", move ? "move" : "copy",
+        entry.getKey().toUri(), entry.getValue().toUri(), cause.getMessage()), cause);
+  }
+
   @Override
   public void copy(Path source, Path target, CopyOption... options) throws IOException {
+    copyPath(source, target, null, options);
+  }
+
+  private void copyPath(Path source, Path target, @Nullable CopyListener listener,
+      CopyOption... options) throws IOException {
     initStorage();
     boolean wantCopyAttributes = false;
     boolean wantReplaceExisting = false;
@@ -439,7 +616,6 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
             : Ints.max(
                 fromPath.getFileSystem().config().blockSize(),
                 toPath.getFileSystem().config().blockSize());
-    // TODO: actually use blockSize
 
     if (fromPath.seemsLikeADirectory() && toPath.seemsLikeADirectory()) {
       if (fromPath.getFileSystem().config().usePseudoDirectories()
@@ -462,7 +638,7 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
 
     try {
       if (wantCopyAttributes) {
-        BlobInfo blobInfo = storage.get(fromPath.getBlobId());
+        BlobInfo blobInfo = getBlobInfo(fromPath);
         if (null == blobInfo) {
           throw new NoSuchFileException(fromPath.toString());
         }
@@ -483,15 +659,29 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
       }
 
       BlobInfo tgtInfo = tgtInfoBuilder.build();
-      Storage.CopyRequest.Builder copyReqBuilder =
-          Storage.CopyRequest.builder().source(fromPath.getBlobId());
+      // the service copies whole megabytes per call
+      Storage.CopyRequest.Builder copyReqBuilder = Storage.CopyRequest.builder()
+          .source(fromPath.getBlobId())
+          .megabytesCopiedPerChunk(Math.max(1, (blockSize + MEGABYTE - 1) / MEGABYTE));
       if (wantReplaceExisting) {
         copyReqBuilder = copyReqBuilder.target(tgtInfo);
       } else {
         copyReqBuilder = copyReqBuilder.target(tgtInfo, Storage.BlobTargetOption.doesNotExist());
       }
+      CloudStorageMetadataCache metadataCache = toPath.getFileSystem().metadataCache();
+      if (metadataCache != null) {
+        metadataCache.invalidate(toPath.getBlobId());
+      }
       CopyWriter copyWriter = storage.copy(copyReqBuilder.build());
-      copyWriter.result();
+      while (true) {
+        if (listener != null) {
+          listener.progress(source, target, copyWriter.totalBytesCopied(), copyWriter.blobSize());
+        }
+        if (copyWriter.isDone()) {
+          break;
+        }
+        copyWriter.copyChunk();
+      }
     } catch (StorageException oops) {
       throw asIoException(oops);
     }
@@ -528,8 +718,10 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       return;
     }
-    if (storage.get(cloudPath.getBlobId(), Storage.BlobGetOption.fields(Storage.BlobField.ID))
-        == null) {
+    BlobInfo blobInfo = cloudPath.getFileSystem().metadataCache() != null
+        ? getBlobInfo(cloudPath)
+        : storage.get(cloudPath.getBlobId(), Storage.BlobGetOption.fields(Storage.BlobField.ID));
+    if (blobInfo == null) {
       throw new NoSuchFileException(path.toString());
     }
   }
@@ -549,7 +741,7 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
       A result = (A) new CloudStoragePseudoDirectoryAttributes(cloudPath);
       return result;
     }
-    BlobInfo blobInfo = storage.get(cloudPath.getBlobId());
+    BlobInfo blobInfo = getBlobInfo(cloudPath);
     // null size indicate a file that we haven't closed yet, so GCS treats it as not there yet.
     if (null == blobInfo || blobInfo.size() == null) {
       throw new NoSuchFileException(
@@ -599,9 +791,15 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     checkNotNull(filter);
     initStorage();
     String prefix = cloudPath.toString();
+    List<Storage.BlobListOption> listOptions = new ArrayList<>();
+    listOptions.add(Storage.BlobListOption.prefix(prefix));
+    listOptions.add(Storage.BlobListOption.currentDirectory());
+    if (cloudPath.getFileSystem().metadataCache() == null) {
+      // only names are needed, unless the listed metadata can be cached
+      listOptions.add(Storage.BlobListOption.fields());
+    }
     final Iterator<Blob> blobIterator = storage.list(cloudPath.bucket(),
-        Storage.BlobListOption.prefix(prefix), Storage.BlobListOption.currentDirectory(),
-        Storage.BlobListOption.fields()).iterateAll();
+        listOptions.toArray(new Storage.BlobListOption[listOptions.size()])).iterateAll();
     return new DirectoryStream<Path>() {
       @Override
       public Iterator<Path> iterator() {
@@ -649,6 +847,23 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     return MoreObjects.toStringHelper(this).add("storage", storage).toString();
   }
 
+  /**
+   * Returns the metadata of the blob at {@code path}, or {@code null} if it doesn't exist. If the
+   * file system has a metadata cache, cached metadata is returned and fetched metadata is cached.
+   */
+  @Nullable
+  private BlobInfo getBlobInfo(CloudStoragePath path) {
+    CloudStorageMetadataCache metadataCache = path.getFileSystem().metadataCache();
+    BlobInfo blobInfo = metadataCache != null ? metadataCache.get(path.getBlobId()) : null;
+    if (blobInfo == null) {
+      blobInfo = storage.get(path.getBlobId());
+      if (blobInfo != null && metadataCache != null) {
+        metadataCache.put(blobInfo);
+      }
+    }
+    return blobInfo;
+  }
+
   private IOException asIoException(StorageException oops) {
     // RPC API can only throw StorageException, but CloudStorageFileSystemProvider
     // can only throw IOException. Square peg, round hole.
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage.contrib.nio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Cache of blob metadata, shared by the operations of a {@link CloudStorageFileSystem}. Entries are
+ * keyed by bucket and blob name and expire a fixed time after being written. Least recently used
+ * entries are evicted once the cache holds the configured number of entries.
+ */
+@ThreadSafe
+final class CloudStorageMetadataCache {
+
+  private final Cache<BlobId, BlobInfo> entries;
+
+  CloudStorageMetadataCache(int maxEntries, long expirationMillis) {
+    checkArgument(maxEntries > 0, "maxEntries must be positive: %s", maxEntries);
+    checkArgument(expirationMillis > 0, "expirationMillis must be positive: %s", expirationMillis);
+    this.entries = CacheBuilder.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(expirationMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Returns the cached metadata of {@code blob}, or {@code null} if it's not cached.
+   */
+  @Nullable
+  BlobInfo get(BlobId blob) {
+    return entries.getIfPresent(key(blob));
+  }
+
+  void put(BlobInfo blobInfo) {
+    entries.put(key(blobInfo.blobId()), blobInfo);
+  }
+
+  void invalidate(BlobId blob) {
+    entries.invalidate(key(blob));
+  }
+
+  private static BlobId key(BlobId blob) {
+    return blob.generation() == null ? blob : BlobId.of(blob.bucket(), blob.name());
+  }
+}
@@ -19,9 +19,11 @@ package com.google.cloud.storage.contrib.nio;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageReadChannel;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -29,39 +31,96 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
 
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Cloud Storage read channel.
  *
+ * <p>Opening the channel costs a single request: the size and generation of the blob are taken
+ * from the response carrying the first chunk of content, which is kept for the first read. All
+ * reads are pinned to that generation. Storage implementations whose readers are not
+ * {@link StorageReadChannel}s cost an additional metadata request.
+ *
+ * <p>If the file system has a block cache (see
+ * {@link CloudStorageConfiguration#blockCacheSize()}), content is read through the cache in blocks
+ * of the blob's current generation, so that seeking back to already read regions does not issue
+ * new requests.
+ *
+ * <p>Besides sequential reads, the channel supports positional reads (see
+ * {@link #read(ByteBuffer, long)}) that neither use nor change the channel's position, so that
+ * several threads can read different regions of a blob in parallel.
+ *
  * @see CloudStorageWriteChannel
  */
 @ThreadSafe
-final class CloudStorageReadChannel implements SeekableByteChannel {
+public final class CloudStorageReadChannel implements SeekableByteChannel {
 
   private final ReadChannel channel;
-  private long position;
-  private long size;
+  private volatile long position;
+  private volatile long size;
+  private final Storage gcsStorage;
+  private final BlobId blob;
+  @Nullable private final CloudStorageBlockCache blockCache;
 
   @CheckReturnValue
-  @SuppressWarnings("resource")
   static CloudStorageReadChannel create(Storage gcsStorage, BlobId file, long position)
       throws IOException {
-    // XXX: Reading size and opening file should be atomic.
-    long size = fetchSize(gcsStorage, file);
+    return create(gcsStorage, file, position, null);
+  }
+
+  @CheckReturnValue
+  @SuppressWarnings("resource")
+  static CloudStorageReadChannel create(Storage gcsStorage, BlobId file, long position,
+      @Nullable CloudStorageBlockCache blockCache) throws IOException {
     ReadChannel channel = gcsStorage.reader(file);
-    if (position > 0) {
-      channel.seek((int) position);
+    long size;
+    Long generation;
+    try {
+      if (blockCache != null) {
+        // the first response then carries the block that holds position
+        channel.chunkSize(blockCache.blockSize());
+        channel.seek(position - position % blockCache.blockSize());
+      } else if (position > 0) {
+        channel.seek(position);
+      }
+      if (channel instanceof StorageReadChannel) {
+        StorageReadChannel storageChannel = (StorageReadChannel) channel;
+        size = storageChannel.size();
+        generation = storageChannel.generation();
+      } else {
+        // other Storage implementations need a metadata request
+        Blob blobInfo = gcsStorage.get(file);
+        if (blobInfo == null) {
+          throw new StorageException(404, "Blob not found");
+        }
+        size = blobInfo.size();
+        generation = blobInfo.generation();
+      }
+    } catch (StorageException e) {
+      channel.close();
+      if (e.code() == 404) {
+        throw new NoSuchFileException(String.format("gs://%s/%s", file.bucket(), file.name()));
+      }
+      throw e;
     }
-    return new CloudStorageReadChannel(position, size, channel);
+    // cached blocks must all belong to the same generation
+    BlobId blob = BlobId.of(file.bucket(), file.name(), generation);
+    return new CloudStorageReadChannel(position, size, channel, gcsStorage, blob, blockCache);
   }
 
-  private CloudStorageReadChannel(long position, long size, ReadChannel channel) {
+  private CloudStorageReadChannel(long position, long size, ReadChannel channel,
+      Storage gcsStorage, BlobId blob, @Nullable CloudStorageBlockCache blockCache) {
     this.position = position;
     this.size = size;
     this.channel = channel;
+    this.gcsStorage = gcsStorage;
+    this.blob = blob;
+    this.blockCache = blockCache;
   }
 
   @Override
@@ -82,10 +141,19 @@ final class CloudStorageReadChannel implements SeekableByteChannel {
   public int read(ByteBuffer dst) throws IOException {
     synchronized (this) {
       checkOpen();
+      if (blockCache != null) {
+        if (position >= size) {
+          return -1;
+        }
+        // missing blocks are read through the channel, which is only used while holding the lock
+        int amt = readCached(dst, position, channel);
+        position += amt;
+        return amt == 0 && dst.hasRemaining() ? -1 : amt;
+      }
       int amt = channel.read(dst);
       if (amt > 0) {
         position += amt;
-        // XXX: This would only ever happen if the fetchSize() race-condition occurred.
+        // this would only happen if the service did not report the blob's generation
         if (position > size) {
           size = position;
         }
@@ -94,20 +162,56 @@ final class CloudStorageReadChannel implements SeekableByteChannel {
     }
   }
 
+  /**
+   * Reads a sequence of bytes from this channel into {@code dst}, starting at the given position of
+   * the blob. Like {@link java.nio.channels.FileChannel#read(ByteBuffer, long)}, this method does
+   * not change the channel's position. Positional reads do not wait for other reads to complete:
+   * each of them issues independent ranged requests, unless the content is served by the block
+   * cache.
+   *
+   * @return the number of bytes read, or {@code -1} if {@code position} is greater than or equal to
+   *     the blob's size
+   */
+  public int read(ByteBuffer dst, long position) throws IOException {
+    checkArgument(position >= 0, "position must be non-negative: %s", position);
+    checkOpen();
+    if (position >= size) {
+      return -1;
+    }
+    if (!dst.hasRemaining()) {
+      return 0;
+    }
+    int amt;
+    if (blockCache != null) {
+      amt = readCached(dst, position, null);
+    } else {
+      amt = 0;
+      try (ReadChannel reader = gcsStorage.reader(blob)) {
+        // a single request covers the whole range, up to the end of the blob
+        reader.chunkSize((int) Math.min(dst.remaining(), size - position));
+        reader.seek(position);
+        while (dst.hasRemaining()) {
+          int read = reader.read(dst);
+          if (read < 0) {
+            break;
+          }
+          amt += read;
+        }
+      }
+    }
+    return amt == 0 ? -1 : amt;
+  }
+
   @Override
   public long size() throws IOException {
-    synchronized (this) {
-      checkOpen();
-      return size;
-    }
+    checkOpen();
+    return size;
   }
 
   @Override
   public long position() throws IOException {
-    synchronized (this) {
-      checkOpen();
-      return position;
-    }
+    checkOpen();
+    return position;
   }
 
   @Override
@@ -118,7 +222,9 @@ final class CloudStorageReadChannel implements SeekableByteChannel {
       if (newPosition == position) {
         return this;
       }
-      channel.seek(newPosition);
+      if (blockCache == null) {
+        channel.seek(newPosition);
+      }
       position = newPosition;
       return this;
     }
@@ -140,11 +246,60 @@ final class CloudStorageReadChannel implements SeekableByteChannel {
     }
   }
 
-  private static long fetchSize(Storage gcsStorage, BlobId file) throws IOException {
-    BlobInfo blobInfo = gcsStorage.get(file);
-    if (blobInfo == null) {
-      throw new NoSuchFileException(String.format("gs://%s/%s", file.bucket(), file.name()));
+  /**
+   * Reads content from {@code position} into {@code dst} through the block cache, up to the end of
+   * {@code dst} or of the blob. Missing blocks are read through {@code reader}, or through a new
+   * reader if {@code null}. Returns the number of bytes read.
+   */
+  private int readCached(ByteBuffer dst, long position, @Nullable ReadChannel reader)
+      throws IOException {
+    int blockSize = blockCache.blockSize();
+    long size = this.size;
+    int amt = 0;
+    while (dst.hasRemaining() && position < size) {
+      long index = position / blockSize;
+      byte[] block = blockCache.get(blob, index, blockLoader(index, blockSize, reader));
+      int offset = (int) (position - index * blockSize);
+      if (offset >= block.length) {
+        // the blob is shorter than its size, this would only happen if the blob was deleted
+        break;
+      }
+      int length = Math.min(block.length - offset, dst.remaining());
+      dst.put(block, offset, length);
+      position += length;
+      amt += length;
+    }
+    return amt;
+  }
+
+  private Callable<byte[]> blockLoader(final long index, final int blockSize,
+      @Nullable final ReadChannel reader) {
+    return new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws IOException {
+        long offset = index * blockSize;
+        ByteBuffer block = ByteBuffer.allocate((int) Math.min(blockSize, size - offset));
+        if (reader != null) {
+          readBlock(reader, offset, block);
+        } else {
+          try (ReadChannel blockReader = gcsStorage.reader(blob)) {
+            blockReader.chunkSize(block.capacity());
+            readBlock(blockReader, offset, block);
+          }
+        }
+        return block.hasRemaining()
+            ? Arrays.copyOf(block.array(), block.position()) : block.array();
+      }
+    };
+  }
+
+  private static void readBlock(ReadChannel reader, long offset, ByteBuffer block)
+      throws IOException {
+    reader.seek(offset);
+    while (block.hasRemaining()) {
+      if (reader.read(block) < 0) {
+        break;
+      }
     }
-    return blobInfo.size();
   }
 }
@@ -17,6 +17,7 @@
 package com.google.cloud.storage.contrib.nio;
 
 import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -24,6 +25,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonReadableChannelException;
 import java.nio.channels.SeekableByteChannel;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -37,11 +39,24 @@ import javax.annotation.concurrent.ThreadSafe;
 final class CloudStorageWriteChannel implements SeekableByteChannel {
 
   private final WriteChannel channel;
+  @Nullable private final CloudStorageMetadataCache metadataCache;
+  @Nullable private final BlobId blob;
   private long position;
   private long size;
 
   CloudStorageWriteChannel(WriteChannel channel) {
+    this(channel, null, null);
+  }
+
+  /**
+   * Creates a channel that removes {@code blob} from {@code metadataCache} when closed, as its
+   * metadata changes once the upload completes.
+   */
+  CloudStorageWriteChannel(WriteChannel channel, @Nullable CloudStorageMetadataCache metadataCache,
+      @Nullable BlobId blob) {
     this.channel = channel;
+    this.metadataCache = metadataCache;
+    this.blob = blob;
   }
 
   @Override
@@ -54,7 +69,13 @@ final class CloudStorageWriteChannel implements SeekableByteChannel {
   @Override
   public void close() throws IOException {
     synchronized (this) {
-      channel.close();
+      try {
+        channel.close();
+      } finally {
+        if (metadataCache != null) {
+          metadataCache.invalidate(blob);
+        }
+      }
     }
   }
 
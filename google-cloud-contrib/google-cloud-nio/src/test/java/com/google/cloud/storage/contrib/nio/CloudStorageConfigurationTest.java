@@ -43,12 +43,18 @@ public class CloudStorageConfigurationTest {
             .stripPrefixSlash(false)
             .usePseudoDirectories(false)
             .blockSize(666)
+            .blockCacheSize(1000)
+            .metadataCacheSize(100)
+            .metadataCacheExpirationMillis(5000)
             .build();
     assertThat(config.workingDirectory()).isEqualTo("/omg");
     assertThat(config.permitEmptyPathComponents()).isTrue();
     assertThat(config.stripPrefixSlash()).isFalse();
     assertThat(config.usePseudoDirectories()).isFalse();
     assertThat(config.blockSize()).isEqualTo(666);
+    assertThat(config.blockCacheSize()).isEqualTo(1000);
+    assertThat(config.metadataCacheSize()).isEqualTo(100);
+    assertThat(config.metadataCacheExpirationMillis()).isEqualTo(5000);
   }
 
   @Test
@@ -61,12 +67,30 @@ public class CloudStorageConfigurationTest {
                 .put("stripPrefixSlash", false)
                 .put("usePseudoDirectories", false)
                 .put("blockSize", 666)
+                .put("blockCacheSize", 1000)
+                .put("metadataCacheSize", 100)
+                .put("metadataCacheExpirationMillis", 5000)
                 .build());
     assertThat(config.workingDirectory()).isEqualTo("/omg");
     assertThat(config.permitEmptyPathComponents()).isTrue();
     assertThat(config.stripPrefixSlash()).isFalse();
     assertThat(config.usePseudoDirectories()).isFalse();
     assertThat(config.blockSize()).isEqualTo(666);
+    assertThat(config.blockCacheSize()).isEqualTo(1000);
+    assertThat(config.metadataCacheSize()).isEqualTo(100);
+    assertThat(config.metadataCacheExpirationMillis()).isEqualTo(5000);
+  }
+
+  @Test
+  public void testBlockCacheSize_negative_throwsIae() {
+    thrown.expect(IllegalArgumentException.class);
+    CloudStorageConfiguration.builder().blockCacheSize(-1);
+  }
+
+  @Test
+  public void testMetadataCacheExpirationMillis_zero_throwsIae() {
+    thrown.expect(IllegalArgumentException.class);
+    CloudStorageConfiguration.builder().metadataCacheExpirationMillis(0);
   }
 
   @Test
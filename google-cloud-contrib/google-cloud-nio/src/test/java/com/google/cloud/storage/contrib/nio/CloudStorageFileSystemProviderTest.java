@@ -28,6 +28,7 @@ import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static java.nio.file.StandardOpenOption.WRITE;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.testing.NullPointerTester;
 
 import org.junit.Before;
@@ -39,6 +40,7 @@ import org.junit.runners.JUnit4;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
@@ -46,6 +48,7 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -54,6 +57,8 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.ProviderMismatchException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -509,6 +514,89 @@ public class CloudStorageFileSystemProviderTest {
     assertThat(Files.exists(target)).isTrue();
   }
 
+  @Test
+  public void testMove_many_reportsProgress() throws IOException {
+    Path source1 = Paths.get(URI.create("gs://military/fashion.show"));
+    Path source2 = Paths.get(URI.create("gs://military/fashion.week"));
+    Path target1 = Paths.get(URI.create("gs://greenbean/adipose"));
+    Path target2 = Paths.get(URI.create("gs://greenbean/adipocere"));
+    Files.write(source1, "(✿◕ ‿◕ )ノ".getBytes(UTF_8));
+    Files.write(source2, SINGULARITY.getBytes(UTF_8));
+    final List<Path> progressed = new ArrayList<>();
+    final List<Path> done = new ArrayList<>();
+    CloudStorageFileSystemProvider.CopyListener listener =
+        new CloudStorageFileSystemProvider.CopyListener() {
+          @Override
+          public synchronized void progress(
+              Path source, Path target, long bytesCopied, long totalBytes) {
+            assertThat(bytesCopied).isEqualTo(totalBytes);
+            progressed.add(source);
+          }
+
+          @Override
+          public synchronized void done(Path source, Path target) {
+            done.add(target);
+          }
+        };
+    // the fake storage is not thread-safe, moves are run one at a time
+    ((CloudStorageFileSystemProvider) source1.getFileSystem().provider()).move(
+        ImmutableMap.of(source1, target1, source2, target2), 1, listener);
+    assertThat(progressed).containsExactly(source1, source2);
+    assertThat(done).containsExactly(target1, target2);
+    assertThat(Files.exists(source1)).isFalse();
+    assertThat(Files.exists(source2)).isFalse();
+    assertThat(new String(Files.readAllBytes(target2), UTF_8)).isEqualTo(SINGULARITY);
+  }
+
+  @Test
+  public void testCopy_many_sourceMissing_copiesOthers() throws IOException {
+    Path source1 = Paths.get(URI.create("gs://military/fashion.show"));
+    Path source2 = Paths.get(URI.create("gs://military/fashion.week"));
+    Path target1 = Paths.get(URI.create("gs://greenbean/adipose"));
+    Path target2 = Paths.get(URI.create("gs://greenbean/adipocere"));
+    Files.write(source2, SINGULARITY.getBytes(UTF_8));
+    try {
+      ((CloudStorageFileSystemProvider) source1.getFileSystem().provider()).copy(
+          ImmutableMap.of(source1, target1, source2, target2), 1, null);
+      assertThat(false).isTrue();
+    } catch (NoSuchFileException expected) {
+      assertThat(Files.exists(source2)).isTrue();
+      assertThat(Files.exists(target2)).isTrue();
+    }
+  }
+
+  @Test
+  public void testCopy_many_runtimeFailure_reportsPaths() throws IOException {
+    Path source = Paths.get(URI.create("gs://military/fashion.show"));
+    Path target = Paths.get("adipose");
+    Files.write(source, "(✿◕ ‿◕ )ノ".getBytes(UTF_8));
+    try {
+      ((CloudStorageFileSystemProvider) source.getFileSystem().provider()).copy(
+          ImmutableMap.of(source, target), 1, null);
+      assertThat(false).isTrue();
+    } catch (IOException expected) {
+      assertThat(expected.getCause()).isInstanceOf(ProviderMismatchException.class);
+      assertThat(expected.getMessage()).contains("gs://military/fashion.show");
+      assertThat(expected.getMessage()).contains("adipose");
+    }
+  }
+
+  @Test
+  public void testCopy_many_interrupted_throwsInterruptedIoException() throws IOException {
+    Path source = Paths.get(URI.create("gs://military/fashion.show"));
+    Path target = Paths.get(URI.create("gs://greenbean/adipose"));
+    Files.write(source, "(✿◕ ‿◕ )ノ".getBytes(UTF_8));
+    Thread.currentThread().interrupt();
+    try {
+      ((CloudStorageFileSystemProvider) source.getFileSystem().provider()).copy(
+          ImmutableMap.of(source, target), 1, null);
+      assertThat(false).isTrue();
+    } catch (InterruptedIOException expected) {
+      assertThat(Thread.interrupted()).isTrue();
+      assertThat(Files.exists(target)).isFalse();
+    }
+  }
+
   @Test
   public void testCreateDirectory() throws IOException {
     Path path = Paths.get(URI.create("gs://greenbean/dir/"));
@@ -644,6 +732,38 @@ public class CloudStorageFileSystemProviderTest {
     assertThat(path1.getFileSystem().provider()).isNotEqualTo(path3.getFileSystem().provider());
   }
 
+  @Test
+  public void testMetadataCache_filledByDirectoryStream() throws IOException {
+    CloudStorageConfiguration config =
+        CloudStorageConfiguration.builder().metadataCacheSize(100).build();
+    try (CloudStorageFileSystem fs = forBucket("bucket", config)) {
+      Path path = fs.getPath("/dir/angel");
+      Files.write(path, SINGULARITY.getBytes(UTF_8));
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath("/dir/"))) {
+        assertThat(ImmutableList.copyOf(stream)).hasSize(1);
+      }
+      // clears the fake storage behind the file system's back, attributes come from the cache
+      LocalStorageHelper.options();
+      assertThat(Files.exists(path)).isTrue();
+      assertThat(Files.size(path)).isEqualTo(SINGULARITY.getBytes(UTF_8).length);
+    }
+  }
+
+  @Test
+  public void testMetadataCache_invalidatedByWriteAndDelete() throws IOException {
+    CloudStorageConfiguration config =
+        CloudStorageConfiguration.builder().metadataCacheSize(100).build();
+    try (CloudStorageFileSystem fs = forBucket("bucket", config)) {
+      Path path = fs.getPath("/angel");
+      Files.write(path, SINGULARITY.getBytes(UTF_8));
+      assertThat(Files.size(path)).isEqualTo(SINGULARITY.getBytes(UTF_8).length);
+      Files.write(path, "x".getBytes(UTF_8));
+      assertThat(Files.size(path)).isEqualTo(1);
+      Files.delete(path);
+      assertThat(Files.exists(path)).isFalse();
+    }
+  }
+
   private static CloudStorageConfiguration permitEmptyPathComponents(boolean value) {
     return CloudStorageConfiguration.builder().permitEmptyPathComponents(value).build();
   }
@@ -20,8 +20,10 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -29,6 +31,8 @@ import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageReadChannel;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -36,11 +40,14 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.NonWritableChannelException;
+import java.nio.file.NoSuchFileException;
 
 /**
  * Unit tests for {@link CloudStorageReadChannel}.
@@ -54,18 +61,60 @@ public class CloudStorageReadChannelTest {
 
   private final Storage gcsStorage = mock(Storage.class);
   private final BlobId file = BlobId.of("blob", "attack");
-  private final Blob metadata = mock(Blob.class);
-  private final ReadChannel gcsChannel = mock(ReadChannel.class);
+  private final StorageReadChannel gcsChannel = mock(StorageReadChannel.class);
 
   @Before
   public void before() throws IOException {
-    when(metadata.size()).thenReturn(42L);
-    when(gcsStorage.get(file)).thenReturn(metadata);
+    when(gcsChannel.size()).thenReturn(42L);
     when(gcsStorage.reader(eq(file))).thenReturn(gcsChannel);
     when(gcsChannel.isOpen()).thenReturn(true);
     chan = CloudStorageReadChannel.create(gcsStorage, file, 0);
-    verify(gcsStorage).get(eq(file));
+    // size and generation come from the channel, no metadata request is issued
     verify(gcsStorage).reader(eq(file));
+    verifyNoMoreInteractions(gcsStorage);
+    verify(gcsChannel).size();
+    verify(gcsChannel).generation();
+  }
+
+  @Test
+  public void testCreate_notFound_throwsNoSuchFileException() throws IOException {
+    BlobId missing = BlobId.of("blob", "missing");
+    StorageReadChannel missingChannel = mock(StorageReadChannel.class);
+    when(gcsStorage.reader(eq(missing))).thenReturn(missingChannel);
+    when(missingChannel.size()).thenThrow(new StorageException(404, "not found"));
+    thrown.expect(NoSuchFileException.class);
+    try {
+      CloudStorageReadChannel.create(gcsStorage, missing, 0);
+    } finally {
+      verify(missingChannel).close();
+    }
+  }
+
+  @Test
+  public void testCreate_readChannel_fetchesMetadata() throws IOException {
+    BlobId other = BlobId.of("blob", "other");
+    ReadChannel otherChannel = mock(ReadChannel.class);
+    Blob blob = mock(Blob.class);
+    when(gcsStorage.reader(eq(other))).thenReturn(otherChannel);
+    when(gcsStorage.get(eq(other))).thenReturn(blob);
+    when(blob.size()).thenReturn(7L);
+    when(otherChannel.isOpen()).thenReturn(true);
+    CloudStorageReadChannel otherChan = CloudStorageReadChannel.create(gcsStorage, other, 0);
+    assertThat(otherChan.size()).isEqualTo(7L);
+    verify(gcsStorage).get(eq(other));
+  }
+
+  @Test
+  public void testCreate_readChannel_notFound_throwsNoSuchFileException() throws IOException {
+    BlobId missing = BlobId.of("blob", "missing");
+    ReadChannel missingChannel = mock(ReadChannel.class);
+    when(gcsStorage.reader(eq(missing))).thenReturn(missingChannel);
+    thrown.expect(NoSuchFileException.class);
+    try {
+      CloudStorageReadChannel.create(gcsStorage, missing, 0);
+    } finally {
+      verify(missingChannel).close();
+    }
   }
 
   @Test
@@ -153,4 +202,59 @@ public class CloudStorageReadChannelTest {
     verify(gcsChannel).seek(1);
     verify(gcsChannel, times(5)).isOpen();
   }
+
+  @Test
+  public void testReadPositional_usesRangedRequest() throws IOException {
+    BlobId pinned = BlobId.of(file.bucket(), file.name(), 7L);
+    StorageReadChannel rangeChannel = mock(StorageReadChannel.class);
+    when(gcsChannel.generation()).thenReturn(7L);
+    when(gcsStorage.reader(eq(pinned))).thenReturn(rangeChannel);
+    when(rangeChannel.read(any(ByteBuffer.class))).thenReturn(4).thenReturn(-1);
+    CloudStorageReadChannel pinnedChan = CloudStorageReadChannel.create(gcsStorage, file, 0);
+    ByteBuffer buffer = ByteBuffer.allocate(8);
+    assertThat(pinnedChan.read(buffer, 38)).isEqualTo(4);
+    assertThat(pinnedChan.position()).isEqualTo(0L);
+    assertThat(pinnedChan.read(buffer, 42)).isEqualTo(-1);
+    verify(rangeChannel).chunkSize(4);
+    verify(rangeChannel).seek(38);
+    verify(rangeChannel).close();
+    verify(gcsChannel, never()).read(any(ByteBuffer.class));
+  }
+
+  @Test
+  public void testRead_withBlockCache_readsEachBlockOnce() throws IOException {
+    when(gcsChannel.generation()).thenReturn(7L);
+    when(gcsChannel.read(any(ByteBuffer.class))).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(InvocationOnMock invocation) {
+        ByteBuffer block = (ByteBuffer) invocation.getArguments()[0];
+        int length = block.remaining();
+        block.put(new byte[length]);
+        return length;
+      }
+    });
+    CloudStorageBlockCache cache = new CloudStorageBlockCache(16, 1024);
+    CloudStorageReadChannel cachedChan = CloudStorageReadChannel.create(gcsStorage, file, 0, cache);
+    ByteBuffer buffer = ByteBuffer.allocate(4);
+    assertThat(cachedChan.read(buffer)).isEqualTo(4);
+    cachedChan.position(20);
+    buffer.clear();
+    assertThat(cachedChan.read(buffer)).isEqualTo(4);
+    assertThat(cachedChan.position()).isEqualTo(24L);
+    cachedChan.position(2);
+    buffer.clear();
+    assertThat(cachedChan.read(buffer)).isEqualTo(4);
+    cachedChan.position(40);
+    assertThat(cachedChan.read(ByteBuffer.allocate(4))).isEqualTo(2);
+    assertThat(cachedChan.read(ByteBuffer.allocate(4))).isEqualTo(-1);
+    assertThat(cachedChan.read(ByteBuffer.allocate(4), 18)).isEqualTo(4);
+    assertThat(cachedChan.position()).isEqualTo(42L);
+    // blocks 0, 1 and 2 are each read once, through the channel opened with the file
+    verify(gcsStorage, times(2)).reader(eq(file));
+    verify(gcsChannel).chunkSize(16);
+    verify(gcsChannel, times(2)).seek(0);
+    verify(gcsChannel).seek(16);
+    verify(gcsChannel).seek(32);
+    verify(gcsChannel, times(3)).read(any(ByteBuffer.class));
+  }
 }
@@ -23,9 +23,11 @@ import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.spi.RpcBatch;
 import com.google.cloud.storage.spi.StorageRpc;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.file.FileAlreadyExistsException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -146,6 +148,10 @@ class FakeStorageRpc implements StorageRpc {
       if (processedAsFolder(so, delimiter, prefix, folders)) {
         continue;
       }
+      String key = fullname(so);
+      if (contents.containsKey(key)) {
+        so.setSize(BigInteger.valueOf(contents.get(key).length));
+      }
       values.add(so);
     }
     values.addAll(folders.values());
@@ -260,6 +266,20 @@ class FakeStorageRpc implements StorageRpc {
     return Tuple.of("etag-goes-here", ret);
   }
 
+  @Override
+  public ReadResponse openRead(StorageObject from, Map<Option, ?> options, long position,
+      long bytes) throws StorageException {
+    String key = fullname(from);
+    int length = (int) Math.max(0, (bytes < 0 ? Integer.MAX_VALUE : bytes));
+    if (contents.containsKey(key)) {
+      length = (int) Math.min(length, Math.max(0, contents.get(key).length - position));
+    }
+    Tuple<String, byte[]> result = read(from, options, position, length);
+    long size = contents.get(key).length;
+    return new ReadResponse(result.x(), null, size, position,
+        new ByteArrayInputStream(result.y()));
+  }
+
   @Override
   public String open(StorageObject object, Map<Option, ?> options) throws StorageException {
     String key = fullname(object);
@@ -301,6 +321,14 @@ class FakeStorageRpc implements StorageRpc {
     }
   }
 
+  @Override
+  public void write(String uploadId, ByteBuffer toWrite, long destOffset, boolean last)
+      throws StorageException {
+    byte[] bytes = new byte[toWrite.remaining()];
+    toWrite.duplicate().get(bytes);
+    write(uploadId, bytes, 0, destOffset, bytes.length, last);
+  }
+
   @Override
   public RewriteResponse openRewrite(RewriteRequest rewriteRequest) throws StorageException {
     String sourceKey = fullname(rewriteRequest.source);
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link RetryHelper#runWithRetries} when the first attempt succeeds,
+ * compared with calling the callable directly. Run with {@code mvn -Pbenchmark test-compile
+ * exec:exec} from the {@code google-cloud-core} directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RetryHelperBenchmark {
+
+  private final RetryParams retryParams = RetryParams.defaultInstance();
+  private final ExceptionHandler exceptionHandler = ExceptionHandler.defaultInstance();
+  private final Clock clock = Clock.defaultClock();
+  private final Callable<Long> callable = new Callable<Long>() {
+    @Override
+    public Long call() throws IOException {
+      return value++;
+    }
+  };
+  private long value;
+
+  @Benchmark
+  public Long direct() throws Exception {
+    return callable.call();
+  }
+
+  @Benchmark
+  public Long runWithRetries() {
+    return RetryHelper.runWithRetries(callable, retryParams, exceptionHandler, clock);
+  }
+
+}
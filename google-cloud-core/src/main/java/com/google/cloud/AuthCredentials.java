@@ -201,6 +201,8 @@ public abstract class AuthCredentials implements Restorable<AuthCredentials> {
     private final ServiceAccountCredentials credentials;
     private final String account;
     private final PrivateKey privateKey;
+    // Signature objects are not thread-safe but can be reused once initialized with the key
+    private final ThreadLocal<Signature> signer = new ThreadLocal<>();
 
     private static class ServiceAccountAuthCredentialsState
         implements RestorableState<AuthCredentials>, Serializable {
@@ -266,11 +268,17 @@ public abstract class AuthCredentials implements Restorable<AuthCredentials> {
     @Override
     public byte[] sign(byte[] toSign) {
       try {
-        Signature signer = Signature.getInstance("SHA256withRSA");
-        signer.initSign(privateKey());
-        signer.update(toSign);
-        return signer.sign();
+        Signature signature = signer.get();
+        if (signature == null) {
+          signature = Signature.getInstance("SHA256withRSA");
+          signature.initSign(privateKey());
+          signer.set(signature);
+        }
+        signature.update(toSign);
+        return signature.sign();
       } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException ex) {
+        // the signature may have been left in an inconsistent state
+        signer.remove();
         throw new SigningException("Failed to sign the provided bytes", ex);
       }
     }
@@ -64,6 +64,26 @@ public abstract class BaseWriteChannel<
    */
   protected abstract void flushBuffer(int length, boolean last);
 
+  /**
+   * Writes the remaining bytes of {@code content} to the {@link #uploadId()} URL. This method is
+   * called, instead of {@link #flushBuffer(int, boolean)}, when the channel's buffer is empty and
+   * the caller writes at least {@link #chunkSize()} bytes at once. The number of bytes to write is
+   * always a multiple of {@link #minChunkSize()}. Implementations should not modify the position
+   * of {@code content}.
+   *
+   * <p>The default implementation copies {@code content} into {@link #buffer()} and calls
+   * {@link #flushBuffer(int, boolean)}. Subclasses should override this method to upload
+   * {@code content} without copying it.
+   */
+  protected void flushBuffer(ByteBuffer content, boolean last) {
+    int length = content.remaining();
+    if (buffer.length < length) {
+      buffer = new byte[length];
+    }
+    content.duplicate().get(buffer, 0, length);
+    flushBuffer(length, last);
+  }
+
   protected ServiceOptionsT options() {
     return options;
   }
@@ -110,12 +130,20 @@ public abstract class BaseWriteChannel<
       flushBuffer(length, false);
       position += length;
       limit -= length;
-      byte[] temp = new byte[chunkSize];
-      System.arraycopy(buffer, length, temp, 0, limit);
-      buffer = temp;
+      // move the remaining bytes (less than minChunkSize) to the beginning of the same buffer
+      System.arraycopy(buffer, length, buffer, 0, limit);
     }
   }
 
+  private void flushDirect(ByteBuffer byteBuffer) {
+    int length = byteBuffer.remaining() - byteBuffer.remaining() % minChunkSize();
+    ByteBuffer content = byteBuffer.duplicate();
+    content.limit(content.position() + length);
+    flushBuffer(content, false);
+    position += length;
+    byteBuffer.position(byteBuffer.position() + length);
+  }
+
   private void validateOpen() throws ClosedChannelException {
     if (!isOpen) {
       throw new ClosedChannelException();
@@ -126,15 +154,21 @@ public abstract class BaseWriteChannel<
   public final int write(ByteBuffer byteBuffer) throws IOException {
     validateOpen();
     int toWrite = byteBuffer.remaining();
-    int spaceInBuffer = buffer.length - limit;
-    if (spaceInBuffer >= toWrite) {
-      byteBuffer.get(buffer, limit, toWrite);
-    } else {
-      buffer = Arrays.copyOf(buffer, Math.max(chunkSize, buffer.length + toWrite - spaceInBuffer));
-      byteBuffer.get(buffer, limit, toWrite);
+    while (byteBuffer.hasRemaining()) {
+      if (limit == 0 && byteBuffer.remaining() >= chunkSize) {
+        // nothing is buffered, upload directly from the caller's buffer
+        flushDirect(byteBuffer);
+      } else {
+        if (buffer.length < chunkSize) {
+          // the buffer is allocated once and then reused, unless chunk size is increased
+          buffer = Arrays.copyOf(buffer, chunkSize);
+        }
+        int length = Math.min(byteBuffer.remaining(), buffer.length - limit);
+        byteBuffer.get(buffer, limit, length);
+        limit += length;
+        flush();
+      }
     }
-    limit += toWrite;
-    flush();
     return toWrite;
   }
 
@@ -147,7 +181,7 @@ public abstract class BaseWriteChannel<
   public final void close() throws IOException {
     if (isOpen) {
       flushBuffer(limit, true);
-      position += buffer.length;
+      position += limit;
       isOpen = false;
       buffer = null;
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.api.client.http.AbstractHttpContent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * HTTP content backed by the remaining bytes of a {@link ByteBuffer}. The buffer's position is
+ * never modified, content can therefore be written multiple times (e.g. when a request is retried).
+ * Heap buffers are written directly from their backing array; direct buffers are streamed in small
+ * chunks, without copying the whole content onto the heap.
+ */
+public final class ByteBufferContent extends AbstractHttpContent {
+
+  private final ByteBuffer content;
+
+  /**
+   * Creates an HTTP content object for the remaining bytes of {@code content}.
+   *
+   * @param type the content type or {@code null} for none
+   */
+  public ByteBufferContent(String type, ByteBuffer content) {
+    super(type);
+    this.content = content;
+  }
+
+  @Override
+  public long getLength() {
+    return content.remaining();
+  }
+
+  @Override
+  public boolean retrySupported() {
+    return true;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    if (content.hasArray()) {
+      out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+    } else {
+      WritableByteChannel channel = Channels.newChannel(out);
+      ByteBuffer toWrite = content.duplicate();
+      while (toWrite.hasRemaining()) {
+        channel.write(toWrite);
+      }
+    }
+    out.flush();
+  }
+}
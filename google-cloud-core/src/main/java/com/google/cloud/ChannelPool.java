@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.auth.Credentials;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
+
+import io.grpc.CallCredentials;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.auth.MoreCallCredentials;
+import io.grpc.internal.SharedResourceHolder;
+import io.grpc.internal.SharedResourceHolder.Resource;
+import io.grpc.netty.NegotiationType;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of gRPC channels to the same endpoint, distributing calls round-robin over its channels.
+ * Each channel has its own HTTP/2 connection, so that the number of concurrent calls is not bound
+ * by the maximum number of streams of a single connection. Pools are reference-counted through
+ * {@link SharedResourceHolder} and shared by all the users of equal {@link Key}s: the connections
+ * are closed once the last {@link ManagedChannel} obtained from {@link #acquire(Key)} is shut
+ * down.
+ */
+final class ChannelPool {
+
+  private static final Metadata.Key<String> API_CLIENT_HEADER =
+      Metadata.Key.of("x-google-apis-agent", Metadata.ASCII_STRING_MARSHALLER);
+  private static final ConcurrentMap<Key, Resource<ChannelPool>> RESOURCES =
+      new ConcurrentHashMap<>();
+
+  private final List<ManagedChannel> channels;
+  private final ScheduledExecutorService executor;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Identifies a pool. Keys are equal if they have the same endpoint, credentials, library and pool
+   * size.
+   */
+  static final class Key {
+
+    private final String host;
+    private final boolean plaintext;
+    private final Object credentialsState;
+    private final Credentials credentials;
+    private final String libraryName;
+    private final String libraryVersion;
+    private final int poolSize;
+
+    /**
+     * Creates a key.
+     *
+     * @param host the endpoint, as {@code host:port}
+     * @param plaintext whether the connections should not use TLS
+     * @param credentialsState a value identifying {@code credentials}, used to compare keys
+     * @param credentials the credentials used to authorize calls, or {@code null}
+     * @param libraryName the client library name, sent with each call
+     * @param libraryVersion the client library version, sent with each call
+     * @param poolSize the number of channels of the pool
+     */
+    Key(String host, boolean plaintext, Object credentialsState, Credentials credentials,
+        String libraryName, String libraryVersion, int poolSize) {
+      this.host = host;
+      this.plaintext = plaintext;
+      this.credentialsState = credentialsState;
+      this.credentials = credentials;
+      this.libraryName = libraryName;
+      this.libraryVersion = libraryVersion;
+      this.poolSize = poolSize;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(host, plaintext, credentialsState, libraryName, libraryVersion,
+          poolSize);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return Objects.equals(host, other.host)
+          && plaintext == other.plaintext
+          && Objects.equals(credentialsState, other.credentialsState)
+          && Objects.equals(libraryName, other.libraryName)
+          && Objects.equals(libraryVersion, other.libraryVersion)
+          && poolSize == other.poolSize;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("host", host)
+          .add("plaintext", plaintext)
+          .add("libraryName", libraryName)
+          .add("libraryVersion", libraryVersion)
+          .add("poolSize", poolSize)
+          .toString();
+    }
+  }
+
+  private static final class PoolResource implements Resource<ChannelPool> {
+
+    private final Key key;
+
+    PoolResource(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    public ChannelPool create() {
+      return new ChannelPool(key);
+    }
+
+    @Override
+    public void close(ChannelPool instance) {
+      RESOURCES.remove(key, this);
+      instance.close();
+    }
+
+    @Override
+    public String toString() {
+      return key.toString();
+    }
+  }
+
+  /**
+   * A reference to a pool. Shutting the channel down releases the reference, calls in progress on
+   * the pool's connections are not affected.
+   */
+  private static final class PooledChannel extends ManagedChannel {
+
+    private final Resource<ChannelPool> resource;
+    private final ChannelPool pool;
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    PooledChannel(Resource<ChannelPool> resource, ChannelPool pool) {
+      this.resource = resource;
+      this.pool = pool;
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+        MethodDescriptor<RequestT, ResponseT> method, CallOptions callOptions) {
+      return pool.nextChannel().newCall(method, callOptions);
+    }
+
+    @Override
+    public String authority() {
+      return pool.channels.get(0).authority();
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+      if (shutdown.compareAndSet(false, true)) {
+        SharedResourceHolder.release(resource, pool);
+      }
+      return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown.get();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown.get();
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+      return shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return isTerminated();
+    }
+  }
+
+  private ChannelPool(Key key) {
+    executor = GrpcServiceOptions.DefaultExecutorFactory.INSTANCE.get();
+    Metadata headers = new Metadata();
+    headers.put(API_CLIENT_HEADER, String.format("%s/%s;java/%s", key.libraryName,
+        key.libraryVersion, System.getProperty("java.version")));
+    List<ClientInterceptor> interceptors = new ArrayList<>();
+    interceptors.add(MetadataUtils.newAttachHeadersInterceptor(headers));
+    if (key.credentials != null) {
+      interceptors.add(callCredentialsInterceptor(MoreCallCredentials.from(key.credentials)));
+    }
+    ImmutableList.Builder<ManagedChannel> builder = ImmutableList.builder();
+    for (int i = 0; i < key.poolSize; i++) {
+      NettyChannelBuilder channelBuilder;
+      if (key.plaintext) {
+        channelBuilder = NettyChannelBuilder.forTarget(key.host)
+            .negotiationType(NegotiationType.PLAINTEXT);
+      } else {
+        HostAndPort hostAndPort = HostAndPort.fromString(key.host);
+        channelBuilder = NettyChannelBuilder.forAddress(hostAndPort.getHostText(),
+            hostAndPort.getPort()).negotiationType(NegotiationType.TLS);
+      }
+      builder.add(channelBuilder.intercept(interceptors).executor(executor).build());
+    }
+    channels = builder.build();
+  }
+
+  /**
+   * Returns an interceptor that attaches {@code credentials} to the calls that do not set their own
+   * credentials. Request metadata is then obtained on the channel's executor.
+   */
+  private static ClientInterceptor callCredentialsInterceptor(final CallCredentials credentials) {
+    return new ClientInterceptor() {
+      @Override
+      public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+          MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        if (callOptions.getCredentials() == null) {
+          callOptions = callOptions.withCallCredentials(credentials);
+        }
+        return next.newCall(method, callOptions);
+      }
+    };
+  }
+
+  ManagedChannel nextChannel() {
+    return channels.get((next.getAndIncrement() & Integer.MAX_VALUE) % channels.size());
+  }
+
+  List<ManagedChannel> channels() {
+    return channels;
+  }
+
+  private void close() {
+    for (ManagedChannel channel : channels) {
+      channel.shutdown();
+    }
+    GrpcServiceOptions.DefaultExecutorFactory.INSTANCE.release(executor);
+  }
+
+  /**
+   * Returns a new reference to the pool identified by {@code key}, creating the pool if needed.
+   * The returned channel must be shut down when no longer used.
+   */
+  static ManagedChannel acquire(Key key) {
+    Resource<ChannelPool> resource = RESOURCES.get(key);
+    if (resource == null) {
+      Resource<ChannelPool> newResource = new PoolResource(key);
+      resource = RESOURCES.putIfAbsent(key, newResource);
+      if (resource == null) {
+        resource = newResource;
+      }
+    }
+    return new PooledChannel(resource, SharedResourceHolder.get(resource));
+  }
+
+  /**
+   * Returns the pool referenced by {@code channel}.
+   */
+  static ChannelPool pool(ManagedChannel channel) {
+    return ((PooledChannel) channel).pool;
+  }
+}
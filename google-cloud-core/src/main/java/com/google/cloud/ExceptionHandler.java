@@ -22,10 +22,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -44,6 +46,8 @@ public final class ExceptionHandler implements Serializable {
   private final ImmutableSet<Class<? extends Exception>> retriableExceptions;
   private final ImmutableSet<Class<? extends Exception>> nonRetriableExceptions;
   private final Set<RetryInfo> retryInfo = Sets.newHashSet();
+  // classes of the callables accepted by verifyCaller, weakly referenced to allow class unloading
+  private transient volatile Set<Class<?>> verifiedCallers;
 
   public interface Interceptor extends Serializable {
 
@@ -220,8 +224,17 @@ public final class ExceptionHandler implements Serializable {
     }
   }
 
+  /**
+   * Checks that the exceptions declared by {@code callable} are covered by this handler. The
+   * outcome only depends on the callable's class, which is verified only once.
+   */
   void verifyCaller(Callable<?> callable) {
-    Method callMethod = getCallableMethod(callable.getClass());
+    Class<?> callableClass = callable.getClass();
+    Set<Class<?>> verified = verifiedCallers();
+    if (verified.contains(callableClass)) {
+      return;
+    }
+    Method callMethod = getCallableMethod(callableClass);
     for (Class<?> exceptionOrError : callMethod.getExceptionTypes()) {
       Preconditions.checkArgument(Exception.class.isAssignableFrom(exceptionOrError),
           "Callable method exceptions must be derived from Exception");
@@ -230,6 +243,17 @@ public final class ExceptionHandler implements Serializable {
       Preconditions.checkArgument(findMostSpecificRetryInfo(retryInfo, exception) != null,
           "Declared exception '" + exception + "' is not covered by exception handler");
     }
+    verified.add(callableClass);
+  }
+
+  private Set<Class<?>> verifiedCallers() {
+    Set<Class<?>> verified = verifiedCallers;
+    if (verified == null) {
+      // racing threads may create distinct sets, at worst a class is verified more than once
+      verified = Collections.newSetFromMap(new MapMaker().weakKeys().<Class<?>, Boolean>makeMap());
+      verifiedCallers = verified;
+    }
+    return verified;
   }
 
   public Set<Class<? extends Exception>> retriableExceptions() {
@@ -27,6 +27,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.net.HostAndPort;
 
+import io.grpc.ManagedChannel;
 import io.grpc.internal.SharedResourceHolder;
 import io.grpc.internal.SharedResourceHolder.Resource;
 
@@ -34,6 +35,7 @@ import org.joda.time.Duration;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -57,6 +59,7 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
   private final int initialTimeout;
   private final double timeoutMultiplier;
   private final int maxTimeout;
+  private final int channelPoolSize;
 
   private transient ExecutorFactory<ScheduledExecutorService> executorFactory;
 
@@ -108,7 +111,7 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
   @VisibleForTesting
   static class DefaultExecutorFactory implements ExecutorFactory<ScheduledExecutorService> {
 
-    private static final DefaultExecutorFactory INSTANCE = new DefaultExecutorFactory();
+    static final DefaultExecutorFactory INSTANCE = new DefaultExecutorFactory();
 
     @Override
     public ScheduledExecutorService get() {
@@ -138,6 +141,7 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
     private int initialTimeout = 20_000;
     private double timeoutMultiplier = 1.5;
     private int maxTimeout = 100_000;
+    private int channelPoolSize = 1;
 
     protected Builder() {}
 
@@ -147,6 +151,7 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
       initialTimeout = options.initialTimeout;
       timeoutMultiplier = options.timeoutMultiplier;
       maxTimeout = options.maxTimeout;
+      channelPoolSize = options.channelPoolSize;
     }
 
     @Override
@@ -200,6 +205,22 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
       this.maxTimeout = maxTimeout;
       return self();
     }
+
+    /**
+     * Sets the number of connections to the service's endpoint. Calls are distributed round-robin
+     * over the connections, so that the number of concurrent calls is not bound by the maximum
+     * number of concurrent streams of a single HTTP/2 connection. Connections are shared by all
+     * the services whose options have the same host, credentials and number of connections.
+     * Default value is 1.
+     *
+     * @return the builder
+     * @throws IllegalArgumentException if the provided size is &lt; 1
+     */
+    public B channelPoolSize(int channelPoolSize) {
+      Preconditions.checkArgument(channelPoolSize > 0, "Channel pool size must be > 0");
+      this.channelPoolSize = channelPoolSize;
+      return self();
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -214,6 +235,7 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
     initialTimeout = builder.initialTimeout;
     timeoutMultiplier = builder.timeoutMultiplier;
     maxTimeout = builder.maxTimeout <= initialTimeout ? initialTimeout : builder.maxTimeout;
+    channelPoolSize = builder.channelPoolSize;
   }
 
   /**
@@ -248,13 +270,32 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
     ConnectionSettings.Builder builder = ConnectionSettings.newBuilder()
         .setServiceAddress(hostAndPort.getHostText())
         .setPort(hostAndPort.getPort());
-    GoogleCredentials credentials = authCredentials().credentials();
+    GoogleCredentials credentials = scopedCredentials();
     if (credentials != null) {
-      builder.provideCredentialsWith(credentials.createScoped(scopes()));
+      builder.provideCredentialsWith(credentials);
     }
     return builder;
   }
 
+  /**
+   * Returns a channel to the service's endpoint. The channel distributes calls over a pool of
+   * {@link #channelPoolSize()} connections, shared with all the options that have the same host,
+   * credentials, library and pool size. The connections are closed once all the channels that
+   * share them are shut down. Connections to a {@code localhost} endpoint or that use
+   * {@link AuthCredentials#noAuth()} credentials are not encrypted.
+   */
+  protected ManagedChannel channel() {
+    AuthCredentials authCredentials = authCredentials();
+    boolean plaintext =
+        host().contains("localhost") || AuthCredentials.noAuth().equals(authCredentials);
+    GoogleCredentials credentials = plaintext ? null : scopedCredentials();
+    Object credentialsState = Arrays.asList(
+        authCredentials != null ? authCredentials.capture() : null, scopes(),
+        credentialsRefreshMarginMillis());
+    return ChannelPool.acquire(new ChannelPool.Key(host(), plaintext, credentialsState,
+        credentials, libraryName(), firstNonNull(libraryVersion(), ""), channelPoolSize));
+  }
+
   /**
    * Returns the timeout for the initial RPC, in milliseconds. Subsequent calls will use this value
    * adjusted according to {@link #timeoutMultiplier()}. Default value is 20000.
@@ -278,10 +319,17 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
     return maxTimeout;
   }
 
+  /**
+   * Returns the number of connections to the service's endpoint. Default value is 1.
+   */
+  public int channelPoolSize() {
+    return channelPoolSize;
+  }
+
   @Override
   protected int baseHashCode() {
     return Objects.hash(super.baseHashCode(), executorFactoryClassName, initialTimeout,
-        timeoutMultiplier, maxTimeout);
+        timeoutMultiplier, maxTimeout, channelPoolSize);
   }
 
   protected boolean baseEquals(GrpcServiceOptions<?, ?, ?> other) {
@@ -289,7 +337,8 @@ public abstract class GrpcServiceOptions<ServiceT extends Service<OptionsT>, Ser
         && Objects.equals(executorFactoryClassName, other.executorFactoryClassName)
         && Objects.equals(initialTimeout, other.initialTimeout)
         && Objects.equals(timeoutMultiplier, other.timeoutMultiplier)
-        && Objects.equals(maxTimeout, other.maxTimeout);
+        && Objects.equals(maxTimeout, other.maxTimeout)
+        && Objects.equals(channelPoolSize, other.channelPoolSize);
   }
 
   private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
@@ -24,11 +24,16 @@ import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.GrpcServiceOptions.DefaultExecutorFactory;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.spi.ServiceRpcFactory;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Abstract class representing service options for those services that use HTTP as the transport
@@ -46,8 +51,12 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
   private final int connectTimeout;
   private final int readTimeout;
   private final String httpTransportFactoryClassName;
+  private final String executorFactoryClassName;
+  // serializable factories, such as PooledHttpTransportFactory, are serialized with their settings
+  private final Serializable httpTransportFactoryState;
 
   private transient HttpTransportFactory httpTransportFactory;
+  private transient ExecutorFactory<ScheduledExecutorService> executorFactory;
 
   /**
    * A base interface for all {@link HttpTransport} factories.
@@ -91,6 +100,7 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
       extends ServiceOptions.Builder<ServiceT, ServiceRpcT, OptionsT, B> {
 
     private HttpTransportFactory httpTransportFactory;
+    private ExecutorFactory<ScheduledExecutorService> executorFactory;
     private int connectTimeout = -1;
     private int readTimeout = -1;
 
@@ -99,6 +109,7 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
     protected Builder(HttpServiceOptions<ServiceT, ServiceRpcT, OptionsT> options) {
       super(options);
       httpTransportFactory = options.httpTransportFactory;
+      executorFactory = options.executorFactory;
       connectTimeout = options.connectTimeout;
       readTimeout = options.readTimeout;
     }
@@ -121,6 +132,18 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
       return self();
     }
 
+    /**
+     * Sets the scheduled executor factory. The executor is used to run requests that the client
+     * issues in the background on behalf of the caller (e.g. read-ahead of blob content). If not
+     * set, an executor shared among all services is used.
+     *
+     * @return the builder
+     */
+    public B executorFactory(ExecutorFactory<ScheduledExecutorService> executorFactory) {
+      this.executorFactory = executorFactory;
+      return self();
+    }
+
     /**
      * Sets the timeout in milliseconds to establish a connection.
      *
@@ -146,6 +169,7 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
     }
   }
 
+  @SuppressWarnings("unchecked")
   protected HttpServiceOptions(
       Class<? extends ServiceFactory<ServiceT, OptionsT>> serviceFactoryClass,
       Class<? extends ServiceRpcFactory<ServiceRpcT, OptionsT>> rpcFactoryClass, Builder<ServiceT,
@@ -154,6 +178,11 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
     httpTransportFactory = firstNonNull(builder.httpTransportFactory,
         getFromServiceLoader(HttpTransportFactory.class, DefaultHttpTransportFactory.INSTANCE));
     httpTransportFactoryClassName = httpTransportFactory.getClass().getName();
+    httpTransportFactoryState = httpTransportFactory instanceof Serializable
+        ? (Serializable) httpTransportFactory : null;
+    executorFactory = firstNonNull(builder.executorFactory,
+        getFromServiceLoader(ExecutorFactory.class, DefaultExecutorFactory.INSTANCE));
+    executorFactoryClassName = executorFactory.getClass().getName();
     connectTimeout = builder.connectTimeout;
     readTimeout = builder.readTimeout;
   }
@@ -165,16 +194,22 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
     return httpTransportFactory;
   }
 
+  /**
+   * Returns a scheduled executor service provider, used to run background requests.
+   */
+  public ExecutorFactory<ScheduledExecutorService> executorFactory() {
+    return executorFactory;
+  }
 
   /**
    * Returns a request initializer responsible for initializing requests according to service
    * options.
    */
   public HttpRequestInitializer httpRequestInitializer() {
+    GoogleCredentials credentials = scopedCredentials();
     final HttpRequestInitializer delegate =
-        authCredentials() != null && authCredentials().credentials() != null
-            ? new HttpCredentialsAdapter(authCredentials().credentials().createScoped(scopes()))
-            : null;
+        credentials != null ? new HttpCredentialsAdapter(credentials) : null;
+    final boolean metered = rpcMetrics() != null;
     return new HttpRequestInitializer() {
       @Override
       public void initialize(HttpRequest httpRequest) throws IOException {
@@ -187,6 +222,9 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
         if (readTimeout >= 0) {
           httpRequest.setReadTimeout(readTimeout);
         }
+        if (metered) {
+          MeteredRpc.meter(httpRequest);
+        }
       }
     };
   }
@@ -207,21 +245,35 @@ public abstract class HttpServiceOptions<ServiceT extends Service<OptionsT>, Ser
     return readTimeout;
   }
 
+  /**
+   * Returns the transport factory's settings if they define its equality, {@code null} otherwise.
+   * Other factories are compared by class name only, as they may not define value equality.
+   */
+  private Object httpTransportFactorySettings() {
+    return httpTransportFactoryState instanceof PooledHttpTransportFactory
+        ? httpTransportFactoryState : null;
+  }
+
   @Override
   protected int baseHashCode() {
-    return Objects.hash(super.baseHashCode(), httpTransportFactoryClassName, connectTimeout,
-        readTimeout);
+    return Objects.hash(super.baseHashCode(), httpTransportFactoryClassName,
+        httpTransportFactorySettings(), executorFactoryClassName, connectTimeout, readTimeout);
   }
 
   protected boolean baseEquals(HttpServiceOptions<?, ?, ?> other) {
     return super.baseEquals(other)
         && Objects.equals(httpTransportFactoryClassName, other.httpTransportFactoryClassName)
+        && Objects.equals(httpTransportFactorySettings(), other.httpTransportFactorySettings())
+        && Objects.equals(executorFactoryClassName, other.executorFactoryClassName)
         && Objects.equals(connectTimeout, other.connectTimeout)
         && Objects.equals(readTimeout, other.readTimeout);
   }
 
   private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
     input.defaultReadObject();
-    httpTransportFactory = newInstance(httpTransportFactoryClassName);
+    httpTransportFactory = httpTransportFactoryState != null
+        ? (HttpTransportFactory) httpTransportFactoryState
+        : HttpServiceOptions.<HttpTransportFactory>newInstance(httpTransportFactoryClassName);
+    executorFactory = newInstance(executorFactoryClassName);
   }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An {@link RpcMetrics} registry that keeps the metrics of each RPC method in memory: call, retry
+ * and error counts, bytes sent and received and a {@link LatencyHistogram}. Metrics can be read
+ * with {@link #methods()} or exported with {@link JmxRpcMetricsExporter}.
+ *
+ * <p>Example of recording and reading storage RPC metrics.
+ * <pre> {@code
+ * InMemoryRpcMetrics metrics = new InMemoryRpcMetrics();
+ * Storage storage = StorageOptions.builder().rpcMetrics(metrics).build().service();
+ * // use storage
+ * for (Map.Entry<String, InMemoryRpcMetrics.MethodMetrics> entry : metrics.methods().entrySet()) {
+ *   long p99Millis = entry.getValue().latencies().percentile(99) / 1_000_000;
+ * }
+ * }</pre>
+ */
+@ThreadSafe
+public final class InMemoryRpcMetrics implements RpcMetrics {
+
+  private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final Clock clock;
+
+  public InMemoryRpcMetrics() {
+    this(Clock.defaultClock());
+  }
+
+  InMemoryRpcMetrics(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Notified when a method is recorded for the first time.
+   */
+  interface Listener {
+    void methodAdded(String method, MethodMetrics metrics);
+  }
+
+  /**
+   * The metrics of an RPC method. Counts and {@link #latencies()} cover all the calls, while
+   * {@link #recentLatencies()} only covers recent calls. Recent latencies are recorded in the
+   * histogram of the current one-minute period, and read over the current and the previous
+   * periods, so that latencies older than two minutes are forgotten.
+   */
+  @ThreadSafe
+  public static final class MethodMetrics {
+
+    static final long LATENCY_PERIOD_MILLIS = 60_000;
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicReference<LatencyWindow> latencyWindow;
+    private final Clock clock;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> errorCodes = new ConcurrentHashMap<>();
+
+    /**
+     * The latency histograms of a period and of the previous one.
+     */
+    private static final class LatencyWindow {
+
+      private final long period;
+      private final LatencyHistogram current;
+      private final LatencyHistogram previous;
+
+      LatencyWindow(long period, LatencyHistogram current, LatencyHistogram previous) {
+        this.period = period;
+        this.current = current;
+        this.previous = previous;
+      }
+    }
+
+    MethodMetrics(Clock clock) {
+      this.clock = clock;
+      this.latencyWindow = new AtomicReference<>(new LatencyWindow(
+          clock.millis() / LATENCY_PERIOD_MILLIS, new LatencyHistogram(), new LatencyHistogram()));
+    }
+
+    /**
+     * Returns the latency window of the current period, rotating the histograms if needed.
+     */
+    private LatencyWindow latencyWindow() {
+      long period = clock.millis() / LATENCY_PERIOD_MILLIS;
+      LatencyWindow current = latencyWindow.get();
+      while (current.period < period) {
+        LatencyHistogram previous = current.period == period - 1
+            ? current.current : new LatencyHistogram();
+        LatencyWindow next = new LatencyWindow(period, new LatencyHistogram(), previous);
+        if (latencyWindow.compareAndSet(current, next)) {
+          return next;
+        }
+        current = latencyWindow.get();
+      }
+      return current;
+    }
+
+    void record(long latencyNanos, int attempt, long sent, long received, String error) {
+      latencies.record(latencyNanos);
+      latencyWindow().current.record(latencyNanos);
+      if (attempt > 1) {
+        retries.incrementAndGet();
+      }
+      if (sent > 0) {
+        bytesSent.addAndGet(sent);
+      }
+      if (received > 0) {
+        bytesReceived.addAndGet(received);
+      }
+      if (error != null) {
+        errors.incrementAndGet();
+        AtomicLong counter = errorCodes.get(error);
+        if (counter == null) {
+          AtomicLong newCounter = new AtomicLong();
+          counter = MoreObjects.firstNonNull(errorCodes.putIfAbsent(error, newCounter), newCounter);
+        }
+        counter.incrementAndGet();
+      }
+    }
+
+    /**
+     * Returns the number of calls.
+     */
+    public long count() {
+      return latencies.count();
+    }
+
+    /**
+     * Returns the number of calls that were retries of a failed call, as made by
+     * {@link RetryHelper}.
+     */
+    public long retryCount() {
+      return retries.get();
+    }
+
+    /**
+     * Returns the number of failed calls.
+     */
+    public long errorCount() {
+      return errors.get();
+    }
+
+    /**
+     * Returns the number of failed calls by error, see {@link RpcMetrics#record}.
+     */
+    public Map<String, Long> errorCounts() {
+      ImmutableMap.Builder<String, Long> builder = ImmutableMap.builder();
+      for (Map.Entry<String, AtomicLong> entry : errorCodes.entrySet()) {
+        builder.put(entry.getKey(), entry.getValue().get());
+      }
+      return builder.build();
+    }
+
+    /**
+     * Returns the number of request body bytes sent.
+     */
+    public long bytesSent() {
+      return bytesSent.get();
+    }
+
+    /**
+     * Returns the number of response body bytes received.
+     */
+    public long bytesReceived() {
+      return bytesReceived.get();
+    }
+
+    /**
+     * Returns the histogram of call latencies, in nanoseconds.
+     */
+    public LatencyHistogram latencies() {
+      return latencies;
+    }
+
+    /**
+     * Returns a snapshot of the histogram of the latencies of recent calls, in nanoseconds: calls
+     * recorded in the current and in the previous one-minute periods.
+     */
+    public LatencyHistogram recentLatencies() {
+      LatencyWindow window = latencyWindow();
+      LatencyHistogram snapshot = new LatencyHistogram();
+      snapshot.add(window.previous);
+      snapshot.add(window.current);
+      return snapshot;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("count", count())
+          .add("retryCount", retryCount())
+          .add("errorCounts", errorCounts())
+          .add("bytesSent", bytesSent())
+          .add("bytesReceived", bytesReceived())
+          .add("latencies", latencies)
+          .toString();
+    }
+  }
+
+  @Override
+  public void record(String method, long latencyNanos, int attempt, long bytesSent,
+      long bytesReceived, String error) {
+    MethodMetrics metrics = methods.get(method);
+    if (metrics == null) {
+      MethodMetrics newMetrics = new MethodMetrics(clock);
+      metrics = methods.putIfAbsent(method, newMetrics);
+      if (metrics == null) {
+        metrics = newMetrics;
+        for (Listener listener : listeners) {
+          listener.methodAdded(method, metrics);
+        }
+      }
+    }
+    metrics.record(latencyNanos, attempt, bytesSent, bytesReceived, error);
+  }
+
+  /**
+   * Returns the metrics of the recorded methods, by method name. The returned map is a live view.
+   */
+  public Map<String, MethodMetrics> methods() {
+    return Collections.unmodifiableMap(methods);
+  }
+
+  void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("methods", methods).toString();
+  }
+}
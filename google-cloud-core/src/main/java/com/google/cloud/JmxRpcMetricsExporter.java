@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.InMemoryRpcMetrics.MethodMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exports the metrics of an {@link InMemoryRpcMetrics} registry as JMX MXBeans, one
+ * {@link RpcMethodMXBean} per RPC method. Methods recorded after the registry is exported are
+ * registered as they appear. Beans are named
+ * {@code com.google.cloud:type=RpcMetrics,name=<name>,method=<method>}, with quoted name and
+ * method.
+ *
+ * <p>Example of exporting storage RPC metrics to the platform MBean server.
+ * <pre> {@code
+ * InMemoryRpcMetrics metrics = new InMemoryRpcMetrics();
+ * Storage storage = StorageOptions.builder().rpcMetrics(metrics).build().service();
+ * JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "storage");
+ * // use storage, then unregister the beans
+ * exporter.close();
+ * }</pre>
+ */
+public final class JmxRpcMetricsExporter implements AutoCloseable {
+
+  public static final String DOMAIN = "com.google.cloud";
+
+  private static final Logger log = Logger.getLogger(JmxRpcMetricsExporter.class.getName());
+
+  private final InMemoryRpcMetrics metrics;
+  private final MBeanServer server;
+  private final String name;
+  private final ConcurrentMap<String, ObjectName> registered = new ConcurrentHashMap<>();
+  private final InMemoryRpcMetrics.Listener listener = new InMemoryRpcMetrics.Listener() {
+    @Override
+    public void methodAdded(String method, MethodMetrics methodMetrics) {
+      register(method, methodMetrics);
+    }
+  };
+  private volatile boolean closed;
+
+  private JmxRpcMetricsExporter(InMemoryRpcMetrics metrics, String name, MBeanServer server) {
+    this.metrics = checkNotNull(metrics);
+    this.name = checkNotNull(name);
+    this.server = checkNotNull(server);
+  }
+
+  /**
+   * Exports {@code metrics} to the platform MBean server, under {@code name}.
+   */
+  public static JmxRpcMetricsExporter export(InMemoryRpcMetrics metrics, String name) {
+    return export(metrics, name, ManagementFactory.getPlatformMBeanServer());
+  }
+
+  /**
+   * Exports {@code metrics} to {@code server}, under {@code name}.
+   */
+  public static JmxRpcMetricsExporter export(InMemoryRpcMetrics metrics, String name,
+      MBeanServer server) {
+    JmxRpcMetricsExporter exporter = new JmxRpcMetricsExporter(metrics, name, server);
+    // the listener is added first so that no method is missed, register() skips duplicates
+    metrics.addListener(exporter.listener);
+    for (Map.Entry<String, MethodMetrics> entry : metrics.methods().entrySet()) {
+      exporter.register(entry.getKey(), entry.getValue());
+    }
+    return exporter;
+  }
+
+  /**
+   * Returns the name of the bean registered for {@code method} under {@code name}.
+   */
+  public static ObjectName objectName(String name, String method) {
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("type", "RpcMetrics");
+    properties.put("name", ObjectName.quote(name));
+    properties.put("method", ObjectName.quote(method));
+    try {
+      return new ObjectName(DOMAIN, properties);
+    } catch (JMException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private void register(String method, MethodMetrics methodMetrics) {
+    ObjectName objectName = objectName(name, method);
+    if (closed || registered.putIfAbsent(method, objectName) != null) {
+      return;
+    }
+    try {
+      server.registerMBean(new RpcMethodBean(methodMetrics), objectName);
+    } catch (JMException e) {
+      registered.remove(method);
+      log.log(Level.WARNING, "Failed to register RPC metrics bean " + objectName, e);
+      return;
+    }
+    if (closed) {
+      // close() may have run while the bean was being registered, and missed it
+      unregister(objectName);
+    }
+  }
+
+  private void unregister(ObjectName objectName) {
+    try {
+      server.unregisterMBean(objectName);
+    } catch (InstanceNotFoundException e) {
+      // already unregistered, or not registered yet: register() unregisters it once registered
+    } catch (JMException e) {
+      log.log(Level.WARNING, "Failed to unregister RPC metrics bean " + objectName, e);
+    }
+  }
+
+  /**
+   * Unregisters the beans of this exporter. Methods recorded afterwards are not registered.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    metrics.removeListener(listener);
+    for (String method : registered.keySet()) {
+      ObjectName objectName = registered.remove(method);
+      if (objectName != null) {
+        unregister(objectName);
+      }
+    }
+  }
+
+  private static final class RpcMethodBean implements RpcMethodMXBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final MethodMetrics metrics;
+
+    RpcMethodBean(MethodMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public long getCount() {
+      return metrics.count();
+    }
+
+    @Override
+    public long getRetryCount() {
+      return metrics.retryCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+      return metrics.errorCount();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+      return metrics.errorCounts();
+    }
+
+    @Override
+    public long getBytesSent() {
+      return metrics.bytesSent();
+    }
+
+    @Override
+    public long getBytesReceived() {
+      return metrics.bytesReceived();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+      return metrics.recentLatencies().mean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50LatencyMillis() {
+      return metrics.recentLatencies().percentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP90LatencyMillis() {
+      return metrics.recentLatencies().percentile(90) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99LatencyMillis() {
+      return metrics.recentLatencies().percentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999LatencyMillis() {
+      return metrics.recentLatencies().percentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+      return metrics.recentLatencies().max() / NANOS_PER_MILLI;
+    }
+  }
+}
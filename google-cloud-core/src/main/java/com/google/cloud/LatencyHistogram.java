@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A histogram of non-negative values, typically latencies in nanoseconds, with a bounded relative
+ * error. Like HDR histograms, values are counted in buckets whose width doubles with each power of
+ * two, each power of two being split in 32 linear sub-buckets: percentiles are accurate to about
+ * 3% of their value over the whole {@code long} range, with a fixed memory footprint of about
+ * 15KB. Recording a value is lock-free and allocation-free.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records {@code value}. Negative values are recorded as {@code 0}.
+   */
+  public void record(long value) {
+    long recorded = Math.max(0, value);
+    counts.incrementAndGet(index(recorded));
+    count.incrementAndGet();
+    sum.addAndGet(recorded);
+    updateMax(recorded);
+  }
+
+  /**
+   * Adds the values recorded in {@code other} to this histogram.
+   */
+  void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      long bucketCount = other.counts.get(i);
+      if (bucketCount > 0) {
+        counts.addAndGet(i, bucketCount);
+      }
+    }
+    count.addAndGet(other.count.get());
+    sum.addAndGet(other.sum.get());
+    updateMax(other.max.get());
+  }
+
+  private void updateMax(long value) {
+    long currentMax = max.get();
+    while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded values.
+   */
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * Returns the largest recorded value, {@code 0} if no value was recorded.
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values, {@code 0} if no value was recorded.
+   */
+  public double mean() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : (double) sum.get() / currentCount;
+  }
+
+  /**
+   * Returns the value below which {@code percentile} percent of the recorded values fall, within
+   * the precision of the histogram. Returns {@code 0} if no value was recorded.
+   *
+   * @param percentile the percentile, between {@code 0} and {@code 100}, e.g. {@code 99.9}
+   */
+  public long percentile(double percentile) {
+    checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  static int index(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * Returns the highest value counted in the bucket at {@code index}.
+   */
+  static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+    // overflows to Long.MAX_VALUE for the last bucket
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("count", count())
+        .add("mean", mean())
+        .add("p50", percentile(50))
+        .add("p99", percentile(99))
+        .add("max", max())
+        .toString();
+  }
+}
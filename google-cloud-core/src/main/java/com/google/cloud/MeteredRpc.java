@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the calls made to a service RPC object in {@link RpcMetrics}. The RPC object is wrapped
+ * in a dynamic proxy implementing all its public interfaces. Bytes sent and received by HTTP
+ * requests are added to the call running on the current thread by the interceptors installed with
+ * {@link #meter(HttpRequest)}.
+ */
+final class MeteredRpc implements InvocationHandler {
+
+  // bytes sent and received by the HTTP requests of the current thread
+  private static final ThreadLocal<long[]> BYTES = new ThreadLocal<long[]>() {
+    @Override
+    protected long[] initialValue() {
+      return new long[2];
+    }
+  };
+
+  private final Object rpc;
+  private final RpcMetrics metrics;
+  private final ConcurrentMap<Method, String> methodNames = new ConcurrentHashMap<>();
+
+  private MeteredRpc(Object rpc, RpcMetrics metrics) {
+    this.rpc = rpc;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns a proxy for {@code rpc} that records its calls in {@code metrics}, or {@code rpc}
+   * itself if it does not implement any public interface.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T wrap(T rpc, RpcMetrics metrics) {
+    Set<Class<?>> interfaces = new LinkedHashSet<>();
+    for (Class<?> clazz = rpc.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+      for (Class<?> iface : clazz.getInterfaces()) {
+        if (Modifier.isPublic(iface.getModifiers())) {
+          interfaces.add(iface);
+        }
+      }
+    }
+    if (interfaces.isEmpty()) {
+      return rpc;
+    }
+    return (T) Proxy.newProxyInstance(rpc.getClass().getClassLoader(),
+        interfaces.toArray(new Class<?>[interfaces.size()]), new MeteredRpc(rpc, metrics));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (method.getDeclaringClass() == Object.class) {
+      return invoke(method, args);
+    }
+    final String name = methodName(method);
+    RetryHelper<?> retryHelper = RetryHelper.getContext();
+    final int attempt = retryHelper != null ? retryHelper.getAttemptNumber() : 1;
+    long[] bytes = BYTES.get();
+    long sentBefore = bytes[0];
+    long receivedBefore = bytes[1];
+    final long start = System.nanoTime();
+    Object result;
+    try {
+      result = invoke(method, args);
+    } catch (Throwable t) {
+      metrics.record(name, System.nanoTime() - start, attempt, bytes[0] - sentBefore,
+          bytes[1] - receivedBefore, error(t));
+      throw t;
+    }
+    if (result instanceof ListenableFuture) {
+      Futures.addCallback((ListenableFuture<?>) result, new FutureCallback<Object>() {
+        @Override
+        public void onSuccess(Object value) {
+          metrics.record(name, System.nanoTime() - start, attempt, 0, 0, null);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+          metrics.record(name, System.nanoTime() - start, attempt, 0, 0, error(t));
+        }
+      }, MoreExecutors.directExecutor());
+    } else {
+      metrics.record(name, System.nanoTime() - start, attempt, bytes[0] - sentBefore,
+          bytes[1] - receivedBefore, null);
+    }
+    return result;
+  }
+
+  private Object invoke(Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(rpc, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private String methodName(Method method) {
+    String name = methodNames.get(method);
+    if (name == null) {
+      name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+      methodNames.put(method, name);
+    }
+    return name;
+  }
+
+  private static String error(Throwable throwable) {
+    if (throwable instanceof BaseServiceException) {
+      return Integer.toString(((BaseServiceException) throwable).code());
+    }
+    return throwable.getClass().getSimpleName();
+  }
+
+  /**
+   * Installs interceptors on {@code request} that add the bytes of its body and of its response
+   * body, as given by the {@code Content-Length} header, to the call running on the current
+   * thread. The request's interceptors, if any, are kept.
+   */
+  static void meter(HttpRequest request) {
+    final HttpExecuteInterceptor executeInterceptor = request.getInterceptor();
+    final HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+    request.setInterceptor(new HttpExecuteInterceptor() {
+      @Override
+      public void intercept(HttpRequest request) throws IOException {
+        if (executeInterceptor != null) {
+          executeInterceptor.intercept(request);
+        }
+        HttpContent content = request.getContent();
+        long length = content != null ? content.getLength() : 0;
+        if (length > 0) {
+          BYTES.get()[0] += length;
+        }
+      }
+    });
+    request.setResponseInterceptor(new HttpResponseInterceptor() {
+      @Override
+      public void interceptResponse(HttpResponse response) throws IOException {
+        Long length = response.getHeaders().getContentLength();
+        if (length != null && length > 0) {
+          BYTES.get()[1] += length;
+        }
+        if (responseInterceptor != null) {
+          responseInterceptor.interceptResponse(response);
+        }
+      }
+    });
+  }
+}
@@ -16,14 +16,31 @@
 
 package com.google.cloud;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Base implementation for Google Cloud paginated results.
@@ -70,6 +87,103 @@ public class PageImpl<T> implements Page<T>, Serializable {
     }
   }
 
+  /**
+   * An iterator that keeps up to {@code prefetchPages} next pages requested ahead of the page
+   * being consumed. Pages are requested one after the other, as each request needs the cursor
+   * returned with the previous page. {@link AsyncPage} objects are requested with
+   * {@link AsyncPage#nextPageAsync()}, other pages are requested on an executor obtained from
+   * {@code executorFactory}, which is released as soon as the page is fetched.
+   */
+  static class PrefetchingPageIterator<T, E extends ExecutorService> extends AbstractIterator<T> {
+
+    private final Deque<ListenableFuture<Page<T>>> nextPages = new ArrayDeque<>();
+    private final ExecutorFactory<E> executorFactory;
+    private Iterator<T> currentPageIterator;
+
+    PrefetchingPageIterator(Page<T> currentPage, int prefetchPages,
+        ExecutorFactory<E> executorFactory) {
+      this.executorFactory = executorFactory;
+      this.currentPageIterator = currentPage.values().iterator();
+      ListenableFuture<Page<T>> nextPage = fetchNextPage(currentPage);
+      nextPages.addLast(nextPage);
+      for (int i = 1; i < prefetchPages; i++) {
+        nextPage = fetchAfter(nextPage);
+        nextPages.addLast(nextPage);
+      }
+    }
+
+    @Override
+    protected T computeNext() {
+      while (!currentPageIterator.hasNext()) {
+        ListenableFuture<Page<T>> nextPage = nextPages.removeFirst();
+        nextPages.addLast(fetchAfter(nextPages.isEmpty() ? nextPage : nextPages.getLast()));
+        Page<T> page;
+        try {
+          page = Uninterruptibles.getUninterruptibly(nextPage);
+        } catch (ExecutionException ex) {
+          throw Throwables.propagate(ex.getCause());
+        }
+        if (page == null) {
+          return endOfData();
+        }
+        currentPageIterator = page.values().iterator();
+      }
+      return currentPageIterator.next();
+    }
+
+    private ListenableFuture<Page<T>> fetchAfter(ListenableFuture<Page<T>> page) {
+      return Futures.transformAsync(page, new AsyncFunction<Page<T>, Page<T>>() {
+        @Override
+        public ListenableFuture<Page<T>> apply(Page<T> input) {
+          return fetchNextPage(input);
+        }
+      });
+    }
+
+    @SuppressWarnings("unchecked")
+    private ListenableFuture<Page<T>> fetchNextPage(final Page<T> page) {
+      if (page == null) {
+        return Futures.immediateFuture(null);
+      }
+      if (page instanceof AsyncPage) {
+        final Future<? extends Page<T>> nextPage = ((AsyncPage<T>) page).nextPageAsync();
+        if (nextPage instanceof ListenableFuture) {
+          return (ListenableFuture<Page<T>>) nextPage;
+        }
+        return submit(new Callable<Page<T>>() {
+          @Override
+          public Page<T> call() throws ExecutionException {
+            return Uninterruptibles.getUninterruptibly(nextPage);
+          }
+        });
+      }
+      return submit(new Callable<Page<T>>() {
+        @Override
+        public Page<T> call() {
+          return page.nextPage();
+        }
+      });
+    }
+
+    private ListenableFuture<Page<T>> submit(Callable<Page<T>> callable) {
+      final E executor = executorFactory.get();
+      ListenableFutureTask<Page<T>> task = ListenableFutureTask.create(callable);
+      task.addListener(new Runnable() {
+        @Override
+        public void run() {
+          executorFactory.release(executor);
+        }
+      }, MoreExecutors.directExecutor());
+      try {
+        executor.execute(task);
+      } catch (RuntimeException ex) {
+        executorFactory.release(executor);
+        throw ex;
+      }
+      return task;
+    }
+  }
+
   /**
    * Creates a {@code PageImpl} object. In order for the object to be serializable the {@code
    * results} parameter must be serializable.
@@ -90,6 +204,36 @@ public class PageImpl<T> implements Page<T>, Serializable {
     return new PageIterator<>(this);
   }
 
+  /**
+   * Returns an iterator for all values of {@code page}, possibly also in the next pages, that
+   * requests up to {@code prefetchPages} pages in the background while the current page is being
+   * consumed. This hides the latency of fetching the next pages when consuming the values takes
+   * time. Pages of an {@link AsyncPage} are requested with {@link AsyncPage#nextPageAsync()}, other
+   * pages are requested on an executor obtained from {@code executorFactory}, for instance the
+   * service's {@code options().executorFactory()}. Prefetched pages are held in memory until
+   * consumed; if the iterator is abandoned, pages being fetched are discarded once fetched. If
+   * {@code prefetchPages} is {@code 0} the iterator is equivalent to {@link Page#iterateAll()}.
+   *
+   * <p>Example of prefetching two pages of blobs:
+   * <pre> {@code
+   * Page<Blob> page = storage.list(bucketName);
+   * Iterator<Blob> iterator =
+   *     PageImpl.prefetching(page, 2, storage.options().executorFactory());
+   * while (iterator.hasNext()) {
+   *   Blob blob = iterator.next();
+   *   // do something with blob
+   * }}</pre>
+   *
+   * @throws IllegalArgumentException if {@code prefetchPages} is negative
+   */
+  public static <T, E extends ExecutorService> Iterator<T> prefetching(Page<T> page,
+      int prefetchPages, ExecutorFactory<E> executorFactory) {
+    checkArgument(prefetchPages >= 0, "prefetchPages must not be negative");
+    checkNotNull(executorFactory);
+    return prefetchPages == 0
+        ? page.iterateAll() : new PrefetchingPageIterator<>(page, prefetchPages, executorFactory);
+  }
+
   @Override
   public String nextPageCursor() {
     return cursor;
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.cloud.HttpServiceOptions.HttpTransportFactory;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ProxySelector;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link HttpTransportFactory} creating transports backed by a pool of Apache HttpClient
+ * connections. Unlike the default {@code NetHttpTransport}, whose pooling is governed by the
+ * {@code http.maxConnections} system property of {@code HttpURLConnection} (5 connections per
+ * host by default), the pool size, the eviction of idle connections and the socket options are
+ * configured by the factory. Transports are shared by all the services whose options use equal
+ * factories, so that equivalent clients share their connections.
+ *
+ * <p>A transport, its connection pool and its idle connection eviction task are created the first
+ * time a configuration is used and live as long as the process: services do not release their
+ * transport, so no service can tell when a pool is no longer needed. Applications should use a
+ * small, fixed set of configurations rather than build a distinct one per service.
+ *
+ * <p>Example of creating a storage service using a pool of up to 256 connections.
+ * <pre> {@code
+ * HttpTransportFactory transportFactory = PooledHttpTransportFactory.builder()
+ *     .maxConnectionsPerHost(256)
+ *     .maxConnections(256)
+ *     .build();
+ * Storage storage = StorageOptions.builder()
+ *     .httpTransportFactory(transportFactory)
+ *     .build()
+ *     .service();
+ * }</pre>
+ *
+ * <p>This factory does not work on App Engine standard environment, where outbound sockets must go
+ * through the URL Fetch service.
+ */
+public final class PooledHttpTransportFactory implements HttpTransportFactory, Serializable {
+
+  private static final long serialVersionUID = -3281944346893476046L;
+  // one transport per configuration, never removed: see the class documentation
+  private static final ConcurrentMap<PooledHttpTransportFactory, HttpTransport> TRANSPORTS =
+      new ConcurrentHashMap<>();
+  private static final long MIN_EVICTION_PERIOD_MILLIS = 1000;
+
+  private final int maxConnectionsPerHost;
+  private final int maxConnections;
+  private final long idleTimeoutMillis;
+  private final boolean tcpNoDelay;
+  private final int socketBufferSize;
+
+  private static class EvictorHolder {
+    private static final ScheduledExecutorService EVICTOR =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("google-cloud-http-evictor-%d")
+            .build());
+  }
+
+  /**
+   * Builder for {@code PooledHttpTransportFactory}.
+   */
+  public static final class Builder {
+
+    private int maxConnectionsPerHost = 100;
+    private int maxConnections = 200;
+    private long idleTimeoutMillis = 30_000;
+    private boolean tcpNoDelay = true;
+    private int socketBufferSize = 64 * 1024;
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of connections to the same host. Requests wait for a connection to
+     * be available when the limit is reached. Default is {@code 100}.
+     *
+     * @return the builder
+     */
+    public Builder maxConnectionsPerHost(int maxConnectionsPerHost) {
+      checkArgument(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be positive");
+      this.maxConnectionsPerHost = maxConnectionsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of connections of the pool, for all hosts. Default is {@code 200}.
+     *
+     * @return the builder
+     */
+    public Builder maxConnections(int maxConnections) {
+      checkArgument(maxConnections > 0, "maxConnections must be positive");
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * Sets the time after which an idle connection is closed, in milliseconds. Closing idle
+     * connections before the server or a load balancer does avoids failures on stale
+     * connections. {@code 0} keeps idle connections open and checks that a pooled connection is
+     * still open before each request instead. Default is {@code 30000}.
+     *
+     * @return the builder
+     */
+    public Builder idleTimeoutMillis(long idleTimeoutMillis) {
+      checkArgument(idleTimeoutMillis >= 0, "idleTimeoutMillis must not be negative");
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * Sets whether Nagle's algorithm is disabled on the connections' sockets. Default is
+     * {@code true}.
+     *
+     * @return the builder
+     */
+    public Builder tcpNoDelay(boolean tcpNoDelay) {
+      this.tcpNoDelay = tcpNoDelay;
+      return this;
+    }
+
+    /**
+     * Sets the size, in bytes, of the buffers used to read from and write to the connections'
+     * sockets. Default is {@code 65536}.
+     *
+     * @return the builder
+     */
+    public Builder socketBufferSize(int socketBufferSize) {
+      checkArgument(socketBufferSize > 0, "socketBufferSize must be positive");
+      this.socketBufferSize = socketBufferSize;
+      return this;
+    }
+
+    /**
+     * Creates a {@code PooledHttpTransportFactory} object.
+     */
+    public PooledHttpTransportFactory build() {
+      return new PooledHttpTransportFactory(this);
+    }
+  }
+
+  /**
+   * Creates a factory with the default settings, see {@link Builder}.
+   */
+  public PooledHttpTransportFactory() {
+    this(new Builder());
+  }
+
+  private PooledHttpTransportFactory(Builder builder) {
+    maxConnectionsPerHost = builder.maxConnectionsPerHost;
+    maxConnections = builder.maxConnections;
+    idleTimeoutMillis = builder.idleTimeoutMillis;
+    tcpNoDelay = builder.tcpNoDelay;
+    socketBufferSize = builder.socketBufferSize;
+  }
+
+  /**
+   * Returns the maximum number of connections to the same host.
+   */
+  public int maxConnectionsPerHost() {
+    return maxConnectionsPerHost;
+  }
+
+  /**
+   * Returns the maximum number of connections of the pool.
+   */
+  public int maxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Returns the time after which an idle connection is closed, in milliseconds. {@code 0} if idle
+   * connections are kept open.
+   */
+  public long idleTimeoutMillis() {
+    return idleTimeoutMillis;
+  }
+
+  /**
+   * Returns whether Nagle's algorithm is disabled on the connections' sockets.
+   */
+  public boolean tcpNoDelay() {
+    return tcpNoDelay;
+  }
+
+  /**
+   * Returns the size, in bytes, of the sockets' buffers.
+   */
+  public int socketBufferSize() {
+    return socketBufferSize;
+  }
+
+  /**
+   * Returns the transport shared by the factories equal to this one, creating it if needed.
+   */
+  @Override
+  public HttpTransport create() {
+    HttpTransport transport = TRANSPORTS.get(this);
+    if (transport == null) {
+      ApacheHttpTransport newTransport = newTransport();
+      transport = TRANSPORTS.putIfAbsent(this, newTransport);
+      if (transport == null) {
+        transport = newTransport;
+        scheduleEviction(newTransport.getHttpClient().getConnectionManager());
+      } else {
+        newTransport.shutdown();
+      }
+    }
+    return transport;
+  }
+
+  private ApacheHttpTransport newTransport() {
+    HttpParams params = new BasicHttpParams();
+    // when idle connections are evicted in the background, stale connections are not checked
+    // before each request: the few closed by the server in the meantime are retried below
+    HttpConnectionParams.setStaleCheckingEnabled(params, idleTimeoutMillis == 0);
+    HttpConnectionParams.setTcpNoDelay(params, tcpNoDelay);
+    HttpConnectionParams.setSocketBufferSize(params, socketBufferSize);
+    ConnManagerParams.setMaxTotalConnections(params, maxConnections);
+    ConnManagerParams.setMaxConnectionsPerRoute(params,
+        new ConnPerRouteBean(maxConnectionsPerHost));
+    SchemeRegistry registry = new SchemeRegistry();
+    registry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+    registry.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+    DefaultHttpClient client =
+        new DefaultHttpClient(new ThreadSafeClientConnManager(params, registry), params);
+    client.setHttpRequestRetryHandler(new StaleConnectionRetryHandler());
+    client.setRoutePlanner(new ProxySelectorRoutePlanner(registry, ProxySelector.getDefault()));
+    return new ApacheHttpTransport(client);
+  }
+
+  /**
+   * Retries idempotent requests once if the server closed a pooled connection without response,
+   * which happens when the server closes a connection just before it is reused. Other failures
+   * are retried by {@link RetryHelper}.
+   */
+  static final class StaleConnectionRetryHandler implements HttpRequestRetryHandler {
+
+    @Override
+    public boolean retryRequest(IOException exception, int executionCount, HttpContext context) {
+      if (executionCount > 1 || !(exception instanceof NoHttpResponseException)) {
+        return false;
+      }
+      Object request = context.getAttribute(ExecutionContext.HTTP_REQUEST);
+      return request != null && !(request instanceof HttpEntityEnclosingRequest);
+    }
+  }
+
+  private void scheduleEviction(final ClientConnectionManager connectionManager) {
+    if (idleTimeoutMillis == 0) {
+      return;
+    }
+    long period = Math.max(MIN_EVICTION_PERIOD_MILLIS, idleTimeoutMillis / 2);
+    EvictorHolder.EVICTOR.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxConnectionsPerHost, maxConnections, idleTimeoutMillis, tcpNoDelay,
+        socketBufferSize);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof PooledHttpTransportFactory)) {
+      return false;
+    }
+    PooledHttpTransportFactory other = (PooledHttpTransportFactory) obj;
+    return maxConnectionsPerHost == other.maxConnectionsPerHost
+        && maxConnections == other.maxConnections
+        && idleTimeoutMillis == other.idleTimeoutMillis
+        && tcpNoDelay == other.tcpNoDelay
+        && socketBufferSize == other.socketBufferSize;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("maxConnectionsPerHost", maxConnectionsPerHost)
+        .add("maxConnections", maxConnections)
+        .add("idleTimeoutMillis", idleTimeoutMillis)
+        .add("tcpNoDelay", tcpNoDelay)
+        .add("socketBufferSize", socketBufferSize)
+        .toString();
+  }
+
+  /**
+   * Returns a builder for {@code PooledHttpTransportFactory} objects.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Credentials renewing the access token of other credentials ahead of its expiration.
+ * {@link GoogleCredentials} refresh their token on the calling thread once it is about to expire,
+ * while holding a lock: all the requests issued during the refresh wait for it to complete. These
+ * credentials instead serve the cached request metadata without locking and, once the token is
+ * within {@code marginMillis} of its expiration, refresh it in the background. Requests only wait
+ * for a refresh if the token expires before the background refresh completes.
+ *
+ * <p>The cached request metadata does not depend on the request's URI, which holds for OAuth2
+ * access tokens.
+ */
+final class RefreshAheadCredentials extends GoogleCredentials {
+
+  private static final Logger logger = Logger.getLogger(RefreshAheadCredentials.class.getName());
+  // same as GoogleCredentials: tokens expiring within a minute are refreshed synchronously
+  private static final long MIN_VALIDITY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static final long RETRY_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+  private final GoogleCredentials credentials;
+  private final long marginMillis;
+  private final Clock clock;
+  private final Executor executor;
+  private final Object lock = new Object();
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private volatile CachedMetadata cached;
+
+  private static class RefresherHolder {
+    private static final Executor REFRESHER =
+        Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("google-cloud-credentials-refresher-%d")
+            .build());
+  }
+
+  private static final class CachedMetadata {
+
+    private final Map<String, List<String>> metadata;
+    private final long refreshAt;
+    private final long expireAt;
+
+    CachedMetadata(Map<String, List<String>> metadata, Date expirationTime, long marginMillis,
+        long now) {
+      this.metadata = metadata;
+      if (expirationTime == null) {
+        refreshAt = Long.MAX_VALUE;
+        expireAt = Long.MAX_VALUE;
+      } else {
+        long expiration = expirationTime.getTime();
+        // tokens with a lifetime shorter than the margin are refreshed halfway through it
+        refreshAt = Math.max(expiration - marginMillis, now + (expiration - now) / 2);
+        expireAt = expiration - MIN_VALIDITY_MILLIS;
+      }
+    }
+
+    private CachedMetadata(CachedMetadata cached, long refreshAt) {
+      this.metadata = cached.metadata;
+      this.refreshAt = refreshAt;
+      this.expireAt = cached.expireAt;
+    }
+  }
+
+  RefreshAheadCredentials(GoogleCredentials credentials, long marginMillis, Clock clock) {
+    this(credentials, marginMillis, clock, RefresherHolder.REFRESHER);
+  }
+
+  @VisibleForTesting
+  RefreshAheadCredentials(GoogleCredentials credentials, long marginMillis, Clock clock,
+      Executor executor) {
+    this.credentials = checkNotNull(credentials);
+    this.marginMillis = marginMillis;
+    this.clock = checkNotNull(clock);
+    this.executor = checkNotNull(executor);
+  }
+
+  /**
+   * Returns the wrapped credentials.
+   */
+  GoogleCredentials credentials() {
+    return credentials;
+  }
+
+  @Override
+  public String getAuthenticationType() {
+    return credentials.getAuthenticationType();
+  }
+
+  @Override
+  public boolean hasRequestMetadata() {
+    return credentials.hasRequestMetadata();
+  }
+
+  @Override
+  public boolean hasRequestMetadataOnly() {
+    return credentials.hasRequestMetadataOnly();
+  }
+
+  @Override
+  public Map<String, List<String>> getRequestMetadata(URI uri) throws IOException {
+    CachedMetadata current = cached;
+    long now = clock.millis();
+    if (current != null && now < current.expireAt) {
+      if (now >= current.refreshAt) {
+        refreshInBackground(uri);
+      }
+      return current.metadata;
+    }
+    synchronized (lock) {
+      current = cached;
+      if (current == null) {
+        // the wrapped credentials fetch their token if they don't have one yet
+        current = update(credentials.getRequestMetadata(uri));
+      } else if (clock.millis() >= current.expireAt) {
+        credentials.refresh();
+        current = update(credentials.getRequestMetadata(uri));
+      }
+      return current.metadata;
+    }
+  }
+
+  @Override
+  public void refresh() throws IOException {
+    synchronized (lock) {
+      credentials.refresh();
+      update(credentials.getRequestMetadata());
+    }
+  }
+
+  @Override
+  public boolean createScopedRequired() {
+    return credentials.createScopedRequired();
+  }
+
+  @Override
+  public GoogleCredentials createScoped(Collection<String> scopes) {
+    return new RefreshAheadCredentials(credentials.createScoped(scopes), marginMillis, clock,
+        executor);
+  }
+
+  private CachedMetadata update(Map<String, List<String>> metadata) {
+    AccessToken token = credentials.getAccessToken();
+    CachedMetadata current = new CachedMetadata(metadata,
+        token != null ? token.getExpirationTime() : null, marginMillis, clock.millis());
+    cached = current;
+    return current;
+  }
+
+  private void refreshInBackground(final URI uri) {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          synchronized (lock) {
+            credentials.refresh();
+            update(credentials.getRequestMetadata(uri));
+          }
+        } catch (IOException | RuntimeException ex) {
+          // retried later, the token is refreshed synchronously if it expires in the meantime
+          logger.log(Level.FINE, "Failed to refresh the access token ahead of its expiration", ex);
+          synchronized (lock) {
+            CachedMetadata current = cached;
+            if (current != null) {
+              cached = new CachedMetadata(current, clock.millis() + RETRY_DELAY_MILLIS);
+            }
+          }
+        } finally {
+          refreshing.set(false);
+        }
+      }
+    });
+  }
+}
@@ -25,10 +25,16 @@ import static java.lang.StrictMath.random;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.MoreObjects.ToStringHelper;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.InterruptedIOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,10 +53,11 @@ public class RetryHelper<V> {
   private final Callable<V> callable;
   private final RetryParams params;
   private final ExceptionHandler exceptionHandler;
+  private final RetryThrottler throttler;
   private int attemptNumber;
 
 
-  private static final ThreadLocal<Context> context = new ThreadLocal<>();
+  private static final ThreadLocal<RetryHelper<?>> context = new ThreadLocal<>();
 
   public static class RetryHelperException extends RuntimeException {
 
@@ -108,36 +115,32 @@ public class RetryHelper<V> {
   }
 
   /**
-   * Thrown when RetryHelper callable has indicate it should not be retried.
+   * Thrown when an attempt was not made because of client-side throttling, see
+   * {@link RetryThrottler}. If a previous attempt failed, its exception is the cause.
    */
-  public static final class NonRetriableException extends RetryHelperException {
+  public static final class ThrottledException extends RetryHelperException {
 
-    private static final long serialVersionUID = -2331878521983499652L;
+    private static final long serialVersionUID = -1588451932305929154L;
 
-    NonRetriableException(Throwable throwable) {
-      super(throwable);
+    ThrottledException(String message, Throwable cause) {
+      super(message, cause);
     }
   }
 
-  static class Context {
-
-    private final RetryHelper<?> helper;
-
-    Context(RetryHelper<?> helper) {
-      this.helper = helper;
-    }
+  /**
+   * Thrown when RetryHelper callable has indicate it should not be retried.
+   */
+  public static final class NonRetriableException extends RetryHelperException {
 
-    public RetryParams getRetryParams() {
-      return helper.params;
-    }
+    private static final long serialVersionUID = -2331878521983499652L;
 
-    public int getAttemptNumber() {
-      return helper.attemptNumber;
+    NonRetriableException(Throwable throwable) {
+      super(throwable);
     }
   }
 
   @VisibleForTesting
-  static void setContext(Context ctx) {
+  static void setContext(RetryHelper<?> ctx) {
     if (ctx == null) {
       context.remove();
     } else {
@@ -145,20 +148,40 @@ public class RetryHelper<V> {
     }
   }
 
-  static Context getContext() {
+  static RetryHelper<?> getContext() {
     return context.get();
   }
 
   @VisibleForTesting
   RetryHelper(Callable<V> callable, RetryParams params, ExceptionHandler exceptionHandler,
       Clock clock) {
+    this(callable, params, exceptionHandler, clock, null);
+  }
+
+  RetryHelper(Callable<V> callable, RetryParams params, ExceptionHandler exceptionHandler,
+      Clock clock, RetryThrottler throttler) {
     this.callable = checkNotNull(callable);
     this.params = checkNotNull(params);
     this.clock = checkNotNull(clock);
     this.exceptionHandler = checkNotNull(exceptionHandler);
+    this.throttler = throttler;
     exceptionHandler.verifyCaller(callable);
   }
 
+  /**
+   * Returns the retry parameters. {@link #getContext()} exposes them to the callable being run.
+   */
+  RetryParams getRetryParams() {
+    return params;
+  }
+
+  /**
+   * Returns the number of the current attempt, starting from 1.
+   */
+  int getAttemptNumber() {
+    return attemptNumber;
+  }
+
   @Override
   public String toString() {
     ToStringHelper toStringHelper = MoreObjects.toStringHelper(this);
@@ -172,36 +195,23 @@ public class RetryHelper<V> {
 
   private V doRetry() throws RetryHelperException {
     long start = clock.millis();
+    Exception exception = null;
     while (true) {
       attemptNumber++;
-      Exception exception;
+      acquire(exception);
       try {
         V value = callable.call();
+        if (throttler != null) {
+          throttler.onAccepted();
+        }
         if (attemptNumber > 1 && log.isLoggable(Level.FINE)) {
           log.fine(this + ": attempt #" + attemptNumber + " succeeded");
         }
         return value;
-      } catch (InterruptedException | InterruptedIOException | ClosedByInterruptException e) {
-        if (!exceptionHandler.shouldRetry(e)) {
-          RetryInterruptedException.propagate();
-        }
-        exception = e;
       } catch (Exception e) {
-        if (!exceptionHandler.shouldRetry(e)) {
-          throw new NonRetriableException(e);
-        }
         exception = e;
       }
-      if (attemptNumber >= params.retryMaxAttempts()
-          || attemptNumber >= params.retryMinAttempts()
-          && clock.millis() - start >= params.totalRetryPeriodMillis()) {
-        throw new RetriesExhaustedException(this + ": Too many failures, giving up", exception);
-      }
-      long sleepDurationMillis = getSleepDuration(params, attemptNumber);
-      if (log.isLoggable(Level.FINE)) {
-        log.fine(this + ": Attempt #" + attemptNumber + " failed [" + exception
-            + "], sleeping for " + sleepDurationMillis + " ms");
-      }
+      long sleepDurationMillis = retryDelay(exception, start);
       try {
         Thread.sleep(sleepDurationMillis);
       } catch (InterruptedException e) {
@@ -211,8 +221,149 @@ public class RetryHelper<V> {
     }
   }
 
-  @VisibleForTesting
-  static long getSleepDuration(RetryParams retryParams, int attemptsSoFar) {
+  /**
+   * Returns how long to wait before the next attempt, given that the last attempt failed with
+   * {@code exception}.
+   *
+   * @throws RetryHelperException if the operation should not be retried
+   */
+  private long retryDelay(Exception exception, long start) throws RetryHelperException {
+    boolean interrupted = exception instanceof InterruptedException
+        || exception instanceof InterruptedIOException
+        || exception instanceof ClosedByInterruptException;
+    boolean shouldRetry = exceptionHandler.shouldRetry(exception);
+    if (throttler != null && !interrupted) {
+      if (shouldRetry) {
+        throttler.onRejected();
+      } else {
+        throttler.onAccepted();
+      }
+    }
+    if (!shouldRetry) {
+      if (interrupted) {
+        RetryInterruptedException.propagate();
+      }
+      throw new NonRetriableException(exception);
+    }
+    if (attemptNumber >= params.retryMaxAttempts()
+        || attemptNumber >= params.retryMinAttempts()
+        && clock.millis() - start >= params.totalRetryPeriodMillis()) {
+      throw new RetriesExhaustedException(this + ": Too many failures, giving up", exception);
+    }
+    long sleepDurationMillis = getSleepDuration(params, attemptNumber);
+    if (log.isLoggable(Level.FINE)) {
+      log.fine(this + ": Attempt #" + attemptNumber + " failed [" + exception
+          + "], sleeping for " + sleepDurationMillis + " ms");
+    }
+    return sleepDurationMillis;
+  }
+
+  /**
+   * Checks that the current attempt is allowed by the throttler, if any. {@code lastException} is
+   * the exception of the previous attempt, or {@code null} for the first attempt.
+   *
+   * @throws ThrottledException if the attempt is not allowed
+   */
+  private void acquire(Exception lastException) throws ThrottledException {
+    if (throttler != null && !throttler.tryAcquire(attemptNumber > 1)) {
+      throw new ThrottledException(
+          this + ": attempt #" + attemptNumber + " throttled by " + throttler, lastException);
+    }
+  }
+
+  /**
+   * A future completed by running the callable with retries. Attempts and retries are scheduled
+   * on an executor, no thread is blocked while waiting for the next attempt.
+   */
+  private final class AsyncRetry extends AbstractFuture<V> implements Runnable {
+
+    private final ScheduledExecutorService executor;
+    private final long start;
+    private final Object scheduleLock = new Object();
+    private volatile Future<?> nextAttempt;
+    private Exception lastException;
+
+    AsyncRetry(ScheduledExecutorService executor) {
+      this.executor = executor;
+      this.start = clock.millis();
+    }
+
+    private void schedule(long delayMillis) {
+      if (isDone()) {
+        return;
+      }
+      // the scheduled attempt may run and schedule the next one before executor.schedule() returns,
+      // the lock makes sure nextAttempt is set in order
+      synchronized (scheduleLock) {
+        try {
+          nextAttempt = executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          setException(e);
+          return;
+        }
+      }
+      if (isCancelled()) {
+        // cancel() may have run before nextAttempt was set
+        nextAttempt.cancel(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (isDone()) {
+        return;
+      }
+      attemptNumber++;
+      try {
+        acquire(lastException);
+      } catch (ThrottledException e) {
+        setException(e);
+        return;
+      }
+      RetryHelper<?> previousContext = context.get();
+      context.set(RetryHelper.this);
+      try {
+        V value = callable.call();
+        if (throttler != null) {
+          throttler.onAccepted();
+        }
+        if (attemptNumber > 1 && log.isLoggable(Level.FINE)) {
+          log.fine(RetryHelper.this + ": attempt #" + attemptNumber + " succeeded");
+        }
+        set(value);
+      } catch (Exception e) {
+        lastException = e;
+        try {
+          schedule(retryDelay(e, start));
+        } catch (RetryHelperException ex) {
+          setException(ex);
+        }
+      } catch (Error e) {
+        setException(e);
+      } finally {
+        context.set(previousContext);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!super.cancel(mayInterruptIfRunning)) {
+        return false;
+      }
+      Future<?> attempt = nextAttempt;
+      if (attempt != null) {
+        attempt.cancel(mayInterruptIfRunning);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns how long to sleep, in milliseconds, after {@code attemptsSoFar} failed attempts. The
+   * delay grows exponentially according to {@code retryParams} and is randomized by up to 25% in
+   * either direction, so that clients retrying together do not do so in lockstep.
+   */
+  public static long getSleepDuration(RetryParams retryParams, int attemptsSoFar) {
     long initialDelay = retryParams.initialRetryDelayMillis();
     double backoffFactor = retryParams.retryDelayBackoffFactor();
     long maxDelay = retryParams.maxRetryDelayMillis();
@@ -237,13 +388,77 @@ public class RetryHelper<V> {
 
   public static <V> V runWithRetries(Callable<V> callable, RetryParams params,
       ExceptionHandler exceptionHandler, Clock clock) throws RetryHelperException {
-    RetryHelper<V> retryHelper = new RetryHelper<>(callable, params, exceptionHandler, clock);
-    Context previousContext = getContext();
-    setContext(new Context(retryHelper));
+    return runWithRetries(callable, params, exceptionHandler, clock, null);
+  }
+
+  /**
+   * Runs {@code callable} with retries, consulting {@code throttler} before each attempt. An
+   * attempt that is not allowed by the throttler fails the call with a {@link ThrottledException}.
+   * If {@code throttler} is {@code null} no client-side throttling is applied.
+   *
+   * @see ServiceOptions#retryThrottler()
+   */
+  public static <V> V runWithRetries(Callable<V> callable, RetryParams params,
+      ExceptionHandler exceptionHandler, Clock clock, RetryThrottler throttler)
+      throws RetryHelperException {
+    RetryHelper<V> retryHelper =
+        new RetryHelper<>(callable, params, exceptionHandler, clock, throttler);
+    // the running helper is its own context, and set() rather than remove() restores the previous
+    // one so that the thread-local entry is reused: no allocation besides the helper itself
+    RetryHelper<?> previousContext = context.get();
+    context.set(retryHelper);
     try {
       return retryHelper.doRetry();
     } finally {
-      setContext(previousContext);
+      context.set(previousContext);
     }
   }
+
+  /**
+   * Runs {@code callable} with retries, without blocking the caller. Each attempt, including the
+   * first one, is run on {@code executor}; a failed attempt schedules the next one after the
+   * backoff delay, rather than sleeping, so that waiting operations do not hold any thread.
+   *
+   * <p>The returned future completes with the value returned by the callable or fails with a
+   * {@link RetryHelperException}, as thrown by
+   * {@link #runWithRetries(Callable, RetryParams, ExceptionHandler)}. Cancelling the future
+   * cancels any pending attempt; if {@code mayInterruptIfRunning} is {@code true} a running
+   * attempt is also interrupted.
+   */
+  public static <V> ListenableFuture<V> runWithRetriesAsync(Callable<V> callable,
+      RetryParams params, ExceptionHandler exceptionHandler, ScheduledExecutorService executor) {
+    return runWithRetriesAsync(callable, params, exceptionHandler, Clock.defaultClock(), executor);
+  }
+
+  /**
+   * Runs {@code callable} with retries, without blocking the caller. {@code clock} is used to
+   * check the total retry period.
+   *
+   * @see #runWithRetriesAsync(Callable, RetryParams, ExceptionHandler, ScheduledExecutorService)
+   */
+  public static <V> ListenableFuture<V> runWithRetriesAsync(Callable<V> callable,
+      RetryParams params, ExceptionHandler exceptionHandler, Clock clock,
+      ScheduledExecutorService executor) {
+    return runWithRetriesAsync(callable, params, exceptionHandler, clock, null, executor);
+  }
+
+  /**
+   * Runs {@code callable} with retries, without blocking the caller, consulting {@code throttler}
+   * before each attempt. An attempt that is not allowed by the throttler fails the returned future
+   * with a {@link ThrottledException}. If {@code throttler} is {@code null} no client-side
+   * throttling is applied.
+   *
+   * @see #runWithRetriesAsync(Callable, RetryParams, ExceptionHandler, ScheduledExecutorService)
+   * @see ServiceOptions#retryThrottler()
+   */
+  public static <V> ListenableFuture<V> runWithRetriesAsync(Callable<V> callable,
+      RetryParams params, ExceptionHandler exceptionHandler, Clock clock,
+      RetryThrottler throttler, ScheduledExecutorService executor) {
+    checkNotNull(executor);
+    RetryHelper<V> retryHelper =
+        new RetryHelper<>(callable, params, exceptionHandler, clock, throttler);
+    RetryHelper<V>.AsyncRetry future = retryHelper.new AsyncRetry(executor);
+    future.schedule(0);
+    return future;
+  }
 }
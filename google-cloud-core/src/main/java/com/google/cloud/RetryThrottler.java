@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Client-side throttling of the requests sent by {@link RetryHelper}, shared by all the calls made
+ * with the same {@link ServiceOptions}. Two mechanisms prevent clients from amplifying the load
+ * of a struggling backend:
+ *
+ * <ul>
+ *   <li>A retry budget: a token bucket that loses a token for each failed attempt and regains a
+ *   fraction of a token for each accepted one. Retries are only allowed while the bucket is more
+ *   than half full, so a sustained error rate stops retries without affecting first attempts.
+ *   <li>Adaptive throttling: over a sliding window of two minutes, attempts are rejected locally
+ *   with probability {@code max(0, (requests - K * accepts) / (requests + 1))}, where
+ *   {@code requests} counts the attempts and {@code accepts} the attempts accepted by the backend.
+ *   With {@code K = 2} no attempt is rejected until more than half of the attempts fail. Adaptive
+ *   throttling only applies once the window holds at least 20 attempts.
+ * </ul>
+ *
+ * <p>An attempt is accepted if it succeeds or fails with an error that is not retried, it is
+ * rejected if it fails with an error that would be retried.
+ *
+ * @see <a href="https://landing.google.com/sre/book/chapters/handling-overload.html">Handling
+ *     Overload</a>
+ */
+@ThreadSafe
+public final class RetryThrottler {
+
+  static final double MAX_TOKENS = 100;
+  static final double TOKEN_RATIO = 0.1;
+  static final double ACCEPTS_MULTIPLIER = 2;
+  static final long MIN_REQUESTS = 20;
+  static final int WINDOW_BUCKETS = 12;
+  static final long BUCKET_MILLIS = 10_000L;
+  // tokens are kept as a fixed-point number of thousandths of a token
+  private static final long TOKEN_UNITS = 1000;
+  private static final long MAX_TOKEN_UNITS = Math.round(MAX_TOKENS * TOKEN_UNITS);
+  private static final long TOKEN_RATIO_UNITS = Math.round(TOKEN_RATIO * TOKEN_UNITS);
+  private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+  private final Clock clock;
+  private final Random random;
+  // Each bucket packs the index of the time interval it counts (high 32 bits) with its count (low
+  // 32 bits), so that a bucket is reset and incremented with a single compare-and-set
+  private final AtomicLongArray requests = new AtomicLongArray(WINDOW_BUCKETS);
+  private final AtomicLongArray accepts = new AtomicLongArray(WINDOW_BUCKETS);
+  private final AtomicLong tokens = new AtomicLong(MAX_TOKEN_UNITS);
+
+  /**
+   * Creates a throttler using {@code clock} to measure the sliding window.
+   */
+  public RetryThrottler(Clock clock) {
+    this(clock, null);
+  }
+
+  @VisibleForTesting
+  RetryThrottler(Clock clock, Random random) {
+    this.clock = checkNotNull(clock);
+    this.random = random;
+  }
+
+  /**
+   * Returns whether an attempt can be sent. A first attempt is only subject to adaptive
+   * throttling, a retry must also fit in the retry budget. An allowed attempt is counted as a
+   * request, its outcome must be reported with {@link #onAccepted()} or {@link #onRejected()}.
+   */
+  boolean tryAcquire(boolean retry) {
+    if (retry && tokens.get() <= MAX_TOKEN_UNITS / 2) {
+      return false;
+    }
+    long interval = interval();
+    double rejectionProbability = rejectionProbability(interval);
+    increment(requests, interval);
+    return rejectionProbability <= 0 || nextDouble() >= rejectionProbability;
+  }
+
+  /**
+   * Records an attempt accepted by the backend.
+   */
+  void onAccepted() {
+    increment(accepts, interval());
+    long current;
+    do {
+      current = tokens.get();
+    } while (current < MAX_TOKEN_UNITS
+        && !tokens.compareAndSet(current, Math.min(MAX_TOKEN_UNITS, current + TOKEN_RATIO_UNITS)));
+  }
+
+  /**
+   * Records an attempt rejected by the backend.
+   */
+  void onRejected() {
+    long current;
+    do {
+      current = tokens.get();
+    } while (current > 0
+        && !tokens.compareAndSet(current, Math.max(0, current - TOKEN_UNITS)));
+  }
+
+  /**
+   * Returns the probability that an attempt is currently rejected by adaptive throttling.
+   */
+  public double rejectionProbability() {
+    return Math.max(0, rejectionProbability(interval()));
+  }
+
+  /**
+   * Returns the number of tokens in the retry budget, between {@code 0} and {@code 100}. Retries
+   * are allowed when more than {@code 50} tokens are available.
+   */
+  public double retryTokens() {
+    return (double) tokens.get() / TOKEN_UNITS;
+  }
+
+  private double rejectionProbability(long interval) {
+    long totalRequests = count(requests, interval);
+    if (totalRequests < MIN_REQUESTS) {
+      return 0;
+    }
+    long totalAccepts = count(accepts, interval);
+    return (totalRequests - ACCEPTS_MULTIPLIER * totalAccepts) / (totalRequests + 1);
+  }
+
+  private double nextDouble() {
+    return random != null ? random.nextDouble() : ThreadLocalRandom.current().nextDouble();
+  }
+
+  /**
+   * Returns the index of the current time interval, truncated to 32 bits.
+   */
+  private long interval() {
+    return (clock.millis() / BUCKET_MILLIS) & COUNT_MASK;
+  }
+
+  /**
+   * Increments the count of the bucket for {@code interval}, resetting the bucket if it still
+   * holds the count of an interval that fell out of the sliding window.
+   */
+  private static void increment(AtomicLongArray buckets, long interval) {
+    int index = (int) (interval % WINDOW_BUCKETS);
+    long current;
+    long next;
+    do {
+      current = buckets.get(index);
+      next = current >>> 32 == interval ? current + 1 : interval << 32 | 1;
+    } while (!buckets.compareAndSet(index, current, next));
+  }
+
+  /**
+   * Returns the sum of the counts of the buckets in the sliding window that ends at
+   * {@code interval}.
+   */
+  private static long count(AtomicLongArray buckets, long interval) {
+    long total = 0;
+    for (int i = 0; i < WINDOW_BUCKETS; i++) {
+      long bucket = buckets.get(i);
+      if (((interval - (bucket >>> 32)) & COUNT_MASK) < WINDOW_BUCKETS) {
+        total += bucket & COUNT_MASK;
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    long interval = interval();
+    return MoreObjects.toStringHelper(this)
+        .add("requests", count(requests, interval))
+        .add("accepts", count(accepts, interval))
+        .add("tokens", retryTokens())
+        .toString();
+  }
+}
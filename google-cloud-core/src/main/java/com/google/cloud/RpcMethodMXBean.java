@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the metrics of an RPC method, as registered by {@link JmxRpcMetricsExporter}.
+ * Counts cover all the calls. Latencies are in milliseconds and cover recent calls only, see
+ * {@link InMemoryRpcMetrics.MethodMetrics#recentLatencies()}, so that they reflect the current
+ * behavior of the service rather than its whole history.
+ */
+public interface RpcMethodMXBean {
+
+  long getCount();
+
+  long getRetryCount();
+
+  long getErrorCount();
+
+  Map<String, Long> getErrorCounts();
+
+  long getBytesSent();
+
+  long getBytesReceived();
+
+  double getMeanLatencyMillis();
+
+  double getP50LatencyMillis();
+
+  double getP90LatencyMillis();
+
+  double getP99LatencyMillis();
+
+  double getP999LatencyMillis();
+
+  double getMaxLatencyMillis();
+}
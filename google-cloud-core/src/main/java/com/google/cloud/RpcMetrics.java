@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+/**
+ * A sink for client-side RPC metrics. When set with
+ * {@link ServiceOptions.Builder#rpcMetrics(RpcMetrics)}, every call to a method of the service's
+ * RPC interface (e.g. {@code StorageRpc} or {@code PubSubRpc}) is recorded once it completes. For
+ * RPC methods that return a {@link com.google.common.util.concurrent.ListenableFuture} the call
+ * completes when the future does.
+ *
+ * <p>Implementations are called concurrently from the threads running the calls and should not
+ * block. {@link InMemoryRpcMetrics} keeps per-method counters and latency histograms.
+ */
+public interface RpcMetrics {
+
+  /**
+   * Records a completed RPC call.
+   *
+   * @param method the RPC method, as {@code <interface>.<method>}, e.g. {@code StorageRpc.get}
+   * @param latencyNanos the duration of the call, in nanoseconds
+   * @param attempt the attempt number of the call, starting from 1, when the call is made by
+   *     {@link RetryHelper}; {@code 1} otherwise
+   * @param bytesSent the request body bytes sent by the call, {@code 0} if unknown
+   * @param bytesReceived the response body bytes received by the call, {@code 0} if unknown
+   * @param error {@code null} if the call succeeded, otherwise the code of the
+   *     {@link BaseServiceException} that failed the call or the simple name of the exception's
+   *     class
+   */
+  void record(String method, long latencyNanos, int attempt, long bytesSent, long bytesReceived,
+      String error);
+}
@@ -20,6 +20,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.spi.ServiceRpcFactory;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
@@ -82,12 +83,16 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
   private final String serviceRpcFactoryClassName;
   private final String serviceFactoryClassName;
   private final Clock clock;
+  private final boolean retryThrottling;
+  private final long credentialsRefreshMarginMillis;
 
   private transient AuthCredentials authCredentials;
   private transient ServiceRpcFactory<ServiceRpcT, OptionsT> serviceRpcFactory;
   private transient ServiceFactory<ServiceT, OptionsT> serviceFactory;
   private transient ServiceT service;
   private transient ServiceRpcT rpc;
+  private transient volatile RetryThrottler retryThrottler;
+  private transient RpcMetrics rpcMetrics;
 
   /**
    * Builder for {@code ServiceOptions}.
@@ -108,6 +113,9 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
     private ServiceFactory<ServiceT, OptionsT> serviceFactory;
     private ServiceRpcFactory<ServiceRpcT, OptionsT> serviceRpcFactory;
     private Clock clock;
+    private boolean retryThrottling = true;
+    private RpcMetrics rpcMetrics;
+    private long credentialsRefreshMarginMillis;
 
     protected Builder() {}
 
@@ -119,6 +127,9 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
       serviceFactory = options.serviceFactory;
       serviceRpcFactory = options.serviceRpcFactory;
       clock = options.clock;
+      retryThrottling = options.retryThrottling;
+      rpcMetrics = options.rpcMetrics;
+      credentialsRefreshMarginMillis = options.credentialsRefreshMarginMillis;
     }
 
     protected abstract ServiceOptions<ServiceT, ServiceRpcT, OptionsT> build();
@@ -190,6 +201,47 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
       return self();
     }
 
+    /**
+     * Sets whether requests are throttled on the client side when the service rejects too many of
+     * them. Throttling is enabled by default, see {@link RetryThrottler}.
+     *
+     * @return the builder
+     */
+    public B retryThrottling(boolean retryThrottling) {
+      this.retryThrottling = retryThrottling;
+      return self();
+    }
+
+    /**
+     * Sets the sink of the service's RPC metrics. When set, every call to the service's RPC
+     * object is recorded, see {@link RpcMetrics}. RPC calls are not recorded by default. Note that
+     * the RPC object returned by {@link ServiceOptions#rpc()} is then a proxy implementing the
+     * RPC interfaces. RPC metrics are not serialized with the options.
+     *
+     * @return the builder
+     */
+    public B rpcMetrics(RpcMetrics rpcMetrics) {
+      this.rpcMetrics = rpcMetrics;
+      return self();
+    }
+
+    /**
+     * Sets how long before its expiration the access token of the credentials is refreshed, in
+     * milliseconds. When set, requests keep using the current token while a new one is fetched in
+     * the background, instead of waiting for the token to be refreshed once it is about to expire.
+     * {@code 0}, the default, disables refreshing tokens ahead of their expiration. A margin of a
+     * few minutes is enough for the usual one-hour tokens.
+     *
+     * @return the builder
+     * @throws IllegalArgumentException if the provided margin is negative
+     */
+    public B credentialsRefreshMarginMillis(long credentialsRefreshMarginMillis) {
+      checkArgument(credentialsRefreshMarginMillis >= 0,
+          "Credentials refresh margin must be >= 0");
+      this.credentialsRefreshMarginMillis = credentialsRefreshMarginMillis;
+      return self();
+    }
+
     /**
      * Sets the factory for rpc services.
      *
@@ -223,6 +275,9 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
         getFromServiceLoader(rpcFactoryClass, defaultRpcFactory()));
     serviceRpcFactoryClassName = serviceRpcFactory.getClass().getName();
     clock = firstNonNull(builder.clock, Clock.defaultClock());
+    retryThrottling = builder.retryThrottling;
+    rpcMetrics = builder.rpcMetrics;
+    credentialsRefreshMarginMillis = builder.credentialsRefreshMarginMillis;
   }
 
   /**
@@ -396,7 +451,8 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
   @SuppressWarnings("unchecked")
   public ServiceRpcT rpc() {
     if (rpc == null) {
-      rpc = serviceRpcFactory.create((OptionsT) this);
+      ServiceRpcT serviceRpc = serviceRpcFactory.create((OptionsT) this);
+      rpc = rpcMetrics != null ? MeteredRpc.wrap(serviceRpc, rpcMetrics) : serviceRpc;
     }
     return rpc;
   }
@@ -439,6 +495,66 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
     return clock;
   }
 
+  /**
+   * Returns whether requests are throttled on the client side when the service rejects too many of
+   * them.
+   */
+  public boolean retryThrottling() {
+    return retryThrottling;
+  }
+
+  /**
+   * Returns the throttler shared by the requests made with these options, or {@code null} if
+   * {@link #retryThrottling()} is {@code false}.
+   */
+  public RetryThrottler retryThrottler() {
+    if (!retryThrottling) {
+      return null;
+    }
+    RetryThrottler throttler = retryThrottler;
+    if (throttler == null) {
+      synchronized (this) {
+        throttler = retryThrottler;
+        if (throttler == null) {
+          retryThrottler = throttler = new RetryThrottler(clock);
+        }
+      }
+    }
+    return throttler;
+  }
+
+  /**
+   * Returns the sink of the service's RPC metrics, or {@code null} if RPC calls are not recorded.
+   */
+  public RpcMetrics rpcMetrics() {
+    return rpcMetrics;
+  }
+
+  /**
+   * Returns how long before its expiration the access token of the credentials is refreshed, in
+   * milliseconds. {@code 0} if tokens are only refreshed when they are about to expire.
+   */
+  public long credentialsRefreshMarginMillis() {
+    return credentialsRefreshMarginMillis;
+  }
+
+  /**
+   * Returns the credentials used to authorize requests, scoped with {@link #scopes()}, or
+   * {@code null} if requests are not authorized. If {@link #credentialsRefreshMarginMillis()} is
+   * positive, the returned credentials refresh their access token in the background ahead of its
+   * expiration.
+   */
+  protected GoogleCredentials scopedCredentials() {
+    GoogleCredentials credentials = authCredentials != null ? authCredentials.credentials() : null;
+    if (credentials == null) {
+      return null;
+    }
+    credentials = credentials.createScoped(scopes());
+    return credentialsRefreshMarginMillis > 0
+        ? new RefreshAheadCredentials(credentials, credentialsRefreshMarginMillis, clock)
+        : credentials;
+  }
+
   /**
    * Returns the application's name as a string in the format {@code gcloud-java/[version]}.
    */
@@ -462,7 +578,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
 
   protected int baseHashCode() {
     return Objects.hash(projectId, host, authCredentialsState, retryParams, serviceFactoryClassName,
-        serviceRpcFactoryClassName, clock);
+        serviceRpcFactoryClassName, clock, retryThrottling, credentialsRefreshMarginMillis);
   }
 
   protected boolean baseEquals(ServiceOptions<?, ?, ?> other) {
@@ -472,7 +588,9 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
         && Objects.equals(retryParams, other.retryParams)
         && Objects.equals(serviceFactoryClassName, other.serviceFactoryClassName)
         && Objects.equals(serviceRpcFactoryClassName, other.serviceRpcFactoryClassName)
-        && Objects.equals(clock, clock);
+        && Objects.equals(clock, clock)
+        && retryThrottling == other.retryThrottling
+        && credentialsRefreshMarginMillis == other.credentialsRefreshMarginMillis;
   }
 
   private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
@@ -24,6 +24,7 @@ import com.google.common.util.concurrent.Futures;
 import org.junit.Test;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 public class AsyncPageImplTest {
@@ -125,4 +126,44 @@ public class AsyncPageImplTest {
     assertEquals(VALUES1, result.values());
     assertEquals(SOME_VALUES, ImmutableList.copyOf(result.nextPageAsync().get().iterateAll()));
   }
+
+  @Test
+  public void testIterateAllPrefetch() {
+    final AsyncPageImpl<String> nextResult2 = new AsyncPageImpl<>(null, "c3", VALUES3);
+    AsyncPageImpl.NextPageFetcher<String> fetcher2 = new AsyncPageImpl.NextPageFetcher<String>() {
+      private static final long serialVersionUID = -9203621430631884026L;
+
+      @Override
+      public Future<AsyncPage<String>> nextPage() {
+        return Futures.<AsyncPage<String>>immediateFuture(nextResult2);
+      }
+    };
+    final AsyncPageImpl<String> nextResult1 = new AsyncPageImpl<>(fetcher2, "c2", VALUES2);
+    AsyncPageImpl.NextPageFetcher<String> fetcher1 = new AsyncPageImpl.NextPageFetcher<String>() {
+      private static final long serialVersionUID = -9203621430631884026L;
+
+      @Override
+      public Future<AsyncPage<String>> nextPage() {
+        return Futures.<AsyncPage<String>>immediateFuture(nextResult1);
+      }
+    };
+    AsyncPageImpl<String> result = new AsyncPageImpl<>(fetcher1, "c1", VALUES1);
+    // listenable futures returned by nextPageAsync() need no executor
+    GrpcServiceOptions.ExecutorFactory<ExecutorService> executorFactory =
+        new GrpcServiceOptions.ExecutorFactory<ExecutorService>() {
+          @Override
+          public ExecutorService get() {
+            throw new AssertionError("No executor expected");
+          }
+
+          @Override
+          public void release(ExecutorService executor) {
+            throw new AssertionError("No executor expected");
+          }
+        };
+    assertEquals(ALL_VALUES,
+        ImmutableList.copyOf(PageImpl.prefetching(result, 1, executorFactory)));
+    assertEquals(ALL_VALUES,
+        ImmutableList.copyOf(PageImpl.prefetching(result, 5, executorFactory)));
+  }
 }
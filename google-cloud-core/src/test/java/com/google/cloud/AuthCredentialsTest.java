@@ -42,6 +42,9 @@ import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AuthCredentialsTest {
 
@@ -125,4 +128,24 @@ public class AuthCredentialsTest {
     assertEquals(privateKey, credentials.getPrivateKey());
     assertArrayEquals(signedBytes, serviceAccountAuthCredentials.sign(BYTES_TO_SIGN));
   }
+
+  @Test
+  public void testServiceAccountSignRepeatedly() throws Exception {
+    final ServiceAccountAuthCredentials serviceAccountAuthCredentials =
+        AuthCredentials.createFor(SERVICE_ACCOUNT, privateKey);
+    assertArrayEquals(signedBytes, serviceAccountAuthCredentials.sign(BYTES_TO_SIGN));
+    assertArrayEquals(signedBytes, serviceAccountAuthCredentials.sign(BYTES_TO_SIGN));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      byte[] signed = executor.submit(new Callable<byte[]>() {
+        @Override
+        public byte[] call() {
+          return serviceAccountAuthCredentials.sign(BYTES_TO_SIGN);
+        }
+      }).get();
+      assertArrayEquals(signedBytes, signed);
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
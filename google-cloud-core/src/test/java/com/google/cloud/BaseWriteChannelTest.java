@@ -21,6 +21,7 @@ import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import com.google.cloud.spi.ServiceRpcFactory;
 
@@ -131,9 +132,21 @@ public class BaseWriteChannelTest {
     channel.write(content);
     assertEquals(DEFAULT_CHUNK_SIZE, channel.position());
     assertEquals(1, channel.limit());
-    byte[] newContent = new byte[DEFAULT_CHUNK_SIZE];
-    newContent[0] = content.get(DEFAULT_CHUNK_SIZE);
-    assertArrayEquals(newContent, channel.buffer());
+    assertEquals(DEFAULT_CHUNK_SIZE, channel.buffer().length);
+    assertEquals(content.get(DEFAULT_CHUNK_SIZE), channel.buffer()[0]);
+  }
+
+  @Test
+  public void testWriteReusesBuffer() throws IOException {
+    channel.write(ByteBuffer.wrap(CONTENT));
+    byte[] buffer = channel.buffer();
+    ByteBuffer content = randomBuffer(DEFAULT_CHUNK_SIZE);
+    channel.write(content);
+    assertEquals(DEFAULT_CHUNK_SIZE, channel.position());
+    assertEquals(CONTENT.length, channel.limit());
+    assertSame(buffer, channel.buffer());
+    assertArrayEquals(Arrays.copyOfRange(content.array(), DEFAULT_CHUNK_SIZE - CONTENT.length,
+        DEFAULT_CHUNK_SIZE), Arrays.copyOf(channel.buffer(), CONTENT.length));
   }
 
   private static ByteBuffer randomBuffer(int size) {
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class ByteBufferContentTest {
+
+  private static final byte[] CONTENT = {0xD, 0xE, 0xA, 0xD, 0xB, 0xE, 0xE, 0xF};
+
+  @Test
+  public void testHeapBuffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(CONTENT, 2, 4).slice();
+    ByteBufferContent content = new ByteBufferContent(null, buffer);
+    assertEquals(4, content.getLength());
+    assertTrue(content.retrySupported());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    content.writeTo(out);
+    assertArrayEquals(new byte[]{0xA, 0xD, 0xB, 0xE}, out.toByteArray());
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void testDirectBuffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(CONTENT.length);
+    buffer.put(CONTENT);
+    buffer.position(1);
+    ByteBufferContent content = new ByteBufferContent(null, buffer);
+    assertEquals(CONTENT.length - 1, content.getLength());
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      content.writeTo(out);
+      assertArrayEquals(new byte[]{0xE, 0xA, 0xD, 0xB, 0xE, 0xE, 0xF}, out.toByteArray());
+    }
+    assertEquals(1, buffer.position());
+  }
+}
@@ -89,6 +89,9 @@ public class ExceptionHandlerTest {
     assertValidCallable(new D(), handler);
     assertValidCallable(new E(), handler);
     assertInvalidCallable(new F(), handler);
+    // verification is cached by class
+    assertValidCallable(new A(), handler);
+    assertInvalidCallable(new F(), handler);
 
     handler = ExceptionHandler.builder()
         .retryOn(FileNotFoundException.class, NullPointerException.class)
@@ -99,6 +102,9 @@ public class ExceptionHandlerTest {
     assertInvalidCallable(new D(), handler);
     assertValidCallable(new E(), handler);
     assertInvalidCallable(new F(), handler);
+    // cached verifications are not shared among handlers
+    assertInvalidCallable(new A(), handler);
+    assertValidCallable(new C(), handler);
   }
 
   private static <T> void assertValidCallable(Callable<T> callable, ExceptionHandler handler) {
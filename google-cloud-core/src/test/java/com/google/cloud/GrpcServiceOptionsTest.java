@@ -17,7 +17,9 @@
 package com.google.cloud;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -26,6 +28,8 @@ import com.google.cloud.GrpcServiceOptions.DefaultExecutorFactory;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.spi.ServiceRpcFactory;
 
+import io.grpc.ManagedChannel;
+
 import org.easymock.EasyMock;
 import org.junit.Test;
 
@@ -42,6 +46,7 @@ public class GrpcServiceOptionsTest {
       .timeoutMultiplier(1.6)
       .maxTimeout(5678)
       .executorFactory(MOCK_EXECUTOR_FACTORY)
+      .channelPoolSize(4)
       .build();
   private static final TestGrpcServiceOptions DEFAULT_OPTIONS =
       TestGrpcServiceOptions.builder().projectId("project-id").build();
@@ -148,10 +153,12 @@ public class GrpcServiceOptionsTest {
     assertEquals(1.6, OPTIONS.timeoutMultiplier(), 0.0);
     assertEquals(5678, OPTIONS.maxTimeout());
     assertSame(MOCK_EXECUTOR_FACTORY, OPTIONS.executorFactory());
+    assertEquals(4, OPTIONS.channelPoolSize());
     assertEquals(20000, DEFAULT_OPTIONS.initialTimeout());
     assertEquals(1.5, DEFAULT_OPTIONS.timeoutMultiplier(), 0.0);
     assertEquals(100000, DEFAULT_OPTIONS.maxTimeout());
     assertTrue(DEFAULT_OPTIONS.executorFactory() instanceof DefaultExecutorFactory);
+    assertEquals(1, DEFAULT_OPTIONS.channelPoolSize());
   }
 
   @Test
@@ -174,6 +181,12 @@ public class GrpcServiceOptionsTest {
     } catch (IllegalArgumentException ex) {
       assertEquals("Timeout multiplier must be >= 1", ex.getMessage());
     }
+    try {
+      TestGrpcServiceOptions.builder().channelPoolSize(0);
+      fail("IllegalArgumentException expected");
+    } catch (IllegalArgumentException ex) {
+      assertEquals("Channel pool size must be > 0", ex.getMessage());
+    }
   }
 
   @Test
@@ -197,6 +210,7 @@ public class GrpcServiceOptionsTest {
         .executorFactory(new DefaultExecutorFactory())
         .build();
     assertNotEquals(OPTIONS, options);
+    assertNotEquals(OPTIONS, OPTIONS.toBuilder().channelPoolSize(1).build());
   }
 
   @Test
@@ -215,4 +229,36 @@ public class GrpcServiceOptionsTest {
     ScheduledExecutorService executorService = executorFactory.get();
     assertSame(executorService, executorFactory.get());
   }
+
+  @Test
+  public void testChannel() {
+    TestGrpcServiceOptions options = TestGrpcServiceOptions.builder()
+        .projectId("project-id")
+        .host("localhost:8080")
+        .authCredentials(AuthCredentials.noAuth())
+        .channelPoolSize(3)
+        .build();
+    ManagedChannel channel = options.channel();
+    ManagedChannel otherChannel = options.toBuilder().build().channel();
+    assertNotSame(channel, otherChannel);
+    ChannelPool pool = ChannelPool.pool(channel);
+    assertSame(pool, ChannelPool.pool(otherChannel));
+    assertEquals(3, pool.channels().size());
+    assertEquals("localhost:8080", channel.authority());
+    assertSame(pool.channels().get(0), pool.nextChannel());
+    assertSame(pool.channels().get(1), pool.nextChannel());
+    assertSame(pool.channels().get(2), pool.nextChannel());
+    assertSame(pool.channels().get(0), pool.nextChannel());
+    ManagedChannel singleChannel = options.toBuilder().channelPoolSize(1).build().channel();
+    assertNotSame(pool, ChannelPool.pool(singleChannel));
+    assertEquals(1, ChannelPool.pool(singleChannel).channels().size());
+    singleChannel.shutdown();
+    assertTrue(singleChannel.isShutdown());
+    channel.shutdown();
+    channel.shutdown();
+    assertTrue(channel.isShutdown());
+    assertFalse(otherChannel.isShutdown());
+    assertFalse(pool.channels().get(0).isShutdown());
+    otherChannel.shutdown();
+  }
 }
@@ -21,29 +21,48 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import com.google.cloud.GrpcServiceOptions.DefaultExecutorFactory;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.HttpServiceOptions.DefaultHttpTransportFactory;
 import com.google.cloud.HttpServiceOptions.HttpTransportFactory;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.testing.http.MockHttpTransport;
 import com.google.cloud.spi.ServiceRpcFactory;
 
 import org.easymock.EasyMock;
 import org.junit.Test;
 
+import java.io.Serializable;
 import java.util.Set;
 
 public class HttpServiceOptionsTest {
 
   private static final HttpTransportFactory MOCK_HTTP_TRANSPORT_FACTORY =
       EasyMock.createMock(HttpTransportFactory.class);
+  private static final ExecutorFactory MOCK_EXECUTOR_FACTORY =
+      EasyMock.createMock(ExecutorFactory.class);
   private static final TestHttpServiceOptions OPTIONS = TestHttpServiceOptions.builder()
       .projectId("project-id")
       .connectTimeout(1234)
       .httpTransportFactory(MOCK_HTTP_TRANSPORT_FACTORY)
+      .executorFactory(MOCK_EXECUTOR_FACTORY)
       .readTimeout(5678)
       .build();
   private static final TestHttpServiceOptions DEFAULT_OPTIONS =
       TestHttpServiceOptions.builder().projectId("project-id").build();
   private static final TestHttpServiceOptions OPTIONS_COPY = OPTIONS.toBuilder().build();
 
+  private static class SerializableTransportFactory
+      implements HttpTransportFactory, Serializable {
+
+    private static final long serialVersionUID = -5424717766587386296L;
+
+    @Override
+    public HttpTransport create() {
+      return new MockHttpTransport();
+    }
+  }
+
   private interface TestService extends Service<TestHttpServiceOptions> {}
 
   private static class TestServiceImpl
@@ -143,9 +162,11 @@ public class HttpServiceOptionsTest {
   public void testBuilder() {
     assertEquals(1234, OPTIONS.connectTimeout());
     assertSame(MOCK_HTTP_TRANSPORT_FACTORY, OPTIONS.httpTransportFactory());
+    assertSame(MOCK_EXECUTOR_FACTORY, OPTIONS.executorFactory());
     assertEquals(5678, OPTIONS.readTimeout());
     assertEquals(-1, DEFAULT_OPTIONS.connectTimeout());
     assertTrue(DEFAULT_OPTIONS.httpTransportFactory() instanceof DefaultHttpTransportFactory);
+    assertTrue(DEFAULT_OPTIONS.executorFactory() instanceof DefaultExecutorFactory);
     assertEquals(-1, DEFAULT_OPTIONS.readTimeout());
   }
 
@@ -160,4 +181,30 @@ public class HttpServiceOptionsTest {
     assertEquals(OPTIONS.hashCode(), OPTIONS_COPY.hashCode());
     assertNotEquals(DEFAULT_OPTIONS.hashCode(), OPTIONS.hashCode());
   }
+
+  @Test
+  public void testBaseEqualsTransportFactory() {
+    // factories without value equality are compared by class name
+    TestHttpServiceOptions options = DEFAULT_OPTIONS.toBuilder()
+        .httpTransportFactory(new SerializableTransportFactory())
+        .build();
+    TestHttpServiceOptions otherOptions = DEFAULT_OPTIONS.toBuilder()
+        .httpTransportFactory(new SerializableTransportFactory())
+        .build();
+    assertEquals(options, otherOptions);
+    assertEquals(options.hashCode(), otherOptions.hashCode());
+    // pooled factories are compared by their settings
+    options = DEFAULT_OPTIONS.toBuilder()
+        .httpTransportFactory(PooledHttpTransportFactory.builder().maxConnections(10).build())
+        .build();
+    otherOptions = DEFAULT_OPTIONS.toBuilder()
+        .httpTransportFactory(PooledHttpTransportFactory.builder().maxConnections(10).build())
+        .build();
+    assertEquals(options, otherOptions);
+    assertEquals(options.hashCode(), otherOptions.hashCode());
+    otherOptions = DEFAULT_OPTIONS.toBuilder()
+        .httpTransportFactory(PooledHttpTransportFactory.builder().maxConnections(20).build())
+        .build();
+    assertNotEquals(options, otherOptions);
+  }
 }
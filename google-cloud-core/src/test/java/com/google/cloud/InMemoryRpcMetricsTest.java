@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.cloud.InMemoryRpcMetrics.MethodMetrics;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+
+public class InMemoryRpcMetricsTest {
+
+  @Test
+  public void testRecord() {
+    InMemoryRpcMetrics metrics = new InMemoryRpcMetrics();
+    metrics.record("Rpc.get", 1_000_000, 1, 10, 100, null);
+    metrics.record("Rpc.get", 3_000_000, 2, 0, 0, "503");
+    metrics.record("Rpc.get", 2_000_000, 3, 0, 0, "503");
+    metrics.record("Rpc.list", 5_000_000, 1, 0, 1000, "IOException");
+    assertEquals(ImmutableSet.of("Rpc.get", "Rpc.list"), metrics.methods().keySet());
+    MethodMetrics get = metrics.methods().get("Rpc.get");
+    assertEquals(3, get.count());
+    assertEquals(2, get.retryCount());
+    assertEquals(2, get.errorCount());
+    assertEquals(ImmutableMap.of("503", 2L), get.errorCounts());
+    assertEquals(10, get.bytesSent());
+    assertEquals(100, get.bytesReceived());
+    assertEquals(3_000_000, get.latencies().max());
+    MethodMetrics list = metrics.methods().get("Rpc.list");
+    assertEquals(1, list.count());
+    assertEquals(0, list.retryCount());
+    assertEquals(ImmutableMap.of("IOException", 1L), list.errorCounts());
+    assertNull(metrics.methods().get("Rpc.delete"));
+  }
+
+  @Test
+  public void testRecentLatencies() {
+    FakeClock clock = new FakeClock();
+    InMemoryRpcMetrics metrics = new InMemoryRpcMetrics(clock);
+    metrics.record("Rpc.get", 8_000_000, 1, 0, 0, null);
+    MethodMetrics get = metrics.methods().get("Rpc.get");
+    assertEquals(1, get.recentLatencies().count());
+    assertEquals(8_000_000, get.recentLatencies().max());
+    // latencies of the previous period are still reported
+    clock.millis += MethodMetrics.LATENCY_PERIOD_MILLIS;
+    metrics.record("Rpc.get", 1_000_000, 1, 0, 0, null);
+    assertEquals(2, get.recentLatencies().count());
+    assertEquals(8_000_000, get.recentLatencies().max());
+    // latencies older than two periods are forgotten, counts and lifetime latencies are not
+    clock.millis += MethodMetrics.LATENCY_PERIOD_MILLIS;
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    assertEquals(2, get.recentLatencies().count());
+    assertEquals(2_000_000, get.recentLatencies().max());
+    clock.millis += 2 * MethodMetrics.LATENCY_PERIOD_MILLIS;
+    assertEquals(0, get.recentLatencies().count());
+    assertEquals(3, get.count());
+    assertEquals(8_000_000, get.latencies().max());
+  }
+
+  private static class FakeClock extends Clock {
+
+    private long millis;
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+public class JmxRpcMetricsExporterTest {
+
+  private static final double DELTA = 1e-9;
+
+  private MBeanServer server;
+  private InMemoryRpcMetrics metrics;
+
+  @Before
+  public void setUp() {
+    server = MBeanServerFactory.newMBeanServer();
+    metrics = new InMemoryRpcMetrics();
+  }
+
+  private int registeredBeans() throws Exception {
+    return server.queryNames(new ObjectName(JmxRpcMetricsExporter.DOMAIN + ":*"), null).size();
+  }
+
+  @Test
+  public void testObjectName() throws Exception {
+    ObjectName objectName = JmxRpcMetricsExporter.objectName("storage", "StorageRpc.get");
+    assertEquals(JmxRpcMetricsExporter.DOMAIN, objectName.getDomain());
+    assertEquals("RpcMetrics", objectName.getKeyProperty("type"));
+    assertEquals("storage", ObjectName.unquote(objectName.getKeyProperty("name")));
+    assertEquals("StorageRpc.get", ObjectName.unquote(objectName.getKeyProperty("method")));
+    // names and methods are quoted, so any character is allowed
+    objectName = JmxRpcMetricsExporter.objectName("a,b=c", "d:*");
+    assertEquals("a,b=c", ObjectName.unquote(objectName.getKeyProperty("name")));
+    assertEquals("d:*", ObjectName.unquote(objectName.getKeyProperty("method")));
+  }
+
+  @Test
+  public void testExportExistingMethods() throws Exception {
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    metrics.record("Rpc.list", 2_000_000, 1, 0, 0, null);
+    JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    assertTrue(server.isRegistered(JmxRpcMetricsExporter.objectName("test", "Rpc.get")));
+    assertTrue(server.isRegistered(JmxRpcMetricsExporter.objectName("test", "Rpc.list")));
+    assertEquals(2, registeredBeans());
+    exporter.close();
+  }
+
+  @Test
+  public void testExportMethodsAddedLater() throws Exception {
+    JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    assertEquals(0, registeredBeans());
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    assertTrue(server.isRegistered(JmxRpcMetricsExporter.objectName("test", "Rpc.get")));
+    assertEquals(1, registeredBeans());
+    exporter.close();
+  }
+
+  @Test
+  public void testAttributes() throws Exception {
+    metrics.record("Rpc.get", 1_000_000, 1, 10, 100, null);
+    metrics.record("Rpc.get", 4_000_000, 2, 20, 0, "503");
+    JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    ObjectName objectName = JmxRpcMetricsExporter.objectName("test", "Rpc.get");
+    assertEquals(2L, server.getAttribute(objectName, "Count"));
+    assertEquals(1L, server.getAttribute(objectName, "RetryCount"));
+    assertEquals(1L, server.getAttribute(objectName, "ErrorCount"));
+    assertEquals(30L, server.getAttribute(objectName, "BytesSent"));
+    assertEquals(100L, server.getAttribute(objectName, "BytesReceived"));
+    assertEquals(4.0, (Double) server.getAttribute(objectName, "MaxLatencyMillis"), DELTA);
+    assertEquals(2.5, (Double) server.getAttribute(objectName, "MeanLatencyMillis"), 4.0 / 32);
+    assertEquals(4.0, (Double) server.getAttribute(objectName, "P99LatencyMillis"), 4.0 / 32);
+    RpcMethodMXBean bean = JMX.newMXBeanProxy(server, objectName, RpcMethodMXBean.class);
+    assertEquals(ImmutableMap.of("503", 1L), bean.getErrorCounts());
+    // attributes are read from the live metrics
+    metrics.record("Rpc.get", 8_000_000, 1, 0, 0, null);
+    assertEquals(3, bean.getCount());
+    assertEquals(8.0, bean.getMaxLatencyMillis(), DELTA);
+    exporter.close();
+  }
+
+  @Test
+  public void testLatenciesAreRecent() throws Exception {
+    final long[] millis = {0};
+    metrics = new InMemoryRpcMetrics(new Clock() {
+      @Override
+      public long millis() {
+        return millis[0];
+      }
+    });
+    metrics.record("Rpc.get", 8_000_000, 1, 0, 0, null);
+    JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    RpcMethodMXBean bean = JMX.newMXBeanProxy(server,
+        JmxRpcMetricsExporter.objectName("test", "Rpc.get"), RpcMethodMXBean.class);
+    millis[0] = 2 * InMemoryRpcMetrics.MethodMetrics.LATENCY_PERIOD_MILLIS;
+    metrics.record("Rpc.get", 1_000_000, 1, 0, 0, null);
+    // the count is cumulative, latencies only cover the last periods
+    assertEquals(2, bean.getCount());
+    assertEquals(1.0, bean.getMaxLatencyMillis(), DELTA);
+    assertEquals(1.0, bean.getP99LatencyMillis(), 1.0 / 32);
+    assertEquals(1.0, bean.getMeanLatencyMillis(), DELTA);
+    exporter.close();
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    metrics.record("Rpc.list", 2_000_000, 1, 0, 0, null);
+    assertEquals(2, registeredBeans());
+    exporter.close();
+    assertEquals(0, registeredBeans());
+    // methods recorded after close are not registered, and close is idempotent
+    metrics.record("Rpc.delete", 1_000_000, 1, 0, 0, null);
+    assertFalse(server.isRegistered(JmxRpcMetricsExporter.objectName("test", "Rpc.delete")));
+    exporter.close();
+    // the same metrics can be exported again
+    exporter = JmxRpcMetricsExporter.export(metrics, "test", server);
+    assertEquals(3, registeredBeans());
+    exporter.close();
+    assertEquals(0, registeredBeans());
+  }
+
+  @Test
+  public void testCloseWhileRegistering() throws Exception {
+    final AtomicReference<JmxRpcMetricsExporter> exporter = new AtomicReference<>();
+    // closes the exporter while a bean is being registered, after the bean's name was recorded
+    MBeanServer closingServer = (MBeanServer) Proxy.newProxyInstance(
+        MBeanServer.class.getClassLoader(), new Class<?>[] {MBeanServer.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("registerMBean".equals(method.getName()) && exporter.get() != null) {
+              exporter.get().close();
+            }
+            try {
+              return method.invoke(server, args);
+            } catch (InvocationTargetException e) {
+              throw e.getCause();
+            }
+          }
+        });
+    exporter.set(JmxRpcMetricsExporter.export(metrics, "test", closingServer));
+    // close() runs before the bean is registered, so register() must unregister it
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    assertFalse(server.isRegistered(JmxRpcMetricsExporter.objectName("test", "Rpc.get")));
+    assertEquals(0, registeredBeans());
+  }
+
+  @Test
+  public void testExportPlatformServer() throws Exception {
+    metrics.record("Rpc.get", 2_000_000, 1, 0, 0, null);
+    ObjectName objectName = JmxRpcMetricsExporter.objectName("platform", "Rpc.get");
+    try (JmxRpcMetricsExporter exporter = JmxRpcMetricsExporter.export(metrics, "platform")) {
+      assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void testIndex() {
+    for (long value = 0; value < 100_000; value++) {
+      int index = LatencyHistogram.index(value);
+      assertTrue(value <= LatencyHistogram.highestValue(index));
+      assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1));
+    }
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(Long.MAX_VALUE));
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+  }
+
+  @Test
+  public void testRelativeError() {
+    for (long value = 1; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 + 1) {
+      long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+      assertTrue((highest - value) / (double) value <= 1.0 / 32);
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.max());
+    assertEquals(0, histogram.mean(), DELTA);
+    assertEquals(0, histogram.percentile(99));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; value++) {
+      histogram.record(value * 1000);
+    }
+    histogram.record(-1);
+    assertEquals(1001, histogram.count());
+    assertEquals(1_000_000, histogram.max());
+    assertEquals(500_500_000 / 1001.0, histogram.mean(), DELTA);
+    assertEquals(0, histogram.percentile(0));
+    assertWithin(500_000, histogram.percentile(50));
+    assertWithin(990_000, histogram.percentile(99));
+    assertEquals(1_000_000, histogram.percentile(100));
+  }
+
+  @Test
+  public void testAdd() {
+    LatencyHistogram first = new LatencyHistogram();
+    LatencyHistogram second = new LatencyHistogram();
+    first.record(1000);
+    first.record(3000);
+    second.record(2000);
+    first.add(second);
+    assertEquals(3, first.count());
+    assertEquals(3000, first.max());
+    assertEquals(2000, first.mean(), DELTA);
+    assertWithin(2000, first.percentile(50));
+    assertEquals(1, second.count());
+    assertEquals(2000, second.max());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new LatencyHistogram().percentile(101);
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(actual + " not within 3.2% of " + expected,
+        Math.abs(actual - expected) <= expected / 32 + 1);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.cloud.InMemoryRpcMetrics.MethodMetrics;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+public class MeteredRpcTest {
+
+  private static final RetryParams RETRY_PARAMS = RetryParams.builder()
+      .initialRetryDelayMillis(1)
+      .maxRetryDelayMillis(1)
+      .retryMinAttempts(3)
+      .retryMaxAttempts(3)
+      .build();
+
+  public interface TestRpc {
+
+    String get(String value);
+
+    ListenableFuture<String> getAsync();
+
+    String fetch() throws IOException;
+  }
+
+  private static class DefaultTestRpc implements TestRpc {
+
+    private final SettableFuture<String> future = SettableFuture.create();
+    private int failures;
+
+    @Override
+    public String get(String value) {
+      if (failures > 0) {
+        failures--;
+        throw new BaseServiceException(503, "unavailable", "backendError", true);
+      }
+      return value;
+    }
+
+    @Override
+    public ListenableFuture<String> getAsync() {
+      return future;
+    }
+
+    @Override
+    public String fetch() throws IOException {
+      MockHttpTransport transport = new MockHttpTransport.Builder()
+          .setLowLevelHttpResponse(new MockLowLevelHttpResponse()
+              .setContent("hello")
+              .addHeader("Content-Length", "5"))
+          .build();
+      HttpRequest request = transport.createRequestFactory(new HttpRequestInitializer() {
+        @Override
+        public void initialize(HttpRequest request) {
+          MeteredRpc.meter(request);
+        }
+      }).buildPostRequest(new GenericUrl("http://localhost/fetch"),
+          new ByteArrayContent("text/plain", new byte[]{1, 2, 3}));
+      return request.execute().parseAsString();
+    }
+  }
+
+  private DefaultTestRpc rpc;
+  private InMemoryRpcMetrics metrics;
+  private TestRpc meteredRpc;
+
+  @Before
+  public void setUp() {
+    rpc = new DefaultTestRpc();
+    metrics = new InMemoryRpcMetrics();
+    meteredRpc = MeteredRpc.wrap((TestRpc) rpc, metrics);
+  }
+
+  @Test
+  public void testWrap() {
+    assertFalse(meteredRpc instanceof DefaultTestRpc);
+    Object unwrapped = new Object();
+    assertSame(unwrapped, MeteredRpc.wrap(unwrapped, metrics));
+  }
+
+  @Test
+  public void testRecord() {
+    assertEquals("value", meteredRpc.get("value"));
+    meteredRpc.toString();
+    assertEquals(ImmutableMap.of("TestRpc.get", metrics.methods().get("TestRpc.get")),
+        metrics.methods());
+    MethodMetrics get = metrics.methods().get("TestRpc.get");
+    assertEquals(1, get.count());
+    assertEquals(0, get.errorCount());
+  }
+
+  @Test
+  public void testRecordError() {
+    rpc.failures = 1;
+    try {
+      meteredRpc.get("value");
+      fail("Expected BaseServiceException");
+    } catch (BaseServiceException ex) {
+      assertEquals(503, ex.code());
+    }
+    MethodMetrics get = metrics.methods().get("TestRpc.get");
+    assertEquals(1, get.count());
+    assertEquals(ImmutableMap.of("503", 1L), get.errorCounts());
+  }
+
+  @Test
+  public void testRecordRetries() {
+    rpc.failures = 2;
+    String value = RetryHelper.runWithRetries(new Callable<String>() {
+      @Override
+      public String call() {
+        return meteredRpc.get("value");
+      }
+    }, RETRY_PARAMS, ExceptionHandler.builder().retryOn(BaseServiceException.class).build());
+    assertEquals("value", value);
+    MethodMetrics get = metrics.methods().get("TestRpc.get");
+    assertEquals(3, get.count());
+    assertEquals(2, get.retryCount());
+    assertEquals(2, get.errorCount());
+  }
+
+  @Test
+  public void testRecordFuture() {
+    ListenableFuture<String> future = meteredRpc.getAsync();
+    assertTrue(metrics.methods().isEmpty());
+    rpc.future.setException(new IOException());
+    assertTrue(future.isDone());
+    MethodMetrics getAsync = metrics.methods().get("TestRpc.getAsync");
+    assertEquals(1, getAsync.count());
+    assertEquals(ImmutableMap.of("IOException", 1L), getAsync.errorCounts());
+  }
+
+  @Test
+  public void testRecordBytes() throws IOException {
+    assertEquals("hello", meteredRpc.fetch());
+    MethodMetrics fetch = metrics.methods().get("TestRpc.fetch");
+    assertEquals(3, fetch.bytesSent());
+    assertEquals(5, fetch.bytesReceived());
+    // bytes of unmetered requests are not recorded
+    rpc.fetch();
+    assertEquals("hello", meteredRpc.fetch());
+    assertEquals(6, fetch.bytesSent());
+    assertEquals(10, fetch.bytesReceived());
+  }
+}
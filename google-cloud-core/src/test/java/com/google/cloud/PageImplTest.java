@@ -17,11 +17,25 @@
 package com.google.cloud;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class PageImplTest {
 
   private static final ImmutableList<String> VALUES = ImmutableList.of("1", "2");
@@ -31,6 +45,30 @@ public class PageImplTest {
       .addAll(NEXT_VALUES)
       .build();
 
+  private static class CountingExecutorFactory implements
+      GrpcServiceOptions.ExecutorFactory<ExecutorService> {
+
+    private final ExecutorService executor;
+    private final AtomicInteger gets = new AtomicInteger();
+    private final AtomicInteger releases = new AtomicInteger();
+
+    CountingExecutorFactory(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    @Override
+    public ExecutorService get() {
+      gets.incrementAndGet();
+      return executor;
+    }
+
+    @Override
+    public void release(ExecutorService executor) {
+      assertSame(this.executor, executor);
+      releases.incrementAndGet();
+    }
+  }
+
   @Test
   public void testPage() {
     final PageImpl<String> nextResult = new PageImpl<>(null, "c", NEXT_VALUES);
@@ -60,4 +98,102 @@ public class PageImplTest {
     PageImpl<String> result = new PageImpl<>(fetcher, "c", VALUES);
     assertEquals(ALL_VALUES, ImmutableList.copyOf(result.iterateAll()));
   }
+
+  @Test
+  public void testIterateAllPrefetch() throws InterruptedException {
+    final int pages = 5;
+    final CountDownLatch fetched = new CountDownLatch(2);
+    final List<PageImpl<String>> results = new ArrayList<>();
+    for (int i = 0; i < pages; i++) {
+      final int next = i + 1;
+      PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+        @Override
+        public PageImpl<String> nextPage() {
+          fetched.countDown();
+          return results.get(next);
+        }
+      };
+      results.add(new PageImpl<>(i < pages - 1 ? fetcher : null, i < pages - 1 ? "c" : null,
+          ImmutableList.of(String.valueOf(2 * i), String.valueOf(2 * i + 1))));
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountingExecutorFactory executorFactory = new CountingExecutorFactory(executor);
+    Iterator<String> iterator = PageImpl.prefetching(results.get(0), 2, executorFactory);
+    // two pages are requested before any value is consumed
+    assertTrue(fetched.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 2 * pages; i++) {
+      assertEquals(String.valueOf(i), iterator.next());
+    }
+    assertFalse(iterator.hasNext());
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    // each fetch gets an executor from the factory and releases it once the page is fetched
+    assertEquals(pages, executorFactory.gets.get());
+    assertEquals(pages, executorFactory.releases.get());
+  }
+
+  @Test
+  public void testPrefetchingReleasesExecutors() {
+    final PageImpl<String> nextResult = new PageImpl<>(null, "c", NEXT_VALUES);
+    PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        return nextResult;
+      }
+    };
+    CountingExecutorFactory executorFactory =
+        new CountingExecutorFactory(MoreExecutors.newDirectExecutorService());
+    Iterator<String> iterator =
+        PageImpl.prefetching(new PageImpl<>(fetcher, "c", VALUES), 3, executorFactory);
+    // the iterator is abandoned, but executors are released as soon as pages are fetched
+    assertEquals("1", iterator.next());
+    assertEquals(2, executorFactory.gets.get());
+    assertEquals(2, executorFactory.releases.get());
+  }
+
+  @Test
+  public void testIterateAllPrefetchFails() {
+    final RuntimeException exception = new RuntimeException();
+    PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        throw exception;
+      }
+    };
+    CountingExecutorFactory executorFactory =
+        new CountingExecutorFactory(MoreExecutors.newDirectExecutorService());
+    Iterator<String> iterator =
+        PageImpl.prefetching(new PageImpl<>(fetcher, "c", VALUES), 1, executorFactory);
+    assertEquals("1", iterator.next());
+    assertEquals("2", iterator.next());
+    try {
+      iterator.next();
+      fail("Expected RuntimeException");
+    } catch (RuntimeException ex) {
+      assertSame(exception, ex);
+    }
+  }
+
+  @Test
+  public void testIterateAllNoPrefetch() {
+    final PageImpl<String> nextResult = new PageImpl<>(null, "c", NEXT_VALUES);
+    PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        return nextResult;
+      }
+    };
+    PageImpl<String> result = new PageImpl<>(fetcher, "c", VALUES);
+    CountingExecutorFactory executorFactory =
+        new CountingExecutorFactory(MoreExecutors.newDirectExecutorService());
+    assertEquals(ALL_VALUES,
+        ImmutableList.copyOf(PageImpl.prefetching(result, 0, executorFactory)));
+    assertEquals(0, executorFactory.gets.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPrefetchingNegativePages() {
+    PageImpl.prefetching(new PageImpl<>(null, null, VALUES), -1,
+        new CountingExecutorFactory(MoreExecutors.newDirectExecutorService()));
+  }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PooledHttpTransportFactoryTest {
+
+  private static final PooledHttpTransportFactory FACTORY = PooledHttpTransportFactory.builder()
+      .maxConnectionsPerHost(42)
+      .maxConnections(84)
+      .idleTimeoutMillis(10_000)
+      .tcpNoDelay(false)
+      .socketBufferSize(4096)
+      .build();
+
+  @Test
+  public void testBuilder() {
+    assertEquals(42, FACTORY.maxConnectionsPerHost());
+    assertEquals(84, FACTORY.maxConnections());
+    assertEquals(10_000, FACTORY.idleTimeoutMillis());
+    assertFalse(FACTORY.tcpNoDelay());
+    assertEquals(4096, FACTORY.socketBufferSize());
+    PooledHttpTransportFactory defaultFactory = new PooledHttpTransportFactory();
+    assertEquals(100, defaultFactory.maxConnectionsPerHost());
+    assertEquals(200, defaultFactory.maxConnections());
+    assertEquals(30_000, defaultFactory.idleTimeoutMillis());
+    assertTrue(defaultFactory.tcpNoDelay());
+    assertEquals(64 * 1024, defaultFactory.socketBufferSize());
+    assertEquals(defaultFactory, PooledHttpTransportFactory.builder().build());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxConnectionsPerHost() {
+    PooledHttpTransportFactory.builder().maxConnectionsPerHost(0);
+  }
+
+  @Test
+  public void testEquals() {
+    PooledHttpTransportFactory copy = PooledHttpTransportFactory.builder()
+        .maxConnectionsPerHost(42)
+        .maxConnections(84)
+        .idleTimeoutMillis(10_000)
+        .tcpNoDelay(false)
+        .socketBufferSize(4096)
+        .build();
+    assertEquals(FACTORY, copy);
+    assertEquals(FACTORY.hashCode(), copy.hashCode());
+    assertNotEquals(FACTORY, new PooledHttpTransportFactory());
+  }
+
+  @Test
+  public void testCreate() {
+    HttpTransport transport = FACTORY.create();
+    assertTrue(transport instanceof ApacheHttpTransport);
+    HttpParams params = ((ApacheHttpTransport) transport).getHttpClient().getParams();
+    assertFalse(HttpConnectionParams.getTcpNoDelay(params));
+    assertEquals(4096, HttpConnectionParams.getSocketBufferSize(params));
+    assertEquals(84, ConnManagerParams.getMaxTotalConnections(params));
+    HttpRoute route = new HttpRoute(new HttpHost("www.googleapis.com", 443, "https"));
+    assertEquals(42, ConnManagerParams.getMaxConnectionsPerRoute(params).getMaxForRoute(route));
+  }
+
+  @Test
+  public void testCreateShared() {
+    PooledHttpTransportFactory copy = PooledHttpTransportFactory.builder()
+        .maxConnectionsPerHost(42)
+        .maxConnections(84)
+        .idleTimeoutMillis(10_000)
+        .tcpNoDelay(false)
+        .socketBufferSize(4096)
+        .build();
+    assertSame(FACTORY.create(), FACTORY.create());
+    assertSame(FACTORY.create(), copy.create());
+    assertNotSame(FACTORY.create(), new PooledHttpTransportFactory().create());
+  }
+
+  @Test
+  public void testStaleCheckingEnabledWithoutEviction() {
+    PooledHttpTransportFactory factory = PooledHttpTransportFactory.builder()
+        .maxConnectionsPerHost(43)
+        .idleTimeoutMillis(0)
+        .build();
+    HttpParams params =
+        ((ApacheHttpTransport) factory.create()).getHttpClient().getParams();
+    assertTrue(HttpConnectionParams.isStaleCheckingEnabled(params));
+    params = ((ApacheHttpTransport) FACTORY.create()).getHttpClient().getParams();
+    assertFalse(HttpConnectionParams.isStaleCheckingEnabled(params));
+  }
+
+  @Test
+  public void testReuseConnectionClosedByServer() throws Exception {
+    // stale checking is disabled, the request is retried by the retry handler
+    assertReusesClosedConnection(PooledHttpTransportFactory.builder()
+        .maxConnectionsPerHost(44)
+        .idleTimeoutMillis(60_000)
+        .build());
+  }
+
+  @Test
+  public void testReuseConnectionClosedByServerStaleChecking() throws Exception {
+    assertReusesClosedConnection(PooledHttpTransportFactory.builder()
+        .maxConnectionsPerHost(45)
+        .idleTimeoutMillis(0)
+        .build());
+  }
+
+  @Test
+  public void testStaleConnectionRetryHandler() {
+    PooledHttpTransportFactory.StaleConnectionRetryHandler handler =
+        new PooledHttpTransportFactory.StaleConnectionRetryHandler();
+    HttpContext getContext = new BasicHttpContext();
+    getContext.setAttribute(ExecutionContext.HTTP_REQUEST, new HttpGet("http://localhost/"));
+    HttpContext postContext = new BasicHttpContext();
+    postContext.setAttribute(ExecutionContext.HTTP_REQUEST, new HttpPost("http://localhost/"));
+    NoHttpResponseException noResponse = new NoHttpResponseException("no response");
+    assertTrue(handler.retryRequest(noResponse, 1, getContext));
+    assertFalse(handler.retryRequest(noResponse, 2, getContext));
+    assertFalse(handler.retryRequest(noResponse, 1, postContext));
+    assertFalse(handler.retryRequest(new SocketTimeoutException(), 1, getContext));
+  }
+
+  /**
+   * Sends two requests with a transport of {@code factory} to a server that closes each
+   * connection after its first response, without telling the client.
+   */
+  private static void assertReusesClosedConnection(PooledHttpTransportFactory factory)
+      throws Exception {
+    try (final ServerSocket serverSocket = new ServerSocket(0)) {
+      final AtomicInteger connections = new AtomicInteger();
+      Thread server = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            while (true) {
+              try (Socket socket = serverSocket.accept()) {
+                connections.incrementAndGet();
+                BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                  // skips the request headers
+                }
+                OutputStream output = socket.getOutputStream();
+                output.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"
+                    .getBytes(StandardCharsets.US_ASCII));
+                output.flush();
+              }
+            }
+          } catch (IOException ex) {
+            // the server socket is closed
+          }
+        }
+      });
+      server.setDaemon(true);
+      server.start();
+      HttpRequestFactory requestFactory = factory.create().createRequestFactory();
+      GenericUrl url = new GenericUrl("http://localhost:" + serverSocket.getLocalPort() + "/");
+      for (int i = 0; i < 2; i++) {
+        HttpResponse response = requestFactory.buildGetRequest(url).execute();
+        assertEquals("ok", response.parseAsString());
+        // the server closes the connection once the response is read
+        Thread.sleep(100);
+      }
+      assertEquals(2, connections.get());
+    }
+  }
+}
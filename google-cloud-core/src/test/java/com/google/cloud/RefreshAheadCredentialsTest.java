@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class RefreshAheadCredentialsTest {
+
+  private static final long LIFETIME = TimeUnit.HOURS.toMillis(1);
+  private static final long MARGIN = TimeUnit.MINUTES.toMillis(5);
+  private static final URI REQUEST_URI = URI.create("https://www.googleapis.com");
+
+  private TestClock clock;
+  private TestCredentials credentials;
+  private List<Runnable> tasks;
+  private RefreshAheadCredentials refreshAheadCredentials;
+
+  private static class TestClock extends Clock {
+
+    private long millis = System.currentTimeMillis();
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+  }
+
+  private class TestCredentials extends GoogleCredentials {
+
+    private int refreshes;
+    private boolean fail;
+
+    @Override
+    public AccessToken refreshAccessToken() throws IOException {
+      if (fail) {
+        throw new IOException("refresh failed");
+      }
+      refreshes++;
+      return new AccessToken("token" + refreshes, new Date(clock.millis() + LIFETIME));
+    }
+
+    @Override
+    public boolean createScopedRequired() {
+      return false;
+    }
+
+    @Override
+    public GoogleCredentials createScoped(Collection<String> scopes) {
+      return new TestCredentials();
+    }
+  }
+
+  @Before
+  public void setUp() {
+    clock = new TestClock();
+    credentials = new TestCredentials();
+    tasks = new ArrayList<>();
+    refreshAheadCredentials = new RefreshAheadCredentials(credentials, MARGIN, clock,
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            tasks.add(command);
+          }
+        });
+  }
+
+  private static Map<String, List<String>> metadata(String token) {
+    return ImmutableMap.<String, List<String>>of("Authorization",
+        ImmutableList.of("Bearer " + token));
+  }
+
+  private void runTasks() {
+    for (Runnable task : tasks) {
+      task.run();
+    }
+    tasks.clear();
+  }
+
+  @Test
+  public void testGetRequestMetadata() throws IOException {
+    assertEquals(metadata("token1"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    clock.millis += LIFETIME - MARGIN - 1;
+    assertEquals(metadata("token1"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertEquals(1, credentials.refreshes);
+    assertTrue(tasks.isEmpty());
+  }
+
+  @Test
+  public void testRefreshAhead() throws IOException {
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    clock.millis += LIFETIME - MARGIN;
+    // the current token is served while a single refresh is scheduled
+    assertEquals(metadata("token1"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertEquals(metadata("token1"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertEquals(1, tasks.size());
+    runTasks();
+    assertEquals(2, credentials.refreshes);
+    assertEquals(metadata("token2"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertTrue(tasks.isEmpty());
+  }
+
+  @Test
+  public void testRefreshExpired() throws IOException {
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    clock.millis += LIFETIME;
+    assertEquals(metadata("token2"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertEquals(2, credentials.refreshes);
+  }
+
+  @Test
+  public void testRefreshAheadFailure() throws IOException {
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    clock.millis += LIFETIME - MARGIN;
+    credentials.fail = true;
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    runTasks();
+    // the refresh is retried after a delay
+    assertEquals(metadata("token1"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+    assertTrue(tasks.isEmpty());
+    clock.millis += TimeUnit.SECONDS.toMillis(10);
+    credentials.fail = false;
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    runTasks();
+    assertEquals(metadata("token2"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+  }
+
+  @Test
+  public void testRefresh() throws IOException {
+    refreshAheadCredentials.getRequestMetadata(REQUEST_URI);
+    refreshAheadCredentials.refresh();
+    assertEquals(metadata("token2"), refreshAheadCredentials.getRequestMetadata(REQUEST_URI));
+  }
+
+  @Test
+  public void testCreateScoped() {
+    GoogleCredentials scoped = refreshAheadCredentials.createScoped(ImmutableList.of("scope"));
+    assertTrue(scoped instanceof RefreshAheadCredentials);
+    assertTrue(((RefreshAheadCredentials) scoped).credentials() instanceof TestCredentials);
+  }
+}
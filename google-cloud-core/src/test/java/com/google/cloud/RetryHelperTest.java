@@ -19,18 +19,27 @@ package com.google.cloud;
 import static java.util.concurrent.Executors.callable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.cloud.RetryHelper.NonRetriableException;
 import com.google.cloud.RetryHelper.RetriesExhaustedException;
+import com.google.cloud.RetryHelper.ThrottledException;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -258,4 +267,191 @@ public class RetryHelperTest {
     });
   }
 
+  @Test
+  public void testRunWithRetriesAsync() throws Exception {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      RetryParams params = RetryParams.builder().initialRetryDelayMillis(0)
+          .totalRetryPeriodMillis(60000)
+          .retryMinAttempts(5)
+          .retryMaxAttempts(10)
+          .build();
+      ListenableFuture<Integer> future = RetryHelper.runWithRetriesAsync(new Callable<Integer>() {
+        int timesCalled;
+        @Override public Integer call() throws IOException {
+          timesCalled++;
+          assertEquals(timesCalled, RetryHelper.getContext().getAttemptNumber());
+          if (timesCalled <= 3) {
+            throw new IOException();
+          }
+          return timesCalled;
+        }
+      }, params, ExceptionHandler.defaultInstance(), executor);
+      assertEquals(4, (int) future.get(10, TimeUnit.SECONDS));
+      assertNull(RetryHelper.getContext());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRunWithRetriesAsyncFailures() throws Exception {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      RetryParams params =
+          RetryParams.builder().initialRetryDelayMillis(0).retryMaxAttempts(3).build();
+      ExceptionHandler handler = ExceptionHandler.builder()
+          .retryOn(IOException.class).abortOn(RuntimeException.class).build();
+      final AtomicInteger timesCalled = new AtomicInteger();
+      ListenableFuture<Void> future = RetryHelper.runWithRetriesAsync(new Callable<Void>() {
+        @Override public Void call() throws IOException {
+          timesCalled.incrementAndGet();
+          throw new IOException();
+        }
+      }, params, handler, executor);
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail("Exception should have been thrown");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof RetriesExhaustedException);
+        assertEquals(3, timesCalled.get());
+      }
+      future = RetryHelper.runWithRetriesAsync(new Callable<Void>() {
+        @Override public Void call() {
+          throw new NullPointerException("Boo!");
+        }
+      }, params, handler, executor);
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail("Exception should have been thrown");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof NonRetriableException);
+        assertEquals("Boo!", ex.getCause().getCause().getMessage());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRunWithRetriesAsyncCancel() throws Exception {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    executor.setRemoveOnCancelPolicy(true);
+    try {
+      RetryParams params = RetryParams.builder()
+          .initialRetryDelayMillis(60000)
+          .maxRetryDelayMillis(60000)
+          .totalRetryPeriodMillis(600000)
+          .retryMaxAttempts(10)
+          .build();
+      final CountDownLatch failed = new CountDownLatch(1);
+      final AtomicInteger timesCalled = new AtomicInteger();
+      ListenableFuture<Void> future = RetryHelper.runWithRetriesAsync(new Callable<Void>() {
+        @Override public Void call() throws IOException {
+          timesCalled.incrementAndGet();
+          failed.countDown();
+          throw new IOException();
+        }
+      }, params, ExceptionHandler.defaultInstance(), executor);
+      assertTrue(failed.await(10, TimeUnit.SECONDS));
+      assertTrue(future.cancel(false));
+      assertTrue(future.isCancelled());
+      executor.shutdown();
+      // the pending attempt was cancelled, so the executor terminates without running it
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+      assertEquals(1, timesCalled.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns a throttler whose retry budget allows a single retry.
+   */
+  private static RetryThrottler throttlerWithOneRetry() {
+    RetryThrottler throttler = new RetryThrottler(new FakeClock(), new Random(0));
+    for (int i = 0; i < RetryThrottler.MAX_TOKENS / 2 - 2; i++) {
+      throttler.onRejected();
+    }
+    return throttler;
+  }
+
+  @Test
+  public void testRunWithRetriesThrottled() {
+    RetryThrottler throttler = throttlerWithOneRetry();
+    RetryParams params = RetryParams.builder().initialRetryDelayMillis(0).retryMaxAttempts(5)
+        .build();
+    final IOException exception = new IOException();
+    final AtomicInteger timesCalled = new AtomicInteger();
+    try {
+      RetryHelper.runWithRetries(new Callable<Void>() {
+        @Override public Void call() throws IOException {
+          if (timesCalled.incrementAndGet() == 1) {
+            throw new IOException();
+          }
+          throw exception;
+        }
+      }, params, ExceptionHandler.defaultInstance(), new FakeClock(), throttler);
+      fail("Exception should have been thrown");
+    } catch (ThrottledException ex) {
+      // the cause is the failure of the last attempt that was sent
+      assertSame(exception, ex.getCause());
+    }
+    assertEquals(2, timesCalled.get());
+    // each failure cost a token, leaving the budget half empty
+    assertEquals(RetryThrottler.MAX_TOKENS / 2, throttler.retryTokens(), 1e-9);
+  }
+
+  @Test
+  public void testRunWithRetriesNonRetriableIsAccepted() {
+    RetryThrottler throttler = throttlerWithOneRetry();
+    double tokens = throttler.retryTokens();
+    ExceptionHandler handler = ExceptionHandler.builder()
+        .retryOn(IOException.class).abortOn(RuntimeException.class).build();
+    int calls = 2 * (int) RetryThrottler.MIN_REQUESTS;
+    for (int i = 0; i < calls; i++) {
+      try {
+        RetryHelper.runWithRetries(new Callable<Void>() {
+          @Override public Void call() {
+            throw new NullPointerException();
+          }
+        }, RetryParams.defaultInstance(), handler, new FakeClock(), throttler);
+        fail("Exception should have been thrown");
+      } catch (NonRetriableException ex) {
+        assertTrue(ex.getCause() instanceof NullPointerException);
+      }
+    }
+    // a non-retryable error is an answer of the backend: it refills the retry budget and does not
+    // trigger adaptive throttling
+    assertEquals(tokens + calls * RetryThrottler.TOKEN_RATIO, throttler.retryTokens(), 1e-9);
+    assertEquals(0, throttler.rejectionProbability(), 1e-9);
+  }
+
+  @Test
+  public void testRunWithRetriesAsyncThrottled() throws Exception {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      RetryThrottler throttler = throttlerWithOneRetry();
+      RetryParams params =
+          RetryParams.builder().initialRetryDelayMillis(0).retryMaxAttempts(5).build();
+      final IOException exception = new IOException();
+      final AtomicInteger timesCalled = new AtomicInteger();
+      ListenableFuture<Void> future = RetryHelper.runWithRetriesAsync(new Callable<Void>() {
+        @Override public Void call() throws IOException {
+          timesCalled.incrementAndGet();
+          throw exception;
+        }
+      }, params, ExceptionHandler.defaultInstance(), new FakeClock(), throttler, executor);
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail("Exception should have been thrown");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof ThrottledException);
+        assertSame(exception, ex.getCause().getCause());
+      }
+      assertEquals(2, timesCalled.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
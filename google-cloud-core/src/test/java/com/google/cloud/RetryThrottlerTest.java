@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.RetryHelper.ThrottledException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryThrottlerTest {
+
+  private static final double DELTA = 1e-9;
+
+  private static class FakeClock extends Clock {
+
+    private long millis;
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+  }
+
+  private static class FixedRandom extends Random {
+
+    private static final long serialVersionUID = 5127349437946218411L;
+
+    private final double value;
+
+    FixedRandom(double value) {
+      this.value = value;
+    }
+
+    @Override
+    public double nextDouble() {
+      return value;
+    }
+  }
+
+  @Test
+  public void testRetryBudget() {
+    RetryThrottler throttler = new RetryThrottler(new FakeClock(), new FixedRandom(0.99));
+    assertEquals(RetryThrottler.MAX_TOKENS, throttler.retryTokens(), DELTA);
+    for (int i = 0; i < RetryThrottler.MAX_TOKENS / 2; i++) {
+      assertTrue(throttler.tryAcquire(true));
+      throttler.onRejected();
+    }
+    assertEquals(RetryThrottler.MAX_TOKENS / 2, throttler.retryTokens(), DELTA);
+    assertFalse(throttler.tryAcquire(true));
+    // first attempts are not subject to the retry budget
+    assertTrue(throttler.tryAcquire(false));
+    throttler.onAccepted();
+    assertEquals(RetryThrottler.MAX_TOKENS / 2 + RetryThrottler.TOKEN_RATIO,
+        throttler.retryTokens(), DELTA);
+    assertTrue(throttler.tryAcquire(true));
+  }
+
+  @Test
+  public void testAdaptiveThrottling() {
+    FakeClock clock = new FakeClock();
+    RetryThrottler throttler = new RetryThrottler(clock, new FixedRandom(0.5));
+    for (int i = 0; i < RetryThrottler.MIN_REQUESTS - 1; i++) {
+      assertTrue(throttler.tryAcquire(false));
+      throttler.onRejected();
+    }
+    assertEquals(0, throttler.rejectionProbability(), DELTA);
+    assertTrue(throttler.tryAcquire(false));
+    throttler.onRejected();
+    double requests = RetryThrottler.MIN_REQUESTS;
+    assertEquals(requests / (requests + 1), throttler.rejectionProbability(), DELTA);
+    assertFalse(throttler.tryAcquire(false));
+    // locally rejected attempts count as requests
+    requests++;
+    assertEquals(requests / (requests + 1), throttler.rejectionProbability(), DELTA);
+    // requests leave the sliding window
+    clock.millis = RetryThrottler.WINDOW_BUCKETS * RetryThrottler.BUCKET_MILLIS;
+    assertEquals(0, throttler.rejectionProbability(), DELTA);
+    assertTrue(throttler.tryAcquire(false));
+  }
+
+  @Test
+  public void testAcceptsPreventThrottling() {
+    RetryThrottler throttler = new RetryThrottler(new FakeClock(), new FixedRandom(0));
+    for (int i = 0; i < 100; i++) {
+      assertTrue(throttler.tryAcquire(false));
+      if (i % 2 == 0) {
+        throttler.onAccepted();
+      } else {
+        throttler.onRejected();
+      }
+    }
+    assertEquals(0, throttler.rejectionProbability(), DELTA);
+  }
+
+  @Test
+  public void testRunWithRetriesThrottled() {
+    RetryThrottler throttler = new RetryThrottler(new FakeClock(), new FixedRandom(0.99));
+    for (int i = 0; i < RetryThrottler.MAX_TOKENS / 2 - 1; i++) {
+      throttler.onRejected();
+    }
+    RetryParams params = RetryParams.builder().initialRetryDelayMillis(0).retryMaxAttempts(5)
+        .build();
+    final IOException exception = new IOException();
+    final AtomicInteger timesCalled = new AtomicInteger();
+    try {
+      RetryHelper.runWithRetries(new Callable<Void>() {
+        @Override public Void call() throws IOException {
+          timesCalled.incrementAndGet();
+          throw exception;
+        }
+      }, params, ExceptionHandler.defaultInstance(), Clock.defaultClock(), throttler);
+      fail("Exception should have been thrown");
+    } catch (ThrottledException ex) {
+      assertSame(exception, ex.getCause());
+    }
+    // the first failure exhausted the retry budget
+    assertEquals(1, timesCalled.get());
+  }
+}
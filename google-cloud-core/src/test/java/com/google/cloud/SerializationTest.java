@@ -39,6 +39,8 @@ public class SerializationTest extends BaseSerializationTest {
   private static final SigningException SIGNING_EXCEPTION =
       new SigningException("message", BASE_SERVICE_EXCEPTION);
   private static final RetryParams RETRY_PARAMS = RetryParams.defaultInstance();
+  private static final PooledHttpTransportFactory HTTP_TRANSPORT_FACTORY =
+      PooledHttpTransportFactory.builder().maxConnectionsPerHost(42).build();
   private static final Role SOME_ROLE = Role.viewer();
   private static final Policy SOME_IAM_POLICY = Policy.builder().build();
   private static final WaitForOption CHECKING_PERIOD =
@@ -83,7 +85,8 @@ public class SerializationTest extends BaseSerializationTest {
   protected Serializable[] serializableObjects() {
     return new Serializable[]{BASE_SERVICE_EXCEPTION, EXCEPTION_HANDLER, IDENTITY, PAGE,
         RETRY_PARAMS, SOME_ROLE, SOME_IAM_POLICY, SIGNING_EXCEPTION, CHECKING_PERIOD,
-        LABEL_DESCRIPTOR, MONITORED_RESOURCE_DESCRIPTOR, MONITORED_RESOURCE};
+        LABEL_DESCRIPTOR, MONITORED_RESOURCE_DESCRIPTOR, MONITORED_RESOURCE,
+        HTTP_TRANSPORT_FACTORY};
   }
 
   @Override
@@ -17,11 +17,17 @@
 package com.google.cloud;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.cloud.spi.ServiceRpcFactory;
 
 import org.junit.Test;
@@ -77,6 +83,7 @@ public class ServiceOptionsTest {
           .host("host")
           .projectId("project-id")
           .retryParams(RetryParams.noRetries())
+          .retryThrottling(false)
           .build();
   private static final TestServiceOptions DEFAULT_OPTIONS =
       TestServiceOptions.builder().projectId("project-id").build();
@@ -192,9 +199,50 @@ public class ServiceOptionsTest {
     assertEquals("host", OPTIONS.host());
     assertEquals("project-id", OPTIONS.projectId());
     assertSame(RetryParams.noRetries(), OPTIONS.retryParams());
+    assertFalse(OPTIONS.retryThrottling());
+    assertEquals(0, OPTIONS.credentialsRefreshMarginMillis());
     assertSame(Clock.defaultClock(), DEFAULT_OPTIONS.clock());
     assertEquals("https://www.googleapis.com", DEFAULT_OPTIONS.host());
     assertSame(RetryParams.defaultInstance(), DEFAULT_OPTIONS.retryParams());
+    assertTrue(DEFAULT_OPTIONS.retryThrottling());
+  }
+
+  @Test
+  public void testRetryThrottler() {
+    assertNull(OPTIONS.retryThrottler());
+    RetryThrottler throttler = DEFAULT_OPTIONS.retryThrottler();
+    assertNotNull(throttler);
+    assertSame(throttler, DEFAULT_OPTIONS.retryThrottler());
+    assertNotSame(throttler, DEFAULT_OPTIONS.toBuilder().build().retryThrottler());
+  }
+
+  @Test
+  public void testRpcMetrics() {
+    assertNull(OPTIONS.rpcMetrics());
+    RpcMetrics metrics = new InMemoryRpcMetrics();
+    TestServiceOptions options = OPTIONS.toBuilder().rpcMetrics(metrics).build();
+    assertSame(metrics, options.rpcMetrics());
+    assertSame(metrics, options.toBuilder().build().rpcMetrics());
+  }
+
+  @Test
+  public void testScopedCredentials() {
+    assertTrue(OPTIONS.scopedCredentials() instanceof ServiceAccountCredentials);
+    TestServiceOptions options =
+        OPTIONS.toBuilder().credentialsRefreshMarginMillis(300_000).build();
+    assertEquals(300_000, options.credentialsRefreshMarginMillis());
+    assertNotEquals(OPTIONS, options);
+    assertTrue(options.scopedCredentials() instanceof RefreshAheadCredentials);
+    GoogleCredentials credentials =
+        ((RefreshAheadCredentials) options.scopedCredentials()).credentials();
+    assertTrue(credentials instanceof ServiceAccountCredentials);
+    assertNull(OPTIONS.toBuilder().authCredentials(AuthCredentials.noAuth()).build()
+        .scopedCredentials());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCredentialsRefreshMargin() {
+    TestServiceOptions.builder().credentialsRefreshMarginMillis(-1);
   }
 
   @Test
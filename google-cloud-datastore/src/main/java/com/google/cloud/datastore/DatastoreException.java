@@ -19,6 +19,7 @@ package com.google.cloud.datastore;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -60,10 +61,13 @@ public final class DatastoreException extends BaseServiceException {
    *
    * @throws DatastoreException when {@code ex} was caused by a {@code DatastoreException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws DatastoreException caused by {@code ex} when {@code ex} is a {@code ThrottledException}
+   * that was not caused by a {@code DatastoreException}
    */
   static DatastoreException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new DatastoreException(UNKNOWN_CODE, ex.getMessage(), null, ex.getCause());
+    throw new DatastoreException(UNKNOWN_CODE, ex.getMessage(), null,
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 
   /**
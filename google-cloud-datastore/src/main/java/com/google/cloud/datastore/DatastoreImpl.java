@@ -92,7 +92,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
                 throws DatastoreException {
               return datastoreRpc.runQuery(requestPb);
             }
-          }, retryParams, EXCEPTION_HANDLER, options().clock());
+          }, retryParams, EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -131,7 +131,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
                 throws DatastoreException {
               return datastoreRpc.allocateIds(requestPb);
             }
-          }, retryParams, EXCEPTION_HANDLER, options().clock());
+          }, retryParams, EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -288,7 +288,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
                 throws DatastoreException {
               return datastoreRpc.lookup(requestPb);
             }
-          }, retryParams, EXCEPTION_HANDLER, options().clock());
+          }, retryParams, EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -391,7 +391,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
             }
           },
           retryParams,
-          EXCEPTION_HANDLER, options().clock());
+          EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -414,7 +414,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
             }
           },
           retryParams,
-          EXCEPTION_HANDLER, options().clock());
+          EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -434,7 +434,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
           datastoreRpc.rollback(requestPb);
           return null;
         }
-      }, retryParams, EXCEPTION_HANDLER, options().clock());
+      }, retryParams, EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw DatastoreException.translateAndThrow(e);
     }
@@ -20,6 +20,7 @@ import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -63,9 +64,12 @@ public final class DnsException extends BaseServiceException {
    *
    * @throws DnsException when {@code ex} was caused by a {@code DnsException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws DnsException caused by {@code ex} when {@code ex} is a {@code ThrottledException} that
+   * was not caused by a {@code DnsException}
    */
   static DnsException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new DnsException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new DnsException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
@@ -135,7 +135,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public DnsRpc.ListResult<ManagedZone> call() {
               return rpc.listZones(optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.pageToken();
       // transform that list into zone objects
       Iterable<Zone> zones = result.results() == null ? ImmutableList.<Zone>of()
@@ -163,7 +164,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
         public DnsRpc.ListResult<Change> call() {
           return rpc.listChangeRequests(zoneName, optionsMap);
         }
-      }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+      }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+      serviceOptions.retryThrottler());
       String cursor = result.pageToken();
       // transform that list into change request objects
       Iterable<ChangeRequest> changes = result.results() == null
@@ -193,7 +195,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public DnsRpc.ListResult<ResourceRecordSet> call() {
               return rpc.listRecordSets(zoneName, optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.pageToken();
       // transform that list into record sets
       Iterable<RecordSet> recordSets = result.results() == null
@@ -216,7 +219,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public ManagedZone call() {
               return dnsRpc.create(zoneInfo.toPb(), optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Zone.fromPb(this, answer);
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
@@ -233,7 +237,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public ManagedZone call() {
               return dnsRpc.getZone(zoneName, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Zone.fromPb(this, answer);
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
@@ -248,7 +253,7 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
         public Boolean call() {
           return dnsRpc.deleteZone(zoneName);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
     }
@@ -264,7 +269,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public Project call() {
               return dnsRpc.getProject(optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : ProjectInfo.fromPb(answer); // should never be null
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
@@ -282,7 +288,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public Change call() {
               return dnsRpc.applyChangeRequest(zoneName, changeRequest.toPb(), optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : ChangeRequest.fromPb(this, zoneName, answer); // not null
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
@@ -300,7 +307,8 @@ final class DnsImpl extends BaseService<DnsOptions> implements Dns {
             public Change call() {
               return dnsRpc.getChangeRequest(zoneName, changeRequestId, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : ChangeRequest.fromPb(this, zoneName, answer);
     } catch (RetryHelper.RetryHelperException ex) {
       throw DnsException.translateAndThrow(ex);
@@ -18,10 +18,8 @@ package com.google.cloud.logging.spi;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
-import com.google.api.gax.core.ConnectionSettings;
 import com.google.api.gax.grpc.ApiCallSettings;
 import com.google.api.gax.grpc.ApiException;
-import com.google.cloud.AuthCredentials;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.logging.LoggingException;
 import com.google.cloud.logging.LoggingOptions;
@@ -60,8 +58,6 @@ import com.google.protobuf.Empty;
 
 import io.grpc.ManagedChannel;
 import io.grpc.Status.Code;
-import io.grpc.netty.NegotiationType;
-import io.grpc.netty.NettyChannelBuilder;
 
 import java.io.IOException;
 import java.util.Set;
@@ -97,8 +93,8 @@ public class DefaultLoggingRpc implements LoggingRpc {
     }
 
     @Override
-    protected ConnectionSettings.Builder connectionSettings() {
-      return super.connectionSettings();
+    protected ManagedChannel channel() {
+      return super.channel();
     }
   }
 
@@ -118,21 +114,9 @@ public class DefaultLoggingRpc implements LoggingRpc {
       MetricsServiceV2Settings.Builder metricsBuilder = MetricsServiceV2Settings.defaultBuilder()
           .provideExecutorWith(executor, false)
           .setClientLibHeader(libraryName, libraryVersion);
-      // todo(mziccard): PublisherSettings should support null/absent credentials for testing
-      if (options.host().contains("localhost")
-          || options.authCredentials().equals(AuthCredentials.noAuth())) {
-        ManagedChannel channel = NettyChannelBuilder.forTarget(options.host())
-            .negotiationType(NegotiationType.PLAINTEXT)
-            .build();
-        confBuilder.provideChannelWith(channel, true);
-        logBuilder.provideChannelWith(channel, true);
-        metricsBuilder.provideChannelWith(channel, true);
-      } else {
-        ConnectionSettings connectionSettings = internalOptions.connectionSettings().build();
-        confBuilder.provideChannelWith(connectionSettings);
-        logBuilder.provideChannelWith(connectionSettings);
-        metricsBuilder.provideChannelWith(connectionSettings);
-      }
+      confBuilder.provideChannelWith(internalOptions.channel(), true);
+      logBuilder.provideChannelWith(internalOptions.channel(), true);
+      metricsBuilder.provideChannelWith(internalOptions.channel(), true);
       ApiCallSettings.Builder callSettingsBuilder = internalOptions.apiCallSettings();
       confBuilder.applyToAllApiMethods(callSettingsBuilder);
       logBuilder.applyToAllApiMethods(callSettingsBuilder);
@@ -18,138 +18,180 @@ package com.google.cloud.pubsub;
 
 import com.google.cloud.Clock;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
-import com.google.common.base.MoreObjects;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimaps;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Class for an automatic ack deadline renewer. An ack deadline renewer automatically renews the
  * acknowledge deadline of messages added to it (via {@link #add(String, String)} or
  * {@link #add(String, Iterable)}. The acknowledge deadlines of added messages are renewed until the
  * messages are explicitly removed using {@link #remove(String, String)}.
+ *
+ * <p>Messages are kept in a hashed timer wheel: each message is put in the bucket of the tick at
+ * which its deadline must be renewed, and a single renewal task visits the buckets as time goes
+ * by. Adding and removing messages does not take locks. Deadlines are renewed in batches, with
+ * one request per subscription and at most {@code MAX_ACK_IDS_PER_REQUEST} acknowledge ids per
+ * request. The renewed deadline is the 99th percentile of the time recently removed messages took
+ * to be removed (i.e. processed), bounded by the minimum and maximum deadlines supported by the
+ * service.
  */
 class AckDeadlineRenewer implements AutoCloseable {
 
   private static final int MIN_DEADLINE_MILLIS = 10_000;
+  private static final int MAX_DEADLINE_MILLIS = 600_000;
   private static final int DEADLINE_SLACK_MILLIS = 1_000;
   private static final int RENEW_THRESHOLD_MILLIS = 3_000;
   private static final int NEXT_RENEWAL_THRESHOLD_MILLIS = 1_000;
+  private static final long TICK_MILLIS = 500;
+  // must cover MAX_DEADLINE_MILLIS, leases due in a later round of the wheel stay in their bucket
+  private static final int WHEEL_SIZE = 2048;
+  // modifyAckDeadline requests are limited to 512KB, ack ids are at most ~200 bytes
+  private static final int MAX_ACK_IDS_PER_REQUEST = 2500;
+  private static final double PERCENTILE = 0.99;
+  // processing times are forgotten after one to two periods, a period covers the maximum deadline
+  private static final long PROCESSING_TIMES_PERIOD_MILLIS = MAX_DEADLINE_MILLIS;
 
   private final PubSub pubsub;
   private final ScheduledExecutorService executor;
   private final ExecutorFactory<ScheduledExecutorService> executorFactory;
   private final Clock clock;
-  private final Queue<Message> messageQueue;
-  private final Map<MessageId, Long> messageDeadlines;
-  private final Object lock = new Object();
+  private final ConcurrentMap<String, ConcurrentMap<String, Lease>> leases;
+  private final List<Queue<Lease>> wheel;
+  private final AtomicInteger wheelLeases = new AtomicInteger();
+  private final AtomicBoolean renewing = new AtomicBoolean();
+  private final Distribution processingTimes =
+      new Distribution(MAX_DEADLINE_MILLIS / 1_000, PROCESSING_TIMES_PERIOD_MILLIS);
   private final Object futureLock = new Object();
+  private final Runnable renewRunnable = new Runnable() {
+    @Override
+    public void run() {
+      renewAckDeadlines();
+    }
+  };
   private Future<?> renewerFuture;
-  private boolean closed;
+  private volatile boolean closed;
+  // only accessed by the renewal task
+  private long lastTick;
 
   /**
-   * This class holds the identity of a message to renew: subscription and acknowledge id.
+   * A message whose acknowledge deadline is renewed. {@code renewAt} is only accessed by the
+   * renewal task, or before the lease is published to it.
    */
-  private static class MessageId {
+  private static final class Lease {
 
     private final String subscription;
     private final String ackId;
+    private final long addedAt;
+    private long renewAt;
+    private volatile boolean removed;
 
-    MessageId(String subscription, String ackId) {
+    Lease(String subscription, String ackId, long addedAt, long renewAt) {
       this.subscription = subscription;
       this.ackId = ackId;
-    }
-
-    String subscription() {
-      return subscription;
-    }
-
-    String ackId() {
-      return ackId;
-    }
-
-    @Override
-    public boolean equals(Object obj) {
-      if (obj == this) {
-        return true;
-      }
-      if (!(obj instanceof MessageId)) {
-        return false;
-      }
-      MessageId other = (MessageId) obj;
-      return Objects.equals(other.subscription, this.subscription)
-          && Objects.equals(other.ackId, this.ackId);
-    }
-
-    @Override
-    public int hashCode() {
-      return Objects.hash(subscription, ackId);
-    }
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("subscription", subscription)
-          .add("ackId", ackId)
-          .toString();
+      this.addedAt = addedAt;
+      this.renewAt = renewAt;
     }
   }
 
   /**
-   * This class holds the identity of a message to renew and its expected ack deadline.
+   * A histogram of recent processing times, with a bucket per second. Times above the maximum are
+   * recorded in the last bucket. Times are recorded in the histogram of the current period, and
+   * percentiles are computed over the current and the previous periods, so that times older than
+   * two periods no longer count: the deadline comes back down when processing gets faster.
    */
-  private static final class Message {
+  @VisibleForTesting
+  static final class Distribution {
 
-    private final MessageId messageId;
-    private final Long deadline;
+    private final int maxSeconds;
+    private final long periodMillis;
+    private final AtomicReference<Window> window;
 
-    Message(MessageId messageId, Long deadline) {
-      this.messageId = messageId;
-      this.deadline = deadline;
-    }
+    /**
+     * The histograms of a period and of the previous one.
+     */
+    private static final class Window {
+
+      private final long period;
+      private final AtomicLongArray current;
+      private final AtomicLongArray previous;
 
-    MessageId messageId() {
-      return messageId;
+      Window(long period, AtomicLongArray current, AtomicLongArray previous) {
+        this.period = period;
+        this.current = current;
+        this.previous = previous;
+      }
     }
 
-    Long expectedDeadline() {
-      return deadline;
+    Distribution(int maxSeconds, long periodMillis) {
+      this.maxSeconds = maxSeconds;
+      this.periodMillis = periodMillis;
+      this.window = new AtomicReference<>(new Window(0, new AtomicLongArray(maxSeconds + 1),
+          new AtomicLongArray(maxSeconds + 1)));
     }
 
-    @Override
-    public boolean equals(Object obj) {
-      if (obj == this) {
-        return true;
+    /**
+     * Returns the window of the period of {@code now}, rotating the histograms if needed.
+     */
+    private Window window(long now) {
+      long period = now / periodMillis;
+      Window current = window.get();
+      while (current.period < period) {
+        AtomicLongArray previous = current.period == period - 1
+            ? current.current : new AtomicLongArray(maxSeconds + 1);
+        Window next = new Window(period, new AtomicLongArray(maxSeconds + 1), previous);
+        if (window.compareAndSet(current, next)) {
+          return next;
+        }
+        current = window.get();
       }
-      if (!(obj instanceof Message)) {
-        return false;
-      }
-      Message other = (Message) obj;
-      return Objects.equals(other.messageId, this.messageId)
-          && Objects.equals(other.deadline, this.deadline);
+      return current;
     }
 
-    @Override
-    public int hashCode() {
-      return Objects.hash(messageId, deadline);
+    void record(long millis, long now) {
+      int second = (int) Math.min(Math.max(TimeUnit.MILLISECONDS.toSeconds(millis), 0),
+          maxSeconds);
+      window(now).current.incrementAndGet(second);
     }
 
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("messageId", messageId)
-          .add("expectedDeadline", deadline)
-          .toString();
+    /**
+     * Returns the given percentile of the times recorded in the current and previous periods, in
+     * seconds rounded up, or {@code 0} if no time was recorded.
+     */
+    int percentile(double percentile, long now) {
+      Window current = window(now);
+      long[] buckets = new long[maxSeconds + 1];
+      long count = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = current.current.get(i) + current.previous.get(i);
+        count += buckets[i];
+      }
+      long rank = (long) Math.ceil(count * percentile);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen > 0 && seen >= rank) {
+          return i + 1;
+        }
+      }
+      return 0;
     }
   }
 
@@ -159,87 +201,126 @@ class AckDeadlineRenewer implements AutoCloseable {
     this.executorFactory = options.executorFactory();
     this.executor = executorFactory.get();
     this.clock = options.clock();
-    this.messageQueue = new LinkedList<>();
-    this.messageDeadlines = new HashMap<>();
+    this.leases = new ConcurrentHashMap<>();
+    this.wheel = new ArrayList<>(WHEEL_SIZE);
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel.add(new ConcurrentLinkedQueue<Lease>());
+    }
+    this.lastTick = tick(clock.millis());
   }
 
-  private void unsetAndScheduleNextRenewal() {
-    synchronized (futureLock) {
-      renewerFuture = null;
-      scheduleNextRenewal();
-    }
+  private static long tick(long millis) {
+    return millis / TICK_MILLIS;
   }
 
-  private void scheduleNextRenewal() {
-    // Schedules next renewal if there are still messages to process and no renewals scheduled that
-    // could handle them, otherwise does nothing
-    Message nextMessage;
-    synchronized (lock) {
-      Message peek = messageQueue.peek();
-      // We remove from the queue messages that were removed from the ack deadline renewer (and
-      // possibly re-added)
-      while (peek != null && (!messageDeadlines.containsKey(peek.messageId())
-          || messageDeadlines.get(peek.messageId()) > peek.expectedDeadline())) {
-        messageQueue.poll();
-        peek = messageQueue.peek();
+  private Queue<Lease> bucket(long renewAt) {
+    return wheel.get((int) (tick(renewAt) & (WHEEL_SIZE - 1)));
+  }
+
+  /**
+   * Returns when the deadline of a message must be renewed, given the time its deadline was set
+   * and the deadline.
+   */
+  private static long renewAt(long now, int deadlineMillis) {
+    return now + deadlineMillis - DEADLINE_SLACK_MILLIS - NEXT_RENEWAL_THRESHOLD_MILLIS;
+  }
+
+  /**
+   * Returns the deadline to set when renewing acknowledge deadlines: the 99th percentile of the
+   * processing time of recently removed messages, at least {@code MIN_DEADLINE_MILLIS}.
+   */
+  int deadlineMillis() {
+    int deadline = (int) TimeUnit.SECONDS.toMillis(
+        processingTimes.percentile(PERCENTILE, clock.millis()));
+    return Math.min(Math.max(deadline, MIN_DEADLINE_MILLIS), MAX_DEADLINE_MILLIS);
+  }
+
+  private void addLease(String subscription, String ackId, long now) {
+    ConcurrentMap<String, Lease> subscriptionLeases = leases.get(subscription);
+    if (subscriptionLeases == null) {
+      ConcurrentMap<String, Lease> newLeases = new ConcurrentHashMap<>();
+      subscriptionLeases = leases.putIfAbsent(subscription, newLeases);
+      if (subscriptionLeases == null) {
+        subscriptionLeases = newLeases;
       }
-      nextMessage = peek;
     }
-    synchronized (futureLock) {
-      if (renewerFuture == null && nextMessage != null) {
-        long delay =
-            (nextMessage.expectedDeadline() - clock.millis()) - NEXT_RENEWAL_THRESHOLD_MILLIS;
-        renewerFuture = executor.schedule(new Runnable() {
-          @Override
-          public void run() {
-            renewAckDeadlines();
-          }
-        }, delay, TimeUnit.MILLISECONDS);
+    // the subscription's deadline is only assumed to be at least MIN_DEADLINE_MILLIS
+    Lease lease = new Lease(subscription, ackId, now, renewAt(now, MIN_DEADLINE_MILLIS));
+    Lease previous = subscriptionLeases.put(ackId, lease);
+    if (previous != null) {
+      previous.removed = true;
+    }
+    wheelLeases.incrementAndGet();
+    bucket(lease.renewAt).add(lease);
+  }
+
+  private void scheduleRenewals() {
+    if (!renewing.get() && renewing.compareAndSet(false, true)) {
+      synchronized (futureLock) {
+        if (!closed) {
+          renewerFuture = executor.schedule(renewRunnable, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
       }
     }
   }
 
   private void renewAckDeadlines() {
-    ListMultimap<String, String> messagesToRenewNext = LinkedListMultimap.create();
-    // At every activation we renew all ack deadlines that will expire in the following
+    long now = clock.millis();
+    // At every activation we renew all ack deadlines that must be renewed in the following
     // RENEW_THRESHOLD_MILLIS
-    long threshold = clock.millis() + RENEW_THRESHOLD_MILLIS;
-    Message message;
-    while ((message = nextMessageToRenew(threshold)) != null) {
-      // If the expected deadline is null the message was removed and we must ignore it, otherwise
-      // we renew its ack deadline
-      if (message.expectedDeadline() != null) {
-        messagesToRenewNext.put(message.messageId().subscription(), message.messageId().ackId());
+    long threshold = now + RENEW_THRESHOLD_MILLIS;
+    int deadline = deadlineMillis();
+    long lastThresholdTick = tick(threshold);
+    long firstTick = Math.max(lastTick + 1, lastThresholdTick - WHEEL_SIZE + 1);
+    ListMultimap<String, String> messagesToRenew = LinkedListMultimap.create();
+    List<Lease> notDue = new ArrayList<>();
+    for (long tick = firstTick; tick <= lastThresholdTick; tick++) {
+      Queue<Lease> bucket = wheel.get((int) (tick & (WHEEL_SIZE - 1)));
+      Lease lease;
+      while ((lease = bucket.poll()) != null) {
+        if (lease.removed) {
+          wheelLeases.decrementAndGet();
+        } else if (tick(lease.renewAt) > lastThresholdTick) {
+          // due in a later round of the wheel
+          notDue.add(lease);
+        } else {
+          messagesToRenew.put(lease.subscription, lease.ackId);
+          lease.renewAt = renewAt(now, deadline);
+          bucket(lease.renewAt).add(lease);
+        }
       }
+      for (Lease notDueLease : notDue) {
+        bucket.add(notDueLease);
+      }
+      notDue.clear();
     }
-    for (Map.Entry<String, List<String>> entry : Multimaps.asMap(messagesToRenewNext).entrySet()) {
-      // We send all ack deadline renewals for a subscription
-      pubsub.modifyAckDeadlineAsync(entry.getKey(), MIN_DEADLINE_MILLIS, TimeUnit.MILLISECONDS,
-          entry.getValue());
+    lastTick = lastThresholdTick;
+    for (Map.Entry<String, List<String>> entry : Multimaps.asMap(messagesToRenew).entrySet()) {
+      // We send all ack deadline renewals for a subscription, in chunks that fit in a request
+      for (List<String> ackIds : Lists.partition(entry.getValue(), MAX_ACK_IDS_PER_REQUEST)) {
+        pubsub.modifyAckDeadlineAsync(entry.getKey(), deadline, TimeUnit.MILLISECONDS, ackIds);
+      }
     }
-    unsetAndScheduleNextRenewal();
+    scheduleNextRenewal();
   }
 
-  private Message nextMessageToRenew(long threshold) {
-    synchronized (lock) {
-      Message message = messageQueue.peek();
-      // if the queue is empty or the next expected deadline is after threshold we stop
-      if (message == null || message.expectedDeadline() > threshold) {
-        return null;
+  private void scheduleNextRenewal() {
+    // Schedules the next renewal if there are still messages to process, otherwise stops until
+    // the next message is added
+    synchronized (futureLock) {
+      renewerFuture = null;
+      if (closed) {
+        return;
       }
-      MessageId messageId = messageQueue.poll().messageId();
-      // Check if the next expected deadline changed. This can happen if the message was removed
-      // from the ack deadline renewer or if it was nacked and then pulled again
-      Long deadline = messageDeadlines.get(messageId);
-      if (deadline == null || deadline > threshold) {
-        // the message was removed (deadline == null) or removed and then added back
-        // (deadline > threshold), we should not renew its deadline (yet)
-        return new Message(messageId, null);
-      } else {
-        // Message deadline must be renewed, we must submit it again to the renewer
-        add(messageId.subscription(), messageId.ackId());
-        return new Message(messageId, deadline);
+      if (wheelLeases.get() > 0) {
+        renewerFuture = executor.schedule(renewRunnable, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        return;
       }
+      renewing.set(false);
+    }
+    if (wheelLeases.get() > 0) {
+      // a message was added while stopping
+      scheduleRenewals();
     }
   }
 
@@ -253,13 +334,8 @@ class AckDeadlineRenewer implements AutoCloseable {
    * @param ackId the message's acknowledge id
    */
   void add(String subscription, String ackId) {
-    synchronized (lock) {
-      long deadline = clock.millis() + MIN_DEADLINE_MILLIS - DEADLINE_SLACK_MILLIS;
-      Message message = new Message(new MessageId(subscription, ackId), deadline);
-      messageQueue.add(message);
-      messageDeadlines.put(message.messageId(), deadline);
-    }
-    scheduleNextRenewal();
+    addLease(subscription, ackId, clock.millis());
+    scheduleRenewals();
   }
 
   /**
@@ -272,46 +348,50 @@ class AckDeadlineRenewer implements AutoCloseable {
    * @param ackIds the acknowledge ids of the messages
    */
   void add(String subscription, Iterable<String> ackIds) {
-    synchronized (lock) {
-      long deadline = clock.millis() + MIN_DEADLINE_MILLIS - DEADLINE_SLACK_MILLIS;
-      for (String ackId : ackIds) {
-        Message message = new Message(new MessageId(subscription, ackId), deadline);
-        messageQueue.add(message);
-        messageDeadlines.put(message.messageId(), deadline);
-      }
+    long now = clock.millis();
+    for (String ackId : ackIds) {
+      addLease(subscription, ackId, now);
     }
-    scheduleNextRenewal();
+    scheduleRenewals();
   }
 
   /**
    * Removes a message from this {@code AckDeadlineRenewer}. The message is identified by the
    * subscription from which it was pulled and its acknowledge id. Once the message is removed from
-   * this {@code AckDeadlineRenewer}, automated ack deadline renewals will stop.
+   * this {@code AckDeadlineRenewer}, automated ack deadline renewals will stop. The time the
+   * message was in this {@code AckDeadlineRenewer} is used to choose the renewed deadlines.
    *
    * @param subscription the subscription from which the message has been pulled
    * @param ackId the message's acknowledge id
    */
   void remove(String subscription, String ackId) {
-    synchronized (lock) {
-      messageDeadlines.remove(new MessageId(subscription, ackId));
+    ConcurrentMap<String, Lease> subscriptionLeases = leases.get(subscription);
+    if (subscriptionLeases == null) {
+      return;
+    }
+    Lease lease = subscriptionLeases.remove(ackId);
+    if (lease != null) {
+      lease.removed = true;
+      long now = clock.millis();
+      processingTimes.record(now - lease.addedAt, now);
     }
   }
 
   @Override
   public void close() throws Exception {
-    if (closed) {
-      return;
-    }
-    closed = true;
-    synchronized (lock) {
-      messageDeadlines.clear();
-      messageQueue.clear();
-    }
     synchronized (futureLock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
       if (renewerFuture != null) {
         renewerFuture.cancel(true);
       }
     }
+    leases.clear();
+    for (Queue<Lease> bucket : wheel) {
+      bucket.clear();
+    }
     executorFactory.release(executor);
   }
 }
@@ -30,12 +30,19 @@ import com.google.pubsub.v1.PullResponse;
 
 import io.grpc.internal.SharedResourceHolder;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation for a message consumer.
@@ -43,16 +50,23 @@ import java.util.concurrent.atomic.AtomicInteger;
 final class MessageConsumerImpl implements MessageConsumer {
 
   private static final int MAX_QUEUED_CALLBACKS = 100;
-  // shared scheduled executor, used to schedule pulls
-  private static final SharedResourceHolder.Resource<ExecutorService> CONSUMER_EXECUTOR =
-      new SharedResourceHolder.Resource<ExecutorService>() {
+  private static final long MAX_QUEUED_BYTES = Long.MAX_VALUE;
+  private static final int MAX_CONCURRENT_PULLS = 1;
+  private static final int PROCESSING_THREADS = 1;
+  private static final int MAX_ACK_BATCH_SIZE = 100;
+  private static final long ACK_BATCH_DELAY_MILLIS = 100;
+  private static final long INITIAL_PULL_RETRY_DELAY_MILLIS = 100;
+  private static final long MAX_PULL_RETRY_DELAY_MILLIS = 60_000;
+  // shared scheduled executor, used to schedule pulls and ack flushes
+  private static final SharedResourceHolder.Resource<ScheduledExecutorService> CONSUMER_EXECUTOR =
+      new SharedResourceHolder.Resource<ScheduledExecutorService>() {
         @Override
-        public ExecutorService create() {
-          return Executors.newSingleThreadExecutor();
+        public ScheduledExecutorService create() {
+          return Executors.newSingleThreadScheduledExecutor();
         }
 
         @Override
-        public void close(ExecutorService instance) {
+        public void close(ScheduledExecutorService instance) {
           instance.shutdown();
         }
       };
@@ -63,17 +77,37 @@ final class MessageConsumerImpl implements MessageConsumer {
   private final AckDeadlineRenewer deadlineRenewer;
   private final String subscription;
   private final MessageProcessor messageProcessor;
-  private final ExecutorService consumerExecutor;
+  private final ScheduledExecutorService consumerExecutor;
   private final ExecutorFactory<ExecutorService> executorFactory;
   private final ExecutorService executor;
   private final AtomicInteger queuedCallbacks;
   private final int maxQueuedCallbacks;
+  private final AtomicLong queuedBytes;
+  private final long maxQueuedBytes;
+  private final int maxConcurrentPulls;
   private final Object futureLock = new Object();
-  private final Runnable consumerRunnable;
   private final NextPullPolicy pullPolicy;
+  private final int maxAckBatchSize;
+  private final long ackBatchDelayMillis;
+  private final Object ackLock = new Object();
+  private final Runnable flushAcksRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flushAcks();
+    }
+  };
   private boolean closed;
-  private Future<?> scheduledFuture;
-  private PullFuture pullerFuture;
+  // pulls either scheduled or in flight, and the number of messages they requested
+  private int activePulls;
+  private int requestedMessages;
+  private final Set<PullFuture> pullerFutures = new HashSet<>();
+  // failed pulls waiting to be sent again, and the delay before sending them
+  private final Set<Future<?>> pullRetryFutures = new HashSet<>();
+  private long pullRetryDelayMillis;
+  private List<String> pendingAcks = new ArrayList<>();
+  private List<String> pendingNacks = new ArrayList<>();
+  private Future<?> ackFlushFuture;
+  private boolean acksClosed;
 
   /**
    * Interface for policies according to which the consumer should pull messages.
@@ -104,12 +138,21 @@ final class MessageConsumerImpl implements MessageConsumer {
   }
 
   /**
-   * Default executor factory for the message processor executor. By default a single-threaded
-   * executor is used.
+   * Default executor factory for the message processor executor, a fixed-size thread pool. By
+   * default a single-threaded executor is used.
    */
   static class DefaultExecutorFactory implements ExecutorFactory<ExecutorService> {
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService executor;
+
+    DefaultExecutorFactory() {
+      this(PROCESSING_THREADS);
+    }
+
+    DefaultExecutorFactory(int threads) {
+      executor = threads == 1
+          ? Executors.newSingleThreadExecutor() : Executors.newFixedThreadPool(threads);
+    }
 
     @Override
     public ExecutorService get() {
@@ -124,29 +167,41 @@ final class MessageConsumerImpl implements MessageConsumer {
 
   class ConsumerRunnable implements Runnable {
 
+    private final int maxMessages;
+
+    ConsumerRunnable(int maxMessages) {
+      this.maxMessages = maxMessages;
+    }
+
     @Override
     public void run() {
-      if (closed) {
-        return;
+      final PullFuture pullerFuture;
+      synchronized (futureLock) {
+        if (closed) {
+          return;
+        }
+        pullerFuture = pubsubRpc.pull(createPullRequest());
+        pullerFutures.add(pullerFuture);
       }
-      pullerFuture = pubsubRpc.pull(createPullRequest());
       pullerFuture.addCallback(new PullCallback() {
         @Override
         public void success(PullResponse response) {
           List<com.google.pubsub.v1.ReceivedMessage> messages = response.getReceivedMessagesList();
           queuedCallbacks.addAndGet(messages.size());
           for (com.google.pubsub.v1.ReceivedMessage message : messages) {
+            int size = message.getMessage().getSerializedSize();
+            queuedBytes.addAndGet(size);
             deadlineRenewer.add(subscription, message.getAckId());
             ReceivedMessage receivedMessage = ReceivedMessage.fromPb(pubsub, subscription, message);
-            executor.execute(ackingRunnable(receivedMessage));
+            executor.execute(ackingRunnable(receivedMessage, size));
           }
-          nextPull();
+          nextPull(pullerFuture, maxMessages);
         }
 
         @Override
         public void failure(Throwable error) {
           if (!(error instanceof CancellationException)) {
-            nextPull();
+            retryPull(pullerFuture, maxMessages);
           }
         }
       });
@@ -155,23 +210,28 @@ final class MessageConsumerImpl implements MessageConsumer {
     private PullRequest createPullRequest() {
       return PullRequest.newBuilder()
           .setSubscription(formatSubscriptionName(pubsubOptions.projectId(), subscription))
-          .setMaxMessages(maxQueuedCallbacks - queuedCallbacks.get())
+          .setMaxMessages(maxMessages)
           .setReturnImmediately(false)
           .build();
     }
 
-    private Runnable ackingRunnable(final ReceivedMessage receivedMessage) {
+    private Runnable ackingRunnable(final ReceivedMessage receivedMessage, final int size) {
       return new Runnable() {
         @Override
         public void run() {
+          boolean processed = false;
           try {
             messageProcessor.process(receivedMessage);
-            pubsub.ackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+            processed = true;
           } catch (Exception ex) {
-            pubsub.nackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+            // the message is nacked
+          }
+          try {
+            addAck(receivedMessage.ackId(), processed);
           } finally {
             deadlineRenewer.remove(receivedMessage.subscription(), receivedMessage.ackId());
             queuedCallbacks.decrementAndGet();
+            queuedBytes.addAndGet(-size);
             // We can now pull more messages, according to the next pull policy.
             pullIfNeeded();
           }
@@ -189,33 +249,143 @@ final class MessageConsumerImpl implements MessageConsumer {
     this.deadlineRenewer = builder.deadlineRenewer;
     this.queuedCallbacks = new AtomicInteger();
     this.consumerExecutor = SharedResourceHolder.get(CONSUMER_EXECUTOR);
-    this.executorFactory =
-        builder.executorFactory != null ? builder.executorFactory : new DefaultExecutorFactory();
+    this.executorFactory = builder.executorFactory != null ? builder.executorFactory
+        : new DefaultExecutorFactory(firstNonNull(builder.processingThreads, PROCESSING_THREADS));
     this.executor = executorFactory.get();
     this.maxQueuedCallbacks = firstNonNull(builder.maxQueuedCallbacks, MAX_QUEUED_CALLBACKS);
-    this.consumerRunnable = new ConsumerRunnable();
+    this.queuedBytes = new AtomicLong();
+    this.maxQueuedBytes = firstNonNull(builder.maxQueuedBytes, MAX_QUEUED_BYTES);
+    this.maxConcurrentPulls = firstNonNull(builder.maxConcurrentPulls, MAX_CONCURRENT_PULLS);
     int nextPullThreshold = builder.nextPullThreshold != null ? builder.nextPullThreshold
         : this.maxQueuedCallbacks / 2;
     this.pullPolicy = new DefaultNextPullPolicy(maxQueuedCallbacks, nextPullThreshold);
-    nextPull();
+    this.maxAckBatchSize = firstNonNull(builder.maxAckBatchSize, MAX_ACK_BATCH_SIZE);
+    this.ackBatchDelayMillis = firstNonNull(builder.ackBatchDelayMillis, ACK_BATCH_DELAY_MILLIS);
+    synchronized (futureLock) {
+      schedulePulls(false);
+    }
   }
 
-  private void pullIfNeeded() {
-    synchronized (futureLock) {
-      if (closed || scheduledFuture != null || !pullPolicy.shouldPull(queuedCallbacks.get())) {
+  /**
+   * Schedules pulls while fewer than {@code maxConcurrentPulls} are active and the queue has room
+   * for more messages. Messages requested by active pulls count as queued, so that the queue never
+   * holds more than {@code maxQueuedCallbacks} messages. The available room is split evenly among
+   * the pulls that can be scheduled. Queued bytes can exceed {@code maxQueuedBytes} by the size of
+   * the messages returned by the active pulls. If {@code usePullPolicy} is {@code true}, pulls are
+   * only scheduled if allowed by the next pull policy.
+   */
+  private void schedulePulls(boolean usePullPolicy) {
+    while (!closed && activePulls < maxConcurrentPulls && queuedBytes.get() < maxQueuedBytes) {
+      int queued = queuedCallbacks.get() + requestedMessages;
+      int available = maxQueuedCallbacks - queued;
+      if (available <= 0 || usePullPolicy && !pullPolicy.shouldPull(queued)) {
         return;
       }
-      scheduledFuture = consumerExecutor.submit(consumerRunnable);
+      int maxMessages = Math.max(1, available / (maxConcurrentPulls - activePulls));
+      activePulls++;
+      requestedMessages += maxMessages;
+      consumerExecutor.submit(new ConsumerRunnable(maxMessages));
     }
   }
 
-  private void nextPull() {
+  private void pullIfNeeded() {
+    synchronized (futureLock) {
+      schedulePulls(true);
+    }
+  }
+
+  private void nextPull(PullFuture pullerFuture, int maxMessages) {
+    synchronized (futureLock) {
+      pullerFutures.remove(pullerFuture);
+      pullRetryDelayMillis = 0;
+      activePulls--;
+      requestedMessages -= maxMessages;
+      schedulePulls(false);
+    }
+  }
+
+  /**
+   * Sends a failed pull again, after a delay. The delay starts at
+   * {@code INITIAL_PULL_RETRY_DELAY_MILLIS} and doubles with every consecutive failure, up to
+   * {@code MAX_PULL_RETRY_DELAY_MILLIS}, so that an unavailable service is not flooded with pulls.
+   * The delay is reset once a pull succeeds. The pull stays active while waiting.
+   */
+  private void retryPull(PullFuture pullerFuture, int maxMessages) {
     synchronized (futureLock) {
-      if (closed || queuedCallbacks.get() == maxQueuedCallbacks) {
-        scheduledFuture = null;
+      pullerFutures.remove(pullerFuture);
+      if (closed) {
         return;
       }
-      scheduledFuture = consumerExecutor.submit(consumerRunnable);
+      pullRetryDelayMillis = pullRetryDelayMillis == 0 ? INITIAL_PULL_RETRY_DELAY_MILLIS
+          : Math.min(2 * pullRetryDelayMillis, MAX_PULL_RETRY_DELAY_MILLIS);
+      Iterator<Future<?>> iterator = pullRetryFutures.iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().isDone()) {
+          iterator.remove();
+        }
+      }
+      pullRetryFutures.add(consumerExecutor.schedule(new ConsumerRunnable(maxMessages),
+          pullRetryDelayMillis, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  /**
+   * Adds a message to the pending acks or nacks. Pending acks and nacks are sent together once
+   * {@code maxAckBatchSize} of them are pending, or {@code ackBatchDelayMillis} after the first one
+   * was added.
+   */
+  private void addAck(String ackId, boolean ack) {
+    List<String> acks = null;
+    List<String> nacks = null;
+    synchronized (ackLock) {
+      if (ack) {
+        pendingAcks.add(ackId);
+      } else {
+        pendingNacks.add(ackId);
+      }
+      if (acksClosed || pendingAcks.size() + pendingNacks.size() >= maxAckBatchSize) {
+        acks = takePendingAcks();
+        nacks = takePendingNacks();
+      } else if (ackFlushFuture == null) {
+        ackFlushFuture = consumerExecutor.schedule(
+            flushAcksRunnable, ackBatchDelayMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    sendAcks(acks, nacks);
+  }
+
+  private void flushAcks() {
+    List<String> acks;
+    List<String> nacks;
+    synchronized (ackLock) {
+      acks = takePendingAcks();
+      nacks = takePendingNacks();
+    }
+    sendAcks(acks, nacks);
+  }
+
+  private List<String> takePendingAcks() {
+    List<String> acks = pendingAcks;
+    pendingAcks = new ArrayList<>();
+    if (ackFlushFuture != null) {
+      ackFlushFuture.cancel(false);
+      ackFlushFuture = null;
+    }
+    return acks;
+  }
+
+  private List<String> takePendingNacks() {
+    List<String> nacks = pendingNacks;
+    pendingNacks = new ArrayList<>();
+    return nacks;
+  }
+
+  private void sendAcks(List<String> acks, List<String> nacks) {
+    if (acks != null && !acks.isEmpty()) {
+      pubsub.ackAsync(subscription, acks);
+    }
+    if (nacks != null && !nacks.isEmpty()) {
+      pubsub.nackAsync(subscription, nacks);
     }
   }
 
@@ -226,13 +396,20 @@ final class MessageConsumerImpl implements MessageConsumer {
         return;
       }
       closed = true;
-      if (scheduledFuture != null) {
-        scheduledFuture.cancel(true);
-      }
-      if (pullerFuture != null) {
+      for (PullFuture pullerFuture : pullerFutures) {
         pullerFuture.cancel(true);
       }
+      pullerFutures.clear();
+      for (Future<?> pullRetryFuture : pullRetryFutures) {
+        pullRetryFuture.cancel(false);
+      }
+      pullRetryFutures.clear();
+    }
+    synchronized (ackLock) {
+      // messages processed from now on are acked or nacked right away
+      acksClosed = true;
     }
+    flushAcks();
     SharedResourceHolder.release(CONSUMER_EXECUTOR, consumerExecutor);
     executorFactory.release(executor);
   }
@@ -245,6 +422,11 @@ final class MessageConsumerImpl implements MessageConsumer {
     private Integer maxQueuedCallbacks;
     private ExecutorFactory<ExecutorService> executorFactory;
     private Integer nextPullThreshold;
+    private Integer maxAckBatchSize;
+    private Long maxQueuedBytes;
+    private Integer maxConcurrentPulls;
+    private Integer processingThreads;
+    private Long ackBatchDelayMillis;
 
     Builder(PubSubOptions pubsubOptions, String subscription, AckDeadlineRenewer deadlineRenewer,
         MessageProcessor messageProcessor) {
@@ -262,6 +444,32 @@ final class MessageConsumerImpl implements MessageConsumer {
       return this;
     }
 
+    /**
+     * Sets the maximum size, in bytes, of the messages either being processed or waiting for
+     * processing. No pull is sent while this size is reached.
+     */
+    Builder maxQueuedBytes(Long maxQueuedBytes) {
+      this.maxQueuedBytes = maxQueuedBytes;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pull requests in flight at the same time.
+     */
+    Builder maxConcurrentPulls(Integer maxConcurrentPulls) {
+      this.maxConcurrentPulls = maxConcurrentPulls;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads of the default executor, used to run message processor callbacks
+     * if no executor factory is set.
+     */
+    Builder processingThreads(Integer processingThreads) {
+      this.processingThreads = processingThreads;
+      return this;
+    }
+
     /**
      * Sets the executor factory, used to manage the executor that will run message processor
      * callbacks message consumer.
@@ -281,6 +489,24 @@ final class MessageConsumerImpl implements MessageConsumer {
       return this;
     }
 
+    /**
+     * Sets the maximum number of acks and nacks sent together. Once this many messages have been
+     * processed and not yet acked or nacked, their acks and nacks are sent right away.
+     */
+    Builder maxAckBatchSize(Integer maxAckBatchSize) {
+      this.maxAckBatchSize = maxAckBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, acks and nacks are delayed to be sent together with
+     * the acks and nacks of other messages.
+     */
+    Builder ackBatchDelayMillis(Long ackBatchDelayMillis) {
+      this.ackBatchDelayMillis = ackBatchDelayMillis;
+      return this;
+    }
+
     /**
      * Creates a {@code MessageConsumerImpl} object.
      */
@@ -16,6 +16,8 @@
 
 package com.google.cloud.pubsub;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.cloud.AsyncPage;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.Page;
@@ -88,7 +90,10 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
 
     enum OptionType implements Option.OptionType {
       EXECUTOR_FACTORY,
-      MAX_QUEUED_CALLBACKS;
+      MAX_QUEUED_CALLBACKS,
+      MAX_QUEUED_BYTES,
+      MAX_CONCURRENT_PULLS,
+      PROCESSING_THREADS;
 
       @SuppressWarnings("unchecked")
       <T> T get(Map<Option.OptionType, ?> options) {
@@ -99,6 +104,10 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
         return get(options);
       }
 
+      Long getLong(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+
       ExecutorFactory<ExecutorService> getExecutorFactory(Map<Option.OptionType, ?> options) {
         return get(options);
       }
@@ -119,6 +128,39 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
       return new PullOption(OptionType.MAX_QUEUED_CALLBACKS, maxQueuedCallbacks);
     }
 
+    /**
+     * Returns an option to specify the maximum size, in bytes, of the messages that can be queued
+     * in the message consumer at any time. No more messages are pulled while this size is reached,
+     * the size of queued messages can exceed it by the size of the messages returned by pulls
+     * already in flight. If not provided, the size of queued messages is only bounded by
+     * {@link #maxQueuedCallbacks(int)}.
+     */
+    public static PullOption maxQueuedBytes(long maxQueuedBytes) {
+      checkArgument(maxQueuedBytes > 0, "Maximum queued bytes must be > 0");
+      return new PullOption(OptionType.MAX_QUEUED_BYTES, maxQueuedBytes);
+    }
+
+    /**
+     * Returns an option to specify the maximum number of pull requests the message consumer can
+     * have in flight at the same time. Concurrent pulls share the room available in the queue of
+     * the message consumer (see {@link #maxQueuedCallbacks(int)}). If not provided, at most one
+     * pull request is in flight at any time.
+     */
+    public static PullOption maxConcurrentPulls(int maxConcurrentPulls) {
+      checkArgument(maxConcurrentPulls > 0, "Maximum concurrent pulls must be > 0");
+      return new PullOption(OptionType.MAX_CONCURRENT_PULLS, maxConcurrentPulls);
+    }
+
+    /**
+     * Returns an option to specify the number of threads used to execute message processor
+     * callbacks, when no executor is provided with {@link #executorFactory(ExecutorFactory)}. If
+     * not provided, a single thread is used.
+     */
+    public static PullOption processingThreads(int processingThreads) {
+      checkArgument(processingThreads > 0, "Processing threads must be > 0");
+      return new PullOption(OptionType.PROCESSING_THREADS, processingThreads);
+    }
+
     /**
      * Returns an option to specify the executor used to execute message processor callbacks. The
      * executor determines the number of messages that can be processed at the same time. If not
@@ -139,6 +181,79 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
     }
   }
 
+  /**
+   * Class for specifying options for publishers.
+   */
+  final class PublisherOption extends Option {
+
+    private static final long serialVersionUID = -3578427145296781054L;
+
+    enum OptionType implements Option.OptionType {
+      MAX_BUNDLE_MESSAGES,
+      MAX_BUNDLE_BYTES,
+      MAX_BUNDLE_DELAY_MILLIS,
+      MAX_OUTSTANDING_BYTES;
+
+      @SuppressWarnings("unchecked")
+      <T> T get(Map<Option.OptionType, ?> options) {
+        return (T) options.get(this);
+      }
+
+      Integer getInteger(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+
+      Long getLong(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+    }
+
+    private PublisherOption(Option.OptionType option, Object value) {
+      super(option, value);
+    }
+
+    /**
+     * Returns an option to specify the maximum number of messages published in a single request. If
+     * not provided, at most 100 messages are published in a single request.
+     */
+    public static PublisherOption maxBundleMessages(int maxBundleMessages) {
+      checkArgument(maxBundleMessages > 0 && maxBundleMessages <= 1000,
+          "Maximum bundle messages must be > 0 and <= 1000");
+      return new PublisherOption(OptionType.MAX_BUNDLE_MESSAGES, maxBundleMessages);
+    }
+
+    /**
+     * Returns an option to specify the maximum size, in bytes, of the messages published in a
+     * single request. A message larger than this size is published on its own. If not provided, at
+     * most 1000000 bytes of messages are published in a single request.
+     */
+    public static PublisherOption maxBundleBytes(long maxBundleBytes) {
+      checkArgument(maxBundleBytes > 0, "Maximum bundle bytes must be > 0");
+      return new PublisherOption(OptionType.MAX_BUNDLE_BYTES, maxBundleBytes);
+    }
+
+    /**
+     * Returns an option to specify how long a message can wait for other messages to be bundled
+     * with, before its bundle is published. If not provided, bundles are published at most 10
+     * milliseconds after their first message was added.
+     */
+    public static PublisherOption maxBundleDelay(long maxBundleDelay, TimeUnit unit) {
+      checkArgument(maxBundleDelay >= 0, "Maximum bundle delay must be >= 0");
+      return new PublisherOption(OptionType.MAX_BUNDLE_DELAY_MILLIS, unit.toMillis(maxBundleDelay));
+    }
+
+    /**
+     * Returns an option to specify the maximum size, in bytes, of the messages that were added to a
+     * publisher and whose publishing has not completed yet. Once this size is reached,
+     * {@link Publisher#publish(Message)} blocks until enough messages are published. If not
+     * provided, at most 10485760 bytes of messages can be outstanding.
+     */
+    public static PublisherOption maxOutstandingBytes(long maxOutstandingBytes) {
+      checkArgument(maxOutstandingBytes > 0, "Maximum outstanding bytes must be > 0");
+      return new PublisherOption(OptionType.MAX_OUTSTANDING_BYTES, maxOutstandingBytes);
+    }
+  }
+
   /**
    * A callback to process pulled messages. The received message will be ack'ed upon successful
    * return or nack'ed if exception is thrown.
@@ -164,6 +279,44 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
     void close() throws Exception;
   }
 
+  /**
+   * An interface to publish messages to a topic in bundles. Messages added to a publisher are
+   * gathered into bundles, each bundle is published with a single request once it reaches the
+   * maximum number of messages or bytes, or once its first message waited for the maximum bundle
+   * delay. {@code Publisher} objects are thread-safe.
+   *
+   * @see PubSub#publisher(String, PublisherOption...)
+   */
+  interface Publisher extends AutoCloseable {
+
+    /**
+     * Adds a message to the current bundle. This method returns a {@code Future} object to consume
+     * the result. {@link Future#get()} returns a service-generated id for the published message,
+     * once the message's bundle is published. If the maximum number of outstanding bytes is
+     * reached, this method blocks until enough messages are published.
+     *
+     * @param message the message to publish
+     * @return a {@code Future} for the unique service-generated id for the message
+     * @throws IllegalStateException if the publisher was closed
+     * @throws com.google.cloud.RetryHelper.RetryInterruptedException if the thread is interrupted
+     *     while waiting for messages to be published. The thread's interrupt status is set
+     */
+    Future<String> publish(Message message);
+
+    /**
+     * Publishes the current bundle, without waiting for it to be full or for the maximum bundle
+     * delay to elapse.
+     */
+    void flush();
+
+    /**
+     * Publishes the current bundle and frees all resources. Messages added after this method is
+     * called are rejected. The {@code Future} objects of published messages complete normally.
+     */
+    @Override
+    void close() throws Exception;
+  }
+
   /**
    * Creates a new topic.
    *
@@ -302,6 +455,35 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
    */
   Future<List<String>> publishAsync(String topic, Iterable<Message> messages);
 
+  /**
+   * Creates a publisher that publishes messages to the provided topic in bundles. Messages added
+   * with {@link Publisher#publish(Message)} are gathered and published with a single request,
+   * which makes the number of requests depend on the bundle size rather than on the number of
+   * published messages. Each message still gets its own {@code Future} for the service-generated
+   * id. Close the publisher with {@link Publisher#close()} when no longer used.
+   *
+   * <p>The {@link PublisherOption#maxBundleMessages(int)},
+   * {@link PublisherOption#maxBundleBytes(long)} and
+   * {@link PublisherOption#maxBundleDelay(long, TimeUnit)} options bound the size of bundles and
+   * the time messages wait before being published. The
+   * {@link PublisherOption#maxOutstandingBytes(long)} option bounds the size of the messages added
+   * to the publisher but not yet published.
+   *
+   * <p>Example of publishing messages in bundles:
+   * <pre> {@code
+   * List<Future<String>> messageIds = new ArrayList<>();
+   * try (Publisher publisher = pubsub.publisher("topic")) {
+   *   for (int i = 0; i < 1000; i++) {
+   *     messageIds.add(publisher.publish(Message.of("message " + i)));
+   *   }
+   * }}</pre>
+   *
+   * @param topic the topic where messages are published
+   * @param options publisher options
+   * @return a publisher for the provided topic and options
+   */
+  Publisher publisher(String topic, PublisherOption... options);
+
   /**
    * Creates a new subscription.
    *
@@ -469,12 +651,17 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
    * {@link MessageProcessor#process(Message)} executes correctly, the message is acknowledged. If
    * {@link MessageProcessor#process(Message)} throws an exception, the message is "nacked". For
    * all pulled messages, the ack deadline is automatically renewed until the message is either
-   * acknowledged or "nacked".
-   *
-   * <p>The {@link PullOption#maxQueuedCallbacks(int)} option can be used to control the maximum
-   * number of queued messages (messages either being processed or waiting to be processed). The
-   * {@link PullOption#executorFactory(ExecutorFactory)} can be used to provide an executor to run
-   * message processor callbacks.
+   * acknowledged or "nacked". Acks and "nacks" of processed messages are gathered for a short time
+   * and sent together, pending ones are sent when the message consumer is closed. Pulls that fail
+   * are sent again after an exponentially increasing delay.
+   *
+   * <p>The {@link PullOption#maxQueuedCallbacks(int)} and {@link PullOption#maxQueuedBytes(long)}
+   * options can be used to control the maximum number and size of queued messages (messages either
+   * being processed or waiting to be processed). The {@link PullOption#maxConcurrentPulls(int)}
+   * option can be used to pull messages with several requests in flight at the same time. The
+   * {@link PullOption#processingThreads(int)} option can be used to set the number of threads
+   * running message processor callbacks, or {@link PullOption#executorFactory(ExecutorFactory)}
+   * to provide an executor to run them.
    *
    * @param subscription the subscription from which to pull messages
    * @param callback the callback to be executed on each message
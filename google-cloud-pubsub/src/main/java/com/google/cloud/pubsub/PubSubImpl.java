@@ -18,8 +18,15 @@ package com.google.cloud.pubsub;
 
 import static com.google.cloud.pubsub.PubSub.ListOption.OptionType.PAGE_SIZE;
 import static com.google.cloud.pubsub.PubSub.ListOption.OptionType.PAGE_TOKEN;
+import static com.google.cloud.pubsub.PubSub.PublisherOption.OptionType.MAX_BUNDLE_BYTES;
+import static com.google.cloud.pubsub.PubSub.PublisherOption.OptionType.MAX_BUNDLE_DELAY_MILLIS;
+import static com.google.cloud.pubsub.PubSub.PublisherOption.OptionType.MAX_BUNDLE_MESSAGES;
+import static com.google.cloud.pubsub.PubSub.PublisherOption.OptionType.MAX_OUTSTANDING_BYTES;
 import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.EXECUTOR_FACTORY;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_CONCURRENT_PULLS;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_QUEUED_BYTES;
 import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_QUEUED_CALLBACKS;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.PROCESSING_THREADS;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -490,6 +497,17 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
     return listSubscriptionsAsync(topic, options(), optionMap(options));
   }
 
+  @Override
+  public Publisher publisher(String topic, PublisherOption... options) {
+    Map<Option.OptionType, ?> optionMap = optionMap(options);
+    return PublisherImpl.builder(options(), topic)
+        .maxBundleMessages(MAX_BUNDLE_MESSAGES.getInteger(optionMap))
+        .maxBundleBytes(MAX_BUNDLE_BYTES.getLong(optionMap))
+        .maxBundleDelayMillis(MAX_BUNDLE_DELAY_MILLIS.getLong(optionMap))
+        .maxOutstandingBytes(MAX_OUTSTANDING_BYTES.getLong(optionMap))
+        .build();
+  }
+
   @Override
   public Iterator<ReceivedMessage> pull(String subscription, int maxMessages) {
     return get(pullAsync(subscription, maxMessages));
@@ -538,6 +556,9 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
     Map<Option.OptionType, ?> optionMap = optionMap(options);
     return MessageConsumerImpl.builder(options(), subscription, ackDeadlineRenewer, callback)
         .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS.getInteger(optionMap))
+        .maxQueuedBytes(MAX_QUEUED_BYTES.getLong(optionMap))
+        .maxConcurrentPulls(MAX_CONCURRENT_PULLS.getInteger(optionMap))
+        .processingThreads(PROCESSING_THREADS.getInteger(optionMap))
         .executorFactory(EXECUTOR_FACTORY.getExecutorFactory(optionMap))
         .build();
   }
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.cloud.pubsub.spi.v1.PublisherApi.formatTopicName;
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.pubsub.PubSub.Publisher;
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.pubsub.v1.PublishRequest;
+import com.google.pubsub.v1.PublishResponse;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default implementation for a publisher. Messages are added to a bundle, which is published once
+ * it reaches {@code maxBundleMessages} messages or {@code maxBundleBytes} bytes, or
+ * {@code maxBundleDelayMillis} after its first message was added. The message ids returned by the
+ * service are then dispatched to the futures of the bundle's messages, in order. Closing the
+ * publisher publishes the current bundle and waits for the bundles being published.
+ */
+final class PublisherImpl implements Publisher {
+
+  private static final int MAX_BUNDLE_MESSAGES = 100;
+  private static final long MAX_BUNDLE_BYTES = 1_000_000L;
+  private static final long MAX_BUNDLE_DELAY_MILLIS = 10L;
+  private static final long MAX_OUTSTANDING_BYTES = 10L * 1024 * 1024;
+
+  private final PubSubRpc pubsubRpc;
+  private final String topicName;
+  private final int maxBundleMessages;
+  private final long maxBundleBytes;
+  private final long maxBundleDelayMillis;
+  private final long maxOutstandingBytes;
+  private final ExecutorFactory<ScheduledExecutorService> executorFactory;
+  private final ScheduledExecutorService executor;
+  private final Object lock = new Object();
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+  private final Set<Bundle> inFlightBundles = new HashSet<>();
+  private Bundle bundle;
+  private Future<?> flushFuture;
+  private long outstandingBytes;
+  private boolean closed;
+
+  /**
+   * The messages to publish with a single request, and their futures.
+   */
+  private static final class Bundle {
+
+    private final List<PubsubMessage> messages = new ArrayList<>();
+    private final List<SettableFuture<String>> futures = new ArrayList<>();
+    private long bytes;
+
+    void add(PubsubMessage message, SettableFuture<String> future, int size) {
+      messages.add(message);
+      futures.add(future);
+      bytes += size;
+    }
+
+    int size() {
+      return messages.size();
+    }
+  }
+
+  private PublisherImpl(Builder builder) {
+    PubSubOptions pubsubOptions = builder.pubsubOptions;
+    this.pubsubRpc = pubsubOptions.rpc();
+    this.topicName = formatTopicName(pubsubOptions.projectId(), builder.topic);
+    this.maxBundleMessages = firstNonNull(builder.maxBundleMessages, MAX_BUNDLE_MESSAGES);
+    this.maxBundleBytes = firstNonNull(builder.maxBundleBytes, MAX_BUNDLE_BYTES);
+    this.maxBundleDelayMillis = firstNonNull(builder.maxBundleDelayMillis, MAX_BUNDLE_DELAY_MILLIS);
+    this.maxOutstandingBytes = firstNonNull(builder.maxOutstandingBytes, MAX_OUTSTANDING_BYTES);
+    this.executorFactory = pubsubOptions.executorFactory();
+    this.executor = executorFactory.get();
+  }
+
+  @Override
+  public Future<String> publish(Message message) {
+    PubsubMessage messagePb = message.toPb();
+    int size = messagePb.getSerializedSize();
+    SettableFuture<String> future = SettableFuture.create();
+    Bundle fullBundle = null;
+    Bundle nextBundle = null;
+    while (true) {
+      Bundle currentBundle;
+      synchronized (lock) {
+        checkState(!closed, "Publisher is closed");
+        // a message larger than the maximum is let through once no other message is outstanding
+        if (outstandingBytes == 0 || outstandingBytes + size <= maxOutstandingBytes) {
+          outstandingBytes += size;
+          if (bundle != null && bundle.bytes + size > maxBundleBytes) {
+            fullBundle = takeBundle();
+          }
+          if (bundle == null) {
+            bundle = new Bundle();
+            if (maxBundleDelayMillis > 0) {
+              flushFuture =
+                  executor.schedule(flushRunnable, maxBundleDelayMillis, TimeUnit.MILLISECONDS);
+            }
+          }
+          bundle.add(messagePb, future, size);
+          if (bundle.size() >= maxBundleMessages || bundle.bytes >= maxBundleBytes
+              || maxBundleDelayMillis == 0) {
+            nextBundle = takeBundle();
+          }
+          break;
+        }
+        currentBundle = takeBundle();
+        if (currentBundle == null) {
+          try {
+            lock.wait();
+          } catch (InterruptedException ex) {
+            RetryInterruptedException.propagate();
+          }
+          continue;
+        }
+      }
+      // the current bundle is published right away, rather than after the bundle delay, and
+      // outside of the lock so that other threads are not blocked by the request
+      send(currentBundle);
+    }
+    send(fullBundle);
+    send(nextBundle);
+    return future;
+  }
+
+  @Override
+  public void flush() {
+    Bundle currentBundle;
+    synchronized (lock) {
+      currentBundle = takeBundle();
+    }
+    send(currentBundle);
+  }
+
+  private Bundle takeBundle() {
+    Bundle currentBundle = bundle;
+    bundle = null;
+    if (flushFuture != null) {
+      flushFuture.cancel(false);
+      flushFuture = null;
+    }
+    return currentBundle;
+  }
+
+  private void send(final Bundle bundle) {
+    if (bundle == null) {
+      return;
+    }
+    PublishRequest request = PublishRequest.newBuilder()
+        .setTopic(topicName)
+        .addAllMessages(bundle.messages)
+        .build();
+    synchronized (lock) {
+      inFlightBundles.add(bundle);
+    }
+    ListenableFuture<PublishResponse> response;
+    try {
+      Future<PublishResponse> future = pubsubRpc.publish(request);
+      response = future instanceof ListenableFuture ? (ListenableFuture<PublishResponse>) future
+          : JdkFutureAdapters.listenInPoolThread(future, executor);
+    } catch (RuntimeException ex) {
+      response = Futures.immediateFailedFuture(ex);
+    }
+    Futures.addCallback(response, new FutureCallback<PublishResponse>() {
+      @Override
+      public void onSuccess(PublishResponse result) {
+        try {
+          received(bundle);
+          List<String> messageIds = result.getMessageIdsList();
+          if (messageIds.size() != bundle.size()) {
+            fail(bundle, new IllegalStateException("Published " + bundle.size()
+                + " messages but received " + messageIds.size() + " message ids"));
+            return;
+          }
+          for (int i = 0; i < bundle.size(); i++) {
+            bundle.futures.get(i).set(messageIds.get(i));
+          }
+        } finally {
+          release(bundle);
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        try {
+          received(bundle);
+          fail(bundle, error);
+        } finally {
+          release(bundle);
+        }
+      }
+    });
+  }
+
+  private static void fail(Bundle bundle, Throwable error) {
+    for (SettableFuture<String> future : bundle.futures) {
+      future.setException(error);
+    }
+  }
+
+  /**
+   * Records that the response for {@code bundle} was received, so that {@link #close()} does not
+   * wait for it while its futures are set, possibly running listeners that close the publisher.
+   */
+  private void received(Bundle bundle) {
+    synchronized (lock) {
+      inFlightBundles.remove(bundle);
+      lock.notifyAll();
+    }
+  }
+
+  private void release(Bundle bundle) {
+    synchronized (lock) {
+      outstandingBytes -= bundle.bytes;
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  public void close() {
+    Bundle currentBundle;
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      currentBundle = takeBundle();
+      lock.notifyAll();
+    }
+    send(currentBundle);
+    // the executor may be needed to receive the responses of the bundles being published
+    try {
+      synchronized (lock) {
+        while (!inFlightBundles.isEmpty()) {
+          lock.wait();
+        }
+      }
+    } catch (InterruptedException ex) {
+      List<Bundle> abandonedBundles;
+      synchronized (lock) {
+        abandonedBundles = new ArrayList<>(inFlightBundles);
+      }
+      for (Bundle abandonedBundle : abandonedBundles) {
+        fail(abandonedBundle,
+            new IllegalStateException("Publisher closed before the messages were published"));
+      }
+      RetryInterruptedException.propagate();
+    } finally {
+      executorFactory.release(executor);
+    }
+  }
+
+  static final class Builder {
+    private final PubSubOptions pubsubOptions;
+    private final String topic;
+    private Integer maxBundleMessages;
+    private Long maxBundleBytes;
+    private Long maxBundleDelayMillis;
+    private Long maxOutstandingBytes;
+
+    Builder(PubSubOptions pubsubOptions, String topic) {
+      this.pubsubOptions = pubsubOptions;
+      this.topic = topic;
+    }
+
+    /**
+     * Sets the maximum number of messages published with a single request.
+     */
+    Builder maxBundleMessages(Integer maxBundleMessages) {
+      this.maxBundleMessages = maxBundleMessages;
+      return this;
+    }
+
+    /**
+     * Sets the maximum size, in bytes, of the messages published with a single request.
+     */
+    Builder maxBundleBytes(Long maxBundleBytes) {
+      this.maxBundleBytes = maxBundleBytes;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time, in milliseconds, a bundle waits for messages before being published.
+     * If {@code 0}, messages are published as soon as they are added.
+     */
+    Builder maxBundleDelayMillis(Long maxBundleDelayMillis) {
+      this.maxBundleDelayMillis = maxBundleDelayMillis;
+      return this;
+    }
+
+    /**
+     * Sets the maximum size, in bytes, of the messages added to the publisher and not yet
+     * published.
+     */
+    Builder maxOutstandingBytes(Long maxOutstandingBytes) {
+      this.maxOutstandingBytes = maxOutstandingBytes;
+      return this;
+    }
+
+    /**
+     * Creates a {@code PublisherImpl} object.
+     */
+    PublisherImpl build() {
+      return new PublisherImpl(this);
+    }
+  }
+
+  /**
+   * Returns a builder for {@code PublisherImpl} objects given the service options and the topic to
+   * which messages are published.
+   */
+  static Builder builder(PubSubOptions pubsubOptions, String topic) {
+    return new Builder(pubsubOptions, topic);
+  }
+}
@@ -18,10 +18,8 @@ package com.google.cloud.pubsub.spi;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
-import com.google.api.gax.core.ConnectionSettings;
 import com.google.api.gax.grpc.ApiCallSettings;
 import com.google.api.gax.grpc.ApiException;
-import com.google.cloud.AuthCredentials;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.pubsub.PubSubException;
 import com.google.cloud.pubsub.PubSubOptions;
@@ -63,8 +61,6 @@ import com.google.pubsub.v1.Topic;
 
 import io.grpc.ManagedChannel;
 import io.grpc.Status.Code;
-import io.grpc.netty.NegotiationType;
-import io.grpc.netty.NettyChannelBuilder;
 
 import java.io.IOException;
 import java.util.Set;
@@ -99,8 +95,8 @@ public class DefaultPubSubRpc implements PubSubRpc {
     }
 
     @Override
-    protected ConnectionSettings.Builder connectionSettings() {
-      return super.connectionSettings();
+    protected ManagedChannel channel() {
+      return super.channel();
     }
   }
 
@@ -141,19 +137,8 @@ public class DefaultPubSubRpc implements PubSubRpc {
       SubscriberSettings.Builder subBuilder = SubscriberSettings.defaultBuilder()
           .provideExecutorWith(executor, false)
           .setClientLibHeader(libraryName, libraryVersion);
-      // todo(mziccard): PublisherSettings should support null/absent credentials for testing
-      if (options.host().contains("localhost")
-          || options.authCredentials().equals(AuthCredentials.noAuth())) {
-        ManagedChannel channel = NettyChannelBuilder.forTarget(options.host())
-            .negotiationType(NegotiationType.PLAINTEXT)
-            .build();
-        pubBuilder.provideChannelWith(channel, true);
-        subBuilder.provideChannelWith(channel, true);
-      } else {
-        ConnectionSettings connectionSettings = internalOptions.connectionSettings().build();
-        pubBuilder.provideChannelWith(connectionSettings);
-        subBuilder.provideChannelWith(connectionSettings);
-      }
+      pubBuilder.provideChannelWith(internalOptions.channel(), true);
+      subBuilder.provideChannelWith(internalOptions.channel(), true);
       ApiCallSettings.Builder callSettingsBuilder = internalOptions.apiCallSettings();
       pubBuilder.applyToAllApiMethods(callSettingsBuilder);
       subBuilder.applyToAllApiMethods(callSettingsBuilder);
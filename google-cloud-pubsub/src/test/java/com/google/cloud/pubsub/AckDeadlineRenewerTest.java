@@ -16,11 +16,14 @@
 
 package com.google.cloud.pubsub;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import com.google.cloud.Clock;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.common.collect.ImmutableList;
 
+import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
@@ -29,6 +32,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -39,6 +43,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class AckDeadlineRenewerTest {
 
   private static final int MIN_DEADLINE_MILLIS = 10_000;
+  private static final long PERIOD_MILLIS = 600_000;
 
   private static final String SUBSCRIPTION1 = "subscription1";
   private static final String SUBSCRIPTION2 = "subscription2";
@@ -283,4 +288,130 @@ public class AckDeadlineRenewerTest {
     ackDeadlineRenewer.close();
     EasyMock.verify(pubsub, executor, executorFactory, future);
   }
+
+  private static final class TestClock extends Clock {
+
+    private long millis;
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+  }
+
+  @Test
+  public void testDistribution() {
+    AckDeadlineRenewer.Distribution distribution =
+        new AckDeadlineRenewer.Distribution(600, PERIOD_MILLIS);
+    assertEquals(0, distribution.percentile(0.99, 0));
+    for (int i = 0; i < 99; i++) {
+      distribution.record(1_500, 0);
+    }
+    assertEquals(2, distribution.percentile(0.99, 0));
+    distribution.record(30_000, 0);
+    assertEquals(2, distribution.percentile(0.99, 0));
+    distribution.record(30_000, 0);
+    assertEquals(31, distribution.percentile(0.99, 0));
+    // times above the maximum are recorded in the last bucket
+    distribution = new AckDeadlineRenewer.Distribution(600, PERIOD_MILLIS);
+    distribution.record(TimeUnit.HOURS.toMillis(1), 0);
+    assertEquals(601, distribution.percentile(0.99, 0));
+  }
+
+  @Test
+  public void testDistributionDecay() {
+    AckDeadlineRenewer.Distribution distribution =
+        new AckDeadlineRenewer.Distribution(600, PERIOD_MILLIS);
+    distribution.record(30_000, 0);
+    // times of the previous period are still counted
+    distribution.record(5_000, PERIOD_MILLIS);
+    assertEquals(31, distribution.percentile(0.99, PERIOD_MILLIS));
+    assertEquals(31, distribution.percentile(0.99, 2 * PERIOD_MILLIS - 1));
+    // times older than two periods are forgotten
+    assertEquals(6, distribution.percentile(0.99, 2 * PERIOD_MILLIS));
+    assertEquals(0, distribution.percentile(0.99, 3 * PERIOD_MILLIS));
+    // skipping periods forgets all the times
+    distribution.record(30_000, 3 * PERIOD_MILLIS);
+    assertEquals(0, distribution.percentile(0.99, 5 * PERIOD_MILLIS));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testAdaptiveDeadline() throws Exception {
+    PubSub pubsub = EasyMock.createStrictMock(PubSub.class);
+    ScheduledExecutorService executor = EasyMock.createNiceMock(ScheduledExecutorService.class);
+    ExecutorFactory executorFactory = EasyMock.createStrictMock(ExecutorFactory.class);
+    EasyMock.expect(executorFactory.get()).andReturn(executor);
+    TestClock clock = new TestClock();
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId("projectId")
+        .executorFactory(executorFactory)
+        .clock(clock)
+        .build();
+    EasyMock.expect(pubsub.options()).andReturn(options);
+    executorFactory.release(executor);
+    EasyMock.expectLastCall();
+    EasyMock.replay(executor, executorFactory, pubsub);
+    AckDeadlineRenewer ackDeadlineRenewer = new AckDeadlineRenewer(pubsub);
+    assertEquals(MIN_DEADLINE_MILLIS, ackDeadlineRenewer.deadlineMillis());
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ImmutableList.of(ACK_ID1, ACK_ID2));
+    clock.millis += 5_000;
+    ackDeadlineRenewer.remove(SUBSCRIPTION1, ACK_ID1);
+    assertEquals(MIN_DEADLINE_MILLIS, ackDeadlineRenewer.deadlineMillis());
+    clock.millis += 25_000;
+    ackDeadlineRenewer.remove(SUBSCRIPTION1, ACK_ID2);
+    // removing a message twice is ignored
+    ackDeadlineRenewer.remove(SUBSCRIPTION1, ACK_ID2);
+    assertEquals(31_000, ackDeadlineRenewer.deadlineMillis());
+    // the deadline comes back down once slow messages are forgotten
+    clock.millis += 2 * PERIOD_MILLIS;
+    assertEquals(MIN_DEADLINE_MILLIS, ackDeadlineRenewer.deadlineMillis());
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ACK_ID3);
+    clock.millis += 12_000;
+    ackDeadlineRenewer.remove(SUBSCRIPTION1, ACK_ID3);
+    assertEquals(13_000, ackDeadlineRenewer.deadlineMillis());
+    ackDeadlineRenewer.close();
+    EasyMock.verify(pubsub, executorFactory);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testRenewInChunks() throws Exception {
+    PubSub pubsub = EasyMock.createStrictMock(PubSub.class);
+    ScheduledExecutorService executor = EasyMock.createStrictMock(ScheduledExecutorService.class);
+    ExecutorFactory executorFactory = EasyMock.createStrictMock(ExecutorFactory.class);
+    EasyMock.expect(executorFactory.get()).andReturn(executor);
+    TestClock clock = new TestClock();
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId("projectId")
+        .executorFactory(executorFactory)
+        .clock(clock)
+        .build();
+    EasyMock.expect(pubsub.options()).andReturn(options);
+    Capture<Runnable> renewal = Capture.newInstance();
+    ScheduledFuture future = EasyMock.createNiceMock(ScheduledFuture.class);
+    EasyMock.expect(executor.schedule(EasyMock.capture(renewal), EasyMock.anyLong(),
+        EasyMock.eq(TimeUnit.MILLISECONDS))).andReturn(future).times(3);
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = 0; i < 2501; i++) {
+      builder.add("ack-id" + i);
+    }
+    List<String> ackIds = builder.build();
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION1, MIN_DEADLINE_MILLIS,
+        TimeUnit.MILLISECONDS, ackIds.subList(0, 2500))).andReturn(null);
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION1, MIN_DEADLINE_MILLIS,
+        TimeUnit.MILLISECONDS, ackIds.subList(2500, 2501))).andReturn(null);
+    executorFactory.release(executor);
+    EasyMock.expectLastCall();
+    EasyMock.replay(executor, executorFactory, future, pubsub);
+    AckDeadlineRenewer ackDeadlineRenewer = new AckDeadlineRenewer(pubsub);
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ackIds);
+    // deadlines are not renewed until they are about to expire
+    clock.millis += 1_000;
+    renewal.getValue().run();
+    clock.millis += 5_000;
+    renewal.getValue().run();
+    ackDeadlineRenewer.close();
+    EasyMock.verify(pubsub, executor, executorFactory);
+  }
 }
@@ -16,15 +16,20 @@
 
 package com.google.cloud.pubsub;
 
+import static org.junit.Assert.assertTrue;
+
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.pubsub.PubSub.MessageConsumer;
 import com.google.cloud.pubsub.PubSub.MessageProcessor;
 import com.google.cloud.pubsub.spi.PubSubRpc;
 import com.google.cloud.pubsub.spi.PubSubRpc.PullCallback;
 import com.google.cloud.pubsub.spi.PubSubRpc.PullFuture;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ForwardingListenableFuture;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.pubsub.v1.PullRequest;
 import com.google.pubsub.v1.PullResponse;
 
@@ -39,6 +44,7 @@ import org.junit.rules.Timeout;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class MessageConsumerImplTest {
 
@@ -94,6 +100,10 @@ public class MessageConsumerImplTest {
       super(Futures.immediateFuture(response));
     }
 
+    TestPullFuture(ListenableFuture<PullResponse> response) {
+      super(response);
+    }
+
     @Override
     public void addCallback(final PullCallback callback) {
       Futures.addCallback(delegate(), new FutureCallback<PullResponse>() {
@@ -145,6 +155,26 @@ public class MessageConsumerImplTest {
     };
   }
 
+  private static IAnswer<Future<Void>> createFutureAnswer(final CountDownLatch latch) {
+    return new IAnswer<Future<Void>>() {
+      @Override
+      public Future<Void> answer() throws Throwable {
+        latch.countDown();
+        return null;
+      }
+    };
+  }
+
+  private static IAnswer<Future<Void>> createAwaitFutureAnswer(final CountDownLatch latch) {
+    return new IAnswer<Future<Void>>() {
+      @Override
+      public Future<Void> answer() throws Throwable {
+        latch.await();
+        return null;
+      }
+    };
+  }
+
   @Test
   public void testMessageConsumerAck() throws Exception {
     PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
@@ -153,8 +183,8 @@ public class MessageConsumerImplTest {
     EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
     EasyMock.expect(pubsub.options()).andReturn(options).times(2);
     final CountDownLatch latch = new CountDownLatch(2);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
     EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
@@ -171,6 +201,7 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
          MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
              .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+             .maxAckBatchSize(1)
              .build()) {
       latch.await();
     }
@@ -184,8 +215,8 @@ public class MessageConsumerImplTest {
     EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
     EasyMock.expect(pubsub.options()).andReturn(options).times(2);
     final CountDownLatch latch = new CountDownLatch(2);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
     EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
@@ -202,6 +233,7 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, THROW_PROCESSOR)
             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxAckBatchSize(1)
             .build()) {
       latch.await();
     }
@@ -223,15 +255,10 @@ public class MessageConsumerImplTest {
     final CountDownLatch nextPullLatch = new CountDownLatch(1);
     final CountDownLatch latch = new CountDownLatch(2);
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andAnswer(new IAnswer<Future<Void>>() {
-      @Override
-      public Future<Void> answer() throws Throwable {
-        nextPullLatch.await();
-        return null;
-      }
-    });
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1)))
+        .andAnswer(createAwaitFutureAnswer(nextPullLatch));
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request1)).andReturn(new TestPullFuture(response1));
     EasyMock.expect(pubsubRpc.pull(request2)).andAnswer(new IAnswer<PullFuture>() {
@@ -255,6 +282,7 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxAckBatchSize(1)
             .build()) {
       latch.await();
     }
@@ -276,15 +304,10 @@ public class MessageConsumerImplTest {
     final CountDownLatch nextPullLatch = new CountDownLatch(1);
     final CountDownLatch latch = new CountDownLatch(2);
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID1)).andAnswer(new IAnswer<Future<Void>>() {
-      @Override
-      public Future<Void> answer() throws Throwable {
-        nextPullLatch.await();
-        return null;
-      }
-    });
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1)))
+        .andAnswer(createAwaitFutureAnswer(nextPullLatch));
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request1)).andReturn(new TestPullFuture(response1));
     EasyMock.expect(pubsubRpc.pull(request2)).andAnswer(new IAnswer<PullFuture>() {
@@ -308,6 +331,7 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, THROW_PROCESSOR)
             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxAckBatchSize(1)
             .build()) {
       latch.await();
     }
@@ -326,16 +350,11 @@ public class MessageConsumerImplTest {
     EasyMock.expect(pubsub.options()).andReturn(options).times(2);
     final CountDownLatch nextPullLatch = new CountDownLatch(1);
     final CountDownLatch latch = new CountDownLatch(3);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID2)).andAnswer(new IAnswer<Future<Void>>() {
-      @Override
-      public Future<Void> answer() throws Throwable {
-        nextPullLatch.await();
-        return null;
-      }
-    });
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2)))
+        .andAnswer(createAwaitFutureAnswer(nextPullLatch));
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request1)).andReturn(new TestPullFuture(PULL_RESPONSE));
     EasyMock.expect(pubsubRpc.pull(request2)).andAnswer(new IAnswer<PullFuture>() {
@@ -363,6 +382,7 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
          MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
              .maxQueuedCallbacks(2)
+             .maxAckBatchSize(1)
              .build()) {
       latch.await();
     }
@@ -381,16 +401,11 @@ public class MessageConsumerImplTest {
     EasyMock.expect(pubsub.options()).andReturn(options).times(2);
     final CountDownLatch nextPullLatch = new CountDownLatch(1);
     final CountDownLatch latch = new CountDownLatch(3);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID2)).andAnswer(new IAnswer<Future<Void>>() {
-      @Override
-      public Future<Void> answer() throws Throwable {
-        nextPullLatch.await();
-        return null;
-      }
-    });
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2)))
+        .andAnswer(createAwaitFutureAnswer(nextPullLatch));
     EasyMock.expect(pubsub.options()).andReturn(options);
-    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1))).andReturn(null);
     EasyMock.replay(pubsub);
     EasyMock.expect(pubsubRpc.pull(request1)).andReturn(new TestPullFuture(PULL_RESPONSE));
     EasyMock.expect(pubsubRpc.pull(request2)).andAnswer(new IAnswer<PullFuture>() {
@@ -418,11 +433,255 @@ public class MessageConsumerImplTest {
     try (MessageConsumer consumer =
          MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, THROW_PROCESSOR)
              .maxQueuedCallbacks(2)
+             .maxAckBatchSize(1)
              .build()) {
       latch.await();
     }
   }
 
+  @Test
+  public void testMessageConsumerBatchedAcks() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    final CountDownLatch latch = new CountDownLatch(1);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1, ACK_ID2)))
+        .andAnswer(createFutureAnswer(latch));
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxAckBatchSize(2)
+            .ackBatchDelayMillis(TimeUnit.HOURS.toMillis(1))
+            .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerDelayedAcks() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    final CountDownLatch latch = new CountDownLatch(2);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1)))
+        .andAnswer(createFutureAnswer(latch));
+    EasyMock.expect(pubsub.nackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID2)))
+        .andAnswer(createFutureAnswer(latch));
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    EasyMock.replay(pubsubRpc, options, renewer);
+    MessageProcessor processor = new MessageProcessor() {
+      @Override
+      public void process(Message message) throws Exception {
+        if (MESSAGE2.payloadAsString().equals(message.payloadAsString())) {
+          throw new RuntimeException();
+        }
+      }
+    };
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, processor)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .ackBatchDelayMillis(10L)
+            .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testCloseFlushesAcks() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1, ACK_ID2)))
+        .andReturn(null);
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    final CountDownLatch latch = new CountDownLatch(2);
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .ackBatchDelayMillis(TimeUnit.HOURS.toMillis(1))
+            .build()) {
+      // acks are pending until the consumer is closed
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerConcurrentPulls() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS / 2);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    final CountDownLatch latch = new CountDownLatch(2);
+    // the room in the queue is split between the pulls, which are both in flight
+    EasyMock.expect(pubsubRpc.pull(request)).andAnswer(new IAnswer<PullFuture>() {
+      @Override
+      public PullFuture answer() throws Throwable {
+        latch.countDown();
+        return new TestPullFuture(SettableFuture.<PullResponse>create());
+      }
+    }).times(2);
+    EasyMock.replay(pubsubRpc, pubsub, options, renewer);
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxConcurrentPulls(2)
+            .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerPullRetry() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    final CountDownLatch latch = new CountDownLatch(1);
+    // failed pulls are sent again after 100ms and then 200ms
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(
+        Futures.<PullResponse>immediateFailedFuture(new RuntimeException()))).times(2);
+    EasyMock.expect(pubsubRpc.pull(request)).andAnswer(new IAnswer<PullFuture>() {
+      @Override
+      public PullFuture answer() throws Throwable {
+        latch.countDown();
+        return new TestPullFuture(SettableFuture.<PullResponse>create());
+      }
+    });
+    EasyMock.replay(pubsubRpc, pubsub, options, renewer);
+    long start = System.nanoTime();
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .build()) {
+      latch.await();
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+  }
+
+  @Test
+  public void testMessageConsumerMaxQueuedBytes() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ImmutableList.of(ACK_ID1, ACK_ID2)))
+        .andReturn(null);
+    EasyMock.replay(pubsub);
+    final CountDownLatch latch = new CountDownLatch(1);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    // the next pull is only sent once all messages are processed
+    EasyMock.expect(pubsubRpc.pull(request)).andAnswer(new IAnswer<PullFuture>() {
+      @Override
+      public PullFuture answer() throws Throwable {
+        latch.countDown();
+        return new TestPullFuture(SettableFuture.<PullResponse>create());
+      }
+    });
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxQueuedBytes(1L)
+            .ackBatchDelayMillis(TimeUnit.HOURS.toMillis(1))
+            .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerProcessingThreads() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    // messages are processed in any order
+    EasyMock.expect(pubsub.ackAsync(EasyMock.eq(SUBSCRIPTION),
+        EasyMock.<Iterable<String>>anyObject())).andReturn(null);
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(SettableFuture.<PullResponse>create())).anyTimes();
+    final CountDownLatch latch = new CountDownLatch(2);
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    EasyMock.replay(pubsubRpc, options, renewer);
+    final CountDownLatch processLatch = new CountDownLatch(2);
+    MessageProcessor processor = new MessageProcessor() {
+      @Override
+      public void process(Message message) throws Exception {
+        // both messages must be processed at the same time for this to return
+        processLatch.countDown();
+        processLatch.await();
+      }
+    };
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, processor)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .processingThreads(2)
+            .ackBatchDelayMillis(TimeUnit.HOURS.toMillis(1))
+            .build()) {
+      latch.await();
+    }
+  }
+
   @Test
   public void testClose() throws Exception {
     EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
@@ -36,6 +36,8 @@ import com.google.cloud.pubsub.MessageConsumerImplTest.TestPullFuture;
 import com.google.cloud.pubsub.PubSub.ListOption;
 import com.google.cloud.pubsub.PubSub.MessageConsumer;
 import com.google.cloud.pubsub.PubSub.MessageProcessor;
+import com.google.cloud.pubsub.PubSub.Publisher;
+import com.google.cloud.pubsub.PubSub.PublisherOption;
 import com.google.cloud.pubsub.PubSub.PullOption;
 import com.google.cloud.pubsub.spi.PubSubRpc;
 import com.google.cloud.pubsub.spi.PubSubRpc.PullCallback;
@@ -85,6 +87,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class PubSubImplTest {
@@ -608,6 +611,40 @@ public class PubSubImplTest {
     assertEquals(messageIds, pubsub.publishAsync(TOPIC, ImmutableList.of(MESSAGE, MESSAGE)).get());
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPublisher() throws Exception {
+    PublishRequest request = PublishRequest.newBuilder()
+        .setTopic(TOPIC_NAME_PB)
+        .addAllMessages(ImmutableList.of(MESSAGE.toPb(), MESSAGE.toPb()))
+        .build();
+    PublishResponse response = PublishResponse.newBuilder()
+        .addAllMessageIds(ImmutableList.of("messageId1", "messageId2"))
+        .build();
+    ExecutorFactory<ScheduledExecutorService> executorFactoryMock =
+        EasyMock.createStrictMock(ExecutorFactory.class);
+    ScheduledExecutorService executorMock =
+        EasyMock.createNiceMock(ScheduledExecutorService.class);
+    EasyMock.expect(executorFactoryMock.get()).andReturn(executorMock);
+    executorFactoryMock.release(executorMock);
+    pubsub = new PubSubImpl(options, renewerMock);
+    EasyMock.reset(options);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpcMock);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT);
+    EasyMock.expect(options.executorFactory()).andReturn(executorFactoryMock);
+    EasyMock.expect(pubsubRpcMock.publish(request)).andReturn(Futures.immediateFuture(response));
+    EasyMock.replay(options, pubsubRpcMock, renewerMock, executorFactoryMock, executorMock);
+    PublisherOption[] publisherOptions = {PublisherOption.maxBundleMessages(2),
+        PublisherOption.maxBundleDelay(1, TimeUnit.HOURS)};
+    try (Publisher publisher = pubsub.publisher(TOPIC, publisherOptions)) {
+      Future<String> future1 = publisher.publish(MESSAGE);
+      Future<String> future2 = publisher.publish(MESSAGE);
+      assertEquals("messageId1", future1.get());
+      assertEquals("messageId2", future2.get());
+    }
+    EasyMock.verify(executorFactoryMock);
+  }
+
   @Test
   public void testCreateSubscription() {
     com.google.pubsub.v1.Subscription subscriptionPb = SUBSCRIPTION_INFO.toPb(PROJECT);
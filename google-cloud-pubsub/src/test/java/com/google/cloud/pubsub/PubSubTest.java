@@ -21,16 +21,25 @@ import static org.junit.Assert.assertSame;
 
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.pubsub.PubSub.ListOption;
+import com.google.cloud.pubsub.PubSub.PublisherOption;
 import com.google.cloud.pubsub.PubSub.PullOption;
 
 import org.easymock.EasyMock;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 public class PubSubTest {
 
   private static final int PAGE_SIZE = 42;
   private static final String PAGE_TOKEN = "page token";
   private static final int MAX_QUEUED_CALLBACKS = 42;
+  private static final long MAX_QUEUED_BYTES = 4242L;
+  private static final int MAX_CONCURRENT_PULLS = 4;
+  private static final int PROCESSING_THREADS = 8;
+  private static final int MAX_BUNDLE_MESSAGES = 42;
+  private static final long MAX_BUNDLE_BYTES = 4242L;
+  private static final long MAX_OUTSTANDING_BYTES = 424242L;
 
   @Test
   public void testListOption() {
@@ -55,5 +64,38 @@ public class PubSubTest {
     pullOption = PullOption.executorFactory(executorFactory);
     assertSame(executorFactory, pullOption.value());
     assertEquals(PullOption.OptionType.EXECUTOR_FACTORY, pullOption.optionType());
+    // max queued bytes
+    pullOption = PullOption.maxQueuedBytes(MAX_QUEUED_BYTES);
+    assertEquals(MAX_QUEUED_BYTES, pullOption.value());
+    assertEquals(PullOption.OptionType.MAX_QUEUED_BYTES, pullOption.optionType());
+    // max concurrent pulls
+    pullOption = PullOption.maxConcurrentPulls(MAX_CONCURRENT_PULLS);
+    assertEquals(MAX_CONCURRENT_PULLS, pullOption.value());
+    assertEquals(PullOption.OptionType.MAX_CONCURRENT_PULLS, pullOption.optionType());
+    // processing threads
+    pullOption = PullOption.processingThreads(PROCESSING_THREADS);
+    assertEquals(PROCESSING_THREADS, pullOption.value());
+    assertEquals(PullOption.OptionType.PROCESSING_THREADS, pullOption.optionType());
+  }
+
+  @Test
+  public void testPublisherOptions() {
+    PublisherOption publisherOption = PublisherOption.maxBundleMessages(MAX_BUNDLE_MESSAGES);
+    assertEquals(MAX_BUNDLE_MESSAGES, publisherOption.value());
+    assertEquals(PublisherOption.OptionType.MAX_BUNDLE_MESSAGES, publisherOption.optionType());
+    publisherOption = PublisherOption.maxBundleBytes(MAX_BUNDLE_BYTES);
+    assertEquals(MAX_BUNDLE_BYTES, publisherOption.value());
+    assertEquals(PublisherOption.OptionType.MAX_BUNDLE_BYTES, publisherOption.optionType());
+    publisherOption = PublisherOption.maxBundleDelay(1, TimeUnit.SECONDS);
+    assertEquals(1000L, publisherOption.value());
+    assertEquals(PublisherOption.OptionType.MAX_BUNDLE_DELAY_MILLIS, publisherOption.optionType());
+    publisherOption = PublisherOption.maxOutstandingBytes(MAX_OUTSTANDING_BYTES);
+    assertEquals(MAX_OUTSTANDING_BYTES, publisherOption.value());
+    assertEquals(PublisherOption.OptionType.MAX_OUTSTANDING_BYTES, publisherOption.optionType());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxBundleMessages() {
+    PublisherOption.maxBundleMessages(1001);
   }
 }
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.pubsub.v1.PublishRequest;
+import com.google.pubsub.v1.PublishResponse;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PublisherImplTest {
+
+  private static final String PROJECT = "project";
+  private static final String TOPIC = "topic";
+  private static final String TOPIC_PB = "projects/project/topics/topic";
+  private static final Message MESSAGE1 = Message.of("payload1");
+  private static final Message MESSAGE2 = Message.of("payload2");
+  private static final int MESSAGE_SIZE = MESSAGE1.toPb().getSerializedSize();
+  private static final long NO_DELAY = 0L;
+  private static final long LONG_DELAY = TimeUnit.HOURS.toMillis(1);
+
+  private PubSubRpc pubsubRpc;
+  private PubSubOptions options;
+  private ExecutorFactory<ScheduledExecutorService> executorFactory;
+  private ScheduledExecutorService executor;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    pubsubRpc = EasyMock.createStrictMock(PubSubRpc.class);
+    options = EasyMock.createMock(PubSubOptions.class);
+    executorFactory = EasyMock.createStrictMock(ExecutorFactory.class);
+    executor = Executors.newSingleThreadScheduledExecutor();
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT);
+    EasyMock.expect(options.executorFactory()).andReturn(executorFactory);
+    EasyMock.expect(executorFactory.get()).andReturn(executor);
+    executorFactory.release(executor);
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, executorFactory);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    EasyMock.verify(pubsubRpc, options, executorFactory);
+  }
+
+  private static PublishRequest publishRequest(Message... messages) {
+    PublishRequest.Builder builder = PublishRequest.newBuilder().setTopic(TOPIC_PB);
+    for (Message message : messages) {
+      builder.addMessages(message.toPb());
+    }
+    return builder.build();
+  }
+
+  private static Future<PublishResponse> publishResponse(String... messageIds) {
+    return Futures.immediateFuture(
+        PublishResponse.newBuilder().addAllMessageIds(ImmutableList.copyOf(messageIds)).build());
+  }
+
+  @Test
+  public void testPublishFullBundle() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1, MESSAGE2)))
+        .andReturn(publishResponse("id1", "id2"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleMessages(2)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future1 = publisher.publish(MESSAGE1);
+    assertFalse(future1.isDone());
+    Future<String> future2 = publisher.publish(MESSAGE2);
+    assertEquals("id1", future1.get());
+    assertEquals("id2", future2.get());
+    publisher.close();
+  }
+
+  @Test
+  public void testPublishAfterDelay() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1)))
+        .andReturn(publishResponse("id1"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(10L)
+        .build();
+    assertEquals("id1", publisher.publish(MESSAGE1).get());
+    publisher.close();
+  }
+
+  @Test
+  public void testPublishMaxBundleBytes() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1)))
+        .andReturn(publishResponse("id1"));
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE2)))
+        .andReturn(publishResponse("id2"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleBytes((long) MESSAGE_SIZE + 1)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future1 = publisher.publish(MESSAGE1);
+    // the second message does not fit in the first bundle, which is published
+    Future<String> future2 = publisher.publish(MESSAGE2);
+    assertEquals("id1", future1.get());
+    assertFalse(future2.isDone());
+    publisher.flush();
+    assertEquals("id2", future2.get());
+    publisher.close();
+  }
+
+  @Test
+  public void testFlush() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1, MESSAGE2)))
+        .andReturn(publishResponse("id1", "id2"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future1 = publisher.publish(MESSAGE1);
+    Future<String> future2 = publisher.publish(MESSAGE2);
+    publisher.flush();
+    assertEquals("id1", future1.get());
+    assertEquals("id2", future2.get());
+    // nothing left to publish
+    publisher.flush();
+    publisher.close();
+  }
+
+  @Test
+  public void testPublishFailure() throws Exception {
+    RuntimeException exception = new RuntimeException();
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1, MESSAGE2)))
+        .andReturn(Futures.<PublishResponse>immediateFailedFuture(exception));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleMessages(2)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    List<Future<String>> futures =
+        ImmutableList.of(publisher.publish(MESSAGE1), publisher.publish(MESSAGE2));
+    for (Future<String> future : futures) {
+      try {
+        future.get();
+        fail("ExecutionException expected");
+      } catch (ExecutionException ex) {
+        assertSame(exception, ex.getCause());
+      }
+    }
+    publisher.close();
+  }
+
+  @Test
+  public void testMaxOutstandingBytes() throws Exception {
+    SettableFuture<PublishResponse> response1 = SettableFuture.create();
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andReturn(response1);
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE2)))
+        .andReturn(publishResponse("id2"));
+    EasyMock.replay(pubsubRpc);
+    final PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(NO_DELAY)
+        .maxOutstandingBytes((long) MESSAGE_SIZE)
+        .build();
+    Future<String> future1 = publisher.publish(MESSAGE1);
+    final CountDownLatch published = new CountDownLatch(1);
+    final SettableFuture<Future<String>> future2 = SettableFuture.create();
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        future2.set(publisher.publish(MESSAGE2));
+        published.countDown();
+      }
+    };
+    thread.start();
+    // the second message is not added until the first one is published
+    assertFalse(published.await(100, TimeUnit.MILLISECONDS));
+    response1.set(PublishResponse.newBuilder().addMessageIds("id1").build());
+    assertEquals("id1", future1.get());
+    assertEquals("id2", future2.get().get());
+    thread.join();
+    publisher.close();
+  }
+
+  @Test
+  public void testMaxOutstandingBytesSendsOutsideLock() throws Exception {
+    final SettableFuture<PublishResponse> response1 = SettableFuture.create();
+    final AtomicReference<PublisherImpl> publisher = new AtomicReference<>();
+    final AtomicBoolean flushed = new AtomicBoolean();
+    final CountDownLatch sent = new CountDownLatch(1);
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andAnswer(
+        new IAnswer<Future<PublishResponse>>() {
+          @Override
+          public Future<PublishResponse> answer() throws Throwable {
+            // the publisher can be used by other threads while the request is sent
+            Thread flusher = new Thread() {
+              @Override
+              public void run() {
+                publisher.get().flush();
+              }
+            };
+            flusher.start();
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+            flushed.set(!flusher.isAlive());
+            sent.countDown();
+            return response1;
+          }
+        });
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE2)))
+        .andReturn(publishResponse("id2"));
+    EasyMock.replay(pubsubRpc);
+    publisher.set(PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .maxOutstandingBytes((long) MESSAGE_SIZE)
+        .build());
+    Future<String> future1 = publisher.get().publish(MESSAGE1);
+    final SettableFuture<Future<String>> future2 = SettableFuture.create();
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        // publishes the bundle of the first message, then waits for it to complete
+        future2.set(publisher.get().publish(MESSAGE2));
+      }
+    };
+    thread.start();
+    sent.await();
+    assertTrue(flushed.get());
+    response1.set(PublishResponse.newBuilder().addMessageIds("id1").build());
+    assertEquals("id1", future1.get());
+    Future<String> pending = future2.get();
+    thread.join();
+    publisher.get().close();
+    assertEquals("id2", pending.get());
+  }
+
+  @Test
+  public void testMaxOutstandingBytesInterrupted() throws Exception {
+    SettableFuture<PublishResponse> response1 = SettableFuture.create();
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andReturn(response1);
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(NO_DELAY)
+        .maxOutstandingBytes((long) MESSAGE_SIZE)
+        .build();
+    Future<String> future1 = publisher.publish(MESSAGE1);
+    Thread.currentThread().interrupt();
+    try {
+      publisher.publish(MESSAGE2);
+      fail("RetryInterruptedException expected");
+    } catch (RetryInterruptedException ex) {
+      // the interrupt status is restored
+      assertTrue(Thread.interrupted());
+    }
+    response1.set(PublishResponse.newBuilder().addMessageIds("id1").build());
+    assertEquals("id1", future1.get());
+    publisher.close();
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1)))
+        .andReturn(publishResponse("id1"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future = publisher.publish(MESSAGE1);
+    publisher.close();
+    assertEquals("id1", future.get());
+    // closing again does nothing
+    publisher.close();
+    try {
+      publisher.publish(MESSAGE2);
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException ex) {
+      assertTrue(ex.getMessage().contains("closed"));
+    }
+  }
+
+  @Test
+  public void testPublishMessageIdsMismatch() throws Exception {
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1, MESSAGE2)))
+        .andReturn(publishResponse("id1"));
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleMessages(2)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    List<Future<String>> futures =
+        ImmutableList.of(publisher.publish(MESSAGE1), publisher.publish(MESSAGE2));
+    for (Future<String> future : futures) {
+      try {
+        future.get();
+        fail("ExecutionException expected");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+      }
+    }
+    publisher.close();
+  }
+
+  @Test
+  public void testCloseWaitsForInFlightBundles() throws Exception {
+    // a future that is not listenable is adapted using the publisher's executor
+    final FutureTask<PublishResponse> response1 = new FutureTask<>(
+        new Callable<PublishResponse>() {
+          @Override
+          public PublishResponse call() {
+            return PublishResponse.newBuilder().addMessageIds("id1").build();
+          }
+        });
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andReturn(response1);
+    EasyMock.replay(pubsubRpc);
+    final PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future = publisher.publish(MESSAGE1);
+    final CountDownLatch closed = new CountDownLatch(1);
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        publisher.close();
+        closed.countDown();
+      }
+    };
+    thread.start();
+    // the executor is not released until the response is received
+    assertFalse(closed.await(100, TimeUnit.MILLISECONDS));
+    response1.run();
+    assertTrue(closed.await(10, TimeUnit.SECONDS));
+    assertEquals("id1", future.get());
+    thread.join();
+  }
+
+  @Test
+  public void testCloseInterrupted() throws Exception {
+    SettableFuture<PublishResponse> response1 = SettableFuture.create();
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andReturn(response1);
+    EasyMock.replay(pubsubRpc);
+    PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    Future<String> future = publisher.publish(MESSAGE1);
+    Thread.currentThread().interrupt();
+    try {
+      publisher.close();
+      fail("RetryInterruptedException expected");
+    } catch (RetryInterruptedException ex) {
+      // the interrupt status is restored
+      assertTrue(Thread.interrupted());
+    }
+    // the futures of the bundles being published are failed rather than left unset
+    try {
+      future.get();
+      fail("ExecutionException expected");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    response1.set(PublishResponse.newBuilder().addMessageIds("id1").build());
+  }
+
+  @Test
+  public void testCloseFromListener() throws Exception {
+    SettableFuture<PublishResponse> response1 = SettableFuture.create();
+    EasyMock.expect(pubsubRpc.publish(publishRequest(MESSAGE1))).andReturn(response1);
+    EasyMock.replay(pubsubRpc);
+    final PublisherImpl publisher = PublisherImpl.builder(options, TOPIC)
+        .maxBundleDelayMillis(LONG_DELAY)
+        .build();
+    ListenableFuture<String> future = (ListenableFuture<String>) publisher.publish(MESSAGE1);
+    publisher.flush();
+    future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        publisher.close();
+      }
+    }, MoreExecutors.directExecutor());
+    // closing from the thread that sets the futures does not wait for their bundle
+    response1.set(PublishResponse.newBuilder().addMessageIds("id1").build());
+    assertEquals("id1", future.get());
+  }
+}
@@ -21,10 +21,12 @@ import com.google.cloud.BaseSerializationTest;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.Restorable;
 import com.google.cloud.pubsub.PubSub.ListOption;
+import com.google.cloud.pubsub.PubSub.PublisherOption;
 import com.google.cloud.pubsub.PubSub.PullOption;
 
 import java.io.Serializable;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class SerializationTest extends BaseSerializationTest {
 
@@ -53,6 +55,10 @@ public class SerializationTest extends BaseSerializationTest {
   private static final PullOption MAX_QUEUED_CALLBACKS_OPTION = PullOption.maxQueuedCallbacks(42);
   private static final PullOption EXECUTOR_FACTORY_OPTION =
       PullOption.executorFactory(new TestExecutorFactory());
+  private static final PublisherOption MAX_BUNDLE_MESSAGES_OPTION =
+      PublisherOption.maxBundleMessages(42);
+  private static final PublisherOption MAX_BUNDLE_DELAY_OPTION =
+      PublisherOption.maxBundleDelay(42, TimeUnit.MILLISECONDS);
 
   public static class TestExecutorFactory
       implements ExecutorFactory<ScheduledExecutorService>, Serializable {
@@ -92,7 +98,8 @@ public class SerializationTest extends BaseSerializationTest {
         .build();
     return new Serializable[]{options, otherOptions, MESSAGE, RECEIVED_MESSAGE, SUBSCRIPTION_INFO,
         SUBSCRIPTION, SUBSCRIPTION_ID, TOPIC_INFO, TOPIC, PAGE_TOKEN_OPTION, PAGE_SIZE_OPTION,
-        MAX_QUEUED_CALLBACKS_OPTION, EXECUTOR_FACTORY_OPTION};
+        MAX_QUEUED_CALLBACKS_OPTION, EXECUTOR_FACTORY_OPTION, MAX_BUNDLE_MESSAGES_OPTION,
+        MAX_BUNDLE_DELAY_OPTION};
   }
 
   @Override
@@ -19,6 +19,7 @@ package com.google.cloud.resourcemanager;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -71,9 +72,12 @@ public final class ResourceManagerException extends BaseServiceException {
    * @throws ResourceManagerException when {@code ex} was caused by a {@code
    * ResourceManagerException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws ResourceManagerException caused by {@code ex} when {@code ex} is a {@code
+   * ThrottledException} that was not caused by a {@code ResourceManagerException}
    */
   static ResourceManagerException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new ResourceManagerException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new ResourceManagerException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
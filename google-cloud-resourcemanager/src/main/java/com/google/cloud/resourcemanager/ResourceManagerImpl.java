@@ -56,7 +56,8 @@ final class ResourceManagerImpl
             public com.google.api.services.cloudresourcemanager.model.Project call() {
               return resourceManagerRpc.create(project.toPb());
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -71,7 +72,7 @@ final class ResourceManagerImpl
           resourceManagerRpc.delete(projectId);
           return null;
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -87,7 +88,8 @@ final class ResourceManagerImpl
             public com.google.api.services.cloudresourcemanager.model.Project call() {
               return resourceManagerRpc.get(projectId, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Project.fromPb(this, answer);
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
@@ -130,7 +132,8 @@ final class ResourceManagerImpl
                   return serviceOptions.rpc().list(optionsMap);
                 }
               },
-              serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+              serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+              serviceOptions.retryThrottler());
       String cursor = result.x();
       Iterable<Project> projects =
           result.y() == null
@@ -162,7 +165,8 @@ final class ResourceManagerImpl
             public com.google.api.services.cloudresourcemanager.model.Project call() {
               return resourceManagerRpc.replace(newProject.toPb());
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -177,7 +181,7 @@ final class ResourceManagerImpl
           resourceManagerRpc.undelete(projectId);
           return null;
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -193,7 +197,8 @@ final class ResourceManagerImpl
                 public com.google.api.services.cloudresourcemanager.model.Policy call() {
                   return resourceManagerRpc.getPolicy(projectId);
                 }
-              }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+              }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+              options().retryThrottler());
       return answer == null ? null : PolicyMarshaller.INSTANCE.fromPb(answer);
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
@@ -210,7 +215,8 @@ final class ResourceManagerImpl
               return resourceManagerRpc.replacePolicy(projectId,
                   PolicyMarshaller.INSTANCE.toPb(newPolicy));
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -225,7 +231,8 @@ final class ResourceManagerImpl
             public List<Boolean> call() {
               return resourceManagerRpc.testPermissions(projectId, permissions);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import com.google.cloud.AuthCredentials;
+import com.google.common.collect.ImmutableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URL;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many URLs a single thread signs per second with
+ * {@link Storage#signUrl(BlobInfo, long, TimeUnit, Storage.SignUrlOption...)} and with a
+ * {@link UrlSigner}, one URL at a time or in batches. Run with {@code mvn -Pbenchmark test-compile
+ * exec:exec} from the {@code google-cloud-storage} directory; add {@code -Dbenchmark.includes=
+ * UrlSignerBenchmark} to only run this benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UrlSignerBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  private Storage storage;
+  private UrlSigner urlSigner;
+  private List<BlobInfo> blobInfos;
+  private int next;
+
+  @Setup
+  public void setUp() throws NoSuchAlgorithmException {
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    AuthCredentials authCredentials = AuthCredentials.createFor(
+        "benchmark@project.iam.gserviceaccount.com",
+        keyPairGenerator.generateKeyPair().getPrivate());
+    storage = StorageOptions.builder()
+        .projectId("project")
+        .authCredentials(authCredentials)
+        .build()
+        .service();
+    urlSigner = storage.urlSigner();
+    ImmutableList.Builder<BlobInfo> builder = ImmutableList.builder();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      builder.add(BlobInfo.builder("bucket", "images/image-" + i + ".jpg").build());
+    }
+    blobInfos = builder.build();
+  }
+
+  private BlobInfo nextBlobInfo() {
+    BlobInfo blobInfo = blobInfos.get(next);
+    next = (next + 1) % BATCH_SIZE;
+    return blobInfo;
+  }
+
+  @Benchmark
+  public URL signUrl() {
+    return storage.signUrl(nextBlobInfo(), 1, TimeUnit.HOURS);
+  }
+
+  @Benchmark
+  public URL urlSigner() {
+    return urlSigner.sign(nextBlobInfo(), 1, TimeUnit.HOURS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<URL> urlSignerBatch() {
+    return urlSigner.sign(blobInfos, 1, TimeUnit.HOURS);
+  }
+}
@@ -19,27 +19,39 @@ package com.google.cloud.storage;
 import static com.google.cloud.RetryHelper.runWithRetries;
 
 import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.BaseServiceException;
 import com.google.cloud.ReadChannel;
 import com.google.cloud.RestorableState;
 import com.google.cloud.RetryHelper;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.cloud.storage.spi.StorageRpc.Tuple;
 import com.google.common.base.MoreObjects;
+import com.google.common.io.ByteStreams;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
- * Default implementation for ReadChannel.
+ * Default implementation for StorageReadChannel. Chunks are streamed from the service directly into
+ * the caller's buffer, without being buffered locally. If a positive read-ahead is set, up to that
+ * many chunk reads are instead kept in flight on the executor provided by
+ * {@link StorageOptions#executorFactory()} and their content is handed out in order.
  */
-class BlobReadChannel implements ReadChannel {
+class BlobReadChannel implements StorageReadChannel {
 
   private static final int DEFAULT_CHUNK_SIZE = 2 * 1024 * 1024;
+  private static final int COPY_BUFFER_SIZE = 8 * 1024;
 
   private final StorageOptions serviceOptions;
   private final BlobId blob;
@@ -49,11 +61,19 @@ class BlobReadChannel implements ReadChannel {
   private boolean isOpen;
   private boolean endOfStream;
   private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private int readAhead;
 
   private final StorageRpc storageRpc;
-  private final StorageObject storageObject;
+  private volatile StorageObject storageObject;
+  private Long blobSize;
+  private Long generation;
   private int bufferPos;
   private byte[] buffer;
+  private final Deque<Future<Tuple<String, byte[]>>> prefetched = new ArrayDeque<>();
+  private ScheduledExecutorService executor;
+  private StorageRpc.ReadResponse stream;
+  private long streamRemaining;
+  private byte[] copyBuffer;
 
   BlobReadChannel(StorageOptions serviceOptions, BlobId blob,
       Map<StorageRpc.Option, ?> requestOptions) {
@@ -71,7 +91,8 @@ class BlobReadChannel implements ReadChannel {
         .position(position)
         .isOpen(isOpen)
         .endOfStream(endOfStream)
-        .chunkSize(chunkSize);
+        .chunkSize(chunkSize)
+        .readAhead(readAhead);
     if (buffer != null) {
       builder.position(position + bufferPos);
       builder.endOfStream(false);
@@ -87,6 +108,12 @@ class BlobReadChannel implements ReadChannel {
   @Override
   public void close() {
     if (isOpen) {
+      closeStream();
+      cancelPrefetched();
+      if (executor != null) {
+        serviceOptions.executorFactory().release(executor);
+        executor = null;
+      }
       buffer = null;
       isOpen = false;
     }
@@ -101,7 +128,13 @@ class BlobReadChannel implements ReadChannel {
   @Override
   public void seek(long position) throws IOException {
     validateOpen();
+    if (stream != null && position == this.position) {
+      // keep streaming from the current position
+      return;
+    }
     this.position = position;
+    closeStream();
+    cancelPrefetched();
     buffer = null;
     bufferPos = 0;
     endOfStream = false;
@@ -110,24 +143,282 @@ class BlobReadChannel implements ReadChannel {
   @Override
   public void chunkSize(int chunkSize) {
     this.chunkSize = chunkSize <= 0 ? DEFAULT_CHUNK_SIZE : chunkSize;
+    cancelPrefetched();
+  }
+
+  /**
+   * Sets the number of chunk reads to keep in flight. If {@code readAhead} is 0 (the default),
+   * chunks are read synchronously when the channel's buffer is exhausted.
+   */
+  void readAhead(int readAhead) {
+    this.readAhead = Math.max(0, readAhead);
+    closeStream();
+    cancelPrefetched();
+  }
+
+  private void closeStream() {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException ignore) {
+        // the stream is discarded anyway
+      }
+      stream = null;
+    }
+  }
+
+  /**
+   * Reads from the open stream into {@code byteBuffer}, opening a stream for the next chunk if
+   * needed. Returns the number of bytes read, 0 if the stream's range was exhausted or -1 if the
+   * end of the blob was reached. A single read is issued on the stream so that, on failure, no
+   * byte is transferred to {@code byteBuffer} and the read can be retried from {@link #position}.
+   */
+  private int readStream(ByteBuffer byteBuffer, int toRead) {
+    if (stream == null) {
+      openStream(toRead);
+    }
+    int length = (int) Math.min(byteBuffer.remaining(), streamRemaining);
+    int read;
+    try {
+      if (byteBuffer.hasArray()) {
+        read = stream.content().read(
+            byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length);
+        if (read > 0) {
+          byteBuffer.position(byteBuffer.position() + read);
+        }
+      } else {
+        if (copyBuffer == null) {
+          copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        read = stream.content().read(copyBuffer, 0, Math.min(length, COPY_BUFFER_SIZE));
+        if (read > 0) {
+          byteBuffer.put(copyBuffer, 0, read);
+        }
+      }
+    } catch (IOException e) {
+      throw new StorageException(e);
+    }
+    if (read < 0) {
+      closeStream();
+      // the blob ended before the requested range did
+      return -1;
+    }
+    streamRemaining -= read;
+    if (streamRemaining == 0) {
+      closeStream();
+    }
+    return read;
+  }
+
+  /**
+   * Opens a stream for the {@code toRead} bytes at {@link #position}. The size and generation of
+   * the blob are recorded from the first response and further streams are pinned to the
+   * generation. If the range is ignored and the blob is returned whole, the bytes before
+   * {@link #position} are skipped and the stream is read up to the end of the blob.
+   */
+  private void openStream(int toRead) {
+    StorageRpc.ReadResponse response =
+        storageRpc.openRead(storageObject, requestOptions, position, toRead);
+    if (response.etag() != null && lastEtag != null && !Objects.equals(response.etag(), lastEtag)) {
+      closeResponse(response);
+      StringBuilder messageBuilder = new StringBuilder();
+      messageBuilder.append("Blob ").append(blob).append(" was updated while reading");
+      throw new StorageException(0, messageBuilder.toString());
+    }
+    if (response.etag() != null) {
+      lastEtag = response.etag();
+    }
+    if (blobSize == null && response.blobSize() != null) {
+      recordMetadata(response.blobSize(), response.generation());
+    }
+    if (response.offset() == position) {
+      streamRemaining = toRead;
+    } else {
+      if (response.offset() != 0) {
+        closeResponse(response);
+        throw new StorageException(BaseServiceException.UNKNOWN_CODE, "Read of " + blob
+            + " started at " + response.offset() + " rather than " + position);
+      }
+      // the range was ignored (e.g. the content is transcoded) and the blob is sent whole: skip
+      // what was already read, the generation is pinned, and stream until the end of the blob
+      try {
+        ByteStreams.skipFully(response.content(), position);
+      } catch (IOException e) {
+        closeResponse(response);
+        throw new StorageException(e);
+      }
+      streamRemaining = Long.MAX_VALUE;
+    }
+    stream = response;
+  }
+
+  private static void closeResponse(StorageRpc.ReadResponse response) {
+    try {
+      response.close();
+    } catch (IOException ignore) {
+      // the response is discarded anyway
+    }
+  }
+
+  @Override
+  public long size() throws IOException {
+    fetchMetadata();
+    return blobSize;
+  }
+
+  @Override
+  public Long generation() throws IOException {
+    fetchMetadata();
+    return generation;
+  }
+
+  /**
+   * Makes sure the size and generation of the blob are known. If no content was requested yet, the
+   * chunk at {@link #position} is requested, otherwise (or if the response did not carry the
+   * blob's size, e.g. for transcoded content) the blob's metadata is requested.
+   */
+  private void fetchMetadata() throws IOException {
+    validateOpen();
+    if (blobSize != null) {
+      return;
+    }
+    try {
+      if (stream == null && buffer == null && readAhead == 0 && !endOfStream) {
+        runWithRetries(new Callable<Void>() {
+          @Override
+          public Void call() {
+            openStream(chunkSize);
+            return null;
+          }
+        }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock(),
+        serviceOptions.retryThrottler());
+      }
+      if (blobSize == null) {
+        StorageObject metadata = runWithRetries(new Callable<StorageObject>() {
+          @Override
+          public StorageObject call() {
+            return storageRpc.get(storageObject, requestOptions);
+          }
+        }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock(),
+        serviceOptions.retryThrottler());
+        if (metadata == null) {
+          throw new StorageException(404, "Blob " + blob + " not found");
+        }
+        recordMetadata(metadata.getSize() != null ? metadata.getSize().longValue() : 0L,
+            metadata.getGeneration());
+      }
+    } catch (RetryHelper.RetryHelperException e) {
+      closeStream();
+      throw StorageException.translateAndThrow(e);
+    }
+  }
+
+  private void recordMetadata(long blobSize, Long generation) {
+    this.blobSize = blobSize;
+    this.generation = generation;
+    if (generation != null && storageObject.getGeneration() == null) {
+      storageObject = BlobId.of(blob.bucket(), blob.name(), generation).toPb();
+    }
+  }
+
+  private Tuple<String, byte[]> readChunk(final long position, final int toRead) {
+    return runWithRetries(new Callable<Tuple<String, byte[]>>() {
+      @Override
+      public Tuple<String, byte[]> call() {
+        return storageRpc.read(storageObject, requestOptions, position, toRead);
+      }
+    }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock(),
+    serviceOptions.retryThrottler());
+  }
+
+  private void cancelPrefetched() {
+    for (Future<Tuple<String, byte[]>> future : prefetched) {
+      future.cancel(true);
+    }
+    prefetched.clear();
+  }
+
+  /**
+   * Returns the result of the read starting at {@link #position}, scheduling the reads of the
+   * following chunks so that {@link #readAhead} of them are in flight.
+   */
+  private Tuple<String, byte[]> readAheadResult() {
+    if (executor == null) {
+      executor = serviceOptions.executorFactory().get();
+    }
+    while (prefetched.size() <= readAhead) {
+      final long chunkPosition = position + (long) prefetched.size() * chunkSize;
+      final int toRead = chunkSize;
+      prefetched.add(executor.submit(new Callable<Tuple<String, byte[]>>() {
+        @Override
+        public Tuple<String, byte[]> call() {
+          return readChunk(chunkPosition, toRead);
+        }
+      }));
+    }
+    try {
+      return prefetched.poll().get();
+    } catch (InterruptedException e) {
+      cancelPrefetched();
+      RetryInterruptedException.propagate();
+      return null;
+    } catch (ExecutionException e) {
+      cancelPrefetched();
+      if (e.getCause() instanceof RetryHelper.RetryHelperException) {
+        throw (RetryHelper.RetryHelperException) e.getCause();
+      }
+      throw new StorageException(StorageException.UNKNOWN_CODE, e.getMessage(), e.getCause());
+    }
   }
 
   @Override
   public int read(ByteBuffer byteBuffer) throws IOException {
     validateOpen();
-    if (buffer == null) {
+    if (buffer == null && readAhead == 0) {
       if (endOfStream) {
         return -1;
       }
+      final ByteBuffer target = byteBuffer;
       final int toRead = Math.max(byteBuffer.remaining(), chunkSize);
+      int read = 0;
       try {
-        Tuple<String, byte[]> result = runWithRetries(new Callable<Tuple<String, byte[]>>() {
-          @Override
-          public Tuple<String, byte[]> call() {
-            return storageRpc.read(storageObject, requestOptions, position, toRead);
-          }
-        }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock());
+        if (byteBuffer.hasRemaining()) {
+          read = runWithRetries(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+              try {
+                return readStream(target, toRead);
+              } catch (RuntimeException e) {
+                // a retry opens a new stream at the current position
+                closeStream();
+                throw e;
+              }
+            }
+          }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
+        }
+      } catch (RetryHelper.RetryHelperException e) {
+        closeStream();
+        throw StorageException.translateAndThrow(e);
+      }
+      if (read < 0) {
+        endOfStream = true;
+        return -1;
+      }
+      position += read;
+      return read;
+    }
+    if (buffer == null) {
+      if (endOfStream) {
+        return -1;
+      }
+      final int toRead =
+          readAhead > 0 ? chunkSize : Math.max(byteBuffer.remaining(), chunkSize);
+      try {
+        Tuple<String, byte[]> result = readAhead > 0
+            ? readAheadResult() : readChunk(position, toRead);
         if (result.y().length > 0 && lastEtag != null && !Objects.equals(result.x(), lastEtag)) {
+          cancelPrefetched();
           StringBuilder messageBuilder = new StringBuilder();
           messageBuilder.append("Blob ").append(blob).append(" was updated while reading");
           throw new StorageException(0, messageBuilder.toString());
@@ -138,6 +429,7 @@ class BlobReadChannel implements ReadChannel {
         throw StorageException.translateAndThrow(e);
       }
       if (toRead > buffer.length) {
+        cancelPrefetched();
         endOfStream = true;
         if (buffer.length == 0) {
           buffer = null;
@@ -168,6 +460,7 @@ class BlobReadChannel implements ReadChannel {
     private final boolean isOpen;
     private final boolean endOfStream;
     private final int chunkSize;
+    private final int readAhead;
 
     StateImpl(Builder builder) {
       this.serviceOptions = builder.serviceOptions;
@@ -178,6 +471,7 @@ class BlobReadChannel implements ReadChannel {
       this.isOpen = builder.isOpen;
       this.endOfStream = builder.endOfStream;
       this.chunkSize = builder.chunkSize;
+      this.readAhead = builder.readAhead;
     }
 
     static class Builder {
@@ -189,6 +483,7 @@ class BlobReadChannel implements ReadChannel {
       private boolean isOpen;
       private boolean endOfStream;
       private int chunkSize;
+      private int readAhead;
 
       private Builder(StorageOptions options, BlobId blob, Map<StorageRpc.Option, ?> reqOptions) {
         this.serviceOptions = options;
@@ -221,6 +516,11 @@ class BlobReadChannel implements ReadChannel {
         return this;
       }
 
+      Builder readAhead(int readAhead) {
+        this.readAhead = readAhead;
+        return this;
+      }
+
       RestorableState<ReadChannel> build() {
         return new StateImpl(this);
       }
@@ -239,13 +539,14 @@ class BlobReadChannel implements ReadChannel {
       channel.isOpen = isOpen;
       channel.endOfStream = endOfStream;
       channel.chunkSize = chunkSize;
+      channel.readAhead = readAhead;
       return channel;
     }
 
     @Override
     public int hashCode() {
       return Objects.hash(serviceOptions, blob, requestOptions, lastEtag, position, isOpen,
-          endOfStream, chunkSize);
+          endOfStream, chunkSize, readAhead);
     }
 
     @Override
@@ -264,7 +565,8 @@ class BlobReadChannel implements ReadChannel {
           && this.position == other.position
           && this.isOpen == other.isOpen
           && this.endOfStream == other.endOfStream
-          && this.chunkSize == other.chunkSize;
+          && this.chunkSize == other.chunkSize
+          && this.readAhead == other.readAhead;
     }
 
     @Override
@@ -25,6 +25,7 @@ import com.google.cloud.RetryHelper;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.spi.StorageRpc;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -49,7 +50,23 @@ class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo> {
         public void run() {
           options().rpc().write(uploadId(), buffer(), 0, position(), length, last);
         }
-      }), options().retryParams(), StorageImpl.EXCEPTION_HANDLER, options().clock());
+      }), options().retryParams(), StorageImpl.EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler());
+    } catch (RetryHelper.RetryHelperException e) {
+      throw StorageException.translateAndThrow(e);
+    }
+  }
+
+  @Override
+  protected void flushBuffer(final ByteBuffer content, final boolean last) {
+    try {
+      runWithRetries(callable(new Runnable() {
+        @Override
+        public void run() {
+          options().rpc().write(uploadId(), content, position(), last);
+        }
+      }), options().retryParams(), StorageImpl.EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -67,7 +84,8 @@ class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo> {
         public String call() {
           return options.rpc().open(blob.toPb(), optionsMap);
         }
-      }, options.retryParams(), StorageImpl.EXCEPTION_HANDLER, options.clock());
+      }, options.retryParams(), StorageImpl.EXCEPTION_HANDLER, options.clock(),
+      options.retryThrottler());
     } catch (RetryHelper.RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
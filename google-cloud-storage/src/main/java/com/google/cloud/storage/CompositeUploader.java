@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.storage.Storage.BlobTargetOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.spi.StorageRpc;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads a blob as a parallel composite upload. Content is split into parts of fixed size that
+ * are uploaded concurrently as temporary blobs and then composed into the target blob. If the
+ * number of parts exceeds the number of sources allowed by a single compose request, parts are
+ * composed in a tree of intermediate temporary blobs. All temporary blobs are deleted once the
+ * upload completes or fails.
+ *
+ * @see <a href="https://cloud.google.com/storage/docs/composite-objects">Composite Objects</a>
+ */
+final class CompositeUploader {
+
+  static final int MAX_COMPOSE_SOURCES = 32;
+  // options on how content is stored, as opposed to preconditions on the target blob, that apply
+  // to temporary blobs too: parts must not be readable by more users than the target blob
+  private static final Set<StorageRpc.Option> PART_OPTIONS =
+      EnumSet.of(StorageRpc.Option.PREDEFINED_ACL);
+
+  private final Storage storage;
+  private final ExecutorFactory<ScheduledExecutorService> executorFactory;
+  private final BlobInfo target;
+  private final int partSize;
+  private final int parallelism;
+  private final String temporaryPrefix;
+  private final List<BlobId> temporaries = new ArrayList<>();
+  private final List<Future<Blob>> pending = new ArrayList<>();
+  private volatile boolean failed;
+
+  CompositeUploader(Storage storage, BlobInfo target, int partSize, int parallelism) {
+    this(storage, target, partSize, parallelism,
+        target.name() + ".part-" + UUID.randomUUID().toString() + "-");
+  }
+
+  CompositeUploader(Storage storage, BlobInfo target, int partSize, int parallelism,
+      String temporaryPrefix) {
+    checkArgument(partSize > 0, "partSize must be positive");
+    checkArgument(parallelism > 0, "parallelism must be positive");
+    this.storage = storage;
+    this.executorFactory = storage.options().executorFactory();
+    this.target = target;
+    this.partSize = partSize;
+    this.parallelism = parallelism;
+    this.temporaryPrefix = temporaryPrefix;
+  }
+
+  /**
+   * Uploads {@code content} to the target blob. {@code options} are applied to the request that
+   * creates the target blob. The target's ACL and options on how content is stored, such as the
+   * predefined ACL, are also applied to temporary blobs, preconditions are not.
+   *
+   * @throws StorageException upon failure
+   */
+  Blob upload(InputStream content, BlobTargetOption... options) {
+    byte[] part = readPart(content);
+    if (part.length < partSize) {
+      // content fits a single part, no need to compose
+      return storage.create(target, part, options);
+    }
+    BlobTargetOption[] partOptions = partOptions(options);
+    ScheduledExecutorService executor = executorFactory.get();
+    try {
+      List<Blob> sources = uploadParts(executor, part, content, partOptions);
+      while (sources.size() > MAX_COMPOSE_SOURCES) {
+        for (List<Blob> group : Lists.partition(sources, MAX_COMPOSE_SOURCES)) {
+          pending.add(executor.submit(composeCallable(group, temporary(), partOptions)));
+        }
+        sources = awaitPending();
+      }
+      return storage.compose(composeRequest(sources, target, Arrays.asList(options)));
+    } finally {
+      awaitCompletion();
+      executorFactory.release(executor);
+      deleteTemporaries();
+    }
+  }
+
+  private static BlobTargetOption[] partOptions(BlobTargetOption... options) {
+    List<BlobTargetOption> partOptions = new ArrayList<>();
+    for (BlobTargetOption option : options) {
+      if (PART_OPTIONS.contains(option.rpcOption())) {
+        partOptions.add(option);
+      }
+    }
+    return partOptions.toArray(new BlobTargetOption[partOptions.size()]);
+  }
+
+  private List<Blob> uploadParts(ScheduledExecutorService executor, byte[] firstPart,
+      InputStream content, final BlobTargetOption... partOptions) {
+    final Semaphore permits = new Semaphore(parallelism);
+    byte[] part = firstPart;
+    acquire(permits);
+    // stop reading content as soon as an upload fails, the error is reported by awaitPending()
+    while (part.length > 0 && !failed) {
+      final BlobInfo partInfo = temporary();
+      final byte[] partContent = part;
+      pending.add(executor.submit(new Callable<Blob>() {
+        @Override
+        public Blob call() {
+          try {
+            return storage.create(partInfo, partContent, partOptions);
+          } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+          } finally {
+            permits.release();
+          }
+        }
+      }));
+      if (part.length < partSize) {
+        break;
+      }
+      // wait for an upload to complete before reading the next part into memory
+      acquire(permits);
+      part = readPart(content);
+    }
+    return awaitPending();
+  }
+
+  private static void acquire(Semaphore permits) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      RetryInterruptedException.propagate();
+    }
+  }
+
+  private Callable<Blob> composeCallable(List<Blob> sources, final BlobInfo intermediate,
+      BlobTargetOption... partOptions) {
+    final ComposeRequest request =
+        composeRequest(sources, intermediate, Arrays.asList(partOptions));
+    return new Callable<Blob>() {
+      @Override
+      public Blob call() {
+        return storage.compose(request);
+      }
+    };
+  }
+
+  private static ComposeRequest composeRequest(List<Blob> sources, BlobInfo target,
+      Iterable<BlobTargetOption> options) {
+    ComposeRequest.Builder builder = ComposeRequest.builder().target(target).targetOptions(options);
+    for (Blob source : sources) {
+      if (source.generation() != null) {
+        builder.addSource(source.name(), source.generation());
+      } else {
+        builder.addSource(source.name());
+      }
+    }
+    return builder.build();
+  }
+
+  private BlobInfo temporary() {
+    BlobId blobId = BlobId.of(target.bucket(), temporaryPrefix + temporaries.size());
+    temporaries.add(blobId);
+    return BlobInfo.builder(blobId).acl(target.acl()).build();
+  }
+
+  private byte[] readPart(InputStream content) {
+    try {
+      byte[] part = new byte[partSize];
+      int read = ByteStreams.read(content, part, 0, partSize);
+      return read < partSize ? Arrays.copyOf(part, read) : part;
+    } catch (IOException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  private List<Blob> awaitPending() {
+    List<Blob> results = new ArrayList<>(pending.size());
+    try {
+      for (Future<Blob> future : pending) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      RetryInterruptedException.propagate();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof StorageException) {
+        throw (StorageException) e.getCause();
+      }
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, e.getMessage(), e.getCause());
+    }
+    pending.clear();
+    return results;
+  }
+
+  private void awaitCompletion() {
+    // wait for in-flight requests so that no temporary blob is created after cleanup, even if the
+    // thread is interrupted (the interrupt flag is restored once all requests complete)
+    for (Future<Blob> future : pending) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException ignore) {
+        // failures were already reported
+      }
+    }
+    pending.clear();
+  }
+
+  private void deleteTemporaries() {
+    if (!temporaries.isEmpty()) {
+      try {
+        storage.delete(temporaries);
+      } catch (StorageException ignore) {
+        // temporary blobs are deleted on a best-effort basis
+      }
+    }
+  }
+}
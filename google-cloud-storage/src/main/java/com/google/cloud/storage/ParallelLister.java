@@ -0,0 +1,399 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.Page;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.storage.Storage.BlobIterator;
+import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lists the blobs of a bucket concurrently. The bucket is first listed in directory-like mode,
+ * each directory found is a shard that is listed, without delimiter, concurrently with the other
+ * shards. A shard covers a contiguous range of blob names, blobs are therefore returned in
+ * lexicographic order by returning the blobs of each shard in place of its directory blob.
+ *
+ * <p>Each page is fetched by a separate task on the executor provided by
+ * {@link StorageOptions#executorFactory()}. A shard is only fetched while less than
+ * {@link #MAX_BUFFERED_PAGES} of its pages are waiting to be consumed, so tasks never block and
+ * memory is bounded. In ordered mode the shards being listed are the next ones to be consumed.
+ */
+final class ParallelLister extends AbstractIterator<Blob> implements BlobIterator {
+
+  static final int MAX_BUFFERED_PAGES = 2;
+  private static final Comparator<Blob> BY_NAME = new Comparator<Blob>() {
+    @Override
+    public int compare(Blob first, Blob second) {
+      return first.name().compareTo(second.name());
+    }
+  };
+
+  private final Storage storage;
+  private final ExecutorFactory<ScheduledExecutorService> executorFactory;
+  private final String bucket;
+  private final int parallelism;
+  private final boolean ordered;
+  private final List<BlobListOption> options = new ArrayList<>();
+  private final Shard root;
+  private final Lock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  // the following fields are guarded by lock
+  private final List<Shard> shards = new ArrayList<>();
+  private final List<Shard> active = new ArrayList<>();
+  private final Deque<Shard> ready = new ArrayDeque<>();
+  private ScheduledExecutorService executor;
+  private int started;
+  private int unfinished;
+  private Throwable failure;
+  private boolean closed;
+  // the following fields are only accessed by the consuming thread
+  private Iterator<Blob> rootPage = ImmutableList.<Blob>of().iterator();
+  private Iterator<Blob> currentPage = ImmutableList.<Blob>of().iterator();
+  private Shard current;
+  private int nextShard;
+
+  /**
+   * A range of blob names listed page by page. The root shard is listed in directory-like mode.
+   */
+  private final class Shard {
+
+    private final String prefix;
+    private final Deque<List<Blob>> pages = new ArrayDeque<>();
+    private Page<Blob> last;
+    private boolean fetching;
+    private boolean done;
+
+    Shard(String prefix) {
+      this.prefix = prefix;
+    }
+
+    BlobListOption[] listOptions() {
+      List<BlobListOption> listOptions = new ArrayList<>(options);
+      if (prefix != null) {
+        listOptions.add(BlobListOption.prefix(prefix));
+      }
+      if (this == root) {
+        listOptions.add(BlobListOption.currentDirectory());
+      }
+      return listOptions.toArray(new BlobListOption[listOptions.size()]);
+    }
+  }
+
+  ParallelLister(Storage storage, String bucket, int parallelism, boolean ordered,
+      BlobListOption... options) {
+    checkArgument(parallelism > 0, "parallelism must be positive");
+    String prefix = null;
+    for (BlobListOption option : options) {
+      switch (option.rpcOption()) {
+        case PREFIX:
+          prefix = (String) option.value();
+          break;
+        case DELIMITER:
+        case PAGE_TOKEN:
+          throw new IllegalArgumentException(
+              "Option " + option.rpcOption() + " is not supported by parallel listing");
+        default:
+          this.options.add(option);
+      }
+    }
+    this.storage = storage;
+    this.executorFactory = storage.options().executorFactory();
+    this.bucket = bucket;
+    this.parallelism = parallelism;
+    this.ordered = ordered;
+    this.root = new Shard(prefix);
+  }
+
+  /**
+   * Starts listing blobs in the background.
+   */
+  ParallelLister start() {
+    lock.lock();
+    try {
+      executor = executorFactory.get();
+      unfinished = 1;
+      fetch(root);
+    } finally {
+      lock.unlock();
+    }
+    return this;
+  }
+
+  @Override
+  protected Blob computeNext() {
+    Blob next = ordered ? computeNextOrdered() : computeNextUnordered();
+    if (next == null) {
+      close();
+      return endOfData();
+    }
+    return next;
+  }
+
+  private Blob computeNextOrdered() {
+    while (true) {
+      if (current != null) {
+        if (currentPage.hasNext()) {
+          return currentPage.next();
+        }
+        List<Blob> page = takePage(current);
+        if (page != null) {
+          currentPage = page.iterator();
+        } else {
+          current = null;
+        }
+      } else if (rootPage.hasNext()) {
+        Blob blob = rootPage.next();
+        if (!blob.isDirectory()) {
+          return blob;
+        }
+        // the blobs of the shard take the place of its directory blob
+        current = shard(nextShard++);
+      } else {
+        List<Blob> page = takePage(root);
+        if (page == null) {
+          return null;
+        }
+        rootPage = page.iterator();
+      }
+    }
+  }
+
+  private Blob computeNextUnordered() {
+    while (!currentPage.hasNext()) {
+      List<Blob> page = takeReadyPage();
+      if (page == null) {
+        return null;
+      }
+      currentPage = page.iterator();
+    }
+    return currentPage.next();
+  }
+
+  private Shard shard(int index) {
+    lock.lock();
+    try {
+      return shards.get(index);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the next page of {@code shard}, waiting for it to be fetched, or {@code null} if all
+   * the pages of the shard have been consumed.
+   */
+  private List<Blob> takePage(Shard shard) {
+    lock.lock();
+    try {
+      while (true) {
+        checkFailure();
+        if (closed) {
+          return null;
+        }
+        List<Blob> page = shard.pages.poll();
+        if (page != null) {
+          schedule();
+          return page;
+        }
+        if (shard.done) {
+          finish(shard);
+          return null;
+        }
+        await();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the next page fetched for any shard, waiting for one to be fetched, or {@code null}
+   * if all shards have been consumed.
+   */
+  private List<Blob> takeReadyPage() {
+    lock.lock();
+    try {
+      while (true) {
+        checkFailure();
+        if (closed) {
+          return null;
+        }
+        Shard shard = ready.poll();
+        if (shard != null) {
+          List<Blob> page = shard.pages.poll();
+          if (shard.done && shard.pages.isEmpty()) {
+            finish(shard);
+          } else {
+            schedule();
+          }
+          return page;
+        }
+        if (unfinished == 0) {
+          return null;
+        }
+        await();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void await() {
+    try {
+      changed.await();
+    } catch (InterruptedException e) {
+      close();
+      RetryInterruptedException.propagate();
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      close();
+      if (failure instanceof StorageException) {
+        throw (StorageException) failure;
+      }
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, failure.getMessage(), failure);
+    }
+  }
+
+  private void finish(Shard shard) {
+    active.remove(shard);
+    unfinished--;
+    schedule();
+  }
+
+  /**
+   * Starts listing new shards, if less than {@code parallelism} shards are being listed, and
+   * fetches the next page of the shards that have room for it.
+   */
+  private void schedule() {
+    if (closed || failure != null) {
+      return;
+    }
+    while (active.size() < parallelism && started < shards.size()) {
+      active.add(shards.get(started++));
+    }
+    fetchIfNeeded(root);
+    for (Shard shard : active) {
+      fetchIfNeeded(shard);
+    }
+  }
+
+  private void fetchIfNeeded(Shard shard) {
+    if (!shard.fetching && !shard.done && shard.pages.size() < MAX_BUFFERED_PAGES) {
+      fetch(shard);
+    }
+  }
+
+  private void fetch(final Shard shard) {
+    shard.fetching = true;
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Page<Blob> page = null;
+        Throwable error = null;
+        try {
+          page = shard.last == null
+              ? storage.list(bucket, shard.listOptions()) : shard.last.nextPage();
+        } catch (Throwable e) {
+          // errors too are reported to the consumer, that would otherwise wait for the page
+          error = e;
+        }
+        lock.lock();
+        try {
+          shard.fetching = false;
+          if (error == null && !closed) {
+            try {
+              addPage(shard, page);
+              schedule();
+            } catch (Throwable e) {
+              error = e;
+            }
+          }
+          if (error != null && failure == null) {
+            failure = error;
+          }
+        } finally {
+          changed.signalAll();
+          lock.unlock();
+        }
+      }
+    });
+  }
+
+  private void addPage(Shard shard, Page<Blob> page) {
+    shard.last = page;
+    shard.done = page.nextPageCursor() == null;
+    List<Blob> blobs = new ArrayList<>();
+    for (Blob blob : page.values()) {
+      if (shard != root || !blob.isDirectory()) {
+        blobs.add(blob);
+      } else if (shards.isEmpty() || !Iterables.getLast(shards).prefix.equals(blob.name())) {
+        // a directory may be repeated at the beginning of the next page
+        shards.add(new Shard(blob.name()));
+        unfinished++;
+        if (ordered) {
+          blobs.add(blob);
+        }
+      }
+    }
+    if (shard == root && ordered) {
+      // blobs and directories are returned as separate lists, each sorted by name
+      Collections.sort(blobs, BY_NAME);
+    }
+    shard.pages.add(blobs);
+    if (!ordered) {
+      ready.add(shard);
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (!closed) {
+        closed = true;
+        if (executor != null) {
+          executorFactory.release(executor);
+        }
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
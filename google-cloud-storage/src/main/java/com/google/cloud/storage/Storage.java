@@ -39,8 +39,11 @@ import com.google.common.collect.Lists;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.net.URL;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -718,6 +721,23 @@ public interface Storage extends Service<StorageOptions> {
     }
   }
 
+  /**
+   * An iterator over the blobs listed by
+   * {@link Storage#listParallel(String, int, boolean, BlobListOption...)}. Blobs are listed in the
+   * background while the iterator is consumed, the iterator is closed once all blobs have been
+   * returned or listing fails. An iterator that is not consumed to the end should be closed so
+   * that no further requests are sent.
+   */
+  interface BlobIterator extends Iterator<Blob>, AutoCloseable {
+
+    /**
+     * Stops listing blobs. Requests that are in flight are not interrupted but their results are
+     * discarded. Closing an iterator that is already closed has no effect.
+     */
+    @Override
+    void close();
+  }
+
   /**
    * Class for specifying signed URL options.
    */
@@ -1283,6 +1303,41 @@ public interface Storage extends Service<StorageOptions> {
    */
   Blob create(BlobInfo blobInfo, InputStream content, BlobWriteOption... options);
 
+  /**
+   * Creates a new blob using a parallel composite upload. {@code content} is split into parts of
+   * {@code partSize} bytes that are uploaded concurrently as temporary blobs in the target bucket,
+   * using up to {@code parallelism} requests at a time on the executor provided by
+   * {@link StorageOptions#executorFactory()}. Parts are then composed into the target blob
+   * (through intermediate temporary blobs if there are more than 32 parts). Temporary blobs are
+   * deleted once the upload completes or fails. If {@code content} is smaller than
+   * {@code partSize} the blob is created with a single direct upload.
+   *
+   * <p>At most {@code parallelism} parts are buffered in memory at a time. Parts are never uploaded
+   * by more threads than the executor has: the default executor is a pool of 8 threads shared by
+   * all clients, a higher {@code parallelism} requires setting a custom executor factory. Note that
+   * composite blobs have no md5 hash, only a crc32c checksum. The given input stream is not closed.
+   *
+   * <p>Example of creating a blob with a parallel composite upload.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * String blobName = "my_blob_name";
+   * InputStream content = new FileInputStream("my_large_file");
+   * BlobId blobId = BlobId.of(bucketName, blobName);
+   * BlobInfo blobInfo = BlobInfo.builder(blobId).contentType("application/octet-stream").build();
+   * Blob blob = storage.createComposite(blobInfo, content, 32 * 1024 * 1024, 8);
+   * }</pre>
+   *
+   * @param partSize the size, in bytes, of each part
+   * @param parallelism the maximum number of parts uploaded concurrently
+   * @param options options applied to the compose request that creates the target blob. The
+   *     predefined ACL is also applied to temporary blobs
+   * @return a [@code Blob} with complete information
+   * @throws StorageException upon failure
+   * @see <a href="https://cloud.google.com/storage/docs/composite-objects">Composite Objects</a>
+   */
+  Blob createComposite(BlobInfo blobInfo, InputStream content, int partSize, int parallelism,
+      BlobTargetOption... options);
+
   /**
    * Returns the requested bucket or {@code null} if not found.
    *
@@ -1388,6 +1443,44 @@ public interface Storage extends Service<StorageOptions> {
    */
   Page<Blob> list(String bucket, BlobListOption... options);
 
+  /**
+   * Lists the bucket's blobs using up to {@code parallelism} concurrent requests. The blobs are
+   * first listed in directory-like mode (see {@link BlobListOption#currentDirectory()}), every
+   * directory found is then listed as a separate shard on the executor provided by
+   * {@link StorageOptions#executorFactory()}, while listing continues. All blobs are returned,
+   * directory blobs are never returned. If {@code ordered} is {@code true} blobs are returned in
+   * lexicographic order, as returned by {@link #list(String, BlobListOption...)}. Otherwise blobs
+   * are returned as soon as their page is listed, in no particular order.
+   *
+   * <p>No more directories than the executor's threads are listed at the same time: the default
+   * executor is a pool of 8 threads shared by all clients, a higher {@code parallelism} requires
+   * setting a custom executor factory.
+   *
+   * <p>At most two pages are buffered for each of the shards being listed, which bounds the
+   * memory used when the iterator is consumed slower than blobs are listed. Sharding relies on
+   * the '/' delimiter: a bucket whose blobs are all in the same directory is listed with a single
+   * request at a time. The {@link BlobListOption#currentDirectory()} and
+   * {@link BlobListOption#pageToken(String)} options are not supported.
+   *
+   * <p>Example of listing all blobs of a bucket in parallel.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * try (Storage.BlobIterator blobIterator = storage.listParallel(bucketName, 8, false)) {
+   *   while (blobIterator.hasNext()) {
+   *     Blob blob = blobIterator.next();
+   *     // do something with the blob
+   *   }
+   * }
+   * }</pre>
+   *
+   * @param parallelism the maximum number of directories listed concurrently
+   * @param ordered whether blobs should be returned in lexicographic order
+   * @throws StorageException upon failure, when iterating
+   * @throws IllegalArgumentException if an unsupported option is provided
+   */
+  BlobIterator listParallel(String bucket, int parallelism, boolean ordered,
+      BlobListOption... options);
+
   /**
    * Updates bucket information.
    *
@@ -1643,6 +1736,43 @@ public interface Storage extends Service<StorageOptions> {
    */
   byte[] readAllBytes(BlobId blob, BlobSourceOption... options);
 
+  /**
+   * Downloads a blob's content to the provided channel. Content is streamed from the service to
+   * {@code target} through a small fixed-size buffer, regardless of the blob's size. If the
+   * download is interrupted by a retryable error, it is resumed from the last byte written to
+   * {@code target}. If {@code blob} has no generation, retries read the generation that was first
+   * returned by the service. {@code target} is not closed.
+   *
+   * <p>Example of downloading a blob to a channel.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * String blobName = "my_blob_name";
+   * try (FileChannel channel = new FileOutputStream("my_file").getChannel()) {
+   *   storage.downloadTo(BlobId.of(bucketName, blobName), channel);
+   * }
+   * }</pre>
+   *
+   * @throws StorageException upon failure, or if writing to {@code target} fails
+   */
+  void downloadTo(BlobId blob, WritableByteChannel target, BlobSourceOption... options);
+
+  /**
+   * Downloads a blob's content to the file at the provided path. The file is created if it does
+   * not exist and overwritten otherwise. Content is streamed from the service to the file through a
+   * small fixed-size buffer, regardless of the blob's size.
+   *
+   * <p>Example of downloading a blob to a file.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * String blobName = "my_blob_name";
+   * storage.downloadTo(BlobId.of(bucketName, blobName), Paths.get("my_file"));
+   * }</pre>
+   *
+   * @throws StorageException upon failure, or if writing to the file fails
+   * @see #downloadTo(BlobId, WritableByteChannel, BlobSourceOption...)
+   */
+  void downloadTo(BlobId blob, Path path, BlobSourceOption... options);
+
   /**
    * Creates a new empty batch for grouping multiple service calls in one underlying RPC call.
    *
@@ -1707,6 +1837,10 @@ public interface Storage extends Service<StorageOptions> {
    * {@code blobReadChannel.read(ByteBuffer)} calls will throw {@link StorageException} if the
    * blob`s generation differs from the expected one.
    *
+   * <p>Channels returned by the default implementation are {@link StorageReadChannel} objects,
+   * which report the blob's size and generation (see {@link StorageReadChannel#size()}) from the
+   * first response carrying the blob's content, and pin all further reads to that generation.
+   *
    * <p>Example of reading a blob's content through a reader.
    * <pre> {@code
    * String bucketName = "my_unique_bucket";
@@ -1726,6 +1860,37 @@ public interface Storage extends Service<StorageOptions> {
    */
   ReadChannel reader(BlobId blob, BlobSourceOption... options);
 
+  /**
+   * Returns a channel for reading the blob's content that keeps up to {@code readAhead} chunk reads
+   * in flight while the caller consumes data. Chunks are read in parallel, using the executor
+   * provided by {@link StorageOptions#executorFactory()}, and handed out in order. This is useful
+   * for large sequential reads, whose throughput would otherwise be bound by the latency of each
+   * chunk read. The channel's chunk size (see {@link ReadChannel#chunkSize(int)}) determines the
+   * size of each read. If {@code readAhead} is 0 this method behaves like
+   * {@link #reader(BlobId, BlobSourceOption...)}. If the blob changes while reading (i.e.
+   * {@link BlobInfo#etag()} changes), subsequent calls to {@code blobReadChannel.read(ByteBuffer)}
+   * may throw {@link StorageException}.
+   *
+   * <p>Example of reading a blob's content through a reader with read-ahead.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * String blobName = "my_blob_name";
+   * BlobId blobId = BlobId.of(bucketName, blobName);
+   * try (ReadChannel reader = storage.reader(blobId, 4)) {
+   *   ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+   *   while (reader.read(bytes) > 0) {
+   *     bytes.flip();
+   *     // do something with bytes
+   *     bytes.clear();
+   *   }
+   * }
+   * }</pre>
+   *
+   * @param readAhead the number of chunk reads to keep in flight
+   * @throws StorageException upon failure
+   */
+  ReadChannel reader(BlobId blob, int readAhead, BlobSourceOption... options);
+
   /**
    * Creates a blob and return a channel for writing its content. By default any md5 and crc32c
    * values in the given {@code blobInfo} are ignored unless requested via the
@@ -1811,6 +1976,30 @@ public interface Storage extends Service<StorageOptions> {
    */
   URL signUrl(BlobInfo blobInfo, long duration, TimeUnit unit, SignUrlOption... options);
 
+  /**
+   * Returns a signer of URLs for blobs, using the provided options for all the URLs it signs. The
+   * options and the service account signer are resolved once, when the signer is created, which
+   * makes signing many URLs with a {@link UrlSigner} cheaper than with
+   * {@link #signUrl(BlobInfo, long, TimeUnit, SignUrlOption...)}. The service account signer is
+   * looked for as described in {@link #signUrl(BlobInfo, long, TimeUnit, SignUrlOption...)}.
+   *
+   * <p>Example of signing URLs, valid for 1 day, for several blobs.
+   * <pre> {@code
+   * String bucketName = "my_unique_bucket";
+   * UrlSigner signer = storage.urlSigner(SignUrlOption.httpMethod(HttpMethod.GET));
+   * List<URL> signedUrls = signer.sign(ImmutableList.of(
+   *     BlobInfo.builder(bucketName, "blob1").build(),
+   *     BlobInfo.builder(bucketName, "blob2").build()), 1, TimeUnit.DAYS);
+   * }</pre>
+   *
+   * @param options URL signing options, applied to all the signed URLs
+   * @throws IllegalStateException if {@link SignUrlOption#signWith(ServiceAccountSigner)} was not
+   *     used and no implementation of {@link ServiceAccountSigner} was provided to
+   *     {@link StorageOptions}
+   * @see <a href="https://cloud.google.com/storage/docs/access-control#Signed-URLs">Signed-URLs</a>
+   */
+  UrlSigner urlSigner(SignUrlOption... options);
+
   /**
    * Gets the requested blobs. A batch request is used to perform this call.
    *
@@ -20,6 +20,7 @@ import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -72,9 +73,12 @@ public final class StorageException extends BaseServiceException {
    *
    * @throws StorageException when {@code ex} was caused by a {@code StorageException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws StorageException caused by {@code ex} when {@code ex} is a {@code ThrottledException}
+   * that was not caused by a {@code StorageException}
    */
   static StorageException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new StorageException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new StorageException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
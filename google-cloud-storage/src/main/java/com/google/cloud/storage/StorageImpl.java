@@ -28,18 +28,16 @@ import static com.google.cloud.storage.spi.StorageRpc.Option.IF_SOURCE_METAGENER
 import static com.google.cloud.storage.spi.StorageRpc.Option.IF_SOURCE_METAGENERATION_NOT_MATCH;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkState;
-import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.BaseService;
+import com.google.cloud.BaseServiceException;
 import com.google.cloud.BatchResult;
 import com.google.cloud.Page;
 import com.google.cloud.PageImpl;
 import com.google.cloud.PageImpl.NextPageFetcher;
 import com.google.cloud.ReadChannel;
 import com.google.cloud.RetryHelper.RetryHelperException;
-import com.google.cloud.ServiceAccountSigner;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.cloud.storage.spi.StorageRpc.RewriteResponse;
 import com.google.cloud.storage.spi.StorageRpc.Tuple;
@@ -51,17 +49,20 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -73,6 +74,7 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
   private static final String EMPTY_BYTE_ARRAY_MD5 = "1B2M2Y8AsgTpgAmY7PhCfg==";
   private static final String EMPTY_BYTE_ARRAY_CRC32C = "AAAAAA==";
   private static final String PATH_DELIMITER = "/";
+  private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
 
   private static final Function<Tuple<Storage, Boolean>, Boolean> DELETE_FUNCTION =
       new Function<Tuple<Storage, Boolean>, Boolean>() {
@@ -100,7 +102,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
           public com.google.api.services.storage.model.Bucket call() {
             return storageRpc.create(bucketPb, optionsMap);
           }
-        }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+        }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+        options().retryThrottler()));
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -132,6 +135,12 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
     return create(targetOptions.x(), content, targetOptions.y());
   }
 
+  @Override
+  public Blob createComposite(BlobInfo blobInfo, InputStream content, int partSize,
+      int parallelism, BlobTargetOption... options) {
+    return new CompositeUploader(this, blobInfo, partSize, parallelism).upload(content, options);
+  }
+
   private Blob create(BlobInfo info, final InputStream content, BlobTargetOption... options) {
     final StorageObject blobPb = info.toPb();
     final Map<StorageRpc.Option, ?> optionsMap = optionMap(info, options);
@@ -142,7 +151,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
           return storageRpc.create(blobPb,
               firstNonNull(content, new ByteArrayInputStream(EMPTY_BYTE_ARRAY)), optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler()));
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -159,7 +169,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
             public com.google.api.services.storage.model.Bucket call() {
               return storageRpc.get(bucketPb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       return answer == null ? null : Bucket.fromPb(this, answer);
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
@@ -181,7 +192,7 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public StorageObject call() {
           return storageRpc.get(storedObject, optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
       return storageObject == null ? null : Blob.fromPb(this, storageObject);
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
@@ -244,6 +255,12 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
     return listBlobs(bucket, options(), optionMap(options));
   }
 
+  @Override
+  public BlobIterator listParallel(String bucket, int parallelism, boolean ordered,
+      BlobListOption... options) {
+    return new ParallelLister(this, bucket, parallelism, ordered, options).start();
+  }
+
   private static Page<Bucket> listBuckets(final StorageOptions serviceOptions,
       final Map<StorageRpc.Option, ?> optionsMap) {
     try {
@@ -253,7 +270,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
             public Tuple<String, Iterable<com.google.api.services.storage.model.Bucket>> call() {
               return serviceOptions.rpc().list(optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.x();
       Iterable<Bucket> buckets =
           result.y() == null ? ImmutableList.<Bucket>of() : Iterables.transform(result.y(),
@@ -280,7 +298,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
             public Tuple<String, Iterable<StorageObject>> call() {
               return serviceOptions.rpc().list(bucket, optionsMap);
             }
-          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock());
+          }, serviceOptions.retryParams(), EXCEPTION_HANDLER, serviceOptions.clock(),
+          serviceOptions.retryThrottler());
       String cursor = result.x();
       Iterable<Blob> blobs =
           result.y() == null
@@ -311,7 +330,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
             public com.google.api.services.storage.model.Bucket call() {
               return storageRpc.patch(bucketPb, optionsMap);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler()));
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -327,7 +347,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public StorageObject call() {
           return storageRpc.patch(storageObject, optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler()));
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -348,7 +369,7 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public Boolean call() {
           return storageRpc.delete(bucketPb, optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -369,7 +390,7 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public Boolean call() {
           return storageRpc.delete(storageObject, optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -398,7 +419,8 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public StorageObject call() {
           return storageRpc.compose(sources, target, targetOptions);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock()));
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler()));
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
@@ -420,7 +442,7 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
               copyRequest.overrideInfo(), targetObject, targetOptions,
               copyRequest.megabytesCopiedPerChunk()));
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
       return new CopyWriter(options(), rewriteResponse);
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
@@ -442,12 +464,78 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
         public byte[] call() {
           return storageRpc.load(storageObject, optionsMap);
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
+    } catch (RetryHelperException e) {
+      throw StorageException.translateAndThrow(e);
+    }
+  }
+
+  @Override
+  public void downloadTo(BlobId blob, final WritableByteChannel target,
+      BlobSourceOption... options) {
+    final StorageObject storageObject = blob.toPb();
+    final Map<StorageRpc.Option, ?> optionsMap = optionMap(blob, options);
+    try {
+      runWithRetries(new Callable<Void>() {
+        private final byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+        private long position;
+
+        @Override
+        public Void call() {
+          try (StorageRpc.ReadResponse response =
+              storageRpc.openRead(storageObject, optionsMap, position, -1)) {
+            if (storageObject.getGeneration() == null) {
+              // pin the generation so that retries do not resume from a different blob
+              storageObject.setGeneration(response.generation());
+            }
+            InputStream content = response.content();
+            if (response.offset() != position) {
+              if (response.offset() != 0) {
+                throw new StorageException(BaseServiceException.UNKNOWN_CODE, "Download of "
+                    + storageObject.getName() + " resumed at " + response.offset()
+                    + " rather than " + position);
+              }
+              // the range was ignored (e.g. the content is transcoded) and the blob is sent again
+              // from the start: skip what was already written, the generation is pinned
+              ByteStreams.skipFully(content, position);
+            }
+            int read;
+            while ((read = content.read(buffer)) >= 0) {
+              write(ByteBuffer.wrap(buffer, 0, read));
+              position += read;
+            }
+          } catch (IOException e) {
+            throw new StorageException(e);
+          }
+          return null;
+        }
+
+        private void write(ByteBuffer content) {
+          try {
+            while (content.hasRemaining()) {
+              target.write(content);
+            }
+          } catch (IOException e) {
+            // failures writing to target are not retried
+            throw new StorageException(BaseServiceException.UNKNOWN_CODE, e.getMessage(), e);
+          }
+        }
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler());
     } catch (RetryHelperException e) {
       throw StorageException.translateAndThrow(e);
     }
   }
 
+  @Override
+  public void downloadTo(BlobId blob, Path path, BlobSourceOption... options) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      downloadTo(blob, channel, options);
+    } catch (IOException e) {
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, e.getMessage(), e);
+    }
+  }
+
   @Override
   public StorageBatch batch() {
     return new StorageBatch(this.options());
@@ -465,6 +553,15 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
     return new BlobReadChannel(options(), blob, optionsMap);
   }
 
+  @Override
+  public ReadChannel reader(BlobId blob, int readAhead, BlobSourceOption... options) {
+    checkArgument(readAhead >= 0, "readAhead must not be negative");
+    Map<StorageRpc.Option, ?> optionsMap = optionMap(blob, options);
+    BlobReadChannel reader = new BlobReadChannel(options(), blob, optionsMap);
+    reader.readAhead(readAhead);
+    return reader;
+  }
+
   @Override
   public BlobWriteChannel writer(BlobInfo blobInfo, BlobWriteOption... options) {
     Tuple<BlobInfo, BlobTargetOption[]> targetOptions = BlobTargetOption.convert(blobInfo, options);
@@ -478,63 +575,12 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
 
   @Override
   public URL signUrl(BlobInfo blobInfo, long duration, TimeUnit unit, SignUrlOption... options) {
-    EnumMap<SignUrlOption.Option, Object> optionMap = Maps.newEnumMap(SignUrlOption.Option.class);
-    for (SignUrlOption option : options) {
-      optionMap.put(option.option(), option.value());
-    }
-    ServiceAccountSigner authCredentials =
-        (ServiceAccountSigner) optionMap.get(SignUrlOption.Option.SERVICE_ACCOUNT_CRED);
-    if (authCredentials == null) {
-      checkState(this.options().authCredentials() instanceof ServiceAccountSigner,
-          "Signing key was not provided and could not be derived");
-      authCredentials = (ServiceAccountSigner) this.options().authCredentials();
-    }
-    // construct signature - see https://cloud.google.com/storage/docs/access-control#Signed-URLs
-    StringBuilder stBuilder = new StringBuilder();
-    if (optionMap.containsKey(SignUrlOption.Option.HTTP_METHOD)) {
-      stBuilder.append(optionMap.get(SignUrlOption.Option.HTTP_METHOD));
-    } else {
-      stBuilder.append(HttpMethod.GET);
-    }
-    stBuilder.append('\n');
-    if (firstNonNull((Boolean) optionMap.get(SignUrlOption.Option.MD5), false)) {
-      checkArgument(blobInfo.md5() != null, "Blob is missing a value for md5");
-      stBuilder.append(blobInfo.md5());
-    }
-    stBuilder.append('\n');
-    if (firstNonNull((Boolean) optionMap.get(SignUrlOption.Option.CONTENT_TYPE), false)) {
-      checkArgument(blobInfo.contentType() != null, "Blob is missing a value for content-type");
-      stBuilder.append(blobInfo.contentType());
-    }
-    stBuilder.append('\n');
-    long expiration = TimeUnit.SECONDS.convert(
-        options().clock().millis() + unit.toMillis(duration), TimeUnit.MILLISECONDS);
-    stBuilder.append(expiration).append('\n');
-    StringBuilder path = new StringBuilder();
-    if (!blobInfo.bucket().startsWith("/")) {
-      path.append('/');
-    }
-    path.append(blobInfo.bucket());
-    if (!blobInfo.bucket().endsWith("/")) {
-      path.append('/');
-    }
-    if (blobInfo.name().startsWith("/")) {
-      path.setLength(path.length() - 1);
-    }
-    path.append(blobInfo.name());
-    stBuilder.append(path);
-    try {
-      byte[] signatureBytes = authCredentials.sign(stBuilder.toString().getBytes(UTF_8));
-      stBuilder = new StringBuilder("https://storage.googleapis.com").append(path);
-      String signature =
-          URLEncoder.encode(BaseEncoding.base64().encode(signatureBytes), UTF_8.name());
-      stBuilder.append("?GoogleAccessId=").append(authCredentials.account());
-      stBuilder.append("&Expires=").append(expiration);
-      stBuilder.append("&Signature=").append(signature);
-      return new URL(stBuilder.toString());
-    } catch (MalformedURLException | UnsupportedEncodingException ex) {
-      throw new IllegalStateException(ex);
-    }
+    return urlSigner(options).sign(blobInfo, duration, unit);
+  }
+
+  @Override
+  public UrlSigner urlSigner(SignUrlOption... options) {
+    return new UrlSigner(options(), options);
   }
 
   @Override
@@ -16,12 +16,15 @@
 
 package com.google.cloud.storage;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.cloud.HttpServiceOptions;
 import com.google.cloud.storage.spi.DefaultStorageRpc;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.cloud.storage.spi.StorageRpcFactory;
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Objects;
 import java.util.Set;
 
 public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, StorageOptions> {
@@ -29,6 +32,9 @@ public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, Stor
   private static final long serialVersionUID = -7456495262640805964L;
   private static final String GCS_SCOPE = "https://www.googleapis.com/auth/devstorage.full_control";
   private static final Set<String> SCOPES = ImmutableSet.of(GCS_SCOPE);
+  private static final int DEFAULT_BATCH_CONCURRENCY = 1;
+
+  private final int batchConcurrency;
 
   public static class DefaultStorageFactory implements StorageFactory {
 
@@ -53,10 +59,27 @@ public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, Stor
   public static class Builder extends
       HttpServiceOptions.Builder<Storage, StorageRpc, StorageOptions, Builder> {
 
+    private int batchConcurrency = DEFAULT_BATCH_CONCURRENCY;
+
     private Builder() {}
 
     private Builder(StorageOptions options) {
       super(options);
+      batchConcurrency = options.batchConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of batch requests sent at the same time when a batch (see
+     * {@link Storage#batch()}) holds more operations than fit in a single request. Batch callbacks
+     * may be called concurrently if this value is greater than 1. The default is 1. Requests are
+     * sent on the executor set with {@code executorFactory}, so no more requests than the
+     * executor's threads are sent at the same time: the default executor is a pool of 8 threads
+     * shared by all clients.
+     */
+    public Builder batchConcurrency(int batchConcurrency) {
+      checkArgument(batchConcurrency > 0, "batchConcurrency must be positive");
+      this.batchConcurrency = batchConcurrency;
+      return this;
     }
 
     @Override
@@ -67,6 +90,7 @@ public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, Stor
 
   private StorageOptions(Builder builder) {
     super(StorageFactory.class, StorageRpcFactory.class, builder);
+    batchConcurrency = builder.batchConcurrency;
   }
 
   @Override
@@ -84,6 +108,13 @@ public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, Stor
     return SCOPES;
   }
 
+  /**
+   * Returns the maximum number of batch requests sent at the same time.
+   */
+  public int batchConcurrency() {
+    return batchConcurrency;
+  }
+
   /**
    * Returns a default {@code StorageOptions} instance.
    */
@@ -99,12 +130,16 @@ public class StorageOptions extends HttpServiceOptions<Storage, StorageRpc, Stor
 
   @Override
   public int hashCode() {
-    return baseHashCode();
+    return Objects.hash(baseHashCode(), batchConcurrency);
   }
 
   @Override
   public boolean equals(Object obj) {
-    return obj instanceof StorageOptions && baseEquals((StorageOptions) obj);
+    if (!(obj instanceof StorageOptions)) {
+      return false;
+    }
+    StorageOptions other = (StorageOptions) obj;
+    return baseEquals(other) && batchConcurrency == other.batchConcurrency;
   }
 
   public static Builder builder() {
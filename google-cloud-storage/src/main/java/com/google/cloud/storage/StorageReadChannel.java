@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import com.google.cloud.ReadChannel;
+
+import java.io.IOException;
+
+/**
+ * A channel for reading a blob's content. In addition to the {@link ReadChannel} operations, this
+ * channel reports the size and the generation of the blob being read. These are learnt from the
+ * first response carrying the blob's content, after which all reads are pinned to that generation.
+ */
+public interface StorageReadChannel extends ReadChannel {
+
+  /**
+   * Returns the size of the blob being read. If no content was requested yet, the chunk at the
+   * channel's position is requested and kept for the next read, so that the blob's metadata does
+   * not cost an additional request.
+   *
+   * @throws StorageException upon failure, if the blob does not exist its code is 404
+   */
+  long size() throws IOException;
+
+  /**
+   * Returns the generation of the blob being read or {@code null} if the service did not report
+   * one. If no content was requested yet, the chunk at the channel's position is requested and
+   * kept for the next read.
+   *
+   * @throws StorageException upon failure, if the blob does not exist its code is 404
+   */
+  Long generation() throws IOException;
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.cloud.Clock;
+import com.google.cloud.ServiceAccountSigner;
+import com.google.cloud.storage.Storage.SignUrlOption;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs URLs for blobs, with a fixed set of {@link SignUrlOption}s. A signer resolves the options,
+ * the service account and the parts of the string to sign that do not depend on the blob once,
+ * when created, and caches the path of the buckets it signs URLs for. This makes it cheaper than
+ * {@link Storage#signUrl(BlobInfo, long, TimeUnit, SignUrlOption...)} for applications that sign
+ * many URLs with the same options. {@code UrlSigner} objects are thread-safe.
+ *
+ * <p>Example of signing URLs, valid for 1 hour, for all the blobs of a bucket.
+ * <pre> {@code
+ * UrlSigner signer = storage.urlSigner();
+ * List<BlobInfo> blobs = new ArrayList<>();
+ * for (Blob blob : storage.list("my_unique_bucket").iterateAll()) {
+ *   blobs.add(blob);
+ * }
+ * List<URL> urls = signer.sign(blobs, 1, TimeUnit.HOURS);
+ * }</pre>
+ *
+ * @see Storage#urlSigner(SignUrlOption...)
+ * @see <a href="https://cloud.google.com/storage/docs/access-control#Signed-URLs">Signed-URLs</a>
+ */
+public final class UrlSigner {
+
+  private static final String HOST = "https://storage.googleapis.com";
+  private static final int MAX_CACHED_BUCKETS = 1024;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final ServiceAccountSigner signer;
+  private final Clock clock;
+  private final String httpMethod;
+  private final boolean md5;
+  private final boolean contentType;
+  private final String accessIdParameter;
+  private final ConcurrentMap<String, String> bucketPaths = new ConcurrentHashMap<>();
+  private final ThreadLocal<StringBuilder> builders = new ThreadLocal<StringBuilder>() {
+    @Override
+    protected StringBuilder initialValue() {
+      return new StringBuilder(256);
+    }
+  };
+
+  UrlSigner(StorageOptions serviceOptions, SignUrlOption... options) {
+    String httpMethod = HttpMethod.GET.name();
+    boolean md5 = false;
+    boolean contentType = false;
+    ServiceAccountSigner signer = null;
+    for (SignUrlOption option : options) {
+      switch (option.option()) {
+        case HTTP_METHOD:
+          httpMethod = (String) option.value();
+          break;
+        case MD5:
+          md5 = (Boolean) option.value();
+          break;
+        case CONTENT_TYPE:
+          contentType = (Boolean) option.value();
+          break;
+        case SERVICE_ACCOUNT_CRED:
+          signer = (ServiceAccountSigner) option.value();
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported option " + option.option());
+      }
+    }
+    if (signer == null) {
+      checkState(serviceOptions.authCredentials() instanceof ServiceAccountSigner,
+          "Signing key was not provided and could not be derived");
+      signer = (ServiceAccountSigner) serviceOptions.authCredentials();
+    }
+    this.signer = signer;
+    this.clock = serviceOptions.clock();
+    this.httpMethod = httpMethod + '\n';
+    this.md5 = md5;
+    this.contentType = contentType;
+    this.accessIdParameter = "?GoogleAccessId=" + signer.account();
+  }
+
+  /**
+   * Returns a signed URL for a blob.
+   *
+   * @param blobInfo the blob associated with the signed URL
+   * @param duration time until the signed URL expires, expressed in {@code unit}. The finest
+   *     granularity supported is 1 second, finer granularities will be truncated
+   * @param unit time unit of the {@code duration} parameter
+   * @throws IllegalArgumentException if the {@code SignUrlOption.withMd5()} option is used and
+   *     {@code blobInfo.md5()} is {@code null}
+   * @throws IllegalArgumentException if the {@code SignUrlOption.withContentType()} option is used
+   *     and {@code blobInfo.contentType()} is {@code null}
+   * @throws com.google.cloud.ServiceAccountSigner.SigningException if the attempt to sign the URL
+   *     failed
+   */
+  public URL sign(BlobInfo blobInfo, long duration, TimeUnit unit) {
+    return sign(blobInfo, expiration(duration, unit));
+  }
+
+  /**
+   * Returns signed URLs for several blobs, in the same order. All the URLs expire at the same
+   * time.
+   *
+   * @param blobInfos the blobs associated with the signed URLs
+   * @param duration time until the signed URLs expire, expressed in {@code unit}. The finest
+   *     granularity supported is 1 second, finer granularities will be truncated
+   * @param unit time unit of the {@code duration} parameter
+   * @throws IllegalArgumentException if the {@code SignUrlOption.withMd5()} option is used and
+   *     {@code md5()} is {@code null} for any of the blobs
+   * @throws IllegalArgumentException if the {@code SignUrlOption.withContentType()} option is used
+   *     and {@code contentType()} is {@code null} for any of the blobs
+   * @throws com.google.cloud.ServiceAccountSigner.SigningException if the attempt to sign a URL
+   *     failed
+   */
+  public ImmutableList<URL> sign(Iterable<? extends BlobInfo> blobInfos, long duration,
+      TimeUnit unit) {
+    long expiration = expiration(duration, unit);
+    ImmutableList.Builder<URL> urls = ImmutableList.builder();
+    for (BlobInfo blobInfo : blobInfos) {
+      urls.add(sign(blobInfo, expiration));
+    }
+    return urls.build();
+  }
+
+  private long expiration(long duration, TimeUnit unit) {
+    return TimeUnit.MILLISECONDS.toSeconds(clock.millis() + unit.toMillis(duration));
+  }
+
+  private URL sign(BlobInfo blobInfo, long expiration) {
+    StringBuilder builder = builders.get();
+    builder.setLength(0);
+    builder.append(httpMethod);
+    if (md5) {
+      checkArgument(blobInfo.md5() != null, "Blob is missing a value for md5");
+      builder.append(blobInfo.md5());
+    }
+    builder.append('\n');
+    if (contentType) {
+      checkArgument(blobInfo.contentType() != null, "Blob is missing a value for content-type");
+      builder.append(blobInfo.contentType());
+    }
+    builder.append('\n');
+    builder.append(expiration).append('\n');
+    int pathStart = builder.length();
+    appendPath(builder, blobInfo);
+    String path = builder.substring(pathStart);
+    byte[] signatureBytes = signer.sign(builder.toString().getBytes(UTF_8));
+    builder.setLength(0);
+    builder.append(HOST).append(path)
+        .append(accessIdParameter)
+        .append("&Expires=").append(expiration)
+        .append("&Signature=");
+    appendUrlEncoded(builder, BaseEncoding.base64().encode(signatureBytes));
+    try {
+      return new URL(builder.toString());
+    } catch (MalformedURLException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private void appendPath(StringBuilder builder, BlobInfo blobInfo) {
+    String bucketPath = bucketPaths.get(blobInfo.bucket());
+    if (bucketPath == null) {
+      bucketPath = bucketPath(blobInfo.bucket());
+      if (bucketPaths.size() < MAX_CACHED_BUCKETS) {
+        bucketPaths.put(blobInfo.bucket(), bucketPath);
+      }
+    }
+    String name = blobInfo.name();
+    if (name.startsWith("/")) {
+      builder.append(bucketPath, 0, bucketPath.length() - 1);
+    } else {
+      builder.append(bucketPath);
+    }
+    builder.append(name);
+  }
+
+  private static String bucketPath(String bucket) {
+    StringBuilder path = new StringBuilder(bucket.length() + 2);
+    if (!bucket.startsWith("/")) {
+      path.append('/');
+    }
+    path.append(bucket);
+    if (!bucket.endsWith("/")) {
+      path.append('/');
+    }
+    return path.toString();
+  }
+
+  /**
+   * Appends a base64 string to {@code builder}, encoded as {@link java.net.URLEncoder} would.
+   * Only {@code '+'}, {@code '/'} and {@code '='} need encoding in the base64 alphabet.
+   */
+  private static void appendUrlEncoded(StringBuilder builder, String base64) {
+    for (int i = 0; i < base64.length(); i++) {
+      char c = base64.charAt(i);
+      if (c == '+' || c == '/' || c == '=') {
+        builder.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+      } else {
+        builder.append(c);
+      }
+    }
+  }
+}
@@ -35,6 +35,7 @@ import static com.google.cloud.storage.spi.StorageRpc.Option.VERSIONS;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_PARTIAL_CONTENT;
 import static javax.servlet.http.HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
 
 import com.google.api.client.googleapis.batch.BatchRequest;
@@ -42,6 +43,7 @@ import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
 import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
@@ -54,6 +56,7 @@ import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson.JacksonFactory;
 import com.google.api.services.storage.Storage;
+import com.google.api.services.storage.StorageRequest;
 import com.google.api.services.storage.Storage.Objects.Get;
 import com.google.api.services.storage.Storage.Objects.Insert;
 import com.google.api.services.storage.model.Bucket;
@@ -62,6 +65,11 @@ import com.google.api.services.storage.model.ComposeRequest;
 import com.google.api.services.storage.model.ComposeRequest.SourceObjects.ObjectPreconditions;
 import com.google.api.services.storage.model.Objects;
 import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.ByteBufferContent;
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.RetryHelper;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryParams;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
 import com.google.common.base.Function;
@@ -69,14 +77,24 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultStorageRpc implements StorageRpc {
 
@@ -105,25 +123,17 @@ public class DefaultStorageRpc implements StorageRpc {
     private static final int MAX_BATCH_SIZE = 100;
 
     private final Storage storage;
-    private final LinkedList<BatchRequest> batches;
-    private int currentBatchSize;
+    private final List<BatchEntry<?>> entries = new ArrayList<>();
 
     private DefaultRpcBatch(Storage storage) {
       this.storage = storage;
-      batches = new LinkedList<>();
-      batches.add(storage.batch());
     }
 
     @Override
     public void addDelete(StorageObject storageObject, RpcBatch.Callback<Void> callback,
         Map<Option, ?> options) {
       try {
-        if (currentBatchSize == MAX_BATCH_SIZE) {
-          batches.add(storage.batch());
-          currentBatchSize = 0;
-        }
-        deleteCall(storageObject, options).queue(batches.getLast(), toJsonCallback(callback));
-        currentBatchSize++;
+        entries.add(new BatchEntry<>(deleteCall(storageObject, options), callback));
       } catch (IOException ex) {
         throw translate(ex);
       }
@@ -133,12 +143,7 @@ public class DefaultStorageRpc implements StorageRpc {
     public void addPatch(StorageObject storageObject, RpcBatch.Callback<StorageObject> callback,
         Map<Option, ?> options) {
       try {
-        if (currentBatchSize == MAX_BATCH_SIZE) {
-          batches.add(storage.batch());
-          currentBatchSize = 0;
-        }
-        patchCall(storageObject, options).queue(batches.getLast(), toJsonCallback(callback));
-        currentBatchSize++;
+        entries.add(new BatchEntry<>(patchCall(storageObject, options), callback));
       } catch (IOException ex) {
         throw translate(ex);
       }
@@ -148,42 +153,207 @@ public class DefaultStorageRpc implements StorageRpc {
     public void addGet(StorageObject storageObject, RpcBatch.Callback<StorageObject> callback,
         Map<Option, ?> options) {
       try {
-        if (currentBatchSize == MAX_BATCH_SIZE) {
-          batches.add(storage.batch());
-          currentBatchSize = 0;
-        }
-        getCall(storageObject, options).queue(batches.getLast(), toJsonCallback(callback));
-        currentBatchSize++;
+        entries.add(new BatchEntry<>(getCall(storageObject, options), callback));
       } catch (IOException ex) {
         throw translate(ex);
       }
     }
 
+    /**
+     * Sends the batch in requests of up to {@link #MAX_BATCH_SIZE} operations, up to
+     * {@link StorageOptions#batchConcurrency()} of them at the same time. Operations that fail with
+     * a retryable error are sent again in a follow-up request, after the jittered exponential
+     * backoff of {@link RetryHelper#getSleepDuration(RetryParams, int)}, until
+     * {@link RetryParams#retryMaxAttempts()} attempts were made. If a request fails as a whole or
+     * the thread is interrupted, operations waiting to be retried are failed with their last error
+     * and operations not sent yet are failed with the request's error before the exception is
+     * thrown.
+     */
     @Override
     public void submit() {
+      RetryParams retryParams = options.retryParams();
+      List<BatchEntry<?>> pending = entries;
+      for (int attempt = 1; !pending.isEmpty(); attempt++) {
+        List<BatchEntry<?>> retries = attempt < retryParams.retryMaxAttempts()
+            ? Collections.synchronizedList(new ArrayList<BatchEntry<?>>()) : null;
+        for (BatchEntry<?> entry : pending) {
+          entry.sent = false;
+        }
+        try {
+          execute(pending, retries);
+          if (retries == null || retries.isEmpty()) {
+            break;
+          }
+          try {
+            Thread.sleep(RetryHelper.getSleepDuration(retryParams, attempt));
+          } catch (InterruptedException e) {
+            RetryInterruptedException.propagate();
+          }
+        } catch (StorageException | RetryInterruptedException e) {
+          failUncompleted(pending, retries, e);
+          throw e;
+        }
+        pending = new ArrayList<>(retries);
+      }
+    }
+
+    /**
+     * Fails the operations in {@code pending} that are waiting to be retried or were not sent. The
+     * operations of a request that failed as a whole are not notified, as they may have been
+     * processed by the service.
+     */
+    private void failUncompleted(List<BatchEntry<?>> pending, List<BatchEntry<?>> retries,
+        RuntimeException exception) {
+      GoogleJsonError notSentError = new GoogleJsonError();
+      if (exception instanceof StorageException) {
+        StorageException storageException = (StorageException) exception;
+        notSentError.setCode(storageException.code());
+        notSentError.setMessage(storageException.getMessage());
+      } else {
+        notSentError.setCode(StorageException.UNKNOWN_CODE);
+        notSentError.setMessage("Batch submission was interrupted");
+      }
+      Set<BatchEntry<?>> retried = new HashSet<>();
+      if (retries != null) {
+        synchronized (retries) {
+          retried.addAll(retries);
+        }
+      }
+      for (BatchEntry<?> entry : pending) {
+        if (retried.contains(entry)) {
+          entry.fail(entry.lastError);
+        } else if (!entry.sent) {
+          entry.fail(notSentError);
+        }
+      }
+    }
+
+    /**
+     * Executes the batch requests for {@code pending} operations. Operations failing with a
+     * retryable error are added to {@code retries}, unless it is {@code null}.
+     */
+    private void execute(List<BatchEntry<?>> pending,
+        final List<BatchEntry<?>> retries) {
+      List<List<BatchEntry<?>>> partitions = Lists.partition(pending, MAX_BATCH_SIZE);
+      if (partitions.size() == 1 || options.batchConcurrency() == 1) {
+        for (List<BatchEntry<?>> partition : partitions) {
+          executeBatch(partition, retries);
+        }
+        return;
+      }
+      ExecutorFactory<ScheduledExecutorService> executorFactory = options.executorFactory();
+      ScheduledExecutorService executor = executorFactory.get();
+      final Semaphore permits = new Semaphore(options.batchConcurrency());
+      List<Future<?>> results = new ArrayList<>(partitions.size());
+      try {
+        for (final List<BatchEntry<?>> partition : partitions) {
+          permits.acquire();
+          results.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+              try {
+                executeBatch(partition, retries);
+                return null;
+              } finally {
+                permits.release();
+              }
+            }
+          }));
+        }
+        StorageException failure = null;
+        for (Future<?> result : results) {
+          try {
+            result.get();
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              failure = e.getCause() instanceof StorageException
+                  ? (StorageException) e.getCause()
+                  : new StorageException(StorageException.UNKNOWN_CODE, e.getMessage(),
+                      e.getCause());
+            }
+          }
+        }
+        if (failure != null) {
+          throw failure;
+        }
+      } catch (InterruptedException e) {
+        for (Future<?> result : results) {
+          result.cancel(true);
+        }
+        RetryInterruptedException.propagate();
+      } finally {
+        executorFactory.release(executor);
+      }
+    }
+
+    private void executeBatch(List<BatchEntry<?>> partition,
+        List<BatchEntry<?>> retries) {
       try {
-        for (BatchRequest batch : batches) {
-          batch.execute();
+        BatchRequest batch = storage.batch();
+        for (BatchEntry<?> entry : partition) {
+          entry.queue(batch, retries);
         }
+        batch.execute();
       } catch (IOException ex) {
         throw translate(ex);
       }
     }
   }
 
-  private static <T> JsonBatchCallback<T> toJsonCallback(final RpcBatch.Callback<T> callback) {
-    return new JsonBatchCallback<T>() {
-      @Override
-      public void onSuccess(T response, HttpHeaders httpHeaders) throws IOException {
-        callback.onSuccess(response);
-      }
+  /**
+   * An operation of a batch, along with its callback.
+   */
+  private static class BatchEntry<T> {
 
-      @Override
-      public void onFailure(GoogleJsonError googleJsonError, HttpHeaders httpHeaders)
-          throws IOException {
+    private final StorageRequest<T> request;
+    private final RpcBatch.Callback<T> callback;
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean sent;
+    private volatile GoogleJsonError lastError;
+
+    BatchEntry(StorageRequest<T> request, RpcBatch.Callback<T> callback) {
+      this.request = request;
+      this.callback = callback;
+    }
+
+    /**
+     * Queues the operation to {@code batch}. If {@code retries} is not {@code null} and the
+     * operation fails with a retryable error, the entry is added to {@code retries} rather than
+     * notifying the callback of the failure.
+     */
+    void queue(BatchRequest batch, final List<BatchEntry<?>> retries)
+        throws IOException {
+      sent = true;
+      request.queue(batch, new JsonBatchCallback<T>() {
+        @Override
+        public void onSuccess(T response, HttpHeaders httpHeaders) throws IOException {
+          if (completed.compareAndSet(false, true)) {
+            callback.onSuccess(response);
+          }
+        }
+
+        @Override
+        public void onFailure(GoogleJsonError googleJsonError, HttpHeaders httpHeaders)
+            throws IOException {
+          if (retries != null && translate(googleJsonError).retryable()) {
+            lastError = googleJsonError;
+            retries.add(BatchEntry.this);
+          } else {
+            fail(googleJsonError);
+          }
+        }
+      });
+    }
+
+    /**
+     * Notifies the callback of a failure, unless it was already notified of the operation's
+     * outcome.
+     */
+    void fail(GoogleJsonError googleJsonError) {
+      if (completed.compareAndSet(false, true)) {
         callback.onFailure(googleJsonError);
       }
-    };
+    }
   }
 
   private static StorageException translate(IOException exception) {
@@ -487,16 +657,89 @@ public class DefaultStorageRpc implements StorageRpc {
     }
   }
 
+  @Override
+  public ReadResponse openRead(StorageObject from, Map<Option, ?> options, long position,
+      long bytes) {
+    try {
+      Get req = storage.objects()
+          .get(from.getBucket(), from.getName())
+          .setGeneration(from.getGeneration())
+          .setIfMetagenerationMatch(IF_METAGENERATION_MATCH.getLong(options))
+          .setIfMetagenerationNotMatch(IF_METAGENERATION_NOT_MATCH.getLong(options))
+          .setIfGenerationMatch(IF_GENERATION_MATCH.getLong(options))
+          .setIfGenerationNotMatch(IF_GENERATION_NOT_MATCH.getLong(options));
+      checkArgument(position >= 0, "Position should be non-negative, is %d", position);
+      checkArgument(bytes != 0, "Bytes should be positive or negative, is 0");
+      if (position > 0 || bytes > 0) {
+        StringBuilder range = new StringBuilder();
+        range.append("bytes=").append(position).append("-");
+        if (bytes > 0) {
+          range.append(position + bytes - 1);
+        }
+        req.getRequestHeaders().setRange(range.toString());
+      }
+      HttpResponse response = req.executeMedia();
+      HttpHeaders headers = response.getHeaders();
+      String generation = headers.getFirstHeaderStringValue("x-goog-generation");
+      InputStream content = response.getContent();
+      return new ReadResponse(headers.getETag(),
+          generation != null ? Long.valueOf(generation) : null, blobSize(headers),
+          contentOffset(response),
+          content != null ? content : new ByteArrayInputStream(new byte[0]));
+    } catch (IOException ex) {
+      StorageException serviceException = translate(ex);
+      if (serviceException.code() == SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+        return new ReadResponse(null, null, null, position,
+            new ByteArrayInputStream(new byte[0]));
+      }
+      throw serviceException;
+    }
+  }
+
+  /**
+   * Returns the position of the response's content in the blob: the start of the content range of
+   * a partial response, {@code 0} if the whole blob was returned.
+   */
+  private static long contentOffset(HttpResponse response) {
+    String contentRange = response.getHeaders().getContentRange();
+    if (response.getStatusCode() != SC_PARTIAL_CONTENT || contentRange == null) {
+      return 0;
+    }
+    // e.g. "bytes 100-199/1000"
+    int start = contentRange.indexOf(' ') + 1;
+    return Long.parseLong(contentRange.substring(start, contentRange.indexOf('-', start)).trim());
+  }
+
+  private static Long blobSize(HttpHeaders headers) {
+    String contentRange = headers.getContentRange();
+    if (contentRange != null) {
+      String size = contentRange.substring(contentRange.lastIndexOf('/') + 1);
+      return "*".equals(size) ? null : Long.valueOf(size);
+    }
+    // the content length is not the blob's size if the content is transcoded
+    return headers.getContentEncoding() == null ? headers.getContentLength() : null;
+  }
+
   @Override
   public void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last) {
+    write(uploadId, new ByteArrayContent(null, toWrite, toWriteOffset, length), destOffset, length,
+        last);
+  }
+
+  @Override
+  public void write(String uploadId, ByteBuffer toWrite, long destOffset, boolean last) {
+    write(uploadId, new ByteBufferContent(null, toWrite), destOffset, toWrite.remaining(), last);
+  }
+
+  private void write(String uploadId, HttpContent content, long destOffset, int length,
+      boolean last) {
     try {
       if (length == 0 && !last) {
         return;
       }
       GenericUrl url = new GenericUrl(uploadId);
-      HttpRequest httpRequest = storage.getRequestFactory().buildPutRequest(url,
-          new ByteArrayContent(null, toWrite, toWriteOffset, length));
+      HttpRequest httpRequest = storage.getRequestFactory().buildPutRequest(url, content);
       long limit = destOffset + length;
       StringBuilder range = new StringBuilder("bytes ");
       if (length == 0) {
@@ -20,7 +20,10 @@ import com.google.api.services.storage.model.Bucket;
 import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.storage.StorageException;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
 
@@ -183,6 +186,69 @@ public interface StorageRpc {
     }
   }
 
+  /**
+   * The response of a streaming read. The content must be closed once consumed.
+   */
+  class ReadResponse implements Closeable {
+
+    private final String etag;
+    private final Long generation;
+    private final Long blobSize;
+    private final long offset;
+    private final InputStream content;
+
+    public ReadResponse(String etag, Long generation, Long blobSize, long offset,
+        InputStream content) {
+      this.etag = etag;
+      this.generation = generation;
+      this.blobSize = blobSize;
+      this.offset = offset;
+      this.content = content;
+    }
+
+    /**
+     * Returns the etag of the blob, or {@code null} if unknown.
+     */
+    public String etag() {
+      return etag;
+    }
+
+    /**
+     * Returns the generation of the blob, or {@code null} if unknown.
+     */
+    public Long generation() {
+      return generation;
+    }
+
+    /**
+     * Returns the size of the blob, or {@code null} if unknown (e.g. for transcoded content).
+     */
+    public Long blobSize() {
+      return blobSize;
+    }
+
+    /**
+     * Returns the position in the blob of the first byte of {@link #content()}. This is not the
+     * requested position if the range was ignored, e.g. for transcoded content, which is always
+     * returned whole.
+     */
+    public long offset() {
+      return offset;
+    }
+
+    /**
+     * Returns the content read.
+     */
+    public InputStream content() {
+      return content;
+    }
+
+    @Override
+    public void close() throws IOException {
+      content.close();
+    }
+  }
+
   /**
    * Creates a new bucket.
    *
@@ -283,6 +349,17 @@ public interface StorageRpc {
    */
   Tuple<String, byte[]> read(StorageObject from, Map<Option, ?> options, long position, int bytes);
 
+  /**
+   * Opens a stream over the content of a storage object, starting at the given position. The
+   * response body is not buffered, bytes are read from the connection as the returned content is
+   * consumed. If {@code position} is beyond the end of the object an empty content is returned.
+   *
+   * @param bytes the maximum number of bytes to read or a negative value to read up to the end of
+   *     the object
+   * @throws StorageException upon failure
+   */
+  ReadResponse openRead(StorageObject from, Map<Option, ?> options, long position, long bytes);
+
   /**
    * Opens a resumable upload channel for a given storage object.
    *
@@ -298,6 +375,15 @@ public interface StorageRpc {
   void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last);
 
+  /**
+   * Writes the remaining bytes of {@code toWrite} to a storage object at the provided location.
+   * The position of {@code toWrite} is not modified. Direct buffers are uploaded without being
+   * copied onto the heap.
+   *
+   * @throws StorageException upon failure
+   */
+  void write(String uploadId, ByteBuffer toWrite, long destOffset, boolean last);
+
   /**
    * Sends a rewrite request to open a rewrite channel.
    *
@@ -37,7 +37,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.Arrays;
@@ -90,8 +94,8 @@ public class BlobReadChannelTest {
     byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(42);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(42);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag", result));
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     reader.read(secondReadBuffer);
@@ -110,11 +114,11 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(42);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", firstResult));
-    expect(storageRpcMock.read(
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag", firstResult));
+    expect(storageRpcMock.openRead(
         BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE, CUSTOM_CHUNK_SIZE))
-            .andReturn(StorageRpc.Tuple.of("etag", secondResult));
+            .andReturn(response(DEFAULT_CHUNK_SIZE, "etag", secondResult));
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     reader.read(secondReadBuffer);
@@ -128,25 +132,84 @@ public class BlobReadChannelTest {
     reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
     byte[] result = {};
     ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag", result));
     replay(storageRpcMock);
     assertEquals(-1, reader.read(readBuffer));
   }
 
+  @Test
+  public void testReadAhead() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    reader.readAhead(1);
+    byte[] firstResult = randomByteArray(DEFAULT_CHUNK_SIZE);
+    byte[] secondResult = randomByteArray(42);
+    ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(StorageRpc.Tuple.of("etag", firstResult));
+    expect(storageRpcMock.read(
+        BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE))
+            .andReturn(StorageRpc.Tuple.of("etag", secondResult));
+    expect(storageRpcMock.read(
+        BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 2 * DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE))
+            .andReturn(StorageRpc.Tuple.of((String) null, new byte[0])).times(0, 1);
+    replay(storageRpcMock);
+    assertEquals(DEFAULT_CHUNK_SIZE, reader.read(firstReadBuffer));
+    assertEquals(42, reader.read(secondReadBuffer));
+    assertEquals(-1, reader.read(secondReadBuffer));
+    reader.close();
+    assertArrayEquals(firstResult, firstReadBuffer.array());
+    assertArrayEquals(secondResult, Arrays.copyOf(secondReadBuffer.array(), 42));
+  }
+
   @Test
   public void testSeek() throws IOException {
     reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
     reader.seek(42);
     byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(42, "etag", result));
     replay(storageRpcMock);
     reader.read(readBuffer);
     assertArrayEquals(result, readBuffer.array());
   }
 
+  @Test
+  public void testReadRangeIgnored() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    reader.chunkSize(16);
+    byte[] result = randomByteArray(42);
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, 16))
+        .andReturn(response(0, "etag", result));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 16, 26))
+        .andReturn(response(0, "etag", result));
+    replay(storageRpcMock);
+    ByteBuffer readBuffer = ByteBuffer.allocate(42);
+    readBuffer.limit(16);
+    assertEquals(16, reader.read(readBuffer));
+    readBuffer.limit(42);
+    assertEquals(26, reader.read(readBuffer));
+    assertArrayEquals(result, readBuffer.array());
+    assertEquals(-1, reader.read(ByteBuffer.allocate(1)));
+  }
+
+  @Test
+  public void testReadUnexpectedOffset() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    reader.seek(42);
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(21, "etag", randomByteArray(DEFAULT_CHUNK_SIZE)));
+    replay(storageRpcMock);
+    try {
+      reader.read(ByteBuffer.allocate(DEFAULT_CHUNK_SIZE));
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      // expected
+    }
+  }
+
   @Test
   public void testClose() {
     replay(storageRpcMock);
@@ -178,11 +241,12 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag1", firstResult));
+    expect(storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag1", firstResult));
     expect(
-        storageRpcMock.read(blobId.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE,
-            DEFAULT_CHUNK_SIZE)).andReturn(StorageRpc.Tuple.of("etag2", secondResult));
+        storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE,
+            DEFAULT_CHUNK_SIZE))
+        .andReturn(response(DEFAULT_CHUNK_SIZE, "etag2", secondResult));
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     try {
@@ -201,10 +265,10 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(42);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", firstResult));
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", secondResult));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag", firstResult));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(42, "etag", secondResult));
     replay(storageRpcMock);
     reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
     reader.read(firstReadBuffer);
@@ -229,6 +293,91 @@ public class BlobReadChannelTest {
     assertEquals(state.toString(), secondState.toString());
   }
 
+  @Test
+  public void testReadRetry() throws IOException {
+    options = options.toBuilder()
+        .retryParams(RetryParams.builder().retryMinAttempts(1).retryMaxAttempts(2)
+            .initialRetryDelayMillis(1).build())
+        .build();
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
+    InputStream failingStream = new FilterInputStream(new ByteArrayInputStream(result, 0, 42)) {
+      @Override
+      public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read < 0) {
+          throw new SocketTimeoutException();
+        }
+        return read;
+      }
+    };
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(new StorageRpc.ReadResponse("etag", 1L, (long) result.length, 0, failingStream));
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(42, "etag", Arrays.copyOfRange(result, 42, result.length)));
+    replay(storageRpcMock);
+    ByteBuffer readBuffer = ByteBuffer.allocateDirect(DEFAULT_CHUNK_SIZE);
+    while (readBuffer.hasRemaining()) {
+      reader.read(readBuffer);
+    }
+    readBuffer.flip();
+    assertEquals(ByteBuffer.wrap(result), readBuffer);
+  }
+
+  @Test
+  public void testSizeAndGenerationFromFirstResponse() throws IOException {
+    BlobId blobId = BlobId.of(BUCKET_NAME, BLOB_NAME);
+    BlobId pinnedBlobId = BlobId.of(BUCKET_NAME, BLOB_NAME, 7L);
+    reader = new BlobReadChannel(options, blobId, EMPTY_RPC_OPTIONS);
+    reader.chunkSize(16);
+    byte[] result = randomByteArray(42);
+    expect(storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, 16))
+        .andReturn(new StorageRpc.ReadResponse("etag", 7L, 42L, 0,
+            new ByteArrayInputStream(Arrays.copyOf(result, 16))));
+    expect(storageRpcMock.openRead(pinnedBlobId.toPb(), EMPTY_RPC_OPTIONS, 16, 16))
+        .andReturn(response(16, "etag", Arrays.copyOfRange(result, 16, 32)));
+    replay(storageRpcMock);
+    assertEquals(42L, reader.size());
+    assertEquals(7L, (long) reader.generation());
+    ByteBuffer readBuffer = ByteBuffer.allocate(32);
+    reader.read(readBuffer);
+    reader.read(readBuffer);
+    assertArrayEquals(Arrays.copyOf(result, 32), readBuffer.array());
+  }
+
+  @Test
+  public void testSizeWithoutSizeInResponse() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    byte[] result = randomByteArray(42);
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(response(0, "etag", result));
+    expect(storageRpcMock.get(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS))
+        .andReturn(BlobInfo.builder(BLOB_ID).size(42L).build().toPb());
+    replay(storageRpcMock);
+    assertEquals(42L, reader.size());
+    ByteBuffer readBuffer = ByteBuffer.allocate(42);
+    reader.read(readBuffer);
+    assertArrayEquals(result, readBuffer.array());
+  }
+
+  @Test
+  public void testSizeNotFound() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    expect(storageRpcMock.openRead(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andThrow(new StorageException(404, "not found"));
+    replay(storageRpcMock);
+    try {
+      reader.size();
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      assertEquals(404, ex.code());
+    }
+  }
+
+  private static StorageRpc.ReadResponse response(long offset, String etag, byte[] content) {
+    return new StorageRpc.ReadResponse(etag, null, null, offset, new ByteArrayInputStream(content));
+  }
+
   private static byte[] randomByteArray(int size) {
     byte[] byteArray = new byte[size];
     RANDOM.nextBytes(byteArray);
@@ -126,15 +126,36 @@ public class BlobWriteChannelTest {
   @Test
   public void testWriteWithFlush() throws IOException {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
-    Capture<byte[]> capturedBuffer = Capture.newInstance();
-    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L),
-        eq(CUSTOM_CHUNK_SIZE), eq(false));
+    Capture<ByteBuffer> capturedBuffer = Capture.newInstance();
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0L), eq(false));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     writer.chunkSize(CUSTOM_CHUNK_SIZE);
     ByteBuffer buffer = randomBuffer(CUSTOM_CHUNK_SIZE);
     assertEquals(CUSTOM_CHUNK_SIZE, writer.write(buffer));
-    assertArrayEquals(buffer.array(), capturedBuffer.getValue());
+    assertEquals(ByteBuffer.wrap(buffer.array()), capturedBuffer.getValue());
+  }
+
+  @Test
+  public void testWriteDirectBufferWithFlush() throws IOException {
+    expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
+    Capture<ByteBuffer> capturedBuffer = Capture.newInstance();
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0L), eq(false));
+    Capture<byte[]> capturedTail = Capture.newInstance();
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedTail), eq(0), eq((long) CUSTOM_CHUNK_SIZE),
+        eq(1), eq(true));
+    replay(storageRpcMock);
+    writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
+    writer.chunkSize(CUSTOM_CHUNK_SIZE);
+    ByteBuffer content = randomBuffer(CUSTOM_CHUNK_SIZE + 1);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(CUSTOM_CHUNK_SIZE + 1);
+    buffer.put(content.array());
+    buffer.flip();
+    assertEquals(CUSTOM_CHUNK_SIZE + 1, writer.write(buffer));
+    writer.close();
+    assertTrue(capturedBuffer.getValue().isDirect());
+    assertEquals(ByteBuffer.wrap(content.array(), 0, CUSTOM_CHUNK_SIZE), capturedBuffer.getValue());
+    assertEquals(content.get(CUSTOM_CHUNK_SIZE), capturedTail.getValue()[0]);
   }
 
   @Test
@@ -207,22 +228,22 @@ public class BlobWriteChannelTest {
   @Test
   public void testSaveAndRestore() throws IOException {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
-    Capture<byte[]> capturedBuffer = Capture.newInstance(CaptureType.ALL);
+    Capture<ByteBuffer> capturedBuffer = Capture.newInstance(CaptureType.ALL);
     Capture<Long> capturedPosition = Capture.newInstance(CaptureType.ALL);
-    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0),
-        captureLong(capturedPosition), eq(DEFAULT_CHUNK_SIZE), eq(false));
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), captureLong(capturedPosition),
+        eq(false));
     expectLastCall().times(2);
     replay(storageRpcMock);
     ByteBuffer buffer1 = randomBuffer(DEFAULT_CHUNK_SIZE);
     ByteBuffer buffer2 = randomBuffer(DEFAULT_CHUNK_SIZE);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     assertEquals(DEFAULT_CHUNK_SIZE, writer.write(buffer1));
-    assertArrayEquals(buffer1.array(), capturedBuffer.getValues().get(0));
+    assertEquals(ByteBuffer.wrap(buffer1.array()), capturedBuffer.getValues().get(0));
     assertEquals(new Long(0L), capturedPosition.getValues().get(0));
     RestorableState<WriteChannel> writerState = writer.capture();
     WriteChannel restoredWriter = writerState.restore();
     assertEquals(DEFAULT_CHUNK_SIZE, restoredWriter.write(buffer2));
-    assertArrayEquals(buffer2.array(), capturedBuffer.getValues().get(1));
+    assertEquals(ByteBuffer.wrap(buffer2.array()), capturedBuffer.getValues().get(1));
     assertEquals(new Long(DEFAULT_CHUNK_SIZE), capturedPosition.getValues().get(1));
   }
 
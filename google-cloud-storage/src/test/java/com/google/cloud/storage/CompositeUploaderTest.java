@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.storage.Storage.BlobTargetOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.Storage.PredefinedAcl;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CompositeUploaderTest {
+
+  private static final String BUCKET_NAME = "b";
+  private static final String PREFIX = "n.part-";
+  private static final BlobInfo BLOB_INFO = BlobInfo.builder(BUCKET_NAME, "n").build();
+  private static final byte[] CONTENT = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+  private Storage storageMock;
+  private Storage serviceMockReturnsOptions;
+  private ExecutorFactory<ScheduledExecutorService> executorFactory;
+
+  @Before
+  public void setUp() {
+    executorFactory = new ExecutorFactory<ScheduledExecutorService>() {
+      @Override
+      public ScheduledExecutorService get() {
+        return Executors.newScheduledThreadPool(2);
+      }
+
+      @Override
+      public void release(ScheduledExecutorService executor) {
+        executor.shutdown();
+      }
+    };
+    StorageOptions options = StorageOptions.builder()
+        .projectId("projectId")
+        .executorFactory(executorFactory)
+        .build();
+    storageMock = EasyMock.createMock(Storage.class);
+    EasyMock.expect(storageMock.options()).andReturn(options).anyTimes();
+    serviceMockReturnsOptions = EasyMock.createMock(Storage.class);
+    EasyMock.expect(serviceMockReturnsOptions.options()).andReturn(options).anyTimes();
+    EasyMock.replay(serviceMockReturnsOptions);
+  }
+
+  @After
+  public void tearDown() {
+    EasyMock.verify(storageMock);
+  }
+
+  private Blob blob(BlobInfo info) {
+    return new Blob(serviceMockReturnsOptions, new BlobInfo.BuilderImpl(info));
+  }
+
+  private BlobInfo part(int index) {
+    return BlobInfo.builder(BUCKET_NAME, PREFIX + index).build();
+  }
+
+  private BlobInfo partWithGeneration(int index) {
+    return BlobInfo.builder(BlobId.of(BUCKET_NAME, PREFIX + index, 42L)).build();
+  }
+
+  @Test
+  public void testUploadSinglePart() {
+    Blob expected = blob(BLOB_INFO);
+    EasyMock.expect(storageMock.create(EasyMock.eq(BLOB_INFO), EasyMock.aryEq(CONTENT)))
+        .andReturn(expected);
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 16, 2, PREFIX);
+    assertSame(expected, uploader.upload(new ByteArrayInputStream(CONTENT)));
+  }
+
+  @Test
+  public void testUpload() {
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(0)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 0, 4)))).andReturn(blob(partWithGeneration(0)));
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(1)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 4, 8)))).andReturn(blob(partWithGeneration(1)));
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(2)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 8, 10)))).andReturn(blob(partWithGeneration(2)));
+    Capture<ComposeRequest> capturedRequest = Capture.newInstance();
+    Blob expected = blob(BLOB_INFO);
+    EasyMock.expect(storageMock.compose(EasyMock.capture(capturedRequest))).andReturn(expected);
+    EasyMock.expect(storageMock.delete(
+        ImmutableList.of(part(0).blobId(), part(1).blobId(), part(2).blobId())))
+        .andReturn(ImmutableList.of(true, true, true));
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 4, 2, PREFIX);
+    BlobTargetOption option = BlobTargetOption.doesNotExist();
+    assertSame(expected, uploader.upload(new ByteArrayInputStream(CONTENT), option));
+    ComposeRequest request = capturedRequest.getValue();
+    assertEquals(BLOB_INFO, request.target());
+    assertEquals(ImmutableList.of(option), request.targetOptions());
+    assertEquals(3, request.sourceBlobs().size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(PREFIX + i, request.sourceBlobs().get(i).name());
+      assertEquals(42L, (long) request.sourceBlobs().get(i).generation());
+    }
+  }
+
+  @Test
+  public void testUploadNestedCompose() {
+    int parts = CompositeUploader.MAX_COMPOSE_SOURCES + 1;
+    byte[] content = new byte[parts];
+    List<BlobId> temporaries = new ArrayList<>();
+    for (int i = 0; i < parts; i++) {
+      EasyMock.expect(storageMock.create(EasyMock.eq(part(i)),
+          EasyMock.aryEq(new byte[]{content[i]}))).andReturn(blob(part(i)));
+      temporaries.add(part(i).blobId());
+    }
+    final Capture<ComposeRequest> capturedRequests = Capture.newInstance(CaptureType.ALL);
+    EasyMock.expect(storageMock.compose(EasyMock.capture(capturedRequests)))
+        .andAnswer(new IAnswer<Blob>() {
+          @Override
+          public Blob answer() throws Throwable {
+            return blob(((ComposeRequest) EasyMock.getCurrentArguments()[0]).target());
+          }
+        }).times(3);
+    temporaries.add(part(parts).blobId());
+    temporaries.add(part(parts + 1).blobId());
+    EasyMock.expect(storageMock.delete(temporaries)).andReturn(null);
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 1, 4, PREFIX);
+    assertEquals(BLOB_INFO.name(), uploader.upload(new ByteArrayInputStream(content)).name());
+    List<ComposeRequest> requests = capturedRequests.getValues();
+    assertEquals(3, requests.size());
+    ComposeRequest last = requests.get(2);
+    assertEquals(BLOB_INFO, last.target());
+    assertEquals(2, last.sourceBlobs().size());
+    assertEquals(PREFIX + parts, last.sourceBlobs().get(0).name());
+    assertEquals(PREFIX + (parts + 1), last.sourceBlobs().get(1).name());
+  }
+
+  @Test
+  public void testUploadPartOptions() {
+    BlobTargetOption aclOption = BlobTargetOption.predefinedAcl(PredefinedAcl.PRIVATE);
+    BlobTargetOption preconditionOption = BlobTargetOption.doesNotExist();
+    int parts = CompositeUploader.MAX_COMPOSE_SOURCES + 1;
+    byte[] content = new byte[parts];
+    List<BlobId> temporaries = new ArrayList<>();
+    for (int i = 0; i < parts; i++) {
+      // preconditions on the target blob are not applied to parts
+      EasyMock.expect(storageMock.create(EasyMock.eq(part(i)),
+          EasyMock.aryEq(new byte[]{content[i]}), EasyMock.eq(aclOption)))
+          .andReturn(blob(part(i)));
+      temporaries.add(part(i).blobId());
+    }
+    final Capture<ComposeRequest> capturedRequests = Capture.newInstance(CaptureType.ALL);
+    EasyMock.expect(storageMock.compose(EasyMock.capture(capturedRequests)))
+        .andAnswer(new IAnswer<Blob>() {
+          @Override
+          public Blob answer() throws Throwable {
+            return blob(((ComposeRequest) EasyMock.getCurrentArguments()[0]).target());
+          }
+        }).times(3);
+    temporaries.add(part(parts).blobId());
+    temporaries.add(part(parts + 1).blobId());
+    EasyMock.expect(storageMock.delete(temporaries)).andReturn(null);
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 1, 4, PREFIX);
+    uploader.upload(new ByteArrayInputStream(content), aclOption, preconditionOption);
+    List<ComposeRequest> requests = capturedRequests.getValues();
+    assertEquals(ImmutableList.of(aclOption), requests.get(0).targetOptions());
+    assertEquals(ImmutableList.of(aclOption), requests.get(1).targetOptions());
+    assertEquals(ImmutableList.of(aclOption, preconditionOption), requests.get(2).targetOptions());
+  }
+
+  @Test
+  public void testUploadPartAcl() {
+    List<Acl> acl = ImmutableList.of(Acl.of(new Acl.User("user@example.com"), Acl.Role.READER));
+    BlobInfo target = BLOB_INFO.toBuilder().acl(acl).build();
+    final Capture<BlobInfo> capturedParts = Capture.newInstance(CaptureType.ALL);
+    EasyMock.expect(storageMock.create(EasyMock.capture(capturedParts),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 0, 5)))).andReturn(blob(part(0)));
+    EasyMock.expect(storageMock.create(EasyMock.capture(capturedParts),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 5, 10)))).andReturn(blob(part(1)));
+    EasyMock.expect(storageMock.compose(EasyMock.<ComposeRequest>anyObject()))
+        .andReturn(blob(target));
+    EasyMock.expect(storageMock.delete(ImmutableList.of(part(0).blobId(), part(1).blobId())))
+        .andReturn(null);
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, target, 5, 2, PREFIX);
+    uploader.upload(new ByteArrayInputStream(CONTENT));
+    assertEquals(2, capturedParts.getValues().size());
+    for (BlobInfo partInfo : capturedParts.getValues()) {
+      assertEquals(acl, partInfo.acl());
+    }
+  }
+
+  @Test
+  public void testUploadFails() {
+    StorageException exception = new StorageException(500, "message");
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(0)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 0, 5)))).andThrow(exception);
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(1)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 5, 10)))).andReturn(blob(part(1))).times(0, 1);
+    EasyMock.expect(storageMock.delete(EasyMock.<Iterable<BlobId>>anyObject())).andReturn(null);
+    EasyMock.replay(storageMock);
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 5, 1, PREFIX);
+    try {
+      uploader.upload(new ByteArrayInputStream(CONTENT));
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      assertSame(exception, ex);
+    }
+  }
+
+  @Test
+  public void testUploadInterrupted() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean created = new AtomicBoolean();
+    final AtomicBoolean deletedAfterCreate = new AtomicBoolean();
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(0)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 0, 5)))).andAnswer(new IAnswer<Blob>() {
+          @Override
+          public Blob answer() throws Throwable {
+            started.countDown();
+            Thread.sleep(200);
+            created.set(true);
+            return blob(part(0));
+          }
+        });
+    EasyMock.expect(storageMock.create(EasyMock.eq(part(1)),
+        EasyMock.aryEq(Arrays.copyOfRange(CONTENT, 5, 10)))).andReturn(blob(part(1))).times(0, 1);
+    EasyMock.expect(storageMock.delete(EasyMock.<Iterable<BlobId>>anyObject()))
+        .andAnswer(new IAnswer<List<Boolean>>() {
+          @Override
+          public List<Boolean> answer() throws Throwable {
+            deletedAfterCreate.set(created.get());
+            return null;
+          }
+        });
+    EasyMock.replay(storageMock);
+    final Thread uploadThread = Thread.currentThread();
+    Thread interrupter = new Thread() {
+      @Override
+      public void run() {
+        Uninterruptibles.awaitUninterruptibly(started);
+        uploadThread.interrupt();
+      }
+    };
+    interrupter.start();
+    CompositeUploader uploader = new CompositeUploader(storageMock, BLOB_INFO, 5, 2, PREFIX);
+    try {
+      uploader.upload(new ByteArrayInputStream(CONTENT));
+      fail("Expected RetryInterruptedException");
+    } catch (RetryInterruptedException ex) {
+      // expected
+    }
+    // temporaries are only deleted once in-flight parts are created, the interrupt is kept
+    assertTrue(Thread.interrupted());
+    assertTrue(deletedAfterCreate.get());
+    interrupter.join();
+  }
+}
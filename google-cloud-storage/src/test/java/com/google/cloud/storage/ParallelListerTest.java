@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+import com.google.cloud.Page;
+import com.google.cloud.PageImpl;
+import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class ParallelListerTest {
+
+  private static final String BUCKET_NAME = "b";
+  private static final BlobListOption PAGE_SIZE = BlobListOption.pageSize(2);
+  private static final List<String> NAMES =
+      ImmutableList.of("a", "b/1", "b/2", "b/3", "c", "d/1");
+
+  private Storage storageMock;
+  private Storage serviceMockReturnsOptions;
+  private ExecutorFactory<ScheduledExecutorService> executorFactory;
+
+  @Before
+  public void setUp() {
+    executorFactory = new ExecutorFactory<ScheduledExecutorService>() {
+      @Override
+      public ScheduledExecutorService get() {
+        return Executors.newScheduledThreadPool(2);
+      }
+
+      @Override
+      public void release(ScheduledExecutorService executor) {
+        executor.shutdown();
+      }
+    };
+    StorageOptions options = StorageOptions.builder()
+        .projectId("projectId")
+        .executorFactory(executorFactory)
+        .build();
+    storageMock = EasyMock.createMock(Storage.class);
+    EasyMock.expect(storageMock.options()).andReturn(options).anyTimes();
+    serviceMockReturnsOptions = EasyMock.createMock(Storage.class);
+    EasyMock.expect(serviceMockReturnsOptions.options()).andReturn(options).anyTimes();
+    EasyMock.replay(serviceMockReturnsOptions);
+  }
+
+  @After
+  public void tearDown() {
+    EasyMock.verify(storageMock);
+  }
+
+  private Blob blob(String name) {
+    return new Blob(serviceMockReturnsOptions,
+        new BlobInfo.BuilderImpl(BlobInfo.builder(BUCKET_NAME, name).build()));
+  }
+
+  private Blob directory(String name) {
+    return new Blob(serviceMockReturnsOptions,
+        new BlobInfo.BuilderImpl(BlobInfo.builder(BUCKET_NAME, name).isDirectory(true).build()));
+  }
+
+  private static Page<Blob> page(final Page<Blob> next, Blob... blobs) {
+    PageImpl.NextPageFetcher<Blob> fetcher = new PageImpl.NextPageFetcher<Blob>() {
+      @Override
+      public Page<Blob> nextPage() {
+        return next;
+      }
+    };
+    return new PageImpl<>(fetcher, next != null ? "cursor" : null, ImmutableList.copyOf(blobs));
+  }
+
+  private void expectListing() {
+    // blobs and directories are returned separately, a directory is repeated on the next page
+    Page<Blob> rootPage = page(page(null, blob("c"), directory("b/"), directory("d/")),
+        blob("a"), directory("b/"));
+    EasyMock.expect(storageMock.list(BUCKET_NAME, PAGE_SIZE, BlobListOption.currentDirectory()))
+        .andReturn(rootPage);
+    EasyMock.expect(storageMock.list(BUCKET_NAME, PAGE_SIZE, BlobListOption.prefix("b/")))
+        .andReturn(page(page(null, blob("b/3")), blob("b/1"), blob("b/2")));
+    EasyMock.expect(storageMock.list(BUCKET_NAME, PAGE_SIZE, BlobListOption.prefix("d/")))
+        .andReturn(page(null, blob("d/1")));
+    EasyMock.replay(storageMock);
+  }
+
+  @Test
+  public void testListOrdered() {
+    expectListing();
+    ParallelLister lister = new ParallelLister(storageMock, BUCKET_NAME, 2, true, PAGE_SIZE);
+    List<String> names = new ArrayList<>();
+    for (Blob blob : ImmutableList.copyOf(lister.start())) {
+      names.add(blob.name());
+    }
+    assertEquals(NAMES, names);
+  }
+
+  @Test
+  public void testListUnordered() {
+    expectListing();
+    ParallelLister lister = new ParallelLister(storageMock, BUCKET_NAME, 1, false, PAGE_SIZE);
+    Set<String> names = new HashSet<>();
+    for (Blob blob : ImmutableList.copyOf(lister.start())) {
+      assertFalse(blob.isDirectory());
+      names.add(blob.name());
+    }
+    assertEquals(ImmutableSet.copyOf(NAMES), names);
+  }
+
+  @Test
+  public void testListWithPrefix() {
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.prefix("p/"),
+        BlobListOption.currentDirectory())).andReturn(page(null, blob("p/a"), directory("p/b/")));
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.prefix("p/b/")))
+        .andReturn(page(null, blob("p/b/1")));
+    EasyMock.replay(storageMock);
+    ParallelLister lister =
+        new ParallelLister(storageMock, BUCKET_NAME, 4, true, BlobListOption.prefix("p/"));
+    List<String> names = new ArrayList<>();
+    for (Blob blob : ImmutableList.copyOf(lister.start())) {
+      names.add(blob.name());
+    }
+    assertEquals(ImmutableList.of("p/a", "p/b/1"), names);
+  }
+
+  @Test
+  public void testListFails() {
+    StorageException exception = new StorageException(500, "message");
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.currentDirectory()))
+        .andReturn(page(null, directory("b/")));
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.prefix("b/")))
+        .andThrow(exception);
+    EasyMock.replay(storageMock);
+    ParallelLister lister = new ParallelLister(storageMock, BUCKET_NAME, 2, false).start();
+    try {
+      lister.hasNext();
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      assertSame(exception, ex);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testListFailsWithError() {
+    final Error error = new OutOfMemoryError("message");
+    PageImpl.NextPageFetcher<Blob> fetcher = new PageImpl.NextPageFetcher<Blob>() {
+      @Override
+      public Page<Blob> nextPage() {
+        throw error;
+      }
+    };
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.currentDirectory()))
+        .andReturn(new PageImpl<>(fetcher, "cursor", ImmutableList.of(blob("a"))));
+    EasyMock.replay(storageMock);
+    ParallelLister lister = new ParallelLister(storageMock, BUCKET_NAME, 2, false).start();
+    try {
+      ImmutableList.copyOf(lister);
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      assertSame(error, ex.getCause());
+    }
+  }
+
+  @Test
+  public void testClose() {
+    EasyMock.expect(storageMock.list(BUCKET_NAME, BlobListOption.currentDirectory()))
+        .andReturn(page(null, blob("a"), blob("b"))).times(0, 1);
+    EasyMock.replay(storageMock);
+    ParallelLister lister = new ParallelLister(storageMock, BUCKET_NAME, 2, true).start();
+    lister.close();
+    lister.close();
+    assertFalse(lister.hasNext());
+  }
+
+  @Test
+  public void testUnsupportedOptions() {
+    EasyMock.replay(storageMock);
+    try {
+      new ParallelLister(storageMock, BUCKET_NAME, 2, true, BlobListOption.currentDirectory());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+    try {
+      new ParallelLister(storageMock, BUCKET_NAME, 2, true, BlobListOption.pageToken("token"));
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+}
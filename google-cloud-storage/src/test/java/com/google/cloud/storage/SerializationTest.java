@@ -71,6 +71,7 @@ public class SerializationTest extends BaseSerializationTest {
     StorageOptions otherOptions = options.toBuilder()
         .projectId("p2")
         .authCredentials(null)
+        .batchConcurrency(4)
         .build();
     return new Serializable[]{ACL_DOMAIN, ACL_GROUP, ACL_PROJECT_, ACL_USER, ACL_RAW, ACL,
         BLOB_INFO, BLOB, BUCKET_INFO, BUCKET, ORIGIN, CORS, PAGE_RESULT, BLOB_LIST_OPTIONS,
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.services.storage.model.StorageObject;
@@ -31,6 +32,7 @@ import com.google.cloud.AuthCredentials.ServiceAccountAuthCredentials;
 import com.google.cloud.Clock;
 import com.google.cloud.Page;
 import com.google.cloud.ReadChannel;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.cloud.RetryParams;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Storage.CopyRequest;
@@ -53,11 +55,16 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.net.SocketTimeoutException;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
@@ -69,6 +76,7 @@ import java.security.spec.EncodedKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -983,6 +991,105 @@ public class StorageImplTest {
     assertArrayEquals(BLOB_CONTENT, readBytes);
   }
 
+  @Test
+  public void testDownloadTo() {
+    EasyMock.expect(storageRpcMock.openRead(BLOB_INFO1.blobId().toPb(), BLOB_SOURCE_OPTIONS, 0, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, (long) BLOB_CONTENT.length, 0,
+            new ByteArrayInputStream(BLOB_CONTENT)));
+    EasyMock.replay(storageRpcMock);
+    initializeService();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    storage.downloadTo(BLOB_INFO1.blobId(), Channels.newChannel(output),
+        BLOB_SOURCE_GENERATION_FROM_BLOB_ID, BLOB_SOURCE_METAGENERATION);
+    assertArrayEquals(BLOB_CONTENT, output.toByteArray());
+  }
+
+  @Test
+  public void testDownloadToRetryResumes() {
+    BlobId blobId = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
+    InputStream failingStream =
+        new FilterInputStream(new ByteArrayInputStream(BLOB_CONTENT, 0, 2)) {
+          @Override
+          public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read < 0) {
+              throw new SocketTimeoutException();
+            }
+            return read;
+          }
+        };
+    EasyMock.expect(storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, (long) BLOB_CONTENT.length, 0,
+            failingStream));
+    // the retry reads the generation returned by the first response
+    EasyMock.expect(storageRpcMock.openRead(
+        BlobId.of(BUCKET_NAME1, BLOB_NAME1, 42L).toPb(), EMPTY_RPC_OPTIONS, 2, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, (long) BLOB_CONTENT.length, 2,
+            new ByteArrayInputStream(BLOB_CONTENT, 2, BLOB_CONTENT.length - 2)));
+    EasyMock.replay(storageRpcMock);
+    storage = options.toBuilder().retryParams(RetryParams.defaultInstance()).build().service();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    storage.downloadTo(blobId, Channels.newChannel(output));
+    assertArrayEquals(BLOB_CONTENT, output.toByteArray());
+  }
+
+  @Test
+  public void testDownloadToRetryRangeIgnored() {
+    BlobId blobId = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
+    EasyMock.expect(storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, null, 0,
+            failingStream(BLOB_CONTENT, 2)));
+    // transcoded content is returned whole, whatever the requested range
+    EasyMock.expect(storageRpcMock.openRead(
+        BlobId.of(BUCKET_NAME1, BLOB_NAME1, 42L).toPb(), EMPTY_RPC_OPTIONS, 2, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, null, 0,
+            new ByteArrayInputStream(BLOB_CONTENT)));
+    EasyMock.replay(storageRpcMock);
+    storage = options.toBuilder().retryParams(RetryParams.defaultInstance()).build().service();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    storage.downloadTo(blobId, Channels.newChannel(output));
+    assertArrayEquals(BLOB_CONTENT, output.toByteArray());
+  }
+
+  @Test
+  public void testDownloadToRetryWrongOffset() {
+    BlobId blobId = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
+    EasyMock.expect(storageRpcMock.openRead(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, (long) BLOB_CONTENT.length, 0,
+            failingStream(BLOB_CONTENT, 2)));
+    EasyMock.expect(storageRpcMock.openRead(
+        BlobId.of(BUCKET_NAME1, BLOB_NAME1, 42L).toPb(), EMPTY_RPC_OPTIONS, 2, -1))
+        .andReturn(new StorageRpc.ReadResponse("etag", 42L, (long) BLOB_CONTENT.length, 1,
+            new ByteArrayInputStream(BLOB_CONTENT, 1, BLOB_CONTENT.length - 1)));
+    EasyMock.replay(storageRpcMock);
+    storage = options.toBuilder().retryParams(RetryParams.defaultInstance()).build().service();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      storage.downloadTo(blobId, Channels.newChannel(output));
+      fail("StorageException expected");
+    } catch (StorageException ex) {
+      assertTrue(ex.getMessage().contains("resumed at 1"));
+    }
+    // nothing is appended to what was already written
+    assertArrayEquals(Arrays.copyOf(BLOB_CONTENT, 2), output.toByteArray());
+  }
+
+  /**
+   * Returns a stream of the first {@code length} bytes of {@code content} that then fails.
+   */
+  private static InputStream failingStream(byte[] content, int length) {
+    return new FilterInputStream(new ByteArrayInputStream(content, 0, length)) {
+      @Override
+      public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read < 0) {
+          throw new SocketTimeoutException();
+        }
+        return read;
+      }
+    };
+  }
+
   @Test
   public void testBatch() {
     RpcBatch batchMock = EasyMock.mock(RpcBatch.class);
@@ -1009,8 +1116,9 @@ public class StorageImplTest {
   public void testReaderWithOptions() throws IOException {
     byte[] result = new byte[DEFAULT_CHUNK_SIZE];
     EasyMock.expect(
-        storageRpcMock.read(BLOB_INFO2.toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+        storageRpcMock.openRead(BLOB_INFO2.toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(new StorageRpc.ReadResponse("etag", null, null, 0,
+            new ByteArrayInputStream(result)));
     EasyMock.replay(storageRpcMock);
     initializeService();
     ReadChannel channel = storage.reader(BUCKET_NAME1, BLOB_NAME2, BLOB_SOURCE_GENERATION,
@@ -1024,8 +1132,9 @@ public class StorageImplTest {
   public void testReaderWithOptionsFromBlobId() throws IOException {
     byte[] result = new byte[DEFAULT_CHUNK_SIZE];
     EasyMock.expect(
-        storageRpcMock.read(BLOB_INFO1.blobId().toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+        storageRpcMock.openRead(BLOB_INFO1.blobId().toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
+        .andReturn(new StorageRpc.ReadResponse("etag", null, null, 0,
+            new ByteArrayInputStream(result)));
     EasyMock.replay(storageRpcMock);
     initializeService();
     ReadChannel channel = storage.reader(BLOB_INFO1.blobId(),
@@ -1144,6 +1253,51 @@ public class StorageImplTest {
         URLDecoder.decode(signature, UTF_8.name()))));
   }
 
+  @Test
+  public void testUrlSigner() throws NoSuchAlgorithmException, InvalidKeyException,
+      SignatureException, UnsupportedEncodingException {
+    EasyMock.replay(storageRpcMock);
+    ServiceAccountAuthCredentials authCredentials =
+        ServiceAccountAuthCredentials.createFor(ACCOUNT, privateKey);
+    storage = options.toBuilder().authCredentials(authCredentials).build().service();
+    UrlSigner urlSigner = storage.urlSigner(Storage.SignUrlOption.httpMethod(HttpMethod.PUT));
+    List<URL> urls = urlSigner.sign(ImmutableList.of(BLOB_INFO1, BLOB_INFO2), 14, TimeUnit.DAYS);
+    assertEquals(2, urls.size());
+    assertEquals(urls.get(0), urlSigner.sign(BLOB_INFO1, 14, TimeUnit.DAYS));
+    assertEquals(urls.get(0), storage.signUrl(BLOB_INFO1, 14, TimeUnit.DAYS,
+        Storage.SignUrlOption.httpMethod(HttpMethod.PUT)));
+    BlobInfo[] blobInfos = {BLOB_INFO1, BLOB_INFO2};
+    for (int i = 0; i < blobInfos.length; i++) {
+      String stringUrl = urls.get(i).toString();
+      String expectedUrl = new StringBuilder("https://storage.googleapis.com/")
+          .append(BUCKET_NAME1).append('/').append(blobInfos[i].name())
+          .append("?GoogleAccessId=").append(ACCOUNT).append("&Expires=").append(42L + 1209600)
+          .append("&Signature=").toString();
+      assertTrue(stringUrl.startsWith(expectedUrl));
+      String signature = stringUrl.substring(expectedUrl.length());
+      StringBuilder signedMessageBuilder = new StringBuilder();
+      signedMessageBuilder.append(HttpMethod.PUT).append("\n\n\n").append(42L + 1209600)
+          .append("\n/").append(BUCKET_NAME1).append('/').append(blobInfos[i].name());
+      Signature signer = Signature.getInstance("SHA256withRSA");
+      signer.initVerify(publicKey);
+      signer.update(signedMessageBuilder.toString().getBytes(UTF_8));
+      assertTrue(signer.verify(BaseEncoding.base64().decode(
+          URLDecoder.decode(signature, UTF_8.name()))));
+    }
+  }
+
+  @Test
+  public void testUrlSignerMissingMd5() {
+    EasyMock.replay(storageRpcMock);
+    ServiceAccountAuthCredentials authCredentials =
+        ServiceAccountAuthCredentials.createFor(ACCOUNT, privateKey);
+    storage = options.toBuilder().authCredentials(authCredentials).build().service();
+    UrlSigner urlSigner = storage.urlSigner(Storage.SignUrlOption.withMd5());
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Blob is missing a value for md5");
+    urlSigner.sign(ImmutableList.of(BLOB_INFO1, BLOB_INFO2), 14, TimeUnit.DAYS);
+  }
+
   @Test
   public void testGetAllArray() {
     BlobId blobId1 = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
@@ -1297,6 +1451,32 @@ public class StorageImplTest {
     assertEquals(expectedBlob1, readBlob);
   }
 
+  @Test
+  public void testThrottledFirstAttempt() {
+    BlobId blob = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
+    EasyMock.expect(storageRpcMock.get(blob.toPb(), EMPTY_RPC_OPTIONS))
+        .andThrow(new StorageException(503, "backendError")).anyTimes();
+    EasyMock.replay(storageRpcMock);
+    initializeService();
+    // once most attempts fail, adaptive throttling rejects first attempts locally
+    StorageException throttled = null;
+    for (int i = 0; i < 1000 && throttled == null; i++) {
+      try {
+        storage.get(blob);
+        fail("Expected StorageException");
+      } catch (StorageException ex) {
+        if (ex.getCause() instanceof ThrottledException) {
+          throttled = ex;
+        } else {
+          assertEquals(503, ex.code());
+        }
+      }
+    }
+    assertNotNull(throttled);
+    assertEquals(StorageException.UNKNOWN_CODE, throttled.code());
+    assertEquals(throttled.getCause().getMessage(), throttled.getMessage());
+  }
+
   @Test
   public void testNonRetryableException() {
     BlobId blob = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.AuthCredentials;
+import com.google.cloud.HttpServiceOptions.HttpTransportFactory;
+import com.google.cloud.RetryParams;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageOptions;
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class DefaultStorageRpcTest {
+
+  private static final String BUCKET = "b";
+  private static final String BOUNDARY = "batch_boundary";
+  private static final Pattern REQUEST_LINE =
+      Pattern.compile("^GET \\S*/storage/v1/b/" + BUCKET + "/o/([^?\\s]+)", Pattern.MULTILINE);
+  private static final Map<StorageRpc.Option, ?> EMPTY_RPC_OPTIONS = ImmutableMap.of();
+  private static final RetryParams RETRY_PARAMS = RetryParams.builder()
+      .initialRetryDelayMillis(1L)
+      .maxRetryDelayMillis(10L)
+      .retryMaxAttempts(3)
+      .build();
+
+  private FakeBatchTransport transport;
+
+  /**
+   * A transport that answers batch requests of object gets. The status returned for an object is
+   * taken from the statuses set for its name, 200 once they are exhausted. A batch request that
+   * gets an object named {@code fail-batch} fails as a whole.
+   */
+  private static class FakeBatchTransport extends MockHttpTransport {
+
+    private final Map<String, List<Integer>> statuses = new HashMap<>();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+
+    synchronized void statuses(String name, Integer... codes) {
+      List<Integer> list = new ArrayList<>();
+      Collections.addAll(list, codes);
+      statuses.put(name, list);
+    }
+
+    private synchronized int nextStatus(String name) {
+      List<Integer> list = statuses.get(name);
+      return list == null || list.isEmpty() ? 200 : list.remove(0);
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+      return new MockLowLevelHttpRequest(url) {
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+          batchRequests.incrementAndGet();
+          Matcher matcher = REQUEST_LINE.matcher(getContentAsString());
+          StringBuilder content = new StringBuilder();
+          while (matcher.find()) {
+            String name = matcher.group(1);
+            if ("fail-batch".equals(name)) {
+              return new MockLowLevelHttpResponse().setStatusCode(500);
+            }
+            int status = nextStatus(name);
+            content.append("--").append(BOUNDARY).append("\r\n")
+                .append("Content-Type: application/http\r\n\r\n")
+                .append("HTTP/1.1 ").append(status).append(" Status\r\n")
+                .append("Content-Type: application/json; charset=UTF-8\r\n\r\n");
+            if (status == 200) {
+              content.append("{\"bucket\":\"").append(BUCKET).append("\",\"name\":\"")
+                  .append(name).append("\"}\r\n");
+            } else {
+              content.append("{\"error\":{\"code\":").append(status)
+                  .append(",\"message\":\"error\",\"errors\":[{\"message\":\"error\"}]}}\r\n");
+            }
+          }
+          content.append("--").append(BOUNDARY).append("--\r\n");
+          return new MockLowLevelHttpResponse()
+              .setContentType("multipart/mixed; boundary=" + BOUNDARY)
+              .setContent(content.toString());
+        }
+      };
+    }
+  }
+
+  /**
+   * A callback that counts its calls, per object name.
+   */
+  private static class CountingCallback implements RpcBatch.Callback<StorageObject> {
+
+    private final ConcurrentMap<String, AtomicInteger> successes = new ConcurrentHashMap<>();
+    private final List<GoogleJsonError> failures =
+        Collections.synchronizedList(new ArrayList<GoogleJsonError>());
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public void onSuccess(StorageObject response) {
+      calls.incrementAndGet();
+      successes.putIfAbsent(response.getName(), new AtomicInteger());
+      successes.get(response.getName()).incrementAndGet();
+    }
+
+    @Override
+    public void onFailure(GoogleJsonError googleJsonError) {
+      calls.incrementAndGet();
+      failures.add(googleJsonError);
+    }
+  }
+
+  @Before
+  public void setUp() {
+    transport = new FakeBatchTransport();
+  }
+
+  private DefaultStorageRpc storageRpc(int batchConcurrency, RetryParams retryParams) {
+    return storageRpc(transport, batchConcurrency, retryParams);
+  }
+
+  private static DefaultStorageRpc storageRpc(final HttpTransport httpTransport,
+      int batchConcurrency, RetryParams retryParams) {
+    StorageOptions options = StorageOptions.builder()
+        .projectId("projectId")
+        .authCredentials(AuthCredentials.noAuth())
+        .httpTransportFactory(new HttpTransportFactory() {
+          @Override
+          public HttpTransport create() {
+            return httpTransport;
+          }
+        })
+        .retryParams(retryParams)
+        .batchConcurrency(batchConcurrency)
+        .build();
+    return new DefaultStorageRpc(options);
+  }
+
+  private static void addGet(RpcBatch batch, String name,
+      RpcBatch.Callback<StorageObject> callback) {
+    batch.addGet(new StorageObject().setBucket(BUCKET).setName(name), callback, EMPTY_RPC_OPTIONS);
+  }
+
+  @Test
+  public void testSubmitConcurrently() {
+    RpcBatch batch = storageRpc(4, RETRY_PARAMS).createBatch();
+    CountingCallback callback = new CountingCallback();
+    for (int i = 0; i < 250; i++) {
+      addGet(batch, "n" + i, callback);
+    }
+    batch.submit();
+    assertEquals(3, transport.batchRequests.get());
+    assertEquals(250, callback.calls.get());
+    assertEquals(250, callback.successes.size());
+    for (AtomicInteger count : callback.successes.values()) {
+      assertEquals(1, count.get());
+    }
+  }
+
+  @Test
+  public void testSubmitRetriesItems() {
+    transport.statuses("n1", 503);
+    transport.statuses("n2", 429, 500);
+    transport.statuses("n3", 503, 503, 503);
+    transport.statuses("n4", 404);
+    RpcBatch batch = storageRpc(1, RETRY_PARAMS).createBatch();
+    CountingCallback callback = new CountingCallback();
+    for (int i = 0; i < 5; i++) {
+      addGet(batch, "n" + i, callback);
+    }
+    batch.submit();
+    // one request per attempt, retried items only are sent again
+    assertEquals(3, transport.batchRequests.get());
+    assertEquals(5, callback.calls.get());
+    assertEquals(3, callback.successes.size());
+    assertNull(callback.successes.get("n3"));
+    assertNull(callback.successes.get("n4"));
+    List<Integer> codes = new ArrayList<>();
+    for (GoogleJsonError error : callback.failures) {
+      codes.add(error.getCode());
+    }
+    Collections.sort(codes);
+    // n3 is reported once retryMaxAttempts is reached, n4 is not retryable
+    assertEquals(Arrays.asList(404, 503), codes);
+  }
+
+  @Test
+  public void testSubmitNoRetries() {
+    transport.statuses("n1", 503);
+    RpcBatch batch = storageRpc(1, RetryParams.noRetries()).createBatch();
+    CountingCallback callback = new CountingCallback();
+    addGet(batch, "n0", callback);
+    addGet(batch, "n1", callback);
+    batch.submit();
+    assertEquals(1, transport.batchRequests.get());
+    assertEquals(2, callback.calls.get());
+    assertEquals(1, callback.successes.size());
+    assertEquals(503, (int) callback.failures.get(0).getCode());
+  }
+
+  @Test
+  public void testSubmitFailedPartition() {
+    RpcBatch batch = storageRpc(2, RetryParams.noRetries()).createBatch();
+    CountingCallback callback = new CountingCallback();
+    addGet(batch, "fail-batch", callback);
+    for (int i = 1; i < 200; i++) {
+      addGet(batch, "n" + i, callback);
+    }
+    try {
+      batch.submit();
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      // expected
+    }
+    // the second partition completes even if the first one fails
+    assertEquals(2, transport.batchRequests.get());
+    assertEquals(100, callback.successes.size());
+    assertTrue(callback.successes.containsKey("n199"));
+    assertTrue(callback.failures.isEmpty());
+  }
+
+  @Test
+  public void testSubmitFailedPartitionFailsRetriesAndUnsent() {
+    transport.statuses("n1", 503);
+    RpcBatch batch = storageRpc(1, RETRY_PARAMS).createBatch();
+    CountingCallback callback = new CountingCallback();
+    for (int i = 0; i < 100; i++) {
+      addGet(batch, "n" + i, callback);
+    }
+    addGet(batch, "fail-batch", callback);
+    for (int i = 101; i < 250; i++) {
+      addGet(batch, "n" + i, callback);
+    }
+    StorageException exception = null;
+    try {
+      batch.submit();
+      fail("Expected StorageException");
+    } catch (StorageException ex) {
+      exception = ex;
+    }
+    assertEquals(2, transport.batchRequests.get());
+    assertEquals(99, callback.successes.size());
+    assertNull(callback.successes.get("n1"));
+    // n1 fails with its retryable error, the third partition with the error of the second one
+    assertEquals(51, callback.failures.size());
+    assertEquals(503, (int) callback.failures.get(0).getCode());
+    for (GoogleJsonError error : callback.failures.subList(1, 51)) {
+      assertEquals(exception.code(), (int) error.getCode());
+      assertEquals(exception.getMessage(), error.getMessage());
+    }
+    // operations of the failed partition are not notified
+    assertEquals(150, callback.calls.get());
+  }
+
+  @Test
+  public void testOpenReadOffset() throws IOException {
+    StorageObject object = new StorageObject().setBucket(BUCKET).setName("n");
+    MockLowLevelHttpResponse partial = new MockLowLevelHttpResponse()
+        .setStatusCode(206)
+        .addHeader("Content-Range", "bytes 2-9/10")
+        .setContent(new byte[8]);
+    StorageRpc rpc = storageRpc(new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(partial).build(), 1, RETRY_PARAMS);
+    try (StorageRpc.ReadResponse response = rpc.openRead(object, EMPTY_RPC_OPTIONS, 2, -1)) {
+      assertEquals(2, response.offset());
+      assertEquals(10L, (long) response.blobSize());
+    }
+    // the range is ignored for transcoded content, which is returned whole
+    MockLowLevelHttpResponse whole = new MockLowLevelHttpResponse()
+        .setStatusCode(200)
+        .addHeader("Content-Encoding", "gzip")
+        .setContent(new byte[0]);
+    rpc = storageRpc(new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(whole).build(), 1, RETRY_PARAMS);
+    try (StorageRpc.ReadResponse response = rpc.openRead(object, EMPTY_RPC_OPTIONS, 2, -1)) {
+      assertEquals(0, response.offset());
+      assertNull(response.blobSize());
+    }
+  }
+}
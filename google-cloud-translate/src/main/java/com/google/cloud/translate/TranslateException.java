@@ -19,6 +19,7 @@ package com.google.cloud.translate;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.RetryHelper.ThrottledException;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
@@ -55,9 +56,12 @@ public class TranslateException extends BaseServiceException {
    *
    * @throws TranslateException when {@code ex} was caused by a {@code TranslateException}
    * @throws RetryInterruptedException when {@code ex} is a {@code RetryInterruptedException}
+   * @throws TranslateException caused by {@code ex} when {@code ex} is a {@code ThrottledException}
+   * that was not caused by a {@code TranslateException}
    */
   static BaseServiceException translateAndThrow(RetryHelperException ex) {
     BaseServiceException.translateAndPropagateIfPossible(ex);
-    throw new TranslateException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
+    throw new TranslateException(UNKNOWN_CODE, ex.getMessage(),
+        ex instanceof ThrottledException ? ex : ex.getCause());
   }
 }
@@ -62,7 +62,8 @@ final class TranslateImpl extends BaseService<TranslateOptions> implements Trans
         public List<LanguagesResource> call() {
           return translateRpc.listSupportedLanguages(optionMap(options));
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock()), Language.FROM_PB_FUNCTION);
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+      options().retryThrottler()), Language.FROM_PB_FUNCTION);
     } catch (RetryHelperException e) {
       throw TranslateException.translateAndThrow(e);
     }
@@ -77,7 +78,8 @@ final class TranslateImpl extends BaseService<TranslateOptions> implements Trans
             public List<List<DetectionsResourceItems>> call() {
               return translateRpc.detect(texts);
             }
-          }, options().retryParams(), EXCEPTION_HANDLER, options().clock());
+          }, options().retryParams(), EXCEPTION_HANDLER, options().clock(),
+          options().retryThrottler());
       Iterator<List<DetectionsResourceItems>> detectionIterator = detectionsPb.iterator();
       Iterator<String> textIterator = texts.iterator();
       while (detectionIterator.hasNext() && textIterator.hasNext()) {
@@ -111,7 +113,7 @@ final class TranslateImpl extends BaseService<TranslateOptions> implements Trans
         public List<TranslationsResource> call() {
           return translateRpc.translate(texts, optionMap(options));
         }
-      }, options().retryParams(), EXCEPTION_HANDLER, options().clock()),
+      }, options().retryParams(), EXCEPTION_HANDLER, options().clock(), options().retryThrottler()),
           Translation.FROM_PB_FUNCTION);
     } catch (RetryHelperException e) {
       throw TranslateException.translateAndThrow(e);